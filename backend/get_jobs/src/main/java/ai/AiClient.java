@@ -0,0 +1,544 @@
+package ai;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import boss.BossRunContext;
+import lombok.extern.slf4j.Slf4j;
+import util.UserContextUtil;
+
+/**
+ * AI对话客户端（DeepSeek Chat Completions）
+ * 进程内共享一个HttpClient（HTTP/2、长连接复用），请求异步发送，不占用调用方线程；
+ * 超时按请求设置，失败重试和退避也在异步链上完成（回调线程见{@link AiExecutors}，不带调用方的线程上下文，用户ID显式传递）
+ *
+ * 流式模式（{@link #streamRequestAsync}）逐段消费SSE响应：首个片段和整体分别设置期限，
+ * 片段实时回调给调用方，调用方认为内容已完整时可以提前结束，不必等模型生成完毕
+ *
+ * 每次发送（包括重试）都先经过{@link AiRequestGovernor}准入：自适应并发上限、按API Key和用户的令牌桶、熔断；
+ * 被拒绝的请求不发送，直接按失败处理
+ *
+ * @author ZhiTouJianLi Team
+ */
+@Slf4j
+public class AiClient {
+
+    /**
+     * 默认单次请求超时（AI诊断需要处理较长的简历内容）
+     */
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(120);
+
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(10);
+    private static final int MAX_ATTEMPTS = 3;
+
+    private static volatile AiClient shared;
+
+    private final HttpClient httpClient;
+    private final String baseUrl;
+    private final String apiKey;
+    private final String model;
+    private final AiRequestGovernor governor;
+
+    public AiClient(HttpClient httpClient, String baseUrl, String apiKey, String model) {
+        this(httpClient, baseUrl, apiKey, model, AiRequestGovernor.shared());
+    }
+
+    public AiClient(HttpClient httpClient, String baseUrl, String apiKey, String model, AiRequestGovernor governor) {
+        this.httpClient = httpClient;
+        this.baseUrl = baseUrl;
+        this.apiKey = apiKey;
+        this.model = model;
+        this.governor = governor;
+    }
+
+    /**
+     * 获取进程内共享的客户端（配置来自环境变量BASE_URL、API_KEY/DEEPSEEK_API_KEY、MODEL）
+     */
+    public static AiClient shared() {
+        AiClient client = shared;
+        if (client == null) {
+            synchronized (AiClient.class) {
+                client = shared;
+                if (client == null) {
+                    HttpClient httpClient = HttpClient.newBuilder()
+                        .version(HttpClient.Version.HTTP_2)
+                        .connectTimeout(CONNECT_TIMEOUT)
+                        .executor(AiExecutors.workers())
+                        .build();
+                    client = new AiClient(httpClient,
+                        getEnv("BASE_URL", "https://api.deepseek.com"),
+                        getEnv("API_KEY", getEnv("DEEPSEEK_API_KEY", "")),
+                        getEnv("MODEL", "deepseek-chat"));
+                    log.info("AI客户端已初始化，模型: {}, BASE_URL: {}, API_KEY: {}",
+                        client.model, client.baseUrl, client.maskedApiKey());
+                    shared = client;
+                }
+            }
+        }
+        return client;
+    }
+
+    /**
+     * 安全获取环境变量,支持默认值
+     */
+    private static String getEnv(String key, String defaultValue) {
+        String value = System.getenv(key);
+        return (value != null && !value.isEmpty()) ? value : defaultValue;
+    }
+
+    /**
+     * 当前调用方的用户（Boss运行的用户，或Web请求的登录用户），用于按用户限速
+     */
+    private static String currentUserId() {
+        String userId = BossRunContext.currentUserId();
+        if (userId == null) {
+            try {
+                if (UserContextUtil.hasCurrentUser()) {
+                    userId = UserContextUtil.getCurrentUserId();
+                }
+            } catch (RuntimeException | LinkageError e) {
+                // 非Web环境
+            }
+        }
+        return userId;
+    }
+
+    /**
+     * 同步发送（阻塞到完成，供尚未迁移的调用方使用）
+     *
+     * @param content 提示词，第一个空行之前为system消息，之后为user消息
+     * @return AI回复内容，失败时返回空字符串
+     */
+    public String sendRequest(String content) {
+        return sendRequestAsync(content).join();
+    }
+
+    /**
+     * 异步发送，使用默认超时
+     *
+     * @see #sendRequestAsync(String, Duration)
+     */
+    public CompletableFuture<String> sendRequestAsync(String content) {
+        return sendRequestAsync(content, DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * 异步发送：429和5xx退避后重试（优先使用Retry-After），401和其他错误不重试
+     *
+     * @param content 提示词，第一个空行之前为system消息，之后为user消息
+     * @param timeout 单次请求超时
+     * @return AI回复内容，失败时以空字符串完成（不会异常完成）
+     */
+    public CompletableFuture<String> sendRequestAsync(String content, Duration timeout) {
+        HttpRequest request = HttpRequest.newBuilder()
+            .uri(URI.create(baseUrl + "/v1/chat/completions"))
+            .timeout(timeout)
+            .header("Content-Type", "application/json")
+            .header("Accept", "application/json")
+            .header("Authorization", "Bearer " + apiKey)
+            .POST(HttpRequest.BodyPublishers.ofString(buildRequestBody(content, false)))
+            .build();
+        log.debug("发送AI请求，模型: {}, 超时: {}秒", model, timeout.getSeconds());
+        return attempt(request, 1, currentUserId());
+    }
+
+    /**
+     * 流式片段监听器（在HttpClient线程回调，应尽快返回）
+     */
+    @FunctionalInterface
+    public interface StreamListener {
+        /**
+         * @param delta 本次收到的片段
+         * @param text 到目前为止收到的完整文本
+         * @return true继续接收；false表示内容已足够，提前结束本次请求
+         */
+        boolean onDelta(String delta, String text);
+    }
+
+    /**
+     * 流式发送（不重试）
+     *
+     * @param content 提示词，第一个空行之前为system消息，之后为user消息
+     * @param firstTokenTimeout 收到第一个片段的期限（含建立连接和模型排队）
+     * @param totalTimeout 整体期限
+     * @param listener 片段监听器
+     * @return 完整文本（提前结束时为结束前收到的文本）；
+     *         超过期限以{@link TimeoutException}异常完成，HTTP错误以{@link IOException}异常完成；
+     *         调用方取消返回的Future（如客户端已断开）时中断请求并释放准入许可
+     */
+    public CompletableFuture<String> streamRequestAsync(String content, Duration firstTokenTimeout,
+                                                        Duration totalTimeout, StreamListener listener) {
+        HttpRequest request = HttpRequest.newBuilder()
+            .uri(URI.create(baseUrl + "/v1/chat/completions"))
+            .timeout(firstTokenTimeout)
+            .header("Content-Type", "application/json")
+            .header("Accept", "text/event-stream")
+            .header("Authorization", "Bearer " + apiKey)
+            .POST(HttpRequest.BodyPublishers.ofString(buildRequestBody(content, true)))
+            .build();
+        log.debug("发送AI流式请求，模型: {}, 首片段期限: {}秒, 整体期限: {}秒",
+            model, firstTokenTimeout.getSeconds(), totalTimeout.getSeconds());
+        CompletableFuture<String> handle = new CompletableFuture<>();
+        governor.acquire(apiKey, currentUserId()).whenComplete((permit, denied) -> {
+            if (denied != null) {
+                handle.completeExceptionally(denied);
+                return;
+            }
+            StreamingCall call = new StreamingCall(listener);
+            CompletableFuture<String> result = call.start(request, firstTokenTimeout, totalTimeout);
+            result.whenComplete((text, error) -> {
+                permit.release(call.outcome(error), call.firstTokenLatency());
+                if (error != null) {
+                    handle.completeExceptionally(error);
+                } else {
+                    handle.complete(text);
+                }
+            });
+            // 调用方取消（包括排队准入期间已取消）时中断连接
+            handle.whenComplete((text, error) -> {
+                if (handle.isCancelled()) {
+                    result.cancel(true);
+                }
+            });
+        });
+        return handle;
+    }
+
+    /**
+     * 一次流式请求：按行解析SSE（data: {...}），所有结束路径都通过result的首次完成来决定
+     */
+    private final class StreamingCall implements Flow.Subscriber<String> {
+        private final StreamListener listener;
+        private final CompletableFuture<String> result = new CompletableFuture<>();
+        private final StringBuilder text = new StringBuilder();
+        private volatile Flow.Subscription subscription;
+        private volatile CompletableFuture<HttpResponse<String>> exchange;
+        private final long startedAt = System.nanoTime();
+        private volatile boolean firstTokenReceived;
+        private volatile long firstTokenAt;
+        private volatile int statusCode;
+
+        StreamingCall(StreamListener listener) {
+            this.listener = listener;
+        }
+
+        AiRequestGovernor.Outcome outcome(Throwable error) {
+            if (error == null) {
+                return AiRequestGovernor.Outcome.SUCCESS;
+            }
+            if (error instanceof CancellationException) {
+                // 调用方主动取消，与服务端健康无关
+                return AiRequestGovernor.Outcome.IGNORED;
+            }
+            if (statusCode != 0 && statusCode != 200) {
+                return outcomeOf(statusCode);
+            }
+            return AiRequestGovernor.Outcome.FAILURE;
+        }
+
+        long firstTokenLatency() {
+            return (firstTokenReceived ? firstTokenAt : System.nanoTime()) - startedAt;
+        }
+
+        CompletableFuture<String> start(HttpRequest request, Duration firstTokenTimeout, Duration totalTimeout) {
+            // 结束后中断连接（HTTP/2下只重置该流，连接继续复用）
+            result.whenComplete((value, error) -> cancel());
+            AiExecutors.schedule(() -> {
+                if (!firstTokenReceived && result.completeExceptionally(
+                        new TimeoutException("首个片段超时（" + firstTokenTimeout.getSeconds() + "秒）"))) {
+                    log.warn("AI流式请求首个片段超时 after {}s", firstTokenTimeout.getSeconds());
+                }
+            }, firstTokenTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            AiExecutors.schedule(() -> {
+                if (result.completeExceptionally(
+                        new TimeoutException("整体超时（" + totalTimeout.getSeconds() + "秒）"))) {
+                    log.warn("AI流式请求整体超时 after {}s，已收到{}字", totalTimeout.getSeconds(), length());
+                }
+            }, totalTimeout.toMillis(), TimeUnit.MILLISECONDS);
+
+            exchange = httpClient.sendAsync(request, info -> (statusCode = info.statusCode()) == 200
+                    ? HttpResponse.BodySubscribers.fromLineSubscriber(this, s -> (String) null, StandardCharsets.UTF_8, null)
+                    : HttpResponse.BodySubscribers.ofString(StandardCharsets.UTF_8));
+            exchange.whenComplete((response, error) -> {
+                if (error != null) {
+                    Throwable cause = unwrap(error);
+                    if (cause instanceof HttpTimeoutException) {
+                        result.completeExceptionally(new TimeoutException("等待响应超时"));
+                    } else {
+                        result.completeExceptionally(cause);
+                    }
+                } else if (response.statusCode() != 200) {
+                    log.error("AI流式请求失败 code={} body={}", response.statusCode(), response.body());
+                    if (response.statusCode() == 401) {
+                        logAuthError(response.body());
+                    }
+                    result.completeExceptionally(new IOException("AI流式请求失败: HTTP " + response.statusCode()));
+                } else {
+                    // 流正常结束但没有收到[DONE]
+                    complete();
+                }
+            });
+            return result;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (result.isDone()) {
+                subscription.cancel();
+            } else {
+                subscription.request(Long.MAX_VALUE);
+            }
+        }
+
+        @Override
+        public void onNext(String line) {
+            if (result.isDone() || !line.startsWith("data:")) {
+                // 空行、注释（: keep-alive）等
+                return;
+            }
+            String data = line.substring(5).trim();
+            if ("[DONE]".equals(data)) {
+                complete();
+                return;
+            }
+            String delta;
+            try {
+                JSONArray choices = new JSONObject(data).optJSONArray("choices");
+                JSONObject deltaObject = choices != null && choices.length() > 0
+                    ? choices.getJSONObject(0).optJSONObject("delta") : null;
+                delta = deltaObject != null ? deltaObject.optString("content", "") : "";
+            } catch (Exception e) {
+                log.debug("忽略无法解析的流式片段: {}", data);
+                return;
+            }
+            if (delta.isEmpty()) {
+                return;
+            }
+            if (!firstTokenReceived) {
+                firstTokenAt = System.nanoTime();
+                firstTokenReceived = true;
+            }
+            String soFar;
+            synchronized (text) {
+                text.append(delta);
+                soFar = text.toString();
+            }
+            boolean more;
+            try {
+                more = listener == null || listener.onDelta(delta, soFar);
+            } catch (RuntimeException e) {
+                log.warn("AI流式片段回调失败: {}", e.getMessage());
+                more = true;
+            }
+            if (!more) {
+                log.debug("调用方提前结束AI流式请求，已收到{}字", soFar.length());
+                complete();
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            result.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            complete();
+        }
+
+        private void complete() {
+            synchronized (text) {
+                result.complete(text.toString());
+            }
+        }
+
+        private int length() {
+            synchronized (text) {
+                return text.length();
+            }
+        }
+
+        private void cancel() {
+            Flow.Subscription s = subscription;
+            if (s != null) {
+                s.cancel();
+            }
+            CompletableFuture<HttpResponse<String>> e = exchange;
+            if (e != null && !e.isDone()) {
+                e.cancel(true);
+            }
+        }
+    }
+
+    private CompletableFuture<String> attempt(HttpRequest request, int attempt, String userId) {
+        return governor.acquire(apiKey, userId)
+            .handle((permit, denied) -> {
+                if (denied != null) {
+                    // 熔断或过载：不发送、不重试，调用方直接降级
+                    log.warn("AI请求未发送 attempt={}: {}", attempt, unwrap(denied).getMessage());
+                    return CompletableFuture.completedFuture("");
+                }
+                return send(request, attempt, userId, permit);
+            })
+            .thenCompose(next -> next);
+    }
+
+    private CompletableFuture<String> send(HttpRequest request, int attempt, String userId,
+                                           AiRequestGovernor.Permit permit) {
+        long start = System.nanoTime();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+            .handle((response, error) -> {
+                long latency = System.nanoTime() - start;
+                if (error != null) {
+                    permit.release(AiRequestGovernor.Outcome.FAILURE, latency);
+                    Throwable cause = unwrap(error);
+                    if (cause instanceof HttpTimeoutException) {
+                        log.warn("AI请求超时 attempt={} after {}s", attempt,
+                            request.timeout().map(Duration::getSeconds).orElse(0L));
+                    } else {
+                        log.warn("AI请求异常 attempt={} err={}", attempt, cause.toString());
+                    }
+                    return retry(request, attempt, userId, 0);
+                }
+                int code = response.statusCode();
+                permit.release(outcomeOf(code), latency);
+                if (code == 200) {
+                    return CompletableFuture.completedFuture(parseContent(response.body()));
+                }
+                log.error("AI请求失败 attempt={} code={} body={}", attempt, code, response.body());
+                if (code == 401) {
+                    // 认证错误不重试
+                    logAuthError(response.body());
+                    return CompletableFuture.completedFuture("");
+                }
+                if (code == 429 || code >= 500) {
+                    return retry(request, attempt, userId, backoffMillis(response, attempt));
+                }
+                return CompletableFuture.completedFuture("");
+            })
+            .thenCompose(next -> next);
+    }
+
+    private CompletableFuture<String> retry(HttpRequest request, int attempt, String userId, long delayMillis) {
+        if (attempt >= MAX_ATTEMPTS) {
+            return CompletableFuture.completedFuture("");
+        }
+        if (delayMillis <= 0) {
+            return attempt(request, attempt + 1, userId);
+        }
+        return AiExecutors.delay(delayMillis, TimeUnit.MILLISECONDS)
+            .thenCompose(ignored -> attempt(request, attempt + 1, userId));
+    }
+
+    /**
+     * 重试等待：服务端给出Retry-After（秒）时照办，否则1s、2s指数退避并加随机抖动，避免各调用方同时重试
+     */
+    private static long backoffMillis(HttpResponse<?> response, int attempt) {
+        long retryAfter = response.headers().firstValue("Retry-After").map(value -> {
+            try {
+                return Long.parseLong(value.trim()) * 1000L;
+            } catch (NumberFormatException e) {
+                return 0L;
+            }
+        }).orElse(0L);
+        if (retryAfter > 0) {
+            return retryAfter;
+        }
+        long base = 1000L * (1L << (attempt - 1));
+        return base + ThreadLocalRandom.current().nextLong(base / 2 + 1);
+    }
+
+    static AiRequestGovernor.Outcome outcomeOf(int statusCode) {
+        if (statusCode == 200) {
+            return AiRequestGovernor.Outcome.SUCCESS;
+        }
+        if (statusCode == 429) {
+            return AiRequestGovernor.Outcome.RATE_LIMITED;
+        }
+        return statusCode >= 500 ? AiRequestGovernor.Outcome.FAILURE : AiRequestGovernor.Outcome.IGNORED;
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    private String buildRequestBody(String content, boolean stream) {
+        // 构建 JSON 请求体 - DeepSeek Chat Completions
+        JSONObject requestData = new JSONObject();
+        requestData.put("model", model);
+        requestData.put("temperature", 0.25); // 降低发散
+        requestData.put("stream", stream);
+        JSONArray messages = new JSONArray();
+        // 将 content 拆为 system + user 两段；约定用第一个空行分隔，不则全部作为 user
+        String sys = "You are a helpful assistant.";
+        String user = content;
+        if (content.contains("\n\n")) {
+            int idx = content.indexOf("\n\n");
+            sys = content.substring(0, idx).trim();
+            user = content.substring(idx + 2).trim();
+        }
+        JSONObject sysMsg = new JSONObject();
+        sysMsg.put("role", "system");
+        sysMsg.put("content", sys);
+        messages.put(sysMsg);
+        JSONObject userMsg = new JSONObject();
+        userMsg.put("role", "user");
+        userMsg.put("content", user);
+        messages.put(userMsg);
+        requestData.put("messages", messages);
+        return requestData.toString();
+    }
+
+    private static String parseContent(String body) {
+        try {
+            JSONObject responseObject = new JSONObject(body);
+            JSONArray choices = responseObject.optJSONArray("choices");
+            if (choices != null && choices.length() > 0) {
+                JSONObject messageObject = choices.getJSONObject(0).getJSONObject("message");
+                return messageObject.optString("content", "");
+            }
+        } catch (Exception e) {
+            log.error("解析AI响应失败: {}", e.getMessage());
+        }
+        log.error("AI响应中没有有效的choices，完整响应: {}", body);
+        return "";
+    }
+
+    private static void logAuthError(String errorBody) {
+        log.error("❌ AI服务认证失败（401），API_KEY可能无效或已过期");
+        try {
+            JSONObject error = new JSONObject(errorBody).optJSONObject("error");
+            if (error != null) {
+                log.error("❌ AI服务错误详情: {}", error.optString("message", "API_KEY认证失败"));
+                log.error("❌ 解决方案: 请检查DeepSeek账户中的API_KEY是否有效，如果无效请生成新的API_KEY并更新环境变量");
+            }
+        } catch (Exception e) {
+            // 忽略JSON解析错误
+        }
+    }
+
+    private String maskedApiKey() {
+        // 不输出完整API_KEY，只显示前10个字符
+        if (apiKey != null && apiKey.length() > 10) {
+            return apiKey.substring(0, 10) + "...";
+        }
+        return apiKey != null && !apiKey.isEmpty() ? "已配置" : "未配置";
+    }
+}
@@ -0,0 +1,61 @@
+package ai;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * AI请求的异步线程（超时、重试退避、排队等待的定时回调，以及HttpClient的回调）
+ * 不使用JDK的公共线程池和CompletableFuture.delayedExecutor：这些线程在进程内共享、按需创建，
+ * 多租户宿主进程中会带上首个创建者的线程上下文；这里的线程不继承任何ThreadLocal，
+ * 回调需要的用户信息由调用链显式传递
+ *
+ * @author ZhiTouJianLi Team
+ */
+final class AiExecutors {
+
+    private static final ScheduledExecutorService TIMER =
+        Executors.newSingleThreadScheduledExecutor(threadFactory("ai-timer"));
+
+    private static final ExecutorService WORKERS = Executors.newCachedThreadPool(threadFactory("ai-worker"));
+
+    private AiExecutors() {
+    }
+
+    /**
+     * @return 回调线程池（也作为HttpClient的执行器）
+     */
+    static ExecutorService workers() {
+        return WORKERS;
+    }
+
+    /**
+     * 延迟执行任务（定时线程只负责计时，任务在回调线程池中执行）
+     */
+    static void schedule(Runnable task, long delay, TimeUnit unit) {
+        TIMER.schedule(() -> WORKERS.execute(task), delay, unit);
+    }
+
+    /**
+     * @return 延迟结束时在回调线程池中完成的Future
+     */
+    static CompletableFuture<Void> delay(long delay, TimeUnit unit) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        schedule(() -> future.complete(null), delay, unit);
+        return future;
+    }
+
+    private static ThreadFactory threadFactory(String name) {
+        AtomicInteger index = new AtomicInteger();
+        return r -> {
+            // 不继承创建线程的InheritableThreadLocal
+            Thread thread = new Thread(null, r, name + "-" + index.incrementAndGet(), 0, false);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,422 @@
+package ai;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * AI请求准入控制（进程内共享）
+ * 1. 并发上限按AIMD自适应：请求正常且不慢时每个"窗口"加1，遇到429、超时或慢请求时减半
+ * 2. 令牌桶限速：每个API Key一个桶，每个用户一个桶（同时满足才放行，不足时排队等待令牌）
+ * 3. 熔断：最近一段请求失败率过高时打开，期间直接拒绝；冷却后放行一个探测请求，成功则恢复
+ *
+ * 超过并发上限的请求在队列中等待，等待超时、队列已满或熔断打开时以{@link AiUnavailableException}快速失败，
+ * 不再让每个调用方各自重试加重服务端负担。状态通过getter暴露，由MetricsConfig注册为Micrometer指标
+ *
+ * @author ZhiTouJianLi Team
+ */
+@Slf4j
+public final class AiRequestGovernor {
+
+    /**
+     * 请求结果（用于调整并发上限和熔断状态）
+     */
+    public enum Outcome {
+        /** 成功 */
+        SUCCESS,
+        /** 服务端限流（429） */
+        RATE_LIMITED,
+        /** 服务端错误、超时或连接失败 */
+        FAILURE,
+        /** 与服务端健康无关的结果（如401、400），不参与调整 */
+        IGNORED
+    }
+
+    /**
+     * 熔断状态
+     */
+    public enum CircuitState {
+        CLOSED,
+        HALF_OPEN,
+        OPEN
+    }
+
+    /**
+     * 拒绝原因
+     */
+    public enum RejectReason {
+        CIRCUIT_OPEN,
+        THROTTLED,
+        QUEUE_FULL,
+        QUEUE_TIMEOUT
+    }
+
+    /**
+     * AI服务暂不可用（熔断或过载），调用方应直接降级
+     */
+    public static class AiUnavailableException extends RuntimeException {
+        private final RejectReason reason;
+
+        public AiUnavailableException(RejectReason reason, String message) {
+            super(message);
+            this.reason = reason;
+        }
+
+        public RejectReason getReason() {
+            return reason;
+        }
+    }
+
+    private static final AiRequestGovernor SHARED = new AiRequestGovernor(
+        Integer.getInteger("ai.limiter.initial-concurrency", 8),
+        Integer.getInteger("ai.limiter.max-concurrency", 32),
+        Long.getLong("ai.limiter.slow-call-millis", 45_000L),
+        Double.parseDouble(System.getProperty("ai.limiter.key-rate", "5")),
+        Double.parseDouble(System.getProperty("ai.limiter.user-rate", "0.5")),
+        System::nanoTime);
+
+    private static final int MIN_CONCURRENCY = 1;
+    private static final int MAX_QUEUE = 200;
+    private static final long MAX_WAIT_NANOS = TimeUnit.SECONDS.toNanos(30);
+    private static final long DECREASE_COOLDOWN_NANOS = TimeUnit.SECONDS.toNanos(2);
+    private static final double KEY_BURST_SECONDS = 2;
+    private static final int USER_BURST = 5;
+
+    private static final int WINDOW_SIZE = 20;
+    private static final int MIN_CALLS = 10;
+    private static final double FAILURE_RATE_THRESHOLD = 0.5;
+    private static final long OPEN_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    private final int maxConcurrency;
+    private final long slowCallNanos;
+    private final double keyRate;
+    private final double userRate;
+    private final LongSupplier nanoClock;
+
+    private final Map<String, TokenBucket> keyBuckets = new ConcurrentHashMap<>();
+    private final Map<String, TokenBucket> userBuckets = new ConcurrentHashMap<>();
+    private final Map<RejectReason, LongAdder> rejected = new EnumMap<>(RejectReason.class);
+
+    // 以下状态由this保护
+    private final ArrayDeque<Waiter> waiters = new ArrayDeque<>();
+    private double limit;
+    private int inFlight;
+    private long lastDecreaseAt;
+    private CircuitState circuit = CircuitState.CLOSED;
+    private long openedAt;
+    private boolean probeInFlight;
+    private final boolean[] window = new boolean[WINDOW_SIZE];
+    private int windowCount;
+    private int windowFailures;
+    private int windowIndex;
+
+    AiRequestGovernor(int initialConcurrency, int maxConcurrency, long slowCallMillis,
+                      double keyRate, double userRate, LongSupplier nanoClock) {
+        this.limit = initialConcurrency;
+        this.maxConcurrency = maxConcurrency;
+        this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(slowCallMillis);
+        this.keyRate = keyRate;
+        this.userRate = userRate;
+        this.nanoClock = nanoClock;
+        this.lastDecreaseAt = nanoClock.getAsLong() - DECREASE_COOLDOWN_NANOS;
+        for (RejectReason reason : RejectReason.values()) {
+            rejected.put(reason, new LongAdder());
+        }
+    }
+
+    public static AiRequestGovernor shared() {
+        return SHARED;
+    }
+
+    /**
+     * 申请一次请求许可（不阻塞调用方线程）
+     *
+     * @param apiKey API Key（按Key限速）
+     * @param userId 用户ID，null表示不按用户限速
+     * @return 许可；被拒绝时以{@link AiUnavailableException}异常完成
+     */
+    public CompletableFuture<Permit> acquire(String apiKey, String userId) {
+        synchronized (this) {
+            if (!admitByCircuit()) {
+                return reject(RejectReason.CIRCUIT_OPEN, "AI服务熔断中，暂停调用");
+            }
+        }
+        long now = nanoClock.getAsLong();
+        TokenBucket keyBucket = keyBuckets.computeIfAbsent(apiKey == null ? "" : apiKey,
+            k -> new TokenBucket(keyRate, Math.max(1, keyRate * KEY_BURST_SECONDS), now));
+        TokenBucket userBucket = userId == null ? null
+            : userBuckets.computeIfAbsent(userId, k -> new TokenBucket(userRate, USER_BURST, now));
+        long delay = keyBucket.reserve(now);
+        if (userBucket != null) {
+            delay = Math.max(delay, userBucket.reserve(now));
+        }
+        if (delay > MAX_WAIT_NANOS) {
+            // 被拒绝的请求不占用令牌：归还两个桶的预约，否则持续重试会让桶越欠越多
+            keyBucket.refund();
+            if (userBucket != null) {
+                userBucket.refund();
+            }
+            releaseProbe();
+            return reject(RejectReason.THROTTLED, "AI请求过于频繁，请稍后重试");
+        }
+        if (delay <= 0) {
+            return admit();
+        }
+        return AiExecutors.delay(delay, TimeUnit.NANOSECONDS)
+            .thenCompose(ignored -> admit());
+    }
+
+    private CompletableFuture<Permit> admit() {
+        synchronized (this) {
+            if (inFlight < currentLimit() && waiters.isEmpty()) {
+                inFlight++;
+                return CompletableFuture.completedFuture(new Permit());
+            }
+            if (waiters.size() >= MAX_QUEUE) {
+                releaseProbe();
+                return reject(RejectReason.QUEUE_FULL, "AI请求排队已满");
+            }
+            Waiter waiter = new Waiter();
+            waiters.addLast(waiter);
+            AiExecutors.schedule(() -> expire(waiter), MAX_WAIT_NANOS, TimeUnit.NANOSECONDS);
+            return waiter.future;
+        }
+    }
+
+    private void expire(Waiter waiter) {
+        synchronized (this) {
+            if (!waiters.remove(waiter)) {
+                return;
+            }
+        }
+        releaseProbe();
+        rejected.get(RejectReason.QUEUE_TIMEOUT).increment();
+        waiter.future.completeExceptionally(
+            new AiUnavailableException(RejectReason.QUEUE_TIMEOUT, "AI请求排队超时"));
+    }
+
+    private <T> CompletableFuture<T> reject(RejectReason reason, String message) {
+        rejected.get(reason).increment();
+        log.debug("AI请求被拒绝: {}", reason);
+        return CompletableFuture.failedFuture(new AiUnavailableException(reason, message));
+    }
+
+    /**
+     * 熔断检查（持有锁时调用）；半开状态只放行一个探测请求
+     */
+    private boolean admitByCircuit() {
+        if (circuit == CircuitState.OPEN) {
+            if (nanoClock.getAsLong() - openedAt < OPEN_NANOS) {
+                return false;
+            }
+            circuit = CircuitState.HALF_OPEN;
+            probeInFlight = false;
+            log.info("AI熔断冷却结束，放行探测请求");
+        }
+        if (circuit == CircuitState.HALF_OPEN) {
+            if (probeInFlight) {
+                return false;
+            }
+            probeInFlight = true;
+        }
+        return true;
+    }
+
+    private synchronized void releaseProbe() {
+        if (circuit == CircuitState.HALF_OPEN) {
+            probeInFlight = false;
+        }
+    }
+
+    private int currentLimit() {
+        return (int) Math.floor(limit);
+    }
+
+    private void onComplete(Outcome outcome, long latencyNanos) {
+        synchronized (this) {
+            inFlight--;
+            adjustLimit(outcome, latencyNanos);
+            recordCircuit(outcome);
+        }
+        // 按新的上限放行排队的请求（在锁外完成future，避免回调在锁内执行）
+        Waiter next;
+        while ((next = pollAdmissible()) != null) {
+            if (!next.future.complete(new Permit())) {
+                synchronized (this) {
+                    inFlight--;
+                }
+            }
+        }
+    }
+
+    private synchronized Waiter pollAdmissible() {
+        if (waiters.isEmpty() || inFlight >= currentLimit()) {
+            return null;
+        }
+        inFlight++;
+        return waiters.pollFirst();
+    }
+
+    private void adjustLimit(Outcome outcome, long latencyNanos) {
+        boolean slow = latencyNanos > slowCallNanos;
+        if (outcome == Outcome.SUCCESS && !slow) {
+            // 加性增：约每完成limit个请求上限加1
+            limit = Math.min(maxConcurrency, limit + 1.0 / limit);
+        } else if (outcome == Outcome.RATE_LIMITED || outcome == Outcome.FAILURE || slow) {
+            long now = nanoClock.getAsLong();
+            // 乘性减：同一批请求同时失败只减一次
+            if (now - lastDecreaseAt >= DECREASE_COOLDOWN_NANOS) {
+                double previous = limit;
+                limit = Math.max(MIN_CONCURRENCY, limit / 2);
+                lastDecreaseAt = now;
+                log.info("AI并发上限下调: {} -> {}（{}）", currentLimit(previous), currentLimit(),
+                    slow && outcome == Outcome.SUCCESS ? "响应变慢" : outcome);
+            }
+        }
+    }
+
+    private static int currentLimit(double value) {
+        return (int) Math.floor(value);
+    }
+
+    private void recordCircuit(Outcome outcome) {
+        if (outcome == Outcome.IGNORED) {
+            if (circuit == CircuitState.HALF_OPEN) {
+                probeInFlight = false;
+            }
+            return;
+        }
+        boolean failed = outcome != Outcome.SUCCESS;
+        if (circuit == CircuitState.HALF_OPEN) {
+            probeInFlight = false;
+            if (failed) {
+                open();
+            } else {
+                circuit = CircuitState.CLOSED;
+                resetWindow();
+                log.info("✅ AI服务探测请求成功，熔断关闭");
+            }
+            return;
+        }
+        if (circuit != CircuitState.CLOSED) {
+            return;
+        }
+        if (windowCount == WINDOW_SIZE && window[windowIndex]) {
+            windowFailures--;
+        }
+        window[windowIndex] = failed;
+        if (failed) {
+            windowFailures++;
+        }
+        windowIndex = (windowIndex + 1) % WINDOW_SIZE;
+        windowCount = Math.min(WINDOW_SIZE, windowCount + 1);
+        if (windowCount >= MIN_CALLS && (double) windowFailures / windowCount >= FAILURE_RATE_THRESHOLD) {
+            open();
+        }
+    }
+
+    private void open() {
+        circuit = CircuitState.OPEN;
+        openedAt = nanoClock.getAsLong();
+        resetWindow();
+        log.warn("⚠️ AI服务失败率过高，熔断打开{}秒", TimeUnit.NANOSECONDS.toSeconds(OPEN_NANOS));
+    }
+
+    private void resetWindow() {
+        windowCount = 0;
+        windowFailures = 0;
+        windowIndex = 0;
+    }
+
+    public synchronized double getLimit() {
+        return limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public synchronized int getQueued() {
+        return waiters.size();
+    }
+
+    public synchronized CircuitState getCircuitState() {
+        if (circuit == CircuitState.OPEN && nanoClock.getAsLong() - openedAt >= OPEN_NANOS) {
+            return CircuitState.HALF_OPEN;
+        }
+        return circuit;
+    }
+
+    public long getRejectedCount(RejectReason reason) {
+        return rejected.get(reason).sum();
+    }
+
+    /**
+     * 请求许可，请求结束后必须调用一次{@link #release}
+     */
+    public final class Permit {
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit() {
+        }
+
+        /**
+         * @param outcome 请求结果
+         * @param latencyNanos 请求耗时（流式请求为首个片段耗时）
+         */
+        public void release(Outcome outcome, long latencyNanos) {
+            if (released.compareAndSet(false, true)) {
+                onComplete(outcome, latencyNanos);
+            }
+        }
+    }
+
+    /**
+     * 排队等待并发许可的请求
+     */
+    private static final class Waiter {
+        private final CompletableFuture<Permit> future = new CompletableFuture<>();
+    }
+
+    /**
+     * 令牌桶（预约式：令牌不足时返回需要等待的时间并预先扣减，等待结束即可放行）
+     */
+    private static final class TokenBucket {
+        private final double ratePerNano;
+        private final double capacity;
+        private double tokens;
+        private long updatedAt;
+
+        TokenBucket(double ratePerSecond, double capacity, long now) {
+            this.ratePerNano = ratePerSecond / TimeUnit.SECONDS.toNanos(1);
+            this.capacity = capacity;
+            this.tokens = capacity;
+            this.updatedAt = now;
+        }
+
+        /**
+         * @return 需要等待的纳秒数，0表示立即可用
+         */
+        synchronized long reserve(long now) {
+            tokens = Math.min(capacity, tokens + (now - updatedAt) * ratePerNano);
+            updatedAt = now;
+            tokens -= 1;
+            return tokens >= 0 ? 0 : (long) Math.ceil(-tokens / ratePerNano);
+        }
+
+        /**
+         * 归还一次预约（请求未被放行时调用）
+         */
+        synchronized void refund() {
+            tokens = Math.min(capacity, tokens + 1);
+        }
+    }
+}
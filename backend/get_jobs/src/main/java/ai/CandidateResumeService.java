@@ -104,7 +104,7 @@ public class CandidateResumeService {
 
             // 调用AI服务，temperature=0.3保证稳定性
             String fullPrompt = RESUME_PARSE_SYSTEM_PROMPT + "%n%n" + userPrompt;
-            String aiResponse = AiService.sendRequest(fullPrompt);
+            String aiResponse = AiClient.shared().sendRequest(fullPrompt);
 
             if (aiResponse == null || aiResponse.trim().isEmpty()) {
                 // ✅ 改进：提供更详细的错误信息，帮助用户诊断问题
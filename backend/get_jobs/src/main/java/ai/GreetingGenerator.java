@@ -41,6 +41,16 @@ public class GreetingGenerator {
         }
         """;
 
+    private final AiClient aiClient;
+
+    public GreetingGenerator() {
+        this(AiClient.shared());
+    }
+
+    public GreetingGenerator(AiClient aiClient) {
+        this.aiClient = aiClient;
+    }
+
     /**
      * 生成打招呼语
      * 
@@ -60,7 +70,7 @@ public class GreetingGenerator {
             String systemPrompt = "production".equals(mode) ? PRODUCTION_SYSTEM_PROMPT : DEBUG_SYSTEM_PROMPT;
             
             // 调用AI服务
-            String aiResponse = AiService.sendRequest(systemPrompt + "%n%n" + userPrompt);
+            String aiResponse = aiClient.sendRequest(systemPrompt + "%n%n" + userPrompt);
             
             if (aiResponse == null || aiResponse.trim().isEmpty()) {
                 throw new RuntimeException("AI服务返回空响应");
@@ -0,0 +1,78 @@
+package ai;
+
+import java.util.Arrays;
+
+/**
+ * 打招呼语AI等待预算
+ * 记录最近一批AI打招呼语的实际耗时，等待预算取其高分位数再留出余量，并限制在[最小值, 最大值]之间；
+ * AI响应变慢时预算随之放宽，直到上限后改用模板，投递流程不会因为AI服务抖动而停顿
+ *
+ * 配置（系统属性）：
+ * - ai.greeting.budget.min-millis：预算下限，默认3000
+ * - ai.greeting.budget.max-millis：预算上限，默认30000
+ * - ai.greeting.budget.initial-millis：样本不足时使用的预算，默认15000
+ *
+ * @author ZhiTouJianLi Team
+ */
+public final class GreetingLatencyBudget {
+
+    private static final int WINDOW_SIZE = 64;
+    private static final int MIN_SAMPLES = 5;
+    private static final double PERCENTILE = 0.9;
+    private static final double HEADROOM = 1.25;
+
+    private static final GreetingLatencyBudget SHARED = new GreetingLatencyBudget(
+        Long.getLong("ai.greeting.budget.min-millis", 3_000L),
+        Long.getLong("ai.greeting.budget.max-millis", 30_000L),
+        Long.getLong("ai.greeting.budget.initial-millis", 15_000L));
+
+    private final long minMillis;
+    private final long maxMillis;
+    private final long initialMillis;
+
+    // 以下状态由this保护
+    private final long[] samples = new long[WINDOW_SIZE];
+    private int count;
+    private int next;
+
+    GreetingLatencyBudget(long minMillis, long maxMillis, long initialMillis) {
+        this.minMillis = minMillis;
+        this.maxMillis = Math.max(minMillis, maxMillis);
+        this.initialMillis = initialMillis;
+    }
+
+    public static GreetingLatencyBudget shared() {
+        return SHARED;
+    }
+
+    /**
+     * 记录一次AI打招呼语耗时（包括超出预算后才返回的请求，避免样本偏向快速请求）
+     *
+     * @param latencyMillis 从发起到得到完整打招呼语的耗时
+     */
+    public synchronized void record(long latencyMillis) {
+        samples[next] = latencyMillis;
+        next = (next + 1) % WINDOW_SIZE;
+        count = Math.min(WINDOW_SIZE, count + 1);
+    }
+
+    /**
+     * @return 当前等待预算（毫秒）
+     */
+    public long currentMillis() {
+        long[] sorted;
+        synchronized (this) {
+            if (count < MIN_SAMPLES) {
+                return clamp(initialMillis);
+            }
+            sorted = Arrays.copyOf(samples, count);
+        }
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(PERCENTILE * sorted.length) - 1;
+        return clamp((long) (sorted[Math.max(0, index)] * HEADROOM));
+    }
+
+    private long clamp(long millis) {
+        return Math.max(minMillis, Math.min(maxMillis, millis));
+    }
+}
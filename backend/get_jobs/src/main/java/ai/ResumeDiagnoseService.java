@@ -14,7 +14,7 @@ import lombok.extern.slf4j.Slf4j;
 
 /**
  * 简历诊断服务（MVP）
- * - 组装提示词（System+User），调用 DeepSeek（复用 AiService）
+ * - 组装提示词（System+User），调用 DeepSeek（复用共享的 AiClient）
  * - 解析返回（先 JSON 后 Markdown），容错修复
  * - 失败时提供最小占位 JSON
  */
@@ -49,10 +49,20 @@ public class ResumeDiagnoseService {
         "- rewrite 部分必须包含重写后的内容（可以是HTML格式的字符串）\n" +
         "- 所有内容必须基于简历原文，不得编造任何信息";
 
+    private final AiClient aiClient;
+
+    public ResumeDiagnoseService() {
+        this(AiClient.shared());
+    }
+
+    public ResumeDiagnoseService(AiClient aiClient) {
+        this.aiClient = aiClient;
+    }
+
     public DiagnoseResult diagnose(String text, String locale, String persona, int maxPages) {
         String userPrompt = buildUserPrompt(text, locale, persona, maxPages);
         String fullPrompt = SYSTEM_PROMPT + "\n\n" + userPrompt;
-        String ai = AiService.sendRequest(fullPrompt);
+        String ai = aiClient.sendRequest(fullPrompt);
         if (ai == null) ai = "";
         log.info("LLM 原始输出长度: {}", ai.length());
         Parsed parsed = parseJsonAndMarkdown(ai);
@@ -35,6 +35,16 @@ public class ResumeParser {
         }
         """;
 
+    private final AiClient aiClient;
+
+    public ResumeParser() {
+        this(AiClient.shared());
+    }
+
+    public ResumeParser(AiClient aiClient) {
+        this.aiClient = aiClient;
+    }
+
     /**
      * 解析简历文本，提取结构化信息
      * 
@@ -49,7 +59,7 @@ public class ResumeParser {
             String userPrompt = String.format("简历文本：%n%s%n%n请输出JSON格式的解析结果。", resumeText);
             
             // 调用AI服务
-            String aiResponse = AiService.sendRequest(SYSTEM_PROMPT + "%n%n" + userPrompt);
+            String aiResponse = aiClient.sendRequest(SYSTEM_PROMPT + "%n%n" + userPrompt);
             
             if (aiResponse == null || aiResponse.trim().isEmpty()) {
                 throw new RuntimeException("AI服务返回空响应");
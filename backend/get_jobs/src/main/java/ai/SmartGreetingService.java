@@ -2,6 +2,9 @@ package ai;
 
 import lombok.extern.slf4j.Slf4j;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Locale;
 import java.util.Map;
 import java.util.List;
 import java.util.concurrent.*;
@@ -21,6 +24,33 @@ public class SmartGreetingService {
      */
     private static final int AI_TIMEOUT_SECONDS = 120;
 
+    /**
+     * 首个片段期限：超过这个时间还没有开始输出，基本可以判断AI服务排队或不可用
+     */
+    private static final int FIRST_TOKEN_TIMEOUT_SECONDS = 30;
+
+    /**
+     * 打招呼语长度上限（超过后截取，流式接收到这个长度即可结束）
+     */
+    private static final int MAX_GREETING_LENGTH = 300;
+
+    /**
+     * 打招呼语之后可能追加的说明段落（出现即说明打招呼语已完整）
+     */
+    private static final List<String> TRAILER_MARKERS = List.of(
+        "\n---", "\n注：", "\n注:", "\n说明：", "\n说明:", "\n备注：", "\n（注");
+
+    /**
+     * 判断说明段落之前至少要有的正文长度，避免把开头误判为结尾
+     */
+    private static final int MIN_GREETING_LENGTH = 40;
+
+    /**
+     * 模板打招呼语最多列出的技能数、核心优势的最大长度
+     */
+    private static final int TEMPLATE_MAX_SKILLS = 3;
+    private static final int TEMPLATE_MAX_STRENGTH_LENGTH = 60;
+
     /**
      * Stage B - JD匹配与打招呼语生成Prompt（System）
      */
@@ -61,17 +91,14 @@ public class SmartGreetingService {
             return null;
         }
 
-        // 使用ExecutorService实现超时控制
-        ExecutorService executor = Executors.newSingleThreadExecutor();
-        Future<String> future = executor.submit(() -> {
-            return generateGreetingInternal(candidate, jobName, fullJobDescription);
-        });
+        // 流式接收，打招呼语完整后提前结束；首个片段和整体期限由请求自身控制，这里只等待结果
+        CompletableFuture<String> future = streamSmartGreeting(candidate, jobName, fullJobDescription, null);
 
         try {
             log.info("【智能打招呼】开始生成，岗位: {}，超时设置: {}秒", jobName, AI_TIMEOUT_SECONDS);
             long startTime = System.currentTimeMillis();
 
-            // 等待AI响应，最长5分钟
+            // 等待AI响应（含重试），超过总时限放弃
             String greeting = future.get(AI_TIMEOUT_SECONDS, TimeUnit.SECONDS);
 
             long duration = (System.currentTimeMillis() - startTime) / 1000;
@@ -99,26 +126,223 @@ public class SmartGreetingService {
                 log.error("【智能打招呼】根本原因: {}", e.getCause().getMessage());
             }
             return null;
-
-        } finally {
-            executor.shutdownNow();
         }
     }
 
     /**
-     * 内部实现：生成打招呼语
+     * 分级生成打招呼语（投递流程使用）
+     * 先渲染模板打招呼语兜底，AI打招呼语只在等待预算内返回时才使用；预算由{@link GreetingLatencyBudget}
+     * 根据最近的AI耗时自适应调整。AI超出预算时不取消，稍后返回的结果通过{@link TieredGreeting#getLateAiGreeting()}
+     * 交给调用方（如写入缓存），每个岗位的等待时间不受AI服务波动影响
+     *
+     * @param candidate 候选人信息JSON
+     * @param jobName 岗位名称
+     * @param fullJobDescription 完整岗位描述
+     * @return 打招呼语；候选人信息不足以渲染模板且AI也未及时返回时，结果文本为null
      */
-    private static String generateGreetingInternal(Map<String, Object> candidate, String jobName, String fullJobDescription) {
+    public static TieredGreeting generateTieredGreeting(Map<String, Object> candidate, String jobName,
+                                                        String fullJobDescription) {
+        String template = renderTemplateGreeting(candidate, jobName, fullJobDescription);
+        if (candidate == null || fullJobDescription == null || fullJobDescription.trim().isEmpty()) {
+            log.warn("【智能打招呼】候选人信息或岗位描述为空，使用模板打招呼语");
+            return new TieredGreeting(template, false, null);
+        }
+
+        GreetingLatencyBudget budget = GreetingLatencyBudget.shared();
+        long budgetMillis = budget.currentMillis();
+        long startNanos = System.nanoTime();
+        CompletableFuture<String> future = streamSmartGreeting(candidate, jobName, fullJobDescription, null);
+        future.whenComplete((greeting, error) -> {
+            // 超出预算后才返回的请求同样计入，整体超时按期限计入
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause == null || cause instanceof TimeoutException) {
+                budget.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+            }
+        });
+
+        log.info("【智能打招呼】开始生成，岗位: {}，AI等待预算: {}ms", jobName, budgetMillis);
         try {
-            // 构建User Prompt
-            String userPrompt = buildUserPrompt(candidate, jobName, fullJobDescription);
+            String greeting = future.get(budgetMillis, TimeUnit.MILLISECONDS);
+            log.info("【智能打招呼】AI在预算内返回，耗时: {}ms，长度: {}字",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos), greeting.length());
+            return new TieredGreeting(greeting, true, null);
+        } catch (TimeoutException e) {
+            log.warn("【智能打招呼】⚠️ AI未在{}ms内返回，先使用模板打招呼语，AI结果稍后写入缓存", budgetMillis);
+            return new TieredGreeting(template, false, future);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            return new TieredGreeting(template, false, null);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            log.warn("【智能打招呼】❌ AI生成失败，使用模板打招呼语: {}", cause.getMessage());
+            return new TieredGreeting(template, false, null);
+        }
+    }
+
+    /**
+     * 根据候选人信息和岗位渲染模板打招呼语（不调用AI）
+     * 优先列出岗位描述中出现的技能，没有交集时列出候选人的前几项技能
+     *
+     * @return 打招呼语；候选人既没有职位也没有技能时返回null
+     */
+    static String renderTemplateGreeting(Map<String, Object> candidate, String jobName, String fullJobDescription) {
+        if (candidate == null) {
+            return null;
+        }
+        Object titleValue = candidate.get("current_title");
+        String title = titleValue != null ? titleValue.toString().trim() : "";
+        if ("未知职位".equals(title)) {
+            title = "";
+        }
+        List<String> skills = stringList(candidate.get("skills"));
+        if (title.isEmpty() && skills.isEmpty()) {
+            return null;
+        }
+
+        String jd = fullJobDescription != null ? fullJobDescription.toLowerCase(Locale.ROOT) : "";
+        List<String> matched = new ArrayList<>();
+        for (String skill : skills) {
+            if (matched.size() < TEMPLATE_MAX_SKILLS && !skill.isEmpty() && jd.contains(skill.toLowerCase(Locale.ROOT))) {
+                matched.add(skill);
+            }
+        }
 
-            log.info("【智能打招呼】调用AI服务，岗位: {}", jobName);
+        StringBuilder greeting = new StringBuilder("您好！");
+        if (!title.isEmpty()) {
+            greeting.append("我目前担任").append(title);
+            Object years = candidate.get("years_experience");
+            if (years != null && !years.toString().isBlank() && !"0".equals(years.toString().trim())) {
+                greeting.append("，有").append(years.toString().trim()).append("年相关经验");
+            }
+            greeting.append("。");
+        }
+        if (jobName != null && !jobName.isBlank() && !"目标岗位".equals(jobName)) {
+            greeting.append("看到贵司的").append(jobName.trim()).append("岗位，很感兴趣。");
+        } else {
+            greeting.append("看到贵司的岗位，很感兴趣。");
+        }
+        if (!matched.isEmpty()) {
+            greeting.append("岗位要求的").append(String.join("、", matched)).append("我都有实际项目经验");
+        } else if (!skills.isEmpty()) {
+            greeting.append("我熟悉").append(String.join("、", skills.subList(0, Math.min(TEMPLATE_MAX_SKILLS, skills.size()))));
+        }
+        List<String> strengths = stringList(candidate.get("core_strengths"));
+        if (!strengths.isEmpty() && strengths.get(0).length() <= TEMPLATE_MAX_STRENGTH_LENGTH) {
+            greeting.append(skills.isEmpty() ? "我的优势是：" : "，").append(strengths.get(0).replaceAll("[。；;]+$", ""));
+        }
+        if (!skills.isEmpty() || !strengths.isEmpty()) {
+            greeting.append("。");
+        }
+        greeting.append("期待有机会进一步沟通，谢谢！");
+        return greeting.toString();
+    }
+
+    private static List<String> stringList(Object value) {
+        List<String> result = new ArrayList<>();
+        if (value instanceof List<?>) {
+            for (Object item : (List<?>) value) {
+                if (item != null && !item.toString().isBlank()) {
+                    result.add(item.toString().trim());
+                }
+            }
+        }
+        return result;
+    }
 
-            // 调用AI服务
-            String fullPrompt = GREETING_GENERATION_SYSTEM_PROMPT + "%n%n" + userPrompt;
-            String aiResponse = AiService.sendRequest(fullPrompt);
+    /**
+     * 分级生成的打招呼语
+     */
+    public static final class TieredGreeting {
+        private final String greeting;
+        private final boolean fromAi;
+        private final CompletableFuture<String> lateAiGreeting;
+
+        TieredGreeting(String greeting, boolean fromAi, CompletableFuture<String> lateAiGreeting) {
+            this.greeting = greeting;
+            this.fromAi = fromAi;
+            this.lateAiGreeting = lateAiGreeting;
+        }
 
+        /**
+         * @return 打招呼语（AI或模板），可能为null
+         */
+        public String getGreeting() {
+            return greeting;
+        }
+
+        /**
+         * @return 是否为AI生成（只有AI生成的结果适合缓存）
+         */
+        public boolean isFromAi() {
+            return fromAi;
+        }
+
+        /**
+         * @return 超出预算仍在生成的AI打招呼语，没有时为null
+         */
+        public CompletableFuture<String> getLateAiGreeting() {
+            return lateAiGreeting;
+        }
+    }
+
+    /**
+     * 流式生成打招呼语
+     *
+     * @param candidate 候选人信息JSON
+     * @param jobName 岗位名称
+     * @param fullJobDescription 完整岗位描述
+     * @param forward 片段转发（如推送给前端），可以为null
+     * @return 清理后的打招呼语；超过期限或生成失败时异常完成
+     */
+    public static CompletableFuture<String> streamSmartGreeting(Map<String, Object> candidate, String jobName,
+                                                                String fullJobDescription, AiClient.StreamListener forward) {
+        // 构建User Prompt
+        String userPrompt = buildUserPrompt(candidate, jobName, fullJobDescription);
+
+        log.info("【智能打招呼】调用AI服务（流式），岗位: {}", jobName);
+
+        // 调用AI服务
+        String fullPrompt = GREETING_GENERATION_SYSTEM_PROMPT + "%n%n" + userPrompt;
+        CompletableFuture<String> stream = AiClient.shared()
+            .streamRequestAsync(fullPrompt, Duration.ofSeconds(FIRST_TOKEN_TIMEOUT_SECONDS),
+                Duration.ofSeconds(AI_TIMEOUT_SECONDS), (delta, text) -> {
+                    boolean more = forward == null || forward.onDelta(delta, text);
+                    return more && greetingEnd(text) < 0;
+                });
+        CompletableFuture<String> greeting = stream.thenApply(SmartGreetingService::processGreetingResponse);
+        // 取消打招呼语时一并取消AI流式请求
+        greeting.whenComplete((value, error) -> {
+            if (greeting.isCancelled()) {
+                stream.cancel(true);
+            }
+        });
+        return greeting;
+    }
+
+    /**
+     * @return 打招呼语已完整时返回正文结束位置，否则返回-1
+     */
+    static int greetingEnd(String text) {
+        for (String marker : TRAILER_MARKERS) {
+            int index = text.indexOf(marker, MIN_GREETING_LENGTH);
+            if (index >= 0) {
+                return index;
+            }
+        }
+        return text.length() > MAX_GREETING_LENGTH ? text.length() : -1;
+    }
+
+    /**
+     * 清理并校验AI返回的打招呼语
+     */
+    private static String processGreetingResponse(String aiResponse) {
+        try {
+            int end = aiResponse != null ? greetingEnd(aiResponse) : -1;
+            if (end >= 0) {
+                // 去掉追加的说明段落
+                aiResponse = aiResponse.substring(0, end);
+            }
             if (aiResponse == null || aiResponse.trim().isEmpty()) {
                 log.error("【智能打招呼】❌ AI服务返回空响应");
                 throw new RuntimeException("AI服务返回空响应");
@@ -136,7 +360,7 @@ public class SmartGreetingService {
             }
 
             // 验证长度
-            if (greeting.length() > 300) {
+            if (greeting.length() > MAX_GREETING_LENGTH) {
                 log.warn("【智能打招呼】⚠️ 生成的打招呼语过长（{}字），截取前200字", greeting.length());
                 greeting = greeting.substring(0, 200) + "...";
             }
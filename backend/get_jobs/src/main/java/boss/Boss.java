@@ -11,6 +11,7 @@ import java.io.File;
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.net.ServerSocket;
 import java.net.URL;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
@@ -25,6 +26,12 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Scanner;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
@@ -65,6 +72,16 @@ public class Boss {
     private final BossConfig config;
     private List<Job> resultList;
     private DeliveryController deliveryController;
+    // 岗位列表接口订阅（仅在启用interceptJobList时创建，每个页面一个）
+    private final Map<Page, boss.service.BossJobListFeed> jobListFeeds = new java.util.concurrent.ConcurrentHashMap<>();
+    // 多上下文并行模式下各流共享的投递调度器（单流模式为null）
+    private DeliveryGovernor deliveryGovernor;
+    // 已投递岗位索引（跨运行持久化，打开失败时为null）
+    private final boss.service.BossDeliveredJobIndex deliveredIndex;
+    // 增量搜索游标（记录每个城市+关键词上次运行的头部岗位）
+    private final boss.service.BossSearchCursor searchCursor;
+    // 运行检查点（进程中断后恢复模式据此跳过已完成的工作）
+    private final boss.service.BossRunCheckpoint runCheckpoint;
     private Date startDate;
 
     // ========== 服务注入（重构后） ==========
@@ -104,6 +121,10 @@ public class Boss {
         this.behaviorLogger = new boss.service.BossBehaviorLogger(userId);
         this.blacklistService = new boss.service.BossBlacklistService(userId, this.dataPath);
         this.blacklistService.loadData(); // 加载黑名单数据
+        this.deliveredIndex = boss.service.BossDeliveredJobIndex.open(Paths.get(this.dataPath).getParent());
+        this.searchCursor = new boss.service.BossSearchCursor(Paths.get(this.dataPath).getParent());
+        this.searchCursor.load();
+        this.runCheckpoint = new boss.service.BossRunCheckpoint(Paths.get(this.dataPath).getParent());
 
         this.quotaService = new boss.service.BossQuotaService(userId);
         this.greetingService = new boss.service.BossGreetingService(this.config, userId);
@@ -113,11 +134,12 @@ public class Boss {
         this.deliveryService = new boss.service.BossDeliveryService(
             this.config, userId, this.greetingService, this.blacklistService, this.behaviorLogger, this.loginService);
 
-        // 初始化控制器
+        // 初始化控制器（今日已投递数量优先通过主进程的配额租约通道获取）
+        Integer todayDeliveryCount = this.quotaService.loadTodayUsage();
         if (this.config != null && this.config.getDeliveryStrategy() != null) {
-            this.deliveryController = new DeliveryController(this.config.getDeliveryStrategy());
+            this.deliveryController = new DeliveryController(this.config.getDeliveryStrategy(), todayDeliveryCount);
         } else {
-            this.deliveryController = new DeliveryController(new BossConfig.DeliveryStrategy());
+            this.deliveryController = new DeliveryController(new BossConfig.DeliveryStrategy(), todayDeliveryCount);
         }
 
         log.info("✅ Boss实例已创建: userId={}, dataPath={}, cookiePath={}",
@@ -150,10 +172,7 @@ public class Boss {
 
     public static void main(String[] args) {
         // 获取用户ID
-        String userId = System.getenv("BOSS_USER_ID");
-        if (userId == null || userId.isEmpty()) {
-            userId = System.getProperty("boss.user.id");
-        }
+        String userId = BossRunContext.currentUserId();
 
         if (userId == null || userId.isEmpty()) {
             log.error("❌ 多租户模式必须提供用户ID");
@@ -165,13 +184,14 @@ public class Boss {
 
         // 解析参数
         boolean loginOnly = args.length > 0 && "login-only".equals(args[0]);
+        boolean resume = args.length > 0 && "resume".equals(args[0]);
 
         log.info("Boss程序启动: userId={}, 模式={}", safeUserId,
-            loginOnly ? "只登录（二维码登录）" : "完整投递");
+            loginOnly ? "只登录（二维码登录）" : resume ? "完整投递（从检查点恢复）" : "完整投递");
 
         // 创建实例并执行
         Boss boss = new Boss(userId);
-        boss.execute(loginOnly);
+        boss.execute(loginOnly, resume);
     }
 
     /**
@@ -180,11 +200,26 @@ public class Boss {
      * @param loginOnly 是否只登录模式
      */
     public void execute(boolean loginOnly) {
-        log.info("开始执行Boss任务: userId={}, loginOnly={}", this.userId, loginOnly);
+        execute(loginOnly, false);
+    }
+
+    /**
+     * 执行Boss任务
+     *
+     * @param loginOnly 是否只登录模式
+     * @param resume 是否从上次中断的检查点恢复（跳过已完成的城市+关键词和已处理的岗位）
+     */
+    public void execute(boolean loginOnly, boolean resume) {
+        log.info("开始执行Boss任务: userId={}, loginOnly={}, resume={}", this.userId, loginOnly, resume);
 
         try {
             // ✅ 恢复原始逻辑：先init()无参数，让login()内部决定是否切换模式
             log.info("初始化Playwright环境...");
+            int streams = parallelStreams();
+            if (!loginOnly && streams > 1) {
+                // 并行流通过CDP连接同一个浏览器，必须在启动浏览器前开启远程调试端口
+                PlaywrightUtil.setRemoteDebuggingPort(findFreePort());
+            }
             PlaywrightUtil.init();
             log.info("Playwright初始化成功");
 
@@ -202,7 +237,16 @@ public class Boss {
                 extraData.put("keywords", this.config.getKeywords());
                 behaviorLogger.logBehavior("JOB_DELIVERY_START", "PENDING", "启动投递任务", extraData);
 
-                this.config.getCities().forEach(this::postJobByCity);
+                if (!resume || !runCheckpoint.load()) {
+                    runCheckpoint.clear();
+                }
+                if (streams > 1) {
+                    postJobsInParallel(streams);
+                } else {
+                    this.config.getCities().forEach(this::postJobByCity);
+                }
+                // 正常结束（包括配额用完、验证码等主动停止）后不再需要检查点
+                runCheckpoint.clear();
             } else {
                 log.info("✅ 「只登录」模式完成，不执行投递任务");
                 log.info("✅ Boss Cookie已保存，后续可直接启动投递任务");
@@ -220,6 +264,15 @@ public class Boss {
             log.error("Boss任务执行失败: {}", e.getMessage(), e);
             PlaywrightUtil.close();
             throw e;
+        } finally {
+            // 只登录、调试模式和异常退出不经过printResult，在这里统一释放（均可重复调用）；
+            // 常驻工作进程会继续服务下一个运行，不能泄漏索引文件映射和打招呼语生成线程
+            deliveryService.shutdown();
+            if (this.deliveredIndex != null) {
+                this.deliveredIndex.close();
+            }
+            // 归还未使用的配额租约
+            quotaService.close();
         }
     }
 
@@ -229,11 +282,18 @@ public class Boss {
         log.info(message);
         sendMessageByTime(message);
         blacklistService.saveData();
+        // 先释放预取标签页再关闭浏览器（execute的finally中重复调用无副作用）
+        deliveryService.shutdown();
         this.resultList.clear();
         if (this.config.getDebugger() == null || !this.config.getDebugger()) {
             PlaywrightUtil.close();
         }
 
+        // 宿主进程（常驻工作进程、多租户宿主）还要继续服务其他运行，不能停止日志系统
+        if (BossRunContext.isHosted()) {
+            return;
+        }
+
         // 确保所有日志都被刷新到文件
         try {
             Thread.sleep(1000); // 等待1秒确保日志写入完成
@@ -245,489 +305,745 @@ public class Boss {
         }
     }
 
+    /**
+     * @return 配置的并行流数量（至少为1）
+     */
+    private int parallelStreams() {
+        Integer streams = this.config.getParallelStreams();
+        return streams != null && streams > 1 ? streams : 1;
+    }
+
+    @SneakyThrows
+    private static int findFreePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    /**
+     * 多上下文并行模式：每个流在独立线程中使用同一浏览器的独立上下文，
+     * 从共享队列领取（城市, 关键词）任务；搜索、滚动、过滤并行执行，
+     * 投递动作经由 DeliveryGovernor 串行化，发送速率与单流模式一致
+     *
+     * @param streams 并行流数量
+     */
+    @SneakyThrows
+    private void postJobsInParallel(int streams) {
+        String cdpEndpoint = PlaywrightUtil.getCdpEndpoint();
+        // 主上下文登录后的Cookie写盘，供各流的上下文加载
+        PlaywrightUtil.saveCookies(this.cookiePath);
+
+        ConcurrentLinkedQueue<String[]> tasks = new ConcurrentLinkedQueue<>();
+        for (String cityCode : this.config.getCities()) {
+            for (String keyword : this.config.getKeywords()) {
+                tasks.add(new String[]{cityCode, keyword});
+            }
+        }
+        int workerCount = Math.min(streams, tasks.size());
+        log.info("🚀 多上下文并行模式: 流数量={}, 任务数={}, CDP={}", workerCount, tasks.size(), cdpEndpoint);
+
+        this.deliveryGovernor = new DeliveryGovernor(this.deliveryController);
+        AtomicBoolean stopAll = new AtomicBoolean(false);
+        AtomicInteger threadIndex = new AtomicInteger(0);
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(workerCount, 1),
+            r -> new Thread(BossRunContext.propagate(r), "boss-stream-" + threadIndex.incrementAndGet()));
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int k = 0; k < workerCount; k++) {
+                futures.add(pool.submit(() -> runStream(cdpEndpoint, tasks, stopAll)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdownNow();
+            this.deliveryGovernor = null;
+        }
+    }
+
+    private void runStream(String cdpEndpoint, ConcurrentLinkedQueue<String[]> tasks, AtomicBoolean stopAll) {
+        Page streamPage = null;
+        try (BossBrowserStream stream = new BossBrowserStream(cdpEndpoint, this.cookiePath)) {
+            streamPage = stream.getPage();
+            PlaywrightUtil.bindPage(streamPage);
+            String[] task;
+            while (!stopAll.get() && (task = tasks.poll()) != null) {
+                log.info("[{}] 开始处理: 城市={}, 关键词={}", Thread.currentThread().getName(), task[0], task[1]);
+                if (!postJobByKeyword(task[0], task[1])) {
+                    stopAll.set(true);
+                }
+            }
+        } catch (Exception e) {
+            log.error("[{}] 并行流执行失败: {}", Thread.currentThread().getName(), e.getMessage(), e);
+        } finally {
+            PlaywrightUtil.bindPage(null);
+            if (streamPage != null) {
+                jobListFeeds.remove(streamPage);
+            }
+        }
+    }
+
     private void postJobByCity(String cityCode) {
+        for (String keyword : this.config.getKeywords()) {
+            // ✅ 配额用完、验证码、页面关闭时停止所有投递
+            if (!postJobByKeyword(cityCode, keyword)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * 投递单个城市+关键词的搜索结果（边滚动边投递）
+     *
+     * @param cityCode 城市代码
+     * @param keyword 关键词
+     * @return true=继续后续关键词, false=停止所有投递
+     */
+    private boolean postJobByKeyword(String cityCode, String keyword) {
+        if (runCheckpoint.isCompleted(cityCode, keyword)) {
+            log.info("【{}】中断前已完成该城市+关键词，跳过", keyword);
+            return true;
+        }
         String searchUrl = searchService.getSearchUrl(cityCode);
-        // ✅ 使用标签，允许在配额用完时跳出所有投递循环
-        keywordLoop: for (String keyword : this.config.getKeywords()) {
-            int postCount = 0;
-            // 使用 URLEncoder 对关键词进行编码
-            String encodedKeyword = URLEncoder.encode(keyword, StandardCharsets.UTF_8);
-
-            String url = searchUrl + "&query=" + encodedKeyword;
-            log.info("投递地址:{}", searchUrl + "&query=" + keyword);
-            com.microsoft.playwright.Page page = PlaywrightUtil.getPageObject();
-
-            // 使用搜索服务导航到搜索页面
-            searchService.navigateToSearchPage(page, searchUrl, keyword);
-            searchService.scrollToTop(page);
-
-            // ✅ 优化：改为"滚动一次，投递一次"模式，而不是先滚动完所有岗位再投递
-            log.info("【{}】开始边滚动边投递模式...", keyword);
-
-            // 初始化滚动相关变量
-            int lastCount = 0;
-            int processedCount = 0; // 已处理的岗位数量
-            int scrollCount = 0;
-            final int MAX_SCROLL_ATTEMPTS = 50; // 最多滚动50次
-            final long MAX_LOAD_DURATION_MS = 5 * 60 * 1000; // 最多5分钟
-            long loadStartTime = System.currentTimeMillis();
-
-            // 全局超时保护：如果超过30分钟没有进展，停止投递
-            long keywordLoopStartTime = System.currentTimeMillis();
-            final long MAX_LOOP_DURATION_MS = 30 * 60 * 1000; // 30分钟
-            long lastProgressTime = keywordLoopStartTime;
-
-            // 统计计数器
-            int skipCount = 0;
-            int failCount = 0;
-
-            // ✅ 优化：边滚动边投递的循环
-            while (scrollCount < MAX_SCROLL_ATTEMPTS) {
-                // 检查超时
-                long loadElapsedTime = System.currentTimeMillis() - loadStartTime;
-                if (loadElapsedTime > MAX_LOAD_DURATION_MS) {
-                    log.warn("【{}】加载岗位列表超时（已用时{}秒），停止滚动", keyword, loadElapsedTime / 1000);
-                    break;
-                }
+        int postCount = 0;
+        // 使用 URLEncoder 对关键词进行编码
+        String encodedKeyword = URLEncoder.encode(keyword, StandardCharsets.UTF_8);
 
-                // 1. 滚动加载更多岗位
-                scrollCount++;
-                log.info("【{}】第{}次滚动，当前已处理{}个岗位", keyword, scrollCount, processedCount);
+        String url = searchUrl + "&query=" + encodedKeyword;
+        log.info("投递地址:{}", searchUrl + "&query=" + keyword);
+        com.microsoft.playwright.Page page = PlaywrightUtil.getPageObject();
 
-                try {
-                    // 模拟人类滚动行为
-                    PlaywrightUtil.simulateScroll();
+        // 接口拦截模式：必须在导航前订阅，才能收到首屏岗位列表
+        boss.service.BossJobListFeed jobListFeed = null;
+        if (Boolean.TRUE.equals(this.config.getInterceptJobList())) {
+            jobListFeed = jobListFeeds.computeIfAbsent(page, p -> {
+                log.info("已启用岗位列表接口拦截模式");
+                return new boss.service.BossJobListFeed(p);
+            });
+            jobListFeed.reset();
+        }
 
-                    // 滑动到底部
-                    log.debug("【{}】执行滚动操作...", keyword);
-                    long scrollStartTime = System.currentTimeMillis();
-                    page.evaluate("window.scrollTo(0, document.body.scrollHeight);");
-                    long scrollDuration = System.currentTimeMillis() - scrollStartTime;
-                    log.debug("【{}】滚动操作完成（耗时{}ms）", keyword, scrollDuration);
+        // 使用搜索服务导航到搜索页面
+        searchService.navigateToSearchPage(page, searchUrl, keyword);
+        searchService.scrollToTop(page);
+        searchCursor.begin(cityCode, keyword);
+        Double stopRatio = this.config.getIncrementalStopRatio();
+
+        // ✅ 优化：改为"滚动一次，投递一次"模式，而不是先滚动完所有岗位再投递
+        log.info("【{}】开始边滚动边投递模式...", keyword);
+
+        // 初始化滚动相关变量
+        int lastCount = 0;
+        int processedCount = 0; // 已处理的岗位数量
+        int scrollCount = 0;
+        final int MAX_SCROLL_ATTEMPTS = 50; // 最多滚动50次
+        final long MAX_LOAD_DURATION_MS = 5 * 60 * 1000; // 最多5分钟
+        long loadStartTime = System.currentTimeMillis();
+
+        // 全局超时保护：如果超过30分钟没有进展，停止投递
+        long keywordLoopStartTime = System.currentTimeMillis();
+        final long MAX_LOOP_DURATION_MS = 30 * 60 * 1000; // 30分钟
+        long lastProgressTime = keywordLoopStartTime;
+
+        // 统计计数器
+        int skipCount = 0;
+        int failCount = 0;
+
+        // 恢复模式：中断前已处理的岗位只滚动加载，不再逐个处理；计数器从检查点继续
+        boss.service.BossRunCheckpoint.Progress resumePoint = runCheckpoint.resumePoint(cityCode, keyword);
+        int resumeFrom = 0;
+        if (resumePoint != null) {
+            resumeFrom = resumePoint.getProcessedCount();
+            postCount = resumePoint.getPostCount();
+            skipCount = resumePoint.getSkipCount();
+            failCount = resumePoint.getFailCount();
+            log.info("【{}】从检查点恢复：中断前滚动{}次、已处理{}个岗位（成功={}, 跳过={}, 失败={}），快速跳过已处理岗位",
+                keyword, resumePoint.getScrollCount(), resumeFrom, postCount, skipCount, failCount);
+        }
 
-                    // 随机延迟等待加载
-                    log.debug("【{}】等待页面加载（2-4秒）...", keyword);
-                    PlaywrightUtil.randomSleepMillis(2000, 4000);
+        // ✅ 优化：边滚动边投递的循环
+        while (scrollCount < MAX_SCROLL_ATTEMPTS) {
+            // 本次滚动新加载卡片的快照（第k个元素对应第processedCount+k个岗位）
+            List<Job> snapshot;
+            // 本批卡片是否已进入上次运行看过的区域（处理完本批后停止滚动）
+            boolean reachedCursor = false;
+            // 检查超时
+            long loadElapsedTime = System.currentTimeMillis() - loadStartTime;
+            if (loadElapsedTime > MAX_LOAD_DURATION_MS) {
+                log.warn("【{}】加载岗位列表超时（已用时{}秒），停止滚动", keyword, loadElapsedTime / 1000);
+                break;
+            }
 
-                    // 获取当前岗位数量
-                    Locator cards = searchService.getJobCards(page);
-                    int currentCount = cards.count();
-                    log.info("【{}】当前岗位总数: {}个（已处理: {}个）", keyword, currentCount, processedCount);
-
-                    // 判断是否有新岗位
-                    if (currentCount == lastCount) {
-                        log.info("【{}】岗位数量未变化（{}个），停止滚动", keyword, currentCount);
-                        // 处理剩余的岗位
-                        if (processedCount < currentCount) {
-                            log.info("【{}】开始处理剩余{}个岗位", keyword, currentCount - processedCount);
-                        } else {
-                            break; // 没有新内容，跳出循环
-                        }
+            // 1. 滚动加载更多岗位
+            scrollCount++;
+            log.info("【{}】第{}次滚动，当前已处理{}个岗位", keyword, scrollCount, processedCount);
+
+            try {
+                // 模拟人类滚动行为（快速跳过已处理岗位时省略）
+                if (processedCount >= resumeFrom) {
+                    PlaywrightUtil.simulateScroll();
+                }
+
+                // 滑动到底部
+                log.debug("【{}】执行滚动操作...", keyword);
+                long scrollStartTime = System.currentTimeMillis();
+                page.evaluate("window.scrollTo(0, document.body.scrollHeight);");
+                long scrollDuration = System.currentTimeMillis() - scrollStartTime;
+                log.debug("【{}】滚动操作完成（耗时{}ms）", keyword, scrollDuration);
+
+                // 获取新加载的岗位（DOM快照或接口响应），岗位数量由快照推出
+                snapshot = searchService.loadNewCards(page, jobListFeed, processedCount);
+                int currentCount = processedCount + snapshot.size();
+                log.info("【{}】当前岗位总数: {}个（已处理: {}个）", keyword, currentCount, processedCount);
+
+                // 判断是否有新岗位
+                if (currentCount == lastCount) {
+                    log.info("【{}】岗位数量未变化（{}个），停止滚动", keyword, currentCount);
+                    // 处理剩余的岗位
+                    if (processedCount < currentCount) {
+                        log.info("【{}】开始处理剩余{}个岗位", keyword, currentCount - processedCount);
                     } else {
-                        int newJobs = currentCount - lastCount;
-                        log.info("【{}】新增{}个岗位，开始处理新岗位", keyword, newJobs);
+                        break; // 没有新内容，跳出循环
                     }
-                    lastCount = currentCount;
-                } catch (Exception e) {
-                    log.error("【{}】滚动加载岗位失败: {}", keyword, e.getMessage(), e);
-                    break;
+                } else {
+                    int newJobs = currentCount - lastCount;
+                    log.info("【{}】新增{}个岗位，开始处理新岗位", keyword, newJobs);
                 }
+                lastCount = currentCount;
 
-                // 2. 处理新加载的岗位
-                // ✅ 修复：在获取卡片前检查页面状态，防止 TargetClosedError
-                try {
-                    if (page == null || page.isClosed()) {
-                        log.error("【{}】页面已关闭或为null，无法获取岗位卡片", keyword);
-                        break keywordLoop;
+                double seenRatio = searchCursor.observe(cityCode, keyword, snapshot);
+                if (stopRatio != null && stopRatio > 0 && seenRatio >= stopRatio) {
+                    reachedCursor = true;
+                    log.info("【{}】本批{}%的岗位在上次运行中已出现，处理完本批后停止滚动",
+                        keyword, String.format("%.0f", seenRatio * 100));
+                }
+            } catch (com.microsoft.playwright.PlaywrightException e) {
+                if (boss.util.BossUtils.isTargetClosed(e)) {
+                    log.error("【{}】页面/浏览器已关闭（PlaywrightException: {}），停止处理岗位: {}",
+                        keyword, e.getClass().getName(), e.getMessage());
+                    return false;
+                }
+                log.error("【{}】获取岗位卡片时发生Playwright异常: {}，停止处理", keyword, e.getMessage());
+                break;
+            } catch (Exception e) {
+                log.error("【{}】滚动加载岗位失败: {}", keyword, e.getMessage(), e);
+                break;
+            }
+
+            // 2. 处理新加载的岗位
+            // ✅ 修复：在获取卡片前检查页面状态，防止 TargetClosedError
+            try {
+                if (page == null || page.isClosed()) {
+                    log.error("【{}】页面已关闭或为null，无法获取岗位卡片", keyword);
+                    return false;
+                }
+            } catch (Exception e) {
+                log.error("【{}】检查页面状态时发生异常: {}，停止处理", keyword, e.getMessage());
+                return false;
+            }
+
+            // 卡片定位器是惰性的，不会触发浏览器往返；过滤只依赖快照
+            Locator cards = searchService.getJobCards(page);
+            int currentCount = processedCount + snapshot.size();
+            boss.matcher.BossJobMatcher.MatchingResult[] cardMatches =
+                new boss.matcher.BossJobMatcher.MatchingResult[snapshot.size()];
+            jobMatcher.matchAll(snapshot, this.config.getKeywords(), cardMatches);
+
+            int firstToProcess = processedCount;
+            if (resumeFrom > processedCount) {
+                firstToProcess = Math.min(resumeFrom, currentCount);
+                if (resumeFrom <= currentCount && resumePoint.getLastJobId() != null) {
+                    String jobIdAtResume = snapshot.get(resumeFrom - 1 - processedCount).getJobId();
+                    if (!resumePoint.getLastJobId().equals(jobIdAtResume)) {
+                        // 搜索结果已变化：继续按位置恢复，已投递岗位由已投递索引兜底
+                        log.warn("【{}】搜索结果与中断前不一致（第{}个岗位ID {} ≠ {}），按位置继续",
+                            keyword, resumeFrom, jobIdAtResume, resumePoint.getLastJobId());
                     }
-                } catch (Exception e) {
-                    log.error("【{}】检查页面状态时发生异常: {}，停止处理", keyword, e.getMessage());
-                    break keywordLoop;
                 }
+            }
 
-                Locator cards;
-                int currentCount;
+            // 中断前已处理的岗位计入增量搜索游标
+            for (int i = processedCount; i < firstToProcess; i++) {
+                searchCursor.markProcessed(cityCode, keyword, snapshot.get(i - processedCount).getJobId());
+            }
+
+            // 处理从 processedCount 到 currentCount 的岗位
+            for (int i = firstToProcess; i < currentCount; i++) {
+                if (i > firstToProcess) {
+                    checkpointJob(cityCode, keyword, scrollCount, i, snapshot.get(i - 1 - processedCount),
+                        postCount, skipCount, failCount);
+                }
+                // 并行模式下是否持有投递通道，以及本岗位是否投递成功（用于释放通道时计数）
+                boolean holdingDeliverySlot = false;
+                boolean holdingQuota = false;
+                boolean delivered = false;
+                // 是否已按条件确定不投递（计入增量搜索游标；因限额、页面异常跳过的不算）
+                boolean settled = false;
                 try {
-                    cards = searchService.getJobCards(page);
-                    currentCount = cards.count();
-                } catch (com.microsoft.playwright.PlaywrightException e) {
-                    // 检查是否是页面关闭相关的错误（包括 TargetClosedError）
-                    String errorMsg = e.getMessage() != null ? e.getMessage() : "";
-                    String errorClass = e.getClass().getName();
-                    if (errorClass.contains("TargetClosed") || errorMsg.contains("closed") || errorMsg.contains("Target")) {
-                        log.error("【{}】页面/浏览器已关闭（PlaywrightException: {}），停止处理岗位: {}", keyword, errorClass, errorMsg);
-                        break keywordLoop;
+                    // 每10个岗位记录一次进度
+                    if ((i + 1) % 10 == 0) {
+                        log.info("【{}】进度报告：已处理{}/{}个岗位，已用时{}秒，成功={}, 跳过={}, 失败={}",
+                            keyword, i + 1, currentCount, (System.currentTimeMillis() - keywordLoopStartTime) / 1000,
+                            postCount, skipCount, failCount);
                     }
-                    log.error("【{}】获取岗位卡片时发生Playwright异常: {}，停止处理", keyword, errorMsg);
-                    break keywordLoop;
-                } catch (Exception e) {
-                    // 检查是否是页面关闭相关的错误（包括 TargetClosedError）
-                    String errorMsg = e.getMessage() != null ? e.getMessage() : "";
-                    String errorClass = e.getClass().getName();
-                    if (errorClass.contains("TargetClosed") || errorMsg.contains("closed") || errorMsg.contains("Target")) {
-                        log.error("【{}】页面/浏览器已关闭（Exception: {}），停止处理岗位: {}", keyword, errorClass, errorMsg);
-                        break keywordLoop;
+
+                    // 检查全局超时
+                    long currentTime = System.currentTimeMillis();
+                    long elapsedTime = currentTime - keywordLoopStartTime;
+                    if (elapsedTime > MAX_LOOP_DURATION_MS) {
+                        log.warn("【{}】关键词循环超时（已运行{}分钟），停止处理剩余岗位", keyword, elapsedTime / 60000);
+                        return false;
                     }
-                    log.error("【{}】获取岗位卡片时发生异常: {}，停止处理", keyword, errorMsg);
-                    break keywordLoop;
-                }
 
-                // 处理从 processedCount 到 currentCount 的岗位
-                for (int i = processedCount; i < currentCount; i++) {
-                    try {
-                        // 每10个岗位记录一次进度
-                        if ((i + 1) % 10 == 0) {
-                            log.info("【{}】进度报告：已处理{}/{}个岗位，已用时{}秒，成功={}, 跳过={}, 失败={}",
-                                keyword, i + 1, currentCount, (System.currentTimeMillis() - keywordLoopStartTime) / 1000,
-                                postCount, skipCount, failCount);
-                        }
+                    // 检查是否有进展（如果超过5分钟没有进展，记录警告）
+                    long timeSinceLastProgress = currentTime - lastProgressTime;
+                    if (timeSinceLastProgress > 5 * 60 * 1000) { // 5分钟
+                        log.warn("【{}】第{}个岗位：已超过5分钟没有进展，可能卡住。最后进展时间: {}ms前",
+                            keyword, i + 1, timeSinceLastProgress);
+                    }
 
-                        // 检查全局超时
-                        long currentTime = System.currentTimeMillis();
-                        long elapsedTime = currentTime - keywordLoopStartTime;
-                        if (elapsedTime > MAX_LOOP_DURATION_MS) {
-                            log.warn("【{}】关键词循环超时（已运行{}分钟），停止处理剩余岗位", keyword, elapsedTime / 60000);
-                            break keywordLoop;
-                        }
+                    log.info("【{}】正在处理第{}个岗位（共{}个，已用时{}秒）", keyword, i + 1, currentCount, elapsedTime / 1000);
 
-                        // 检查是否有进展（如果超过5分钟没有进展，记录警告）
-                        long timeSinceLastProgress = currentTime - lastProgressTime;
-                        if (timeSinceLastProgress > 5 * 60 * 1000) { // 5分钟
-                            log.warn("【{}】第{}个岗位：已超过5分钟没有进展，可能卡住。最后进展时间: {}ms前",
-                                keyword, i + 1, timeSinceLastProgress);
+                    // ✅ 修复：在重新获取卡片前检查页面状态，防止 TargetClosedError
+                    try {
+                        if (page == null || page.isClosed()) {
+                            log.error("【{}】第{}个岗位：页面已关闭或为null，跳过并停止处理", keyword, i + 1);
+                            return false;
                         }
+                    } catch (Exception e) {
+                        log.error("【{}】第{}个岗位：检查页面状态时发生异常: {}，跳过并停止处理", keyword, i + 1, e.getMessage());
+                        return false;
+                    }
 
-                        log.info("【{}】正在处理第{}个岗位（共{}个，已用时{}秒）", keyword, i + 1, currentCount, elapsedTime / 1000);
+                    // 列表预过滤：关键词、黑名单、薪资在Java侧完成，不符合的岗位不再点击
+                    Job card = snapshot.get(i - processedCount);
+                    String skipReason = prefilterCard(card, cardMatches[i - processedCount]);
+                    if (skipReason != null) {
+                        log.info("【{}】第{}个岗位：{}，跳过（列表预过滤）", keyword, i + 1, skipReason);
+                        settled = true;
+                        skipCount++;
+                        continue;
+                    }
 
-                        // ✅ 修复：在重新获取卡片前检查页面状态，防止 TargetClosedError
-                        try {
-                            if (page == null || page.isClosed()) {
-                                log.error("【{}】第{}个岗位：页面已关闭或为null，跳过并停止处理", keyword, i + 1);
-                                break keywordLoop;
-                            }
-                        } catch (Exception e) {
-                            log.error("【{}】第{}个岗位：检查页面状态时发生异常: {}，跳过并停止处理", keyword, i + 1, e.getMessage());
-                            break keywordLoop;
+                    // 点击前确认卡片仍在页面上（列表重新渲染后可能变短）
+                    int actualCount;
+                    try {
+                        actualCount = cards.count();
+                    } catch (com.microsoft.playwright.PlaywrightException e) {
+                        if (boss.util.BossUtils.isTargetClosed(e)) {
+                            log.error("【{}】第{}个岗位：页面/浏览器已关闭（PlaywrightException: {}），停止处理: {}",
+                                keyword, i + 1, e.getClass().getName(), e.getMessage());
+                            return false;
                         }
+                        log.error("【{}】第{}个岗位：获取岗位卡片时发生Playwright异常: {}，跳过", keyword, i + 1, e.getMessage());
+                        skipCount++;
+                        continue;
+                    }
+                    if (i >= actualCount) {
+                        log.warn("【{}】第{}个岗位不存在（实际只有{}个），跳过", keyword, i + 1, actualCount);
+                        skipCount++;
+                        continue;
+                    }
 
-                        // 重新获取卡片，避免元素过期
-                        int actualCount;
-                        try {
-                            cards = searchService.getJobCards(page);
-                            actualCount = cards.count();
-                        } catch (com.microsoft.playwright.PlaywrightException e) {
-                            // 检查是否是页面关闭相关的错误（包括 TargetClosedError）
-                            String errorMsg = e.getMessage() != null ? e.getMessage() : "";
-                            String errorClass = e.getClass().getName();
-                            if (errorClass.contains("TargetClosed") || errorMsg.contains("closed") || errorMsg.contains("Target")) {
-                                log.error("【{}】第{}个岗位：页面/浏览器已关闭（PlaywrightException: {}），停止处理: {}", keyword, i + 1, errorClass, errorMsg);
-                                break keywordLoop;
-                            }
-                            log.error("【{}】第{}个岗位：获取岗位卡片时发生Playwright异常: {}，跳过", keyword, i + 1, errorMsg);
-                            skipCount++;
-                            continue;
-                        } catch (Exception e) {
-                            // 检查是否是页面关闭相关的错误（包括 TargetClosedError）
-                            String errorMsg = e.getMessage() != null ? e.getMessage() : "";
-                            String errorClass = e.getClass().getName();
-                            if (errorClass.contains("TargetClosed") || errorMsg.contains("closed") || errorMsg.contains("Target")) {
-                                log.error("【{}】第{}个岗位：页面/浏览器已关闭（Exception: {}），停止处理: {}", keyword, i + 1, errorClass, errorMsg);
-                                break keywordLoop;
-                            }
-                            log.error("【{}】第{}个岗位：获取岗位卡片时发生异常: {}，跳过", keyword, i + 1, errorMsg);
-                            skipCount++;
-                            continue;
-                        }
+                    // 模拟人类行为后再点击
+                    PlaywrightUtil.simulateMouseMove();
 
-                        if (i >= actualCount) {
-                            log.warn("【{}】第{}个岗位不存在（实际只有{}个），跳过", keyword, i + 1, actualCount);
-                            skipCount++;
-                            // ✅ 修复：如果岗位数量减少，更新processedCount并继续
-                            if (actualCount < processedCount) {
-                                processedCount = actualCount;
-                            }
-                            continue;
-                        }
+                    // 使用安全点击方法，自动处理登录弹窗
+                    if (!deliveryService.safeClick(page, cards.nth(i), "点击岗位卡片")) {
+                        log.warn("【{}】第{}个岗位：点击失败，跳过", keyword, i + 1);
+                        skipCount++;
+                        continue;
+                    }
 
-                        // 模拟人类行为后再点击
-                        PlaywrightUtil.simulateMouseMove();
+                    log.info("【{}】第{}个岗位：已点击，等待页面加载", keyword, i + 1);
 
-                        // 使用安全点击方法，自动处理登录弹窗
-                        if (!deliveryService.safeClick(page, cards.nth(i), "点击岗位卡片")) {
-                            log.warn("【{}】第{}个岗位：点击失败，跳过", keyword, i + 1);
+                    // 检查页面状态
+                    try {
+                        if (page == null || page.isClosed()) {
+                            log.error("【{}】第{}个岗位：页面对象无效（null或已关闭），跳过此岗位", keyword, i + 1);
                             skipCount++;
                             continue;
                         }
+                        log.debug("【{}】第{}个岗位：页面状态正常，URL={}", keyword, i + 1, page.url());
+                    } catch (Exception e) {
+                        log.error("【{}】第{}个岗位：检查页面状态时异常: {}，跳过此岗位", keyword, i + 1, e.getMessage());
+                        skipCount++;
+                        continue;
+                    }
 
-                        log.info("【{}】第{}个岗位：已点击，等待页面加载", keyword, i + 1);
-
-                        // 检查页面状态
-                        try {
-                            if (page == null || page.isClosed()) {
-                                log.error("【{}】第{}个岗位：页面对象无效（null或已关闭），跳过此岗位", keyword, i + 1);
-                                skipCount++;
-                                continue;
-                            }
-                            log.debug("【{}】第{}个岗位：页面状态正常，URL={}", keyword, i + 1, page.url());
-                        } catch (Exception e) {
-                            log.error("【{}】第{}个岗位：检查页面状态时异常: {}，跳过此岗位", keyword, i + 1, e.getMessage());
-                            skipCount++;
-                            continue;
-                        }
+                    // 随机延迟等待页面加载
+                    PlaywrightUtil.randomSleepMillis(2000, 4000);
 
-                        // 随机延迟等待页面加载
-                        PlaywrightUtil.randomSleepMillis(2000, 4000);
+                    // 更新最后进展时间
+                    lastProgressTime = System.currentTimeMillis();
 
+                    // 等待详情内容加载，增加超时处理
+                    long waitStartTime = System.currentTimeMillis();
+                    try {
+                        log.debug("【{}】第{}个岗位：开始等待详情页面加载（超时8秒）...", keyword, i + 1);
+                        page.waitForSelector("div[class*='job-detail-box']", new Page.WaitForSelectorOptions().setTimeout(8000));
+                        long waitDuration = System.currentTimeMillis() - waitStartTime;
+                        log.info("【{}】第{}个岗位：详情页面加载完成（耗时{}ms）", keyword, i + 1, waitDuration);
                         // 更新最后进展时间
                         lastProgressTime = System.currentTimeMillis();
-
-                        // 等待详情内容加载，增加超时处理
-                        long waitStartTime = System.currentTimeMillis();
+                    } catch (com.microsoft.playwright.TimeoutError e) {
+                        long waitDuration = System.currentTimeMillis() - waitStartTime;
+                        // 增强：记录页面状态信息
                         try {
-                            log.debug("【{}】第{}个岗位：开始等待详情页面加载（超时8秒）...", keyword, i + 1);
-                            page.waitForSelector("div[class*='job-detail-box']", new Page.WaitForSelectorOptions().setTimeout(8000));
-                            long waitDuration = System.currentTimeMillis() - waitStartTime;
-                            log.info("【{}】第{}个岗位：详情页面加载完成（耗时{}ms）", keyword, i + 1, waitDuration);
-                            // 更新最后进展时间
-                            lastProgressTime = System.currentTimeMillis();
-                        } catch (com.microsoft.playwright.TimeoutError e) {
-                            long waitDuration = System.currentTimeMillis() - waitStartTime;
-                            // 增强：记录页面状态信息
-                            try {
-                                String currentUrl = page.url();
-                                String pageTitle = page.title();
-                                log.error("【{}】第{}个岗位：等待详情页面超时（耗时{}ms，超时8秒）", keyword, i + 1, waitDuration);
-                                log.error("  页面URL: {}", currentUrl);
-                                log.error("  页面标题: {}", pageTitle);
-                                log.error("  错误信息: {}", e.getMessage());
-                            } catch (Exception ex) {
-                                log.error("  获取页面信息失败: {}", ex.getMessage());
-                            }
-                            skipCount++;
-                            continue;
-                        } catch (com.microsoft.playwright.PlaywrightException e) {
-                            long waitDuration = System.currentTimeMillis() - waitStartTime;
-                            // 增强：记录页面状态信息
-                            try {
-                                String currentUrl = page.url();
-                                String pageTitle = page.title();
-                                log.error("【{}】第{}个岗位：等待详情页面时Playwright异常（耗时{}ms）", keyword, i + 1, waitDuration);
-                                log.error("  页面URL: {}", currentUrl);
-                                log.error("  页面标题: {}", pageTitle);
-                                log.error("  错误信息: {}", e.getMessage());
-                            } catch (Exception ex) {
-                                log.error("  获取页面信息失败: {}", ex.getMessage());
-                            }
-                            skipCount++;
-                            continue;
-                        } catch (Exception e) {
-                            long waitDuration = System.currentTimeMillis() - waitStartTime;
-                            // 增强：记录页面状态信息
-                            try {
-                                String currentUrl = page.url();
-                                String pageTitle = page.title();
-                                log.error("【{}】第{}个岗位：等待详情页面时发生未知异常（耗时{}ms）", keyword, i + 1, waitDuration);
-                                log.error("  页面URL: {}", currentUrl);
-                                log.error("  页面标题: {}", pageTitle);
-                                log.error("  错误信息: {}", e.getMessage());
-                            } catch (Exception ex) {
-                                log.error("  获取页面信息失败: {}", ex.getMessage());
-                            }
-                            skipCount++;
-                            continue;
+                            String currentUrl = page.url();
+                            String pageTitle = page.title();
+                            log.error("【{}】第{}个岗位：等待详情页面超时（耗时{}ms，超时8秒）", keyword, i + 1, waitDuration);
+                            log.error("  页面URL: {}", currentUrl);
+                            log.error("  页面标题: {}", pageTitle);
+                            log.error("  错误信息: {}", e.getMessage());
+                        } catch (Exception ex) {
+                            log.error("  获取页面信息失败: {}", ex.getMessage());
+                        }
+                        skipCount++;
+                        continue;
+                    } catch (com.microsoft.playwright.PlaywrightException e) {
+                        long waitDuration = System.currentTimeMillis() - waitStartTime;
+                        // 增强：记录页面状态信息
+                        try {
+                            String currentUrl = page.url();
+                            String pageTitle = page.title();
+                            log.error("【{}】第{}个岗位：等待详情页面时Playwright异常（耗时{}ms）", keyword, i + 1, waitDuration);
+                            log.error("  页面URL: {}", currentUrl);
+                            log.error("  页面标题: {}", pageTitle);
+                            log.error("  错误信息: {}", e.getMessage());
+                        } catch (Exception ex) {
+                            log.error("  获取页面信息失败: {}", ex.getMessage());
+                        }
+                        skipCount++;
+                        continue;
+                    } catch (Exception e) {
+                        long waitDuration = System.currentTimeMillis() - waitStartTime;
+                        // 增强：记录页面状态信息
+                        try {
+                            String currentUrl = page.url();
+                            String pageTitle = page.title();
+                            log.error("【{}】第{}个岗位：等待详情页面时发生未知异常（耗时{}ms）", keyword, i + 1, waitDuration);
+                            log.error("  页面URL: {}", currentUrl);
+                            log.error("  页面标题: {}", pageTitle);
+                            log.error("  错误信息: {}", e.getMessage());
+                        } catch (Exception ex) {
+                            log.error("  获取页面信息失败: {}", ex.getMessage());
                         }
+                        skipCount++;
+                        continue;
+                    }
 
-                        Locator detailBox = page.locator("div[class*='job-detail-box']");
+                    // 详情面板字段一次读取
+                    boss.service.BossJobSearchService.JobDetail detail = searchService.readJobDetail(page);
 
-                        // 岗位名称
-                        String jobName = boss.util.BossUtils.safeText(detailBox, "span[class*='job-name']");
-                        if (jobName.isEmpty()) {
-                            log.warn("【{}】第{}个岗位：无法获取岗位名称，跳过", keyword, i + 1);
-                            skipCount++;
-                            continue;
-                        }
+                    // 岗位名称
+                    String jobName = detail.getJobName();
+                    if (jobName.isEmpty()) {
+                        log.warn("【{}】第{}个岗位：无法获取岗位名称，跳过", keyword, i + 1);
+                        skipCount++;
+                        continue;
+                    }
 
-                        // 🔧 【优先级1】二次关键词匹配检查：确保岗位名称包含用户设置的关键词之一
-                        // 注意：必须在黑名单检查之前，否则"销售总监"会被黑名单直接过滤掉
-                        // ✅ 改进：使用更严格的匹配规则，避免误匹配（如"市场"匹配到"市场品牌区域总厨"）
-                        boolean keywordMatched = false;
-                        String matchedKeyword = null;
-                        double matchScore = 0.0;
-                        int matchedScheme = 0;
-
-                        for (String userKeyword : this.config.getKeywords()) {
-                            boss.matcher.BossJobMatcher.MatchingResult result = jobMatcher.isKeywordMatchedWithScore(jobName, userKeyword);
-                            if (result.isMatched()) {
-                                keywordMatched = true;
-                                matchedKeyword = userKeyword;
-                                matchScore = result.getScore();
-                                matchedScheme = result.getMatchedScheme();
-                                break;
-                            }
-                        }
-                        if (!keywordMatched) {
-                            log.info("【{}】第{}个岗位：{}不包含任何用户设置的关键词，跳过（Boss搜索匹配不准确）", keyword, i + 1, jobName);
-                            // ✅ 添加详细DEBUG日志，显示所有关键词的匹配尝试
-                            log.debug("【{}】第{}个岗位：尝试匹配的关键词列表: {}", keyword, i + 1, this.config.getKeywords());
-                            skipCount++;
-                            continue;
-                        }
-                        log.info("【{}】第{}个岗位：关键词匹配成功，岗位='{}', 匹配关键词='{}', 匹配度={}%, 匹配方案=方案{}",
-                            keyword, i + 1, jobName, matchedKeyword, String.format("%.1f", matchScore * 100), matchedScheme);
+                    // 🔧 【优先级1】二次关键词匹配检查：确保岗位名称包含用户设置的关键词之一
+                    // 注意：必须在黑名单检查之前，否则"销售总监"会被黑名单直接过滤掉
+                    // ✅ 改进：使用更严格的匹配规则，避免误匹配（如"市场"匹配到"市场品牌区域总厨"）
+                    boss.matcher.BossJobMatcher.MatchingResult matchResult =
+                        jobMatcher.matchFirst(jobName, this.config.getKeywords());
+                    String matchedKeyword = matchResult.getMatchedKeyword();
+                    double matchScore = matchResult.getScore();
+                    int matchedScheme = matchResult.getMatchedScheme();
+                    if (!matchResult.isMatched()) {
+                        log.info("【{}】第{}个岗位：{}不包含任何用户设置的关键词，跳过（Boss搜索匹配不准确）", keyword, i + 1, jobName);
+                        // ✅ 添加详细DEBUG日志，显示所有关键词的匹配尝试
+                        log.debug("【{}】第{}个岗位：尝试匹配的关键词列表: {}", keyword, i + 1, this.config.getKeywords());
+                        settled = true;
+                        skipCount++;
+                        continue;
+                    }
+                    log.info("【{}】第{}个岗位：关键词匹配成功，岗位='{}', 匹配关键词='{}', 匹配度={}%, 匹配方案=方案{}",
+                        keyword, i + 1, jobName, matchedKeyword, String.format("%.1f", matchScore * 100), matchedScheme);
+
+                    // 🔧 【优先级2】黑名单检查
+                    if (blacklistService.isJobBlacklisted(jobName)) {
+                        log.info("【{}】第{}个岗位：{}在黑名单中，跳过", keyword, i + 1, jobName);
+                        settled = true;
+                        skipCount++;
+                        continue;
+                    }
 
-                        // 🔧 【优先级2】黑名单检查
-                        if (blacklistService.isJobBlacklisted(jobName)) {
-                            log.info("【{}】第{}个岗位：{}在黑名单中，跳过", keyword, i + 1, jobName);
-                            skipCount++;
-                            continue;
-                        }
+                    // 薪资(原始)
+                    String jobSalaryRaw = detail.getSalary();
+                    String jobSalary = boss.util.BossUtils.decodeSalary(jobSalaryRaw);
 
-                        // 薪资(原始)
-                        String jobSalaryRaw = boss.util.BossUtils.safeText(detailBox, "span.job-salary");
-                        String jobSalary = boss.util.BossUtils.decodeSalary(jobSalaryRaw);
+                    // 城市/经验/学历
+                    List<String> tags = detail.getTags();
 
-                        // 城市/经验/学历
-                        List<String> tags = boss.util.BossUtils.safeAllText(detailBox, "ul[class*='tag-list'] > li");
+                    // 岗位描述
+                    String jobDesc = detail.getDesc();
 
-                        // 岗位描述
-                        String jobDesc = boss.util.BossUtils.safeText(detailBox, "p.desc");
+                    // Boss姓名、活跃
+                    String bossNameRaw = detail.getBossName();
+                    String[] bossInfo = boss.util.BossUtils.splitBossName(bossNameRaw);
+                    String bossName = bossInfo[0];
+                    String bossActive = bossInfo[1];
+
+                    // 🔧 修复空指针：检查deadStatus是否为null
+                    if (config.getDeadStatus() != null &&
+                        config.getDeadStatus().stream().anyMatch(bossActive::contains)) {
+                        log.info("【{}】第{}个岗位：{}Boss状态异常，跳过", keyword, i + 1, jobName);
+                        settled = true;
+                        skipCount++;
+                        continue;
+                    }
+
+                    // Boss公司/职位
+                    String bossTitleRaw = detail.getBossTitle();
+                    String[] bossTitleInfo = boss.util.BossUtils.splitBossTitle(bossTitleRaw);
+                    String bossCompany = bossTitleInfo[0];
+                    // ✅ 修复：使用优化的双向匹配方法检查黑名单
+                    if (blacklistService.isCompanyBlacklisted(bossCompany)) {
+                        log.info("🚫 【{}】第{}个岗位：{}公司【{}】在黑名单中，跳过", keyword, i + 1, jobName, bossCompany);
+                        settled = true;
+                        skipCount++;
+                        continue;
+                    }
+                    // 招聘者职位黑名单已删除（前端不支持此功能）
+
+                    // 创建Job对象
+                    Job job = new Job();
+                    job.setJobId(card.getJobId());
+                    job.setJobName(jobName);
+                    job.setSalary(jobSalary);
+                    job.setJobArea(String.join(", ", tags));
+                    job.setCompanyName(bossCompany);
+                    job.setRecruiter(bossName);
+                    job.setJobInfo(jobDesc);
+
+                    // 详情页的公司名称可能与列表不同，按详情再查一次已投递索引
+                    if (deliveredIndex != null && deliveredIndex.contains(job)) {
+                        log.info("【{}】第{}个岗位：{}公司【{}】已投递过，跳过", keyword, i + 1, jobName, bossCompany);
+                        settled = true;
+                        skipCount++;
+                        continue;
+                    }
 
-                        // Boss姓名、活跃
-                        String bossNameRaw = boss.util.BossUtils.safeText(detailBox, "h2[class*='name']");
-                        String[] bossInfo = boss.util.BossUtils.splitBossName(bossNameRaw);
-                        String bossName = bossInfo[0];
-                        String bossActive = bossInfo[1];
+                    log.info("【{}】第{}个岗位：准备投递{}，公司：{}，Boss：{}", keyword, i + 1, jobName, bossCompany, bossName);
 
-                        // 🔧 修复空指针：检查deadStatus是否为null
-                        if (config.getDeadStatus() != null &&
-                            config.getDeadStatus().stream().anyMatch(bossActive::contains)) {
-                            log.info("【{}】第{}个岗位：{}Boss状态异常，跳过", keyword, i + 1, jobName);
+                    // ✅ 投递策略检查（频率限制、每日限额、投递间隔等）
+                    if (deliveryGovernor != null) {
+                        // 并行模式：排队等待投递通道，频率和间隔由调度器跨流统一控制
+                        if (!deliveryGovernor.acquire(matchScore)) {
+                            log.warn("【{}】第{}个岗位：投递策略限制，匹配度={}%，跳过 - {}",
+                                keyword, i + 1, String.format("%.1f", matchScore * 100), deliveryGovernor.getStatistics());
+                            settled = !deliveryController.checkMatchThreshold(matchScore);
                             skipCount++;
                             continue;
                         }
-
-                        // Boss公司/职位
-                        String bossTitleRaw = boss.util.BossUtils.safeText(detailBox, "div[class*='boss-info-attr']");
-                        String[] bossTitleInfo = boss.util.BossUtils.splitBossTitle(bossTitleRaw);
-                        String bossCompany = bossTitleInfo[0];
-                        // ✅ 修复：使用优化的双向匹配方法检查黑名单
-                        if (blacklistService.isCompanyBlacklisted(bossCompany)) {
-                            log.info("🚫 【{}】第{}个岗位：{}公司【{}】在黑名单中，跳过", keyword, i + 1, jobName, bossCompany);
+                        holdingDeliverySlot = true;
+                    } else if (deliveryController != null) {
+                        // 使用真实计算的匹配度分数
+                        if (!this.deliveryController.canDeliver(matchScore)) {
+                            log.warn("【{}】第{}个岗位：投递策略限制，匹配度={}%，跳过 - {}",
+                                keyword, i + 1, String.format("%.1f", matchScore * 100), deliveryController.getStatistics());
+                            settled = !deliveryController.checkMatchThreshold(matchScore);
                             skipCount++;
                             continue;
                         }
-                        // 招聘者职位黑名单已删除（前端不支持此功能）
-
-                        // 创建Job对象
-                        Job job = new Job();
-                        job.setJobName(jobName);
-                        job.setSalary(jobSalary);
-                        job.setJobArea(String.join(", ", tags));
-                        job.setCompanyName(bossCompany);
-                        job.setRecruiter(bossName);
-                        job.setJobInfo(jobDesc);
-
-                        log.info("【{}】第{}个岗位：准备投递{}，公司：{}，Boss：{}", keyword, i + 1, jobName, bossCompany, bossName);
-
-                        // ✅ 投递策略检查（频率限制、每日限额、投递间隔等）
-                        if (deliveryController != null) {
-                            // 使用真实计算的匹配度分数
-                            if (!this.deliveryController.canDeliver(matchScore)) {
-                                log.warn("【{}】第{}个岗位：投递策略限制，匹配度={}%，跳过 - {}",
-                                    keyword, i + 1, String.format("%.1f", matchScore * 100), deliveryController.getStatistics());
-                                skipCount++;
-                                continue;
-                            }
-                        }
+                    }
 
-                        // ✅ 配额检查：每次投递前检查daily_job_application配额
-                        if (!quotaService.checkQuotaBeforeDelivery()) {
-                            log.warn("【{}】第{}个岗位：配额不足，停止投递。用户：{}，配额：daily_job_application",
-                                keyword, i + 1, this.userId);
-                            log.info("⏹️ 配额已用完，停止本次投递任务。请明天再试或升级套餐。");
-                            break keywordLoop; // ✅ 跳出所有投递循环（关键词循环+岗位循环），彻底停止投递
+                    // ✅ 配额检查：每次投递前检查daily_job_application配额
+                    if (!quotaService.checkQuotaBeforeDelivery()) {
+                        log.warn("【{}】第{}个岗位：配额不足，停止投递。用户：{}，配额：daily_job_application",
+                            keyword, i + 1, this.userId);
+                        log.info("⏹️ 配额已用完，停止本次投递任务。请明天再试或升级套餐。");
+                        return false; // ✅ 跳出所有投递循环（关键词循环+岗位循环），彻底停止投递
+                    }
+                    holdingQuota = true;
+
+                    // 执行投递
+                    log.info("🚀 开始投递岗位: {} - {}", job.getCompanyName(), job.getJobName());
+                    // 预取标签页属于当前线程的浏览器连接，并行模式下不预取
+                    Job nextCard = deliveryGovernor == null
+                        ? nextDeliverableCard(snapshot, cardMatches, i + 1 - processedCount) : null;
+                    boolean deliverySuccess = deliveryService.resumeSubmission(page, keyword, job, nextCard);
+                    delivered = deliverySuccess;
+
+                    // ✅ 修复：只在真正验证成功时消费配额和更新计数
+                    if (deliverySuccess) {
+                        log.info("✅ 投递验证成功，开始消费配额: {} - {}", job.getCompanyName(), job.getJobName());
+                        postCount++;
+                        if (deliveredIndex != null) {
+                            deliveredIndex.record(job);
+                        }
+                        try {
+                            // ✅ 消费配额：投递成功后消费配额（添加异常处理）
+                            quotaService.consumeQuotaAfterDelivery();
+                            log.info("✅ 配额消费成功: userId={}, quotaKey=daily_job_application, 岗位={}",
+                                this.userId, job.getJobName());
+                        } catch (Exception e) {
+                            // ✅ 修复：配额消费失败时记录错误，但不影响投递流程
+                            log.error("❌ 配额消费失败: userId={}, quotaKey=daily_job_application, 岗位={}, error={}",
+                                this.userId, job.getJobName(), e.getMessage());
+                            // 注意：即使配额消费失败，投递已经成功，所以仍然记录投递
                         }
 
-                        // 执行投递
-                        log.info("🚀 开始投递岗位: {} - {}", job.getCompanyName(), job.getJobName());
-                        boolean deliverySuccess = deliveryService.resumeSubmission(page, keyword, job);
-
-                        // ✅ 修复：只在真正验证成功时消费配额和更新计数
-                        if (deliverySuccess) {
-                            log.info("✅ 投递验证成功，开始消费配额: {} - {}", job.getCompanyName(), job.getJobName());
-                            postCount++;
-                            try {
-                                // ✅ 消费配额：投递成功后消费配额（添加异常处理）
-                                quotaService.consumeQuotaAfterDelivery();
-                                log.info("✅ 配额消费成功: userId={}, quotaKey=daily_job_application, 岗位={}",
-                                    this.userId, job.getJobName());
-                            } catch (Exception e) {
-                                // ✅ 修复：配额消费失败时记录错误，但不影响投递流程
-                                log.error("❌ 配额消费失败: userId={}, quotaKey=daily_job_application, 岗位={}, error={}",
-                                    this.userId, job.getJobName(), e.getMessage());
-                                // 注意：即使配额消费失败，投递已经成功，所以仍然记录投递
-                            }
+                        // ✅ 记录投递（更新计数器；并行模式在释放投递通道时记录）
+                        if (deliveryGovernor == null && deliveryController != null) {
+                            this.deliveryController.recordDelivery();
+                        }
 
-                            // ✅ 记录投递（更新计数器）
-                            if (deliveryController != null) {
-                                this.deliveryController.recordDelivery();
-                            }
+                        // ✅ 修复：只有在真正成功时才记录"投递完成"
+                        log.info("【{}】第{}个岗位：投递完成！{}", keyword, i + 1,
+                            deliveryController != null ? deliveryController.getStatistics() : "");
+                    } else {
+                        // ✅ 修复：投递失败时明确记录，不消费配额
+                        log.warn("❌ 【{}】第{}个岗位：投递失败，不消费配额 - {} - {}",
+                            keyword, i + 1, job.getCompanyName(), job.getJobName());
+                        failCount++;
+                    }
 
-                            // ✅ 修复：只有在真正成功时才记录"投递完成"
-                            log.info("【{}】第{}个岗位：投递完成！{}", keyword, i + 1,
-                                deliveryController != null ? deliveryController.getStatistics() : "");
-                        } else {
-                            // ✅ 修复：投递失败时明确记录，不消费配额
-                            log.warn("❌ 【{}】第{}个岗位：投递失败，不消费配额 - {} - {}",
-                                keyword, i + 1, job.getCompanyName(), job.getJobName());
-                            failCount++;
-                        }
+                    // 更新最后进展时间（投递完成）
+                    lastProgressTime = System.currentTimeMillis();
 
-                        // 更新最后进展时间（投递完成）
+                    // ✅ 应用投递间隔
+                    if (deliveryGovernor == null && deliveryController != null && i < postCount - 1) {
+                        long waitTime = deliveryController.getRecommendedWaitTime();
+                        log.info("⏳ 投递间隔等待: {}秒", waitTime / 1000);
+                        Thread.sleep(waitTime);
+                        // 更新最后进展时间（等待完成）
                         lastProgressTime = System.currentTimeMillis();
+                    }
 
-                        // ✅ 应用投递间隔
-                        if (deliveryController != null && i < postCount - 1) {
-                            long waitTime = deliveryController.getRecommendedWaitTime();
-                            log.info("⏳ 投递间隔等待: {}秒", waitTime / 1000);
-                            Thread.sleep(waitTime);
-                            // 更新最后进展时间（等待完成）
-                            lastProgressTime = System.currentTimeMillis();
-                        }
-
-                    } catch (VerificationCodeRequiredException e) {
-                        // ✅ 验证码异常：停止整个投递任务
-                        log.error("⏹️ 检测到验证码验证，停止所有投递任务。岗位: {}, 原因: {}", e.getJobName(), e.getReason());
-                        log.error("💡 请手动登录Boss直聘完成验证后，重新启动投递任务");
+                } catch (VerificationCodeRequiredException e) {
+                    // ✅ 验证码异常：停止整个投递任务
+                    log.error("⏹️ 检测到验证码验证，停止所有投递任务。岗位: {}, 原因: {}", e.getJobName(), e.getReason());
+                    log.error("💡 请手动登录Boss直聘完成验证后，重新启动投递任务");
 
-                        // 发送通知
-                        behaviorLogger.sendVerificationCodeNotification(e.getJobName());
+                    // 发送通知
+                    behaviorLogger.sendVerificationCodeNotification(e.getJobName());
 
-                        // ✅ 跳出所有循环，停止整个投递任务
-                        break keywordLoop;
-                    } catch (Exception e) {
-                        log.error("【{}】第{}个岗位处理异常：{}", keyword, i + 1, e.getMessage(), e);
-                        // 更新最后进展时间（即使异常也更新，表示有进展）
-                        lastProgressTime = System.currentTimeMillis();
-                        failCount++;
-                        // 继续处理下一个岗位
-                        continue;
+                    // ✅ 跳出所有循环，停止整个投递任务
+                    return false;
+                } catch (Exception e) {
+                    if (e instanceof com.microsoft.playwright.PlaywrightException && boss.util.BossUtils.isTargetClosed(e)) {
+                        log.error("【{}】第{}个岗位：页面/浏览器已关闭（{}），停止处理: {}",
+                            keyword, i + 1, e.getClass().getName(), e.getMessage());
+                        return false;
+                    }
+                    log.error("【{}】第{}个岗位处理异常：{}", keyword, i + 1, e.getMessage(), e);
+                    // 更新最后进展时间（即使异常也更新，表示有进展）
+                    lastProgressTime = System.currentTimeMillis();
+                    failCount++;
+                    // 继续处理下一个岗位
+                    continue;
+                } finally {
+                    if (settled || delivered) {
+                        searchCursor.markProcessed(cityCode, keyword, snapshot.get(i - processedCount).getJobId());
+                    }
+                    if (holdingDeliverySlot) {
+                        deliveryGovernor.release(delivered);
+                    }
+                    if (holdingQuota && !delivered) {
+                        // 投递未成功：退回投递前预留的配额
+                        quotaService.releaseQuotaReservation();
                     }
                 }
+            }
 
-                // 更新已处理数量
-                processedCount = currentCount;
+            // 更新已处理数量
+            if (firstToProcess < currentCount) {
+                checkpointJob(cityCode, keyword, scrollCount, currentCount,
+                    snapshot.get(currentCount - 1 - processedCount), postCount, skipCount, failCount);
+            }
+            boolean fastForwarding = currentCount < resumeFrom;
+            processedCount = currentCount;
+
+            if (reachedCursor) {
+                log.info("【{}】已到达上次运行看过的区域，停止滚动（共滚动{}次）", keyword, scrollCount);
+                break;
+            }
 
-                // 随机模拟人类行为
+            // 随机模拟人类行为（快速跳过已处理岗位时省略）
+            if (!fastForwarding) {
                 PlaywrightUtil.simulateHumanBehavior();
             }
+        }
+        searchCursor.commit(cityCode, keyword);
+        runCheckpoint.markCompleted(cityCode, keyword);
+
+        long keywordLoopDuration = System.currentTimeMillis() - keywordLoopStartTime;
+        log.info("【{}】岗位循环结束！", keyword);
+        log.info("【{}】统计信息：总岗位数={}, 已处理={}, 已投递={}, 跳过={}, 失败={}",
+            keyword, lastCount, processedCount, postCount, skipCount, failCount);
+        log.info("【{}】岗位已投递完毕！已投递岗位数量:{}，总耗时: {}秒", keyword, postCount, keywordLoopDuration / 1000);
+        return true;
+    }
+
+    /**
+     * 写入运行检查点（单流模式；并行模式下多个流同时进行，只记录已完成的城市+关键词）
+     *
+     * @param processedCount 已处理的岗位数量
+     * @param lastCard 最后处理的岗位卡片
+     */
+    private void checkpointJob(String cityCode, String keyword, int scrollCount, int processedCount, Job lastCard,
+                               int postCount, int skipCount, int failCount) {
+        if (deliveryGovernor != null) {
+            return;
+        }
+        runCheckpoint.recordJob(cityCode, keyword, scrollCount, processedCount, lastCard.getJobId(),
+            postCount, skipCount, failCount);
+    }
 
-            long keywordLoopDuration = System.currentTimeMillis() - keywordLoopStartTime;
-            log.info("【{}】岗位循环结束！", keyword);
-            log.info("【{}】统计信息：总岗位数={}, 已处理={}, 已投递={}, 跳过={}, 失败={}",
-                keyword, lastCount, processedCount, postCount, skipCount, failCount);
-            log.info("【{}】岗位已投递完毕！已投递岗位数量:{}，总耗时: {}秒", keyword, postCount, keywordLoopDuration / 1000);
+    /**
+     * 基于列表快照的预过滤（纯Java，无浏览器往返）
+     * 快照缺少岗位名称时不做判断，交给详情页检查
+     *
+     * @param card 岗位卡片快照
+     * @param match 关键词匹配结果
+     * @return 跳过原因，null表示通过
+     */
+    private String prefilterCard(Job card, boss.matcher.BossJobMatcher.MatchingResult match) {
+        String jobName = card.getJobName();
+        if (jobName == null || jobName.isEmpty()) {
+            return null;
+        }
+        if (!match.isMatched()) {
+            return jobName + "不包含任何用户设置的关键词";
+        }
+        if (deliveredIndex != null && deliveredIndex.contains(card)) {
+            return jobName + "已投递过";
+        }
+        if (blacklistService.isJobBlacklisted(jobName)) {
+            return jobName + "在黑名单中";
+        }
+        String companyName = card.getCompanyName();
+        if (companyName != null && !companyName.isEmpty() && blacklistService.isCompanyBlacklisted(companyName)) {
+            return jobName + "公司【" + companyName + "】在黑名单中";
+        }
+        String salary = card.getSalary();
+        if (salary != null && !salary.isEmpty() && jobMatcher.isSalaryNotExpected(salary)) {
+            return jobName + "薪资【" + salary + "】不符合预期";
+        }
+        return null;
+    }
+
+    /**
+     * 本批快照中下一个通过列表预过滤的岗位（用于预取详情页）
+     *
+     * @param snapshot 本批卡片快照
+     * @param cardMatches 关键词匹配结果
+     * @param from 起始下标（快照内）
+     * @return 下一个候选岗位，没有时返回null
+     */
+    private Job nextDeliverableCard(List<Job> snapshot, boss.matcher.BossJobMatcher.MatchingResult[] cardMatches, int from) {
+        for (int k = from; k < snapshot.size(); k++) {
+            Job candidate = snapshot.get(k);
+            if (candidate.getJobName() != null && !candidate.getJobName().isEmpty()
+                && prefilterCard(candidate, cardMatches[k]) == null) {
+                return candidate;
+            }
         }
+        return null;
     }
 
     public static String decodeSalary(String text) {
@@ -881,7 +1197,7 @@ public class Boss {
     @Deprecated
     private boolean loadBlacklistFromConfig() {
         try {
-            String userId = System.getenv("BOSS_USER_ID");
+            String userId = BossRunContext.currentUserId();
             if (userId == null || userId.isEmpty()) {
                 return false;
             }
@@ -2183,7 +2499,7 @@ public class Boss {
 
                 if (qrcodeElement != null) {
                     // ✅ 修复：按用户隔离二维码文件和状态文件
-                    String userId = System.getenv("BOSS_USER_ID");
+                    String userId = BossRunContext.currentUserId();
                     String safeUserId = userId != null ? userId.replaceAll("[^a-zA-Z0-9_-]", "_") : "default";
                     String qrcodePath = System.getProperty("java.io.tmpdir") + File.separator + "boss_qrcode_" + safeUserId + ".png";
                     qrcodeElement.screenshot(new Locator.ScreenshotOptions().setPath(Paths.get(qrcodePath)));
@@ -2198,7 +2514,7 @@ public class Boss {
                     // 作为备选方案，截取整个页面，然后裁剪中心区域
                     log.info("🔄 备选方案：截取整个登录页面并裁剪二维码区域");
                     // ✅ 修复：按用户隔离二维码文件和状态文件
-                    String userId = System.getenv("BOSS_USER_ID");
+                    String userId = BossRunContext.currentUserId();
                     String safeUserId = userId != null ? userId.replaceAll("[^a-zA-Z0-9_-]", "_") : "default";
                     String fullPagePath = System.getProperty("java.io.tmpdir") + File.separator + "boss_qrcode_full_" + safeUserId + ".png";
                     String qrcodePath = System.getProperty("java.io.tmpdir") + File.separator + "boss_qrcode_" + safeUserId + ".png";
@@ -2257,7 +2573,7 @@ public class Boss {
                     log.error("超过15分钟未完成登录，程序退出...");
                     // ✅ 修复：按用户隔离状态文件
                     try {
-                        String userId = System.getenv("BOSS_USER_ID");
+                        String userId = BossRunContext.currentUserId();
                         String safeUserId = userId != null ? userId.replaceAll("[^a-zA-Z0-9_-]", "_") : "default";
                         Files.write(Paths.get(System.getProperty("java.io.tmpdir") + File.separator + "boss_login_status_" + safeUserId + ".txt"), "failed".getBytes(StandardCharsets.UTF_8));
                         log.info("✅ 登录状态已更新为failed (用户: {})", safeUserId);
@@ -2394,7 +2710,7 @@ public class Boss {
 
                                         // 重新截图二维码（用户可能需要在手机上重新扫码或确认）
                                         try {
-                                            String userId = System.getenv("BOSS_USER_ID");
+                                            String userId = BossRunContext.currentUserId();
                                             String safeUserId = userId != null ? userId.replaceAll("[^a-zA-Z0-9_-]", "_") : "default";
                                             String qrcodePath = System.getProperty("java.io.tmpdir") + File.separator + "boss_qrcode_" + safeUserId + ".png";
 
@@ -2466,7 +2782,7 @@ public class Boss {
                         // ===== 新增：更新登录状态为success =====
                         try {
                             // ✅ 修复：按用户隔离状态文件
-                            String userId = System.getenv("BOSS_USER_ID");
+                            String userId = BossRunContext.currentUserId();
                             String safeUserId = userId != null ? userId.replaceAll("[^a-zA-Z0-9_-]", "_") : "default";
                             Files.write(Paths.get(System.getProperty("java.io.tmpdir") + File.separator + "boss_login_status_" + safeUserId + ".txt"), "success".getBytes(StandardCharsets.UTF_8));
                             log.info("✅ 登录状态已更新为success (用户: {})", safeUserId);
@@ -0,0 +1,63 @@
+package boss;
+
+import com.microsoft.playwright.Browser;
+import com.microsoft.playwright.BrowserContext;
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.Playwright;
+
+import lombok.extern.slf4j.Slf4j;
+import utils.PlaywrightUtil;
+
+/**
+ * 并行投递流的浏览器连接
+ * Playwright Java 要求所有调用都在创建它的线程上执行，因此每个流在自己的线程里
+ * 创建Playwright实例，通过CDP连接到主线程启动的同一个浏览器，并使用独立的上下文和页面
+ *
+ * @author ZhiTouJianLi Team
+ */
+@Slf4j
+public class BossBrowserStream implements AutoCloseable {
+
+    private static final int DEFAULT_TIMEOUT = 30000;
+
+    private final Playwright playwright;
+    private final BrowserContext context;
+    private final Page page;
+
+    /**
+     * @param cdpEndpoint 浏览器CDP地址
+     * @param cookiePath 登录Cookie文件路径
+     */
+    public BossBrowserStream(String cdpEndpoint, String cookiePath) {
+        this.playwright = Playwright.create();
+        try {
+            Browser browser = playwright.chromium().connectOverCDP(cdpEndpoint);
+            this.context = PlaywrightUtil.newDesktopContext(browser);
+            PlaywrightUtil.loadCookies(this.context, cookiePath);
+            this.page = this.context.newPage();
+            this.page.setDefaultTimeout(DEFAULT_TIMEOUT);
+        } catch (RuntimeException e) {
+            playwright.close();
+            throw e;
+        }
+        log.info("✅ 并行流浏览器上下文已创建: thread={}", Thread.currentThread().getName());
+    }
+
+    public Page getPage() {
+        return page;
+    }
+
+    @Override
+    public void close() {
+        try {
+            context.close();
+        } catch (Exception e) {
+            log.debug("关闭并行流上下文失败: {}", e.getMessage());
+        }
+        try {
+            playwright.close();
+        } catch (Exception e) {
+            log.debug("断开并行流浏览器连接失败: {}", e.getMessage());
+        }
+    }
+}
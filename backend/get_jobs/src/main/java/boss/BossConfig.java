@@ -116,6 +116,22 @@ public class BossConfig {
      */
     private List<String> deadStatus;
 
+    /**
+     * 是否通过拦截搜索接口响应获取岗位列表（默认关闭，使用DOM快照）
+     */
+    private Boolean interceptJobList;
+
+    /**
+     * 增量搜索：新加载的卡片中已在上次运行中处理过的比例达到该值时停止滚动（如0.8）
+     * 默认null表示关闭；小于等于0同样表示关闭
+     */
+    private Double incrementalStopRatio;
+
+    /**
+     * 并行执行的城市/关键词流数量（大于1时在同一浏览器的多个上下文中并行搜索，投递仍由调度器串行控制）
+     */
+    private Integer parallelStreams = 1;
+
     /**
      * 投递策略配置
      */
@@ -235,15 +251,10 @@ public class BossConfig {
     @SneakyThrows
     private static BossConfig tryLoadUserConfig() {
         try {
-            // 1. 从环境变量获取用户ID（由BossExecutionService传递）
-            String userId = System.getenv("BOSS_USER_ID");
+            // 1. 获取当前运行的用户ID（由BossExecutionService通过环境变量、系统属性或宿主线程传递）
+            String userId = BossRunContext.currentUserId();
 
-            // 2. 如果未设置环境变量，尝试系统属性（向后兼容）
-            if (userId == null || userId.isEmpty()) {
-                userId = System.getProperty("boss.user.id");
-            }
-
-            // 3. ⚠️ 多租户模式 - 必须提供用户ID
+            // 2. ⚠️ 多租户模式 - 必须提供用户ID
             if (userId == null || userId.isEmpty()) {
                 log.error("❌ 未检测到BOSS_USER_ID环境变量，多租户模式必须提供用户ID！");
                 return null;
@@ -509,11 +520,8 @@ public class BossConfig {
     @SneakyThrows
     private static String loadDefaultGreetingFromFile() {
         try {
-            // 获取当前用户ID（优先级：环境变量 > 系统属性）
-            String userId = System.getenv("BOSS_USER_ID");
-            if (userId == null || userId.isEmpty()) {
-                userId = System.getProperty("boss.user.id");
-            }
+            // 获取当前运行的用户ID
+            String userId = BossRunContext.currentUserId();
             if (userId == null || userId.isEmpty()) {
                 // ❌ 不再使用default_user fallback（多租户隔离要求）
                 log.error("❌ 未提供用户ID（BOSS_USER_ID或boss.user.id），无法加载默认打招呼语");
@@ -0,0 +1,134 @@
+package boss;
+
+import java.io.PrintStream;
+
+import utils.PlaywrightUtil;
+
+/**
+ * 当前Boss运行的用户上下文
+ * 独立进程中用户ID来自环境变量BOSS_USER_ID（优先）或系统属性boss.user.id；
+ * 多租户宿主进程中多个用户同时运行，用户ID绑定在各自的运行线程上；
+ * 线程上下文不自动继承，Boss自己创建的工作线程通过{@link #propagate}显式传递
+ * 配额租约通道（主进程发放投递配额的本机地址和令牌）与用户ID来源相同
+ *
+ * @author ZhiTouJianLi Team
+ */
+public final class BossRunContext {
+
+    /**
+     * 配额租约通道环境变量（格式：端口:令牌），系统属性为boss.quota.lease
+     */
+    public static final String QUOTA_LEASE_ENV = "BOSS_QUOTA_LEASE";
+
+    private static final ThreadLocal<String> HOSTED_USER_ID = new ThreadLocal<>();
+    private static final ThreadLocal<String> HOSTED_QUOTA_LEASE = new ThreadLocal<>();
+
+    private BossRunContext() {
+    }
+
+    /**
+     * 当前线程进入指定用户的运行（多租户宿主进程调用）
+     *
+     * @param userId 用户ID
+     */
+    public static void enter(String userId) {
+        enter(userId, null);
+    }
+
+    /**
+     * 当前线程进入指定用户的运行
+     *
+     * @param userId 用户ID
+     * @param quotaLease 配额租约通道，没有时为null
+     */
+    public static void enter(String userId, String quotaLease) {
+        HOSTED_USER_ID.set(userId);
+        if (quotaLease == null || quotaLease.isEmpty()) {
+            HOSTED_QUOTA_LEASE.remove();
+        } else {
+            HOSTED_QUOTA_LEASE.set(quotaLease);
+        }
+    }
+
+    /**
+     * 当前线程退出运行
+     */
+    public static void exit() {
+        HOSTED_USER_ID.remove();
+        HOSTED_QUOTA_LEASE.remove();
+    }
+
+    /**
+     * 包装任务：在执行线程上使用当前线程的运行上下文（用户ID、配额租约通道、Playwright会话、日志去向），结束后清除
+     * 用于Boss自己创建的工作线程（如并行流、打招呼语生成线程）；在创建线程的位置调用，捕获的是调用线程的上下文
+     *
+     * @param task 任务
+     * @return 带上下文的任务；当前线程没有上下文时返回原任务
+     */
+    public static Runnable propagate(Runnable task) {
+        String userId = HOSTED_USER_ID.get();
+        String quotaLease = HOSTED_QUOTA_LEASE.get();
+        PlaywrightUtil.Session session = PlaywrightUtil.currentSession();
+        PrintStream route = BossTenantHost.currentRoute();
+        if (userId == null && session == null && route == null) {
+            return task;
+        }
+        return () -> {
+            if (userId != null) {
+                enter(userId, quotaLease);
+            }
+            PlaywrightUtil.bindSession(session);
+            BossTenantHost.route(route);
+            try {
+                task.run();
+            } finally {
+                exit();
+                PlaywrightUtil.bindSession(null);
+                BossTenantHost.route(null);
+            }
+        };
+    }
+
+    /**
+     * @return 当前线程是否运行在多租户宿主进程中（与其他用户共享JVM）
+     */
+    public static boolean isHosted() {
+        return HOSTED_USER_ID.get() != null;
+    }
+
+    /**
+     * 获取当前运行的用户ID
+     * 优先级：线程绑定的用户 > 环境变量BOSS_USER_ID > 系统属性boss.user.id
+     *
+     * @return 用户ID，均未设置时返回null
+     */
+    public static String currentUserId() {
+        String userId = HOSTED_USER_ID.get();
+        if (userId == null || userId.isEmpty()) {
+            userId = System.getenv("BOSS_USER_ID");
+        }
+        if (userId == null || userId.isEmpty()) {
+            userId = System.getProperty("boss.user.id");
+        }
+        return userId == null || userId.isEmpty() ? null : userId;
+    }
+
+    /**
+     * 获取当前运行的配额租约通道
+     * 线程绑定了用户时只使用线程上的通道（宿主进程的环境不属于任何用户）
+     *
+     * @return 端口:令牌，未提供时返回null
+     */
+    public static String currentQuotaLease() {
+        String lease;
+        if (isHosted()) {
+            lease = HOSTED_QUOTA_LEASE.get();
+        } else {
+            lease = System.getProperty("boss.quota.lease");
+            if (lease == null || lease.isEmpty()) {
+                lease = System.getenv(QUOTA_LEASE_ENV);
+            }
+        }
+        return lease == null || lease.isEmpty() ? null : lease;
+    }
+}
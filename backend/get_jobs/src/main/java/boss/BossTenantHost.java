@@ -0,0 +1,382 @@
+package boss;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.microsoft.playwright.Browser;
+import com.microsoft.playwright.Playwright;
+
+import utils.PlaywrightUtil;
+
+/**
+ * Boss多租户宿主进程
+ * 由IsolatedBossRunner以"tenant-host"模式启动：一个JVM内共享一个无头Chromium，
+ * 同时为多个用户各运行一次Boss任务，省去每个用户一个JVM和一个浏览器的内存开销
+ *
+ * 隔离方式：
+ * 1. 每个运行在独立线程上，用户ID和Playwright会话绑定在线程上（见{@link BossRunContext}、{@link PlaywrightUtil#openSession}）
+ * 2. 每个会话通过CDP连接共享浏览器并创建自己的浏览器上下文（Cookie、存储互不可见）
+ * 3. 标准输出按线程路由，各运行的日志只回传给自己的连接
+ * 以上线程上下文不自动继承（JDK共享线程会永久保留首个创建者的值），运行创建的工作线程通过{@link BossRunContext#propagate}传递
+ *
+ * 协议与{@link BossWorker}相同（就绪行、请求行、结束行），区别是可以同时保持多个连接；
+ * 主进程关闭连接、运行超过墙钟时间或CPU时间预算时中止该运行（等待方法抛出{@link PlaywrightUtil.RunAbortedException}），
+ * 中止后仍未结束的运行无法在JVM内强制回收，此时宿主进程停止接收新运行，等其他运行结束后退出，由主进程替换
+ *
+ * @author ZhiTouJianLi Team
+ */
+public final class BossTenantHost {
+
+    private static final Logger log = LoggerFactory.getLogger(BossTenantHost.class);
+
+    /**
+     * 预算检查间隔
+     */
+    private static final long WATCHDOG_INTERVAL_SECONDS = 5;
+
+    /**
+     * 中止后等待运行线程结束的时间
+     */
+    private static final long ABORT_GRACE_MILLIS = TimeUnit.SECONDS.toMillis(60);
+
+    /**
+     * 接收连接的轮询间隔（期间检查共享浏览器是否存活、是否需要退出）
+     */
+    private static final int ACCEPT_TIMEOUT_MILLIS = 1000;
+
+    /**
+     * 当前线程的日志去向，null表示宿主进程自己的标准输出
+     */
+    private static final ThreadLocal<PrintStream> ROUTE = new ThreadLocal<>();
+
+    private final String token;
+    private final int maxTenants;
+    private final long maxRunMillis;
+    private final long maxCpuNanos;
+    private final Semaphore slots;
+    private final Map<Thread, TenantRun> runs = new ConcurrentHashMap<>();
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private volatile boolean draining;
+
+    private BossTenantHost(String token, int maxTenants, long maxRunMinutes, long maxCpuMinutes) {
+        this.token = token;
+        this.maxTenants = maxTenants;
+        this.maxRunMillis = TimeUnit.MINUTES.toMillis(maxRunMinutes);
+        this.maxCpuNanos = TimeUnit.MINUTES.toNanos(maxCpuMinutes);
+        this.slots = new Semaphore(maxTenants);
+    }
+
+    /**
+     * 进入服务循环，直到共享浏览器断开或因无法回收的运行而退出
+     *
+     * @param maxTenants 同时运行的用户数上限
+     * @param maxRunMinutes 单次运行的墙钟时间上限（分钟）
+     * @param maxCpuMinutes 单次运行线程的CPU时间上限（分钟，不含浏览器进程）
+     */
+    static void serve(int maxTenants, long maxRunMinutes, long maxCpuMinutes) throws IOException {
+        String token = System.getenv(BossWorker.TOKEN_ENV);
+        if (token == null || token.isEmpty()) {
+            throw new IllegalStateException("缺少宿主进程访问令牌（环境变量" + BossWorker.TOKEN_ENV + "）");
+        }
+        new BossTenantHost(token, Math.max(1, maxTenants), maxRunMinutes, maxCpuMinutes).serve();
+    }
+
+    private void serve() throws IOException {
+        PrintStream originalOut = System.out;
+        // 控制台日志输出在写入时读取System.out，替换为按线程路由的输出流
+        PrintStream routed = new PrintStream(new RoutingOutputStream(originalOut), true, StandardCharsets.UTF_8);
+        System.setOut(routed);
+        System.setErr(routed);
+        if (threads.isThreadCpuTimeSupported() && !threads.isThreadCpuTimeEnabled()) {
+            threads.setThreadCpuTimeEnabled(true);
+        }
+
+        int debuggingPort;
+        try (ServerSocket probe = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            debuggingPort = probe.getLocalPort();
+        }
+        ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "boss-tenant-watchdog");
+            t.setDaemon(true);
+            return t;
+        });
+
+        try (Playwright playwright = Playwright.create();
+             ServerSocket server = new ServerSocket(0, maxTenants, InetAddress.getLoopbackAddress())) {
+            Browser browser = PlaywrightUtil.launchBrowser(playwright, true, debuggingPort);
+            String endpoint = "http://127.0.0.1:" + debuggingPort;
+            watchdog.scheduleWithFixedDelay(this::enforceBudgets,
+                WATCHDOG_INTERVAL_SECONDS, WATCHDOG_INTERVAL_SECONDS, TimeUnit.SECONDS);
+
+            server.setSoTimeout(ACCEPT_TIMEOUT_MILLIS);
+            originalOut.println(BossWorker.READY_PREFIX + server.getLocalPort());
+            originalOut.flush();
+            log.info("✅ Boss多租户宿主进程就绪: 端口={}, 最多同时运行{}个用户", server.getLocalPort(), maxTenants);
+
+            // accept轮询共用宿主主线程，Playwright同步API要求浏览器对象只在创建它的线程上使用
+            while (!draining && browser.isConnected()) {
+                Socket socket;
+                try {
+                    socket = server.accept();
+                } catch (SocketTimeoutException e) {
+                    continue;
+                }
+                accept(socket, endpoint);
+            }
+            if (!browser.isConnected()) {
+                log.error("共享浏览器已断开，宿主进程退出");
+                for (TenantRun run : runs.values()) {
+                    run.abort("共享浏览器已断开");
+                }
+            }
+            // 停止接收后等进行中的运行结束（被中止后仍未结束的运行不再等待）
+            while (runs.values().stream().anyMatch(run -> !run.stuck)) {
+                try {
+                    Thread.sleep(ACCEPT_TIMEOUT_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            log.info("♻️ Boss多租户宿主进程退出");
+        } finally {
+            watchdog.shutdownNow();
+            System.setOut(originalOut);
+            System.setErr(originalOut);
+        }
+    }
+
+    /**
+     * @return 当前线程的日志去向，null表示宿主进程自己的标准输出
+     */
+    static PrintStream currentRoute() {
+        return ROUTE.get();
+    }
+
+    /**
+     * 设置当前线程的日志去向
+     *
+     * @param route 日志去向，null表示宿主进程自己的标准输出
+     */
+    static void route(PrintStream route) {
+        if (route == null) {
+            ROUTE.remove();
+        } else {
+            ROUTE.set(route);
+        }
+    }
+
+    private void accept(Socket socket, String endpoint) {
+        try {
+            socket.setSoTimeout((int) TimeUnit.SECONDS.toMillis(10));
+            BufferedReader in = new BufferedReader(
+                new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            String line = in.readLine();
+            JSONObject request = line != null ? new JSONObject(line) : null;
+            if (request == null || !token.equals(request.optString("token"))) {
+                log.warn("拒绝未授权的运行请求");
+                socket.close();
+                return;
+            }
+            if (!slots.tryAcquire()) {
+                // 主进程按上限提交，正常不会发生
+                log.warn("宿主进程已满（{}个用户），拒绝运行请求", maxTenants);
+                socket.close();
+                return;
+            }
+            socket.setSoTimeout(0);
+            TenantRun run = new TenantRun(socket, request);
+            Thread thread = new Thread(() -> run.execute(endpoint), "boss-tenant-" + run.userId);
+            thread.setDaemon(true);
+            run.thread = thread;
+            runs.put(thread, run);
+            thread.start();
+        } catch (Exception e) {
+            log.warn("处理运行请求失败: {}", e.getMessage());
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // 连接已不可用
+            }
+        }
+    }
+
+    /**
+     * 检查各运行的墙钟时间和CPU时间预算；中止后超过宽限期仍未结束的运行使宿主进程进入退出流程
+     */
+    private void enforceBudgets() {
+        long now = System.currentTimeMillis();
+        for (TenantRun run : runs.values()) {
+            if (run.abortedAt > 0) {
+                if (!run.stuck && now - run.abortedAt > ABORT_GRACE_MILLIS && run.thread.isAlive()) {
+                    run.stuck = true;
+                    draining = true;
+                    log.error("用户{}的运行被中止后{}秒仍未结束，宿主进程停止接收新运行，等其他运行结束后退出",
+                        run.userId, TimeUnit.MILLISECONDS.toSeconds(ABORT_GRACE_MILLIS));
+                }
+                continue;
+            }
+            if (maxRunMillis > 0 && now - run.startedAt > maxRunMillis) {
+                run.abort("运行时间超过" + TimeUnit.MILLISECONDS.toMinutes(maxRunMillis) + "分钟");
+                continue;
+            }
+            long cpu = threads.isThreadCpuTimeEnabled() ? threads.getThreadCpuTime(run.thread.getId()) : -1;
+            if (maxCpuNanos > 0 && cpu > maxCpuNanos) {
+                run.abort("CPU时间超过" + TimeUnit.NANOSECONDS.toMinutes(maxCpuNanos) + "分钟");
+            }
+        }
+    }
+
+    /**
+     * 宿主进程中的一次运行
+     */
+    private final class TenantRun {
+        private final Socket socket;
+        private final String userId;
+        private final String quotaLease;
+        private final String[] args;
+        private final long startedAt = System.currentTimeMillis();
+        private volatile Thread thread;
+        private volatile PlaywrightUtil.Session session;
+        private volatile long abortedAt;
+        private volatile boolean stuck;
+
+        TenantRun(Socket socket, JSONObject request) {
+            this.socket = socket;
+            this.userId = request.optString("userId");
+            this.quotaLease = request.optString("quotaLease", null);
+            JSONArray argArray = request.optJSONArray("args");
+            this.args = new String[argArray != null ? argArray.length() : 0];
+            for (int i = 0; i < args.length; i++) {
+                args[i] = argArray.optString(i);
+            }
+        }
+
+        void execute(String endpoint) {
+            int exitCode = 1;
+            try {
+                PrintStream out = new PrintStream(socket.getOutputStream(), true, StandardCharsets.UTF_8);
+                ROUTE.set(out);
+                BossRunContext.enter(userId, quotaLease);
+                session = PlaywrightUtil.openSession(endpoint);
+                if (abortedAt > 0) {
+                    session.abort();
+                }
+                watchDisconnect();
+                try {
+                    log.info("=== Boss多租户运行开始: userId={}, 参数={} ===", userId, String.join(" ", args));
+                    Boss.main(args);
+                    log.info("=== Boss多租户运行完成 ===");
+                    exitCode = 0;
+                } catch (PlaywrightUtil.RunAbortedException e) {
+                    log.warn("⏹️ 运行已中止: userId={}", userId);
+                } catch (Exception e) {
+                    log.error("Boss程序执行失败", e);
+                } finally {
+                    PlaywrightUtil.closeSession();
+                    BossRunContext.exit();
+                }
+                boolean retire = draining;
+                out.println(BossWorker.EXIT_PREFIX + exitCode + (retire ? BossWorker.RETIRE_SUFFIX : ""));
+                out.flush();
+            } catch (Exception e) {
+                log.warn("运行连接异常: userId={}, {}", userId, e.getMessage());
+            } finally {
+                ROUTE.remove();
+                try {
+                    socket.close();
+                } catch (IOException ignored) {
+                    // 连接已关闭
+                }
+                runs.remove(Thread.currentThread());
+                slots.release();
+            }
+        }
+
+        /**
+         * 主进程在请求行之后不再发送数据，读到连接结束说明主进程已终止本次运行
+         */
+        private void watchDisconnect() {
+            Thread watcher = new Thread(BossRunContext.propagate(() -> {
+                try (InputStream in = socket.getInputStream()) {
+                    while (in.read() >= 0) {
+                        // 忽略
+                    }
+                } catch (IOException ignored) {
+                    // 连接关闭
+                }
+                if (thread.isAlive()) {
+                    abort("主进程已终止本次运行");
+                }
+            }), "boss-tenant-watch-" + userId);
+            watcher.setDaemon(true);
+            watcher.start();
+        }
+
+        void abort(String reason) {
+            if (abortedAt > 0) {
+                return;
+            }
+            abortedAt = System.currentTimeMillis();
+            log.warn("⏹️ 中止用户{}的运行: {}", userId, reason);
+            PlaywrightUtil.Session s = session;
+            if (s != null) {
+                s.abort();
+            }
+            thread.interrupt();
+        }
+    }
+
+    /**
+     * 按线程路由的标准输出：运行线程（及其传递了上下文的工作线程）写入各自的连接，其他线程写入宿主进程的标准输出
+     */
+    private static final class RoutingOutputStream extends OutputStream {
+        private final OutputStream fallback;
+
+        RoutingOutputStream(OutputStream fallback) {
+            this.fallback = fallback;
+        }
+
+        private OutputStream target() {
+            PrintStream route = ROUTE.get();
+            return route != null ? route : fallback;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            target().write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            target().write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            target().flush();
+        }
+    }
+}
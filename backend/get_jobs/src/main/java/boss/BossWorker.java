@@ -0,0 +1,172 @@
+package boss;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import utils.PlaywrightUtil;
+
+/**
+ * Boss常驻工作进程
+ * 由IsolatedBossRunner以"worker"模式启动：预热Playwright驱动后在本机回环端口等待运行请求，
+ * 每次只为一个用户执行一次完整的Boss任务，日志通过同一个连接回传给主进程
+ *
+ * 协议（每个连接一次运行，UTF-8文本行）：
+ * 1. 启动就绪后在标准输出打印 BOSS_WORKER_PORT=端口
+ * 2. 主进程连接后发送一行JSON：{"token": "...", "userId": "...", "args": [...], "quotaLease": "端口:令牌"（可选）}
+ * 3. 工作进程回传运行日志，最后一行为 BOSS_WORKER_EXIT=退出码（随后即将退出时附加 retire），然后关闭连接
+ *
+ * 两次运行之间清理用户相关状态（浏览器、页面绑定、用户ID）；运行次数达到上限或
+ * GC后老年代占用超过阈值时退出，由主进程的进程池补充新的工作进程
+ *
+ * @author ZhiTouJianLi Team
+ */
+public final class BossWorker {
+
+    private static final Logger log = LoggerFactory.getLogger(BossWorker.class);
+
+    /**
+     * 就绪行前缀（标准输出）
+     */
+    public static final String READY_PREFIX = "BOSS_WORKER_PORT=";
+
+    /**
+     * 运行结束行前缀（连接内最后一行）
+     */
+    public static final String EXIT_PREFIX = "BOSS_WORKER_EXIT=";
+
+    /**
+     * 结束行后缀：本次运行后工作进程将退出，不要再提交运行
+     */
+    public static final String RETIRE_SUFFIX = " retire";
+
+    /**
+     * 访问令牌环境变量（由主进程生成，防止本机其他进程提交运行请求）
+     */
+    public static final String TOKEN_ENV = "BOSS_WORKER_TOKEN";
+
+    private BossWorker() {
+    }
+
+    /**
+     * 进入工作循环，直到需要回收
+     *
+     * @param maxRuns 最多执行的运行次数
+     * @param maxHeapRatio GC后堆占用比例上限（0~1）
+     */
+    static void serve(int maxRuns, double maxHeapRatio) throws IOException {
+        String token = System.getenv(TOKEN_ENV);
+        if (token == null || token.isEmpty()) {
+            throw new IllegalStateException("缺少工作进程访问令牌（环境变量" + TOKEN_ENV + "）");
+        }
+
+        PrintStream originalOut = System.out;
+        PrintStream originalErr = System.err;
+        PlaywrightUtil.warmUp();
+
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            originalOut.println(READY_PREFIX + server.getLocalPort());
+            originalOut.flush();
+            log.info("✅ Boss工作进程就绪: 端口={}, 最多运行{}次", server.getLocalPort(), maxRuns);
+
+            int runs = 0;
+            boolean retire = false;
+            while (!retire) {
+                try (Socket socket = server.accept()) {
+                    BufferedReader in = new BufferedReader(
+                        new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                    String line = in.readLine();
+                    JSONObject request = line != null ? new JSONObject(line) : null;
+                    if (request == null || !token.equals(request.optString("token"))) {
+                        log.warn("拒绝未授权的运行请求");
+                        continue;
+                    }
+                    PrintStream out = new PrintStream(socket.getOutputStream(), true, StandardCharsets.UTF_8);
+                    runs++;
+                    int exitCode = runOnce(request, out, originalOut, originalErr);
+                    retire = shouldRetire(runs, maxRuns, maxHeapRatio);
+                    out.println(EXIT_PREFIX + exitCode + (retire ? RETIRE_SUFFIX : ""));
+                    out.flush();
+                } catch (Exception e) {
+                    log.warn("处理运行请求失败: {}", e.getMessage());
+                }
+            }
+            log.info("♻️ Boss工作进程已完成{}次运行，退出", runs);
+        } finally {
+            PlaywrightUtil.resetForNextRun();
+        }
+    }
+
+    private static int runOnce(JSONObject request, PrintStream out, PrintStream originalOut, PrintStream originalErr) {
+        String userId = request.optString("userId");
+        JSONArray argArray = request.optJSONArray("args");
+        String[] args = new String[argArray != null ? argArray.length() : 0];
+        for (int i = 0; i < args.length; i++) {
+            args[i] = argArray.optString(i);
+        }
+
+        // 本次运行的日志全部回传给主进程（控制台日志输出在写入时读取System.out）
+        System.setOut(out);
+        System.setErr(out);
+        BossRunContext.enter(userId, request.optString("quotaLease", null));
+        try {
+            log.info("=== Boss工作进程开始运行: userId={}, 参数={} ===", userId, String.join(" ", args));
+            Boss.main(args);
+            log.info("=== Boss工作进程运行完成 ===");
+            return 0;
+        } catch (Exception e) {
+            log.error("Boss程序执行失败", e);
+            return 1;
+        } finally {
+            PlaywrightUtil.resetForNextRun();
+            BossRunContext.exit();
+            System.out.flush();
+            System.setOut(originalOut);
+            System.setErr(originalErr);
+        }
+    }
+
+    private static boolean shouldRetire(int runs, int maxRuns, double maxHeapRatio) {
+        if (runs >= maxRuns) {
+            return true;
+        }
+        double heapRatio = heapRatioAfterGc();
+        if (heapRatio > maxHeapRatio) {
+            log.info("♻️ GC后堆占用{}%超过阈值，工作进程退出等待替换", Math.round(heapRatio * 100));
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return 最近一次GC后堆内存占用比例（按各堆内存池汇总）
+     */
+    private static double heapRatioAfterGc() {
+        long used = 0;
+        long max = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() != MemoryType.HEAP) {
+                continue;
+            }
+            MemoryUsage afterGc = pool.getCollectionUsage();
+            MemoryUsage usage = pool.getUsage();
+            used += afterGc != null ? afterGc.getUsed() : usage.getUsed();
+            max += usage.getMax() > 0 ? usage.getMax() : usage.getCommitted();
+        }
+        return max > 0 ? (double) used / max : 0;
+    }
+}
@@ -4,17 +4,21 @@ import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.time.Clock;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicLong;
 
 import lombok.extern.slf4j.Slf4j;
+import util.DeliveryPolicy;
+import util.DeliveryRateLimiter;
 
 /**
  * 投递控制器
  * 负责控制投递频率、每日限额、投递间隔等
+ * 投递策略编译为一个不可变的{@link DeliveryPolicy}，计数由无锁的{@link DeliveryRateLimiter}维护
+ * （每小时频率按滑动一小时计算，不再在整点重置时出现连续放行）
  *
  * @author ZhiTouJianLi Team
  * @since 2025-11-04
@@ -22,28 +26,34 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class DeliveryController {
 
-    private final BossConfig.DeliveryStrategy strategy;
-
-    // 每日投递计数器
-    private final AtomicInteger dailyDeliveryCount;
-    private LocalDate currentDate = LocalDate.now();
-
-    // 投递频率控制（每小时）
-    private final AtomicInteger hourlyDeliveryCount = new AtomicInteger(0);
-    private long lastHourResetTime = System.currentTimeMillis();
+    private static final int DEFAULT_HOURLY_FREQUENCY = 6; // ✅ 风控优化：默认从每小时10次降低到6次（平均10分钟/次）
+    private static final int DEFAULT_MAX_DAILY = 100;
+    private static final int DEFAULT_INTERVAL_SECONDS = 480; // ✅ 风控优化：默认从5分钟增加到8分钟
 
-    // 投递间隔控制
-    private final AtomicLong lastDeliveryTime = new AtomicLong(0);
+    private final BossConfig.DeliveryStrategy strategy;
+    private final DeliveryRateLimiter limiter;
 
     /**
      * 构造函数
      */
     public DeliveryController(BossConfig.DeliveryStrategy strategy) {
+        this(strategy, null);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param strategy 投递策略
+     * @param knownTodayDeliveryCount 已知的今日已投递数量（来自主进程的配额租约通道），null时查询数据库
+     */
+    public DeliveryController(BossConfig.DeliveryStrategy strategy, Integer knownTodayDeliveryCount) {
         this.strategy = strategy != null ? strategy : new BossConfig.DeliveryStrategy();
 
         // 🔥 修复：初始化时从日志文件读取今日已投递数量，防止重启后计数器重置导致超限
-        int todayDeliveryCount = loadTodayDeliveryCountFromLog();
-        this.dailyDeliveryCount = new AtomicInteger(todayDeliveryCount);
+        int todayDeliveryCount = knownTodayDeliveryCount != null
+            ? knownTodayDeliveryCount : loadTodayDeliveryCountFromLog();
+        DeliveryPolicy policy = toPolicy(this.strategy);
+        this.limiter = new DeliveryRateLimiter(policy, Clock.system(policy.getZone()), todayDeliveryCount);
 
         log.info("📊 投递控制器初始化: 启用={}, 频率={}/小时, 每日限额={}, 间隔={}秒, 今日已投递={}",
             this.strategy.getEnableAutoDelivery(),
@@ -53,6 +63,51 @@ public class DeliveryController {
             todayDeliveryCount);
     }
 
+    /**
+     * 将投递策略转换为限流策略（未设置的项使用默认值）
+     */
+    public static DeliveryPolicy toPolicy(BossConfig.DeliveryStrategy strategy) {
+        Integer frequency = strategy.getDeliveryFrequency();
+        Integer maxDaily = strategy.getMaxDailyDelivery();
+        Integer interval = strategy.getDeliveryInterval();
+        LocalTime[] window = parseTimeRange(strategy.getDeliveryTimeRange());
+        return DeliveryPolicy.builder()
+            .hourlyLimit(frequency != null ? frequency : DEFAULT_HOURLY_FREQUENCY)
+            .dailyLimit(maxDaily != null ? maxDaily : DEFAULT_MAX_DAILY)
+            .minInterval(Duration.ofSeconds(interval != null ? interval : DEFAULT_INTERVAL_SECONDS))
+            .window(window[0], window[1])
+            .build();
+    }
+
+    /**
+     * 解析投递时间范围
+     *
+     * @return [开始, 结束]，全天投递时都为null
+     */
+    private static LocalTime[] parseTimeRange(BossConfig.TimeRange timeRange) {
+        LocalTime[] allDay = new LocalTime[2];
+        if (timeRange == null) {
+            return allDay; // 未设置时间范围，允许全天投递
+        }
+
+        String startTime = timeRange.getStartTime();
+        String endTime = timeRange.getEndTime();
+
+        // 如果是默认值（00:00 - 00:00 或 00:00 - 23:59），允许全天投递
+        if (("00:00".equals(startTime) && "00:00".equals(endTime)) ||
+            ("00:00".equals(startTime) && "23:59".equals(endTime))) {
+            return allDay;
+        }
+
+        try {
+            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("HH:mm");
+            return new LocalTime[] {LocalTime.parse(startTime, formatter), LocalTime.parse(endTime, formatter)};
+        } catch (Exception e) {
+            log.warn("⚠️ 时间范围解析失败: {}, 允许全天投递", e.getMessage());
+            return allDay;
+        }
+    }
+
     /**
      * 检查是否可以投递
      *
@@ -71,57 +126,63 @@ public class DeliveryController {
             return false;
         }
 
-        // 3. 检查投递时间范围
-        if (!checkTimeRange()) {
-            return false;
-        }
-
-        // 4. 检查每日限额
-        if (!checkDailyLimit()) {
-            return false;
-        }
-
-        // 5. 检查投递频率（每小时）
-        if (!checkHourlyFrequency()) {
-            return false;
-        }
-
-        // 6. 检查投递间隔
-        if (!checkDeliveryInterval()) {
-            return false;
+        // 3. 依次检查投递时间范围、每日限额、投递频率（滑动一小时）、投递间隔
+        DeliveryRateLimiter.Limit limit = limiter.blockingLimit();
+        DeliveryPolicy policy = limiter.getPolicy();
+        switch (limit) {
+            case TIME_WINDOW:
+                log.info("⏰ 当前时间 {} 不在投递范围内 ({} - {})",
+                    LocalTime.now(policy.getZone()), policy.getWindowStart(), policy.getWindowEnd());
+                return false;
+            case DAILY_LIMIT:
+                log.warn("🚫 已达每日投递限额: {}/{}", limiter.dailyCount(), policy.getDailyLimit());
+                return false;
+            case HOURLY_LIMIT:
+                log.warn("🚫 已达小时投递频率限制: {}/{}，{}秒后放行",
+                    limiter.hourlyCount(), policy.getHourlyLimit(), limiter.millisUntilAllowed() / 1000);
+                return false;
+            case MIN_INTERVAL:
+                log.info("⏳ 投递间隔不足: 间隔{}秒, 还需等待{}秒",
+                    policy.getMinIntervalMillis() / 1000, limiter.millisUntilAllowed() / 1000);
+                return false;
+            default:
+                log.debug("✅ 投递节奏检查通过: 今日={}/{}, 最近一小时={}/{}",
+                    limiter.dailyCount(), policy.getDailyLimit(), limiter.hourlyCount(), policy.getHourlyLimit());
+                return true;
         }
-
-        return true;
     }
 
     /**
      * 记录一次投递
      */
     public void recordDelivery() {
-        // 检查是否需要重置每日计数器
-        LocalDate today = LocalDate.now();
-        if (!today.equals(currentDate)) {
-            log.info("📅 日期变更: {} -> {}, 重置每日计数器", currentDate, today);
-            dailyDeliveryCount.set(0);
-            currentDate = today;
-        }
+        limiter.record();
 
-        // 检查是否需要重置每小时计数器
-        long now = System.currentTimeMillis();
-        if (now - lastHourResetTime > 3600_000) { // 1小时 = 3600秒 = 3600000毫秒
-            log.info("⏰ 小时重置: 清空频率计数器");
-            hourlyDeliveryCount.set(0);
-            lastHourResetTime = now;
-        }
+        log.info("📈 投递统计: 今日={}/{}, 最近一小时={}/{}",
+            limiter.dailyCount(), strategy.getMaxDailyDelivery(),
+            limiter.hourlyCount(), strategy.getDeliveryFrequency());
+    }
 
-        // 增加计数
-        int dailyCount = dailyDeliveryCount.incrementAndGet();
-        int hourlyCount = hourlyDeliveryCount.incrementAndGet();
-        lastDeliveryTime.set(now);
+    /**
+     * @return 当前阻止投递的节奏限制（不含匹配度），{@link DeliveryRateLimiter.Limit#NONE}表示可以投递
+     */
+    public DeliveryRateLimiter.Limit getBlockingLimit() {
+        return limiter.blockingLimit();
+    }
+
+    /**
+     * @return 满足时间范围、每日限额、频率和间隔的最早投递时刻（毫秒时间戳），
+     * 限额为0时返回{@link DeliveryRateLimiter#NEVER}
+     */
+    public long nextAllowedAt() {
+        return limiter.nextAllowedAt();
+    }
 
-        log.info("📈 投递统计: 今日={}/{}, 本小时={}/{}",
-            dailyCount, strategy.getMaxDailyDelivery(),
-            hourlyCount, strategy.getDeliveryFrequency());
+    /**
+     * @return 底层限流器（多流共用同一个控制器时共享计数）
+     */
+    public DeliveryRateLimiter getRateLimiter() {
+        return limiter;
     }
 
     /**
@@ -132,23 +193,40 @@ public class DeliveryController {
         // 基于投递间隔计算
         Integer interval = strategy.getDeliveryInterval();
         if (interval == null || interval <= 0) {
-            interval = 480; // ✅ 风控优化：默认从5分钟增加到8分钟
+            interval = DEFAULT_INTERVAL_SECONDS;
         }
 
         // ✅ 风控优化：增加随机波动范围（±40%）避免被检测为机器人
         double randomFactor = 0.6 + (Math.random() * 0.8); // 0.6 ~ 1.4
         long waitTime = (long) (interval * 1000 * randomFactor);
 
+        // 不短于频率/间隔限制的剩余等待，避免等待结束后下一个岗位仍被间隔限制跳过
+        waitTime = Math.max(waitTime, getWaitTimeBeforeNextDelivery());
+
         log.debug("⏱️ 建议等待时间: {}秒 (原始={}秒, 随机因子={})",
             waitTime / 1000, interval, String.format("%.2f", randomFactor));
 
         return waitTime;
     }
 
+    /**
+     * 距离频率/间隔限制放行还需等待的时间（毫秒）
+     * 每日限额、时间范围等无法通过等待解决的限制不计入
+     *
+     * @return 0表示频率和间隔都已满足
+     */
+    public long getWaitTimeBeforeNextDelivery() {
+        if (!limiter.blockingLimit().isPacing()) {
+            return 0;
+        }
+        long wait = limiter.millisUntilAllowed();
+        return wait == DeliveryRateLimiter.NEVER ? 0 : wait;
+    }
+
     /**
      * 检查匹配度阈值
      */
-    private boolean checkMatchThreshold(double matchScore) {
+    boolean checkMatchThreshold(double matchScore) {
         Double threshold = strategy.getMatchThreshold();
         if (threshold == null) {
             threshold = 0.7; // 默认阈值70%
@@ -167,136 +245,13 @@ public class DeliveryController {
         return true;
     }
 
-    /**
-     * 检查投递时间范围
-     */
-    private boolean checkTimeRange() {
-        BossConfig.TimeRange timeRange = strategy.getDeliveryTimeRange();
-        if (timeRange == null) {
-            return true; // 未设置时间范围，允许全天投递
-        }
-
-        String startTime = timeRange.getStartTime();
-        String endTime = timeRange.getEndTime();
-
-        // 如果是默认值（00:00 - 00:00 或 00:00 - 23:59），允许全天投递
-        if (("00:00".equals(startTime) && "00:00".equals(endTime)) ||
-            ("00:00".equals(startTime) && "23:59".equals(endTime))) {
-            return true;
-        }
-
-        try {
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("HH:mm");
-            LocalTime now = LocalTime.now();
-            LocalTime start = LocalTime.parse(startTime, formatter);
-            LocalTime end = LocalTime.parse(endTime, formatter);
-
-            boolean inRange = now.isAfter(start) && now.isBefore(end);
-            if (!inRange) {
-                log.info("⏰ 当前时间 {} 不在投递范围内 ({} - {})", now, startTime, endTime);
-                return false;
-            }
-
-            log.debug("✅ 时间范围检查通过: {} 在 {} - {} 之间", now, startTime, endTime);
-            return true;
-
-        } catch (Exception e) {
-            log.warn("⚠️ 时间范围解析失败: {}, 允许投递", e.getMessage());
-            return true;
-        }
-    }
-
-    /**
-     * 检查每日限额
-     */
-    private boolean checkDailyLimit() {
-        // 检查日期是否变更
-        LocalDate today = LocalDate.now();
-        if (!today.equals(currentDate)) {
-            log.info("📅 日期变更，重置计数器: {} -> {}", currentDate, today);
-            dailyDeliveryCount.set(0);
-            currentDate = today;
-        }
-
-        int currentCount = dailyDeliveryCount.get();
-        Integer maxDaily = strategy.getMaxDailyDelivery();
-        if (maxDaily == null) {
-            maxDaily = 100; // 默认每日100次
-        }
-
-        if (currentCount >= maxDaily) {
-            log.warn("🚫 已达每日投递限额: {}/{}", currentCount, maxDaily);
-            return false;
-        }
-
-        log.debug("✅ 每日限额检查通过: {}/{}", currentCount, maxDaily);
-        return true;
-    }
-
-    /**
-     * 检查投递频率（每小时）
-     * ✅ 风控优化：降低默认每小时频率
-     */
-    private boolean checkHourlyFrequency() {
-        // 检查是否需要重置计数器（每小时）
-        long now = System.currentTimeMillis();
-        if (now - lastHourResetTime > 3600_000) {
-            log.info("⏰ 小时重置，清空频率计数器");
-            hourlyDeliveryCount.set(0);
-            lastHourResetTime = now;
-        }
-
-        int currentCount = hourlyDeliveryCount.get();
-        Integer frequency = strategy.getDeliveryFrequency();
-        if (frequency == null) {
-            frequency = 6; // ✅ 风控优化：默认从每小时10次降低到6次（平均10分钟/次）
-        }
-
-        if (currentCount >= frequency) {
-            log.warn("🚫 已达小时投递频率限制: {}/{}", currentCount, frequency);
-            return false;
-        }
-
-        log.debug("✅ 投递频率检查通过: {}/{} (本小时)", currentCount, frequency);
-        return true;
-    }
-
-    /**
-     * 检查投递间隔
-     * ✅ 风控优化：增加默认投递间隔
-     */
-    private boolean checkDeliveryInterval() {
-        long lastTime = lastDeliveryTime.get();
-        if (lastTime == 0) {
-            log.debug("✅ 首次投递，无需检查间隔");
-            return true; // 首次投递
-        }
-
-        long now = System.currentTimeMillis();
-        long elapsedSeconds = (now - lastTime) / 1000;
-
-        Integer interval = strategy.getDeliveryInterval();
-        if (interval == null) {
-            interval = 480; // ✅ 风控优化：默认从5分钟增加到8分钟
-        }
-
-        if (elapsedSeconds < interval) {
-            long remainingSeconds = interval - elapsedSeconds;
-            log.info("⏳ 投递间隔不足: 已等待{}秒, 还需等待{}秒", elapsedSeconds, remainingSeconds);
-            return false;
-        }
-
-        log.debug("✅ 投递间隔检查通过: 已等待{}秒 >= {}秒", elapsedSeconds, interval);
-        return true;
-    }
-
     /**
      * 获取当前统计信息
      */
     public String getStatistics() {
-        return String.format("投递统计 [今日: %d/%d, 本小时: %d/%d]",
-            dailyDeliveryCount.get(), strategy.getMaxDailyDelivery(),
-            hourlyDeliveryCount.get(), strategy.getDeliveryFrequency());
+        return String.format("投递统计 [今日: %d/%d, 最近一小时: %d/%d]",
+            limiter.dailyCount(), strategy.getMaxDailyDelivery(),
+            limiter.hourlyCount(), strategy.getDeliveryFrequency());
     }
 
     /**
@@ -316,29 +271,20 @@ public class DeliveryController {
             // ✅ 修复：在Boss隔离环境中，从环境变量获取用户ID（避免依赖Spring Security）
             String userId;
             try {
-                // 优先尝试从环境变量获取（Boss隔离进程）
-                userId = System.getProperty("boss.user.id");
-                if (userId == null || userId.isEmpty()) {
-                    userId = System.getenv("BOSS_USER_ID");
-                }
-                // 如果环境变量也没有，再尝试从Spring Security获取
+                // 优先从当前Boss运行获取（隔离进程或多租户宿主）
+                userId = BossRunContext.currentUserId();
+                // 如果不在Boss运行中，再尝试从Spring Security获取
                 if (userId == null || userId.isEmpty()) {
                     userId = util.UserContextUtil.getCurrentUserId();
                 }
             } catch (NoClassDefFoundError e) {
                 // Boss隔离环境中没有Spring Security，使用环境变量
                 log.debug("Spring Security不可用（隔离环境），使用环境变量获取用户ID");
-                userId = System.getProperty("boss.user.id");
-                if (userId == null || userId.isEmpty()) {
-                    userId = System.getenv("BOSS_USER_ID");
-                }
+                userId = BossRunContext.currentUserId();
             } catch (Exception e) {
                 // 其他异常，使用默认值
                 log.warn("获取用户ID失败: {}", e.getMessage());
-                userId = System.getProperty("boss.user.id");
-                if (userId == null || userId.isEmpty()) {
-                    userId = System.getenv("BOSS_USER_ID");
-                }
+                userId = BossRunContext.currentUserId();
             }
 
             if (userId == null || userId.isEmpty()) {
@@ -417,11 +363,7 @@ public class DeliveryController {
      * 重置所有计数器（用于测试）
      */
     public void resetAll() {
-        dailyDeliveryCount.set(0);
-        hourlyDeliveryCount.set(0);
-        lastDeliveryTime.set(0);
-        currentDate = LocalDate.now();
-        lastHourResetTime = System.currentTimeMillis();
+        limiter.reset();
         log.info("🔄 所有计数器已重置");
     }
 }
@@ -0,0 +1,85 @@
+package boss;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import lombok.extern.slf4j.Slf4j;
+import util.DeliveryRateLimiter;
+
+/**
+ * 投递调度器（多上下文并行模式）
+ * 多个城市/关键词流共享同一个调度器：搜索、滚动、过滤可以并行，
+ * 面向平台的投递动作同一时间只允许一个流执行，并统一遵守投递策略的
+ * 每小时频率、每日限额和投递间隔，整体发送速率与单流模式一致
+ *
+ * @author ZhiTouJianLi Team
+ */
+@Slf4j
+public class DeliveryGovernor {
+
+    private final DeliveryController controller;
+    // 公平锁：按到达顺序轮流投递
+    private final ReentrantLock deliveryLock = new ReentrantLock(true);
+
+    public DeliveryGovernor(DeliveryController controller) {
+        this.controller = controller;
+    }
+
+    /**
+     * 等待轮到本流投递
+     * 频率或间隔未满足时按限流器给出的放行时刻一次睡够；匹配度、时间范围、每日限额不满足时直接返回false
+     * 返回true时调用方持有投递通道，投递结束后必须调用{@link #release(boolean)}
+     *
+     * @param matchScore 匹配度分数（0.0-1.0）
+     * @return true=可以投递, false=本岗位不可投递
+     */
+    public boolean acquire(double matchScore) {
+        deliveryLock.lock();
+        try {
+            while (!controller.canDeliver(matchScore)) {
+                DeliveryRateLimiter.Limit limit = controller.getBlockingLimit();
+                if (!controller.checkMatchThreshold(matchScore)
+                    || (limit != DeliveryRateLimiter.Limit.NONE && !limit.isPacing())
+                    || controller.nextAllowedAt() == DeliveryRateLimiter.NEVER) {
+                    deliveryLock.unlock();
+                    return false;
+                }
+                long waitMs = controller.getWaitTimeBeforeNextDelivery();
+                if (waitMs > 0) {
+                    log.info("⏳ [{}] 等待投递通道放行: {}秒", Thread.currentThread().getName(), waitMs / 1000);
+                    TimeUnit.MILLISECONDS.sleep(waitMs);
+                }
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            deliveryLock.unlock();
+            return false;
+        }
+    }
+
+    /**
+     * 释放投递通道
+     *
+     * @param delivered 本次是否投递成功（成功时计入频率和限额）
+     */
+    public void release(boolean delivered) {
+        if (!deliveryLock.isHeldByCurrentThread()) {
+            return;
+        }
+        try {
+            if (delivered) {
+                controller.recordDelivery();
+            }
+        } finally {
+            deliveryLock.unlock();
+        }
+    }
+
+    /**
+     * @return 当前统计信息
+     */
+    public String getStatistics() {
+        return controller.getStatistics();
+    }
+}
@@ -1,5 +1,15 @@
 package boss;
 
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -13,6 +23,10 @@ import org.slf4j.LoggerFactory;
  * 3. 避免与Spring Boot线程池冲突
  * 4. 简化配置加载
  * 5. 支持"只登录"模式（用于二维码登录）
+ * 6. 支持"恢复"模式（进程中断后从检查点继续）
+ * 7. 支持"常驻工作进程"模式（由主进程的进程池预先启动，复用JVM和Playwright驱动）
+ * 8. 支持"类数据共享训练"模式（加载运行所需的类后退出，由主进程转储AppCDS归档）
+ * 9. 支持"多租户宿主"模式（一个JVM共享一个浏览器，同时为多个用户运行）
  */
 public class IsolatedBossRunner {
 
@@ -22,6 +36,10 @@ public class IsolatedBossRunner {
      * 在隔离环境中运行Boss程序
      * @param args 程序参数
      *             args[0] = "login-only" : 只登录，不投递（用于二维码登录）
+     *             args[0] = "resume" : 从上次中断的检查点继续投递
+     *             args[0] = "worker" : 常驻工作进程，通过本机端口接收运行请求（见{@link BossWorker}）
+     *             args[0] = "tenant-host" : 多租户宿主进程，同时为多个用户运行（见{@link BossTenantHost}）
+     *             args[0] = "cds-training" : 只加载类不运行，配合-XX:ArchiveClassesAtExit生成类数据共享归档
      *             args[0] = 其他或无参数 : 执行完整投递流程
      */
     public static void main(String[] args) {
@@ -33,10 +51,33 @@ public class IsolatedBossRunner {
             log.info("执行模式: WebUI隔离环境");
             log.info("线程名称: {}", Thread.currentThread().getName());
 
+            if (args.length > 0 && "cds-training".equals(args[0])) {
+                log.info("📦 运行模式: 类数据共享训练");
+                loadRunnerClasses();
+                System.exit(0);
+            }
+
+            if (args.length > 0 && "worker".equals(args[0])) {
+                log.info("♨️ 运行模式: 常驻工作进程");
+                BossWorker.serve(Integer.getInteger("boss.worker.maxRuns", 20),
+                    Double.parseDouble(System.getProperty("boss.worker.maxHeapRatio", "0.75")));
+                System.exit(0);
+            }
+
+            if (args.length > 0 && "tenant-host".equals(args[0])) {
+                log.info("🏠 运行模式: 多租户宿主进程");
+                BossTenantHost.serve(Integer.getInteger("boss.tenant-host.maxTenants", 4),
+                    Long.getLong("boss.tenant-host.maxRunMinutes", 120),
+                    Long.getLong("boss.tenant-host.maxCpuMinutes", 30));
+                System.exit(0);
+            }
+
             // ✅ 检查是否为只登录模式
             boolean loginOnly = args.length > 0 && "login-only".equals(args[0]);
             if (loginOnly) {
                 log.info("🔑 运行模式: 只登录（二维码扫码），不执行投递");
+            } else if (args.length > 0 && "resume".equals(args[0])) {
+                log.info("🔁 运行模式: 恢复投递，跳过中断前已完成的工作");
             }
 
             // 直接调用Boss.main方法，传递参数
@@ -51,6 +92,44 @@ public class IsolatedBossRunner {
         }
     }
 
+    /**
+     * 加载（不初始化）运行器自身的类：boss、utils包下的全部类及其方法签名引用的依赖类，
+     * 进程退出时由JVM写入动态归档；不启动浏览器，不访问网络
+     */
+    private static void loadRunnerClasses() throws Exception {
+        Path codeSource = Paths.get(IsolatedBossRunner.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        List<String> classEntries = new ArrayList<>();
+        if (Files.isDirectory(codeSource)) {
+            try (Stream<Path> files = Files.walk(codeSource)) {
+                files.map(f -> codeSource.relativize(f).toString().replace(File.separatorChar, '/'))
+                    .forEach(classEntries::add);
+            }
+        } else {
+            try (JarFile jar = new JarFile(codeSource.toFile())) {
+                jar.stream().map(JarEntry::getName).forEach(classEntries::add);
+            }
+        }
+
+        ClassLoader loader = IsolatedBossRunner.class.getClassLoader();
+        int loaded = 0;
+        for (String entry : classEntries) {
+            if (!entry.endsWith(".class") || !(entry.startsWith("boss/") || entry.startsWith("utils/"))) {
+                continue;
+            }
+            String className = entry.substring(0, entry.length() - ".class".length()).replace('/', '.');
+            try {
+                Class<?> clazz = Class.forName(className, false, loader);
+                // 解析方法和字段签名，连带加载依赖库中的类
+                clazz.getDeclaredMethods();
+                clazz.getDeclaredFields();
+                loaded++;
+            } catch (Throwable e) {
+                log.debug("跳过无法加载的类: {} ({})", className, e.getMessage());
+            }
+        }
+        log.info("类数据共享训练完成: 加载{}个运行器类", loaded);
+    }
+
     /**
      * 设置隔离环境
      */
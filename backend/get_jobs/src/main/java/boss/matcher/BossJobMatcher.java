@@ -3,7 +3,11 @@ package boss.matcher;
 import static boss.Locators.HR_ACTIVE_TIME;
 import static boss.Locators.RECRUITER_INFO;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -13,6 +17,7 @@ import com.microsoft.playwright.Page;
 
 import boss.BossConfig;
 import boss.util.BossUtils;
+import utils.Job;
 
 /**
  * Boss岗位匹配器
@@ -23,10 +28,24 @@ import boss.util.BossUtils;
 public class BossJobMatcher {
     private static final Logger log = LoggerFactory.getLogger(BossJobMatcher.class);
 
+    /**
+     * 非配置关键词列表的编译引擎缓存上限（超过时整体清空）
+     */
+    private static final int MAX_EXTRA_ENGINES = 16;
+
     private final BossConfig config;
+    private final boolean[] schemes;
+    // 配置中的关键词列表的编译引擎（不可变，构造后不再替换）
+    private final CompiledKeywordMatcher compiled;
+    // 其他关键词列表的编译引擎，按关键词列表缓存（并行流线程共享）
+    private final Map<List<String>, CompiledKeywordMatcher> extraEngines = new ConcurrentHashMap<>();
 
     public BossJobMatcher(BossConfig config) {
         this.config = config;
+        this.schemes = CompiledKeywordMatcher.resolveSchemes(config);
+        this.compiled = CompiledKeywordMatcher.compile(this.schemes, config != null ? config.getKeywords() : null);
+        log.debug("【关键词匹配】匹配引擎已编译: 关键词={}, 启用方案: 1={}, 2={}, 3={}, 4={}, 5={}",
+            this.compiled.keywords(), schemes[1], schemes[2], schemes[3], schemes[4], schemes[5]);
     }
 
     /**
@@ -34,14 +53,25 @@ public class BossJobMatcher {
      * 用于返回匹配结果和匹配度分数
      */
     public static class MatchingResult {
+        /**
+         * 未匹配（共享实例）
+         */
+        public static final MatchingResult NO_MATCH = new MatchingResult(false, 0.0, 0);
+
         private final boolean matched;
         private final double score;
         private final int matchedScheme; // 匹配成功的方案编号（1-5）
+        private final String matchedKeyword; // 匹配成功的关键词
 
         public MatchingResult(boolean matched, double score, int matchedScheme) {
+            this(matched, score, matchedScheme, null);
+        }
+
+        public MatchingResult(boolean matched, double score, int matchedScheme, String matchedKeyword) {
             this.matched = matched;
             this.score = score;
             this.matchedScheme = matchedScheme;
+            this.matchedKeyword = matchedKeyword;
         }
 
         public boolean isMatched() {
@@ -55,226 +85,102 @@ public class BossJobMatcher {
         public int getMatchedScheme() {
             return matchedScheme;
         }
+
+        public String getMatchedKeyword() {
+            return matchedKeyword;
+        }
     }
 
     /**
      * 检查关键词是否匹配（支持配置化匹配方案，返回匹配度和匹配方案）
+     * 匹配方案在构造时已编译，这里只做一次自动机扫描
      *
      * @param jobName 岗位名称
      * @param userKeyword 用户设置的关键词
      * @return 匹配结果，包含是否匹配、匹配度分数、匹配成功的方案编号
      */
     public MatchingResult isKeywordMatchedWithScore(String jobName, String userKeyword) {
-        log.debug("【关键词匹配】开始匹配: 岗位='{}', 关键词='{}'", jobName, userKeyword);
-
         if (jobName == null || userKeyword == null || jobName.isEmpty() || userKeyword.isEmpty()) {
             log.debug("【关键词匹配】参数为空，返回false: jobName={}, userKeyword={}", jobName, userKeyword);
-            return new MatchingResult(false, 0.0, 0);
+            return MatchingResult.NO_MATCH;
         }
 
-        // 获取匹配策略配置
-        BossConfig.DeliveryStrategy strategy = this.config != null ? this.config.getDeliveryStrategy() : null;
-        BossConfig.MatchingSchemes schemes = null;
-        String matchingMode = "STANDARD";
-
-        if (strategy != null) {
-            matchingMode = strategy.getKeywordMatchingMode() != null ? strategy.getKeywordMatchingMode() : "STANDARD";
-            schemes = strategy.getMatchingSchemes();
+        CompiledKeywordMatcher engine = this.compiled;
+        int keywordIndex = engine.keywordIndex(userKeyword);
+        if (keywordIndex < 0) {
+            // 非配置中的关键词：按单个关键词编译并缓存
+            engine = compiledFor(Collections.singletonList(userKeyword));
+            keywordIndex = 0;
         }
 
-        // 根据匹配模式确定启用的方案
-        boolean enableScheme1 = true;
-        boolean enableScheme2 = true;
-        boolean enableScheme3 = true;
-        boolean enableScheme4 = false;
-        boolean enableScheme5 = false;
-
-        if (schemes != null) {
-            // 自定义模式：使用用户配置
-            enableScheme1 = schemes.getEnableScheme1() != null ? schemes.getEnableScheme1() : true;
-            enableScheme2 = schemes.getEnableScheme2() != null ? schemes.getEnableScheme2() : true;
-            enableScheme3 = schemes.getEnableScheme3() != null ? schemes.getEnableScheme3() : true;
-            enableScheme4 = schemes.getEnableScheme4() != null ? schemes.getEnableScheme4() : false;
-            enableScheme5 = schemes.getEnableScheme5() != null ? schemes.getEnableScheme5() : false;
-        } else {
-            // 根据预设模式设置
-            switch (matchingMode.toUpperCase()) {
-                case "STRICT":
-                    // 严格模式：只启用方案1
-                    enableScheme1 = true;
-                    enableScheme2 = false;
-                    enableScheme3 = false;
-                    enableScheme4 = false;
-                    enableScheme5 = false;
-                    break;
-                case "FLEXIBLE":
-                    // 灵活模式：启用所有方案
-                    enableScheme1 = true;
-                    enableScheme2 = true;
-                    enableScheme3 = true;
-                    enableScheme4 = true;
-                    enableScheme5 = true;
-                    break;
-                case "STANDARD":
-                default:
-                    // 标准模式：启用方案1+2+3（默认）
-                    enableScheme1 = true;
-                    enableScheme2 = true;
-                    enableScheme3 = true;
-                    enableScheme4 = false;
-                    enableScheme5 = false;
-                    break;
-            }
+        MatchingResult result = engine.match(jobName, keywordIndex);
+        if (log.isDebugEnabled()) {
+            log.debug("【关键词匹配】岗位='{}', 关键词='{}', 匹配={}, 方案={}",
+                jobName, userKeyword, result.isMatched(), result.getMatchedScheme());
         }
+        return result;
+    }
 
-        log.debug("【关键词匹配】匹配模式={}, 启用方案: 1={}, 2={}, 3={}, 4={}, 5={}",
-            matchingMode, enableScheme1, enableScheme2, enableScheme3, enableScheme4, enableScheme5);
-
-        // 定义职位词列表
-        String[] jobTitles = {"总监", "经理", "主管", "负责人", "专员", "助理", "专家", "工程师", "运营", "营销", "推广", "策划"};
-
-        // 首先检查是否包含明显不相关的岗位类型（优先级最高）
-        String[] excludeKeywords = {"总厨", "厨师", "服务员", "保安", "保洁", "司机", "快递", "外卖", "收银", "理货", "仓管"};
-        for (String exclude : excludeKeywords) {
-            if (jobName.contains(exclude)) {
-                log.debug("【关键词匹配】发现排除词: 岗位='{}', 排除词='{}'", jobName, exclude);
-                // 如果岗位名称包含排除词，需要更严格的匹配
-                boolean isMainPart = jobName.startsWith(userKeyword) || jobName.contains(userKeyword + "总监")
-                    || jobName.contains(userKeyword + "经理") || jobName.contains(userKeyword + "主管")
-                    || jobName.contains(userKeyword + "负责人");
-
-                if (isMainPart) {
-                    // 即使包含排除词，但如果关键词是主要部分，仍然匹配
-                    log.debug("【关键词匹配】✓ 匹配成功（主要部分匹配，忽略排除词）: 岗位='{}', 关键词='{}', 排除词='{}'", jobName, userKeyword, exclude);
-                    return new MatchingResult(true, 1.0, 1); // 主要部分匹配给满分
-                }
-                log.debug("【关键词匹配】✗ 匹配失败（岗位类型不匹配）: 岗位='{}', 关键词='{}', 排除词='{}'", jobName, userKeyword, exclude);
-                return new MatchingResult(false, 0.0, 0);
-            }
-        }
-
-        // 对于长关键词（≥3字）
-        if (userKeyword.length() >= 3) {
-            log.debug("【关键词匹配】长关键词（≥3字）匹配: 关键词='{}', 长度={}", userKeyword, userKeyword.length());
-
-            // 方案1：关键词是岗位名称的开头
-            if (enableScheme1 && jobName.startsWith(userKeyword)) {
-                log.debug("【关键词匹配】✓ 匹配成功（方案1-开头匹配）: 岗位='{}', 关键词='{}'", jobName, userKeyword);
-                return new MatchingResult(true, 1.0, 1);
-            }
-
-            // 方案2：关键词后面跟着职位相关词汇
-            if (enableScheme2) {
-                for (String title : jobTitles) {
-                    String keywordWithTitle = userKeyword + title;
-                    if (jobName.contains(keywordWithTitle)) {
-                        log.debug("【关键词匹配】✓ 匹配成功（方案2-职位匹配）: 岗位='{}', 关键词='{}', 职位='{}', 组合='{}'", jobName, userKeyword, title, keywordWithTitle);
-                        return new MatchingResult(true, 0.8, 2);
-                    }
-                }
-            }
-
-            // 方案3：完整词匹配（词边界检查）
-            if (enableScheme3) {
-                int index = jobName.indexOf(userKeyword);
-                if (index >= 0) {
-                    boolean isWordBoundaryBefore = (index == 0) || !BossUtils.isChineseChar(jobName.charAt(index - 1));
-                    int endIndex = index + userKeyword.length();
-                    boolean isWordBoundaryAfter = (endIndex >= jobName.length()) || !BossUtils.isChineseChar(jobName.charAt(endIndex));
-
-                    if (isWordBoundaryBefore && isWordBoundaryAfter) {
-                        log.debug("【关键词匹配】✓ 匹配成功（方案3-完整词匹配）: 岗位='{}', 关键词='{}'", jobName, userKeyword);
-                        return new MatchingResult(true, 0.7, 3);
-                    }
-                }
-            }
+    /**
+     * 按关键词顺序匹配岗位名称，返回第一个匹配成功的结果
+     *
+     * @param jobName 岗位名称
+     * @param keywords 关键词列表（顺序即优先级）
+     * @return 匹配结果，{@link MatchingResult#getMatchedKeyword()} 为命中的关键词
+     */
+    public MatchingResult matchFirst(String jobName, List<String> keywords) {
+        return compiledFor(keywords).matchFirst(jobName);
+    }
 
-            // 方案4：拆分匹配（长关键词）
-            if (enableScheme4) {
-                for (String title : jobTitles) {
-                    if (userKeyword.endsWith(title) && userKeyword.length() > title.length()) {
-                        String coreKeyword = userKeyword.substring(0, userKeyword.length() - title.length());
-                        if (coreKeyword.length() >= 2) {
-                            log.debug("【关键词匹配】尝试方案4（拆分匹配）: 关键词='{}', 核心词='{}', 职位词='{}'", userKeyword, coreKeyword, title);
-
-                            boolean hasCoreKeyword = jobName.contains(coreKeyword);
-                            boolean hasTitle = jobName.contains(title);
-
-                            if (hasCoreKeyword && hasTitle) {
-                                int coreIndex = jobName.indexOf(coreKeyword);
-                                if (coreIndex >= 0) {
-                                    boolean isCoreWordBoundaryBefore = (coreIndex == 0) || !BossUtils.isChineseChar(jobName.charAt(coreIndex - 1));
-                                    int coreEndIndex = coreIndex + coreKeyword.length();
-                                    boolean isCoreWordBoundaryAfter = (coreEndIndex >= jobName.length()) || !BossUtils.isChineseChar(jobName.charAt(coreEndIndex));
-
-                                    if (isCoreWordBoundaryBefore && (isCoreWordBoundaryAfter || jobName.substring(coreEndIndex).contains(title))) {
-                                        log.debug("【关键词匹配】✓ 匹配成功（方案4-拆分匹配）: 岗位='{}', 关键词='{}', 核心词='{}', 职位词='{}'",
-                                            jobName, userKeyword, coreKeyword, title);
-                                        return new MatchingResult(true, 0.6, 4);
-                                    }
-                                }
-                            }
-                        }
-                    }
-                }
-            }
-        } else {
-            // 对于短关键词（≤2字）
-            log.debug("【关键词匹配】短关键词（≤2字）匹配: 关键词='{}', 长度={}", userKeyword, userKeyword.length());
-
-            // 方案1：如果关键词是岗位名称的开头部分，则匹配
-            if (enableScheme1 && jobName.startsWith(userKeyword)) {
-                log.debug("【关键词匹配】✓ 匹配成功（方案1-开头匹配）: 岗位='{}', 关键词='{}'", jobName, userKeyword);
-                return new MatchingResult(true, 1.0, 1);
-            }
+    /**
+     * 批量匹配：每个岗位名称只扫描一遍，结果与 {@link #matchFirst(String, List)} 逐个调用一致
+     *
+     * @param jobs 岗位列表
+     * @param keywords 关键词列表（顺序即优先级）
+     * @return 与jobs一一对应的匹配结果
+     */
+    public List<MatchingResult> matchAll(List<Job> jobs, List<String> keywords) {
+        MatchingResult[] out = new MatchingResult[jobs.size()];
+        matchAll(jobs, keywords, out);
+        return Arrays.asList(out);
+    }
 
-            // 方案2：如果关键词后面跟着职位相关词汇，则匹配
-            if (enableScheme2) {
-                for (String title : jobTitles) {
-                    String keywordWithTitle = userKeyword + title;
-                    if (jobName.contains(keywordWithTitle)) {
-                        log.debug("【关键词匹配】✓ 匹配成功（方案2-职位匹配）: 岗位='{}', 关键词='{}', 职位='{}', 组合='{}'", jobName, userKeyword, title, keywordWithTitle);
-                        return new MatchingResult(true, 0.8, 2);
-                    }
-                }
-            }
+    /**
+     * 批量匹配（写入调用方提供的数组，不分配任何对象）
+     *
+     * @param jobs 岗位列表
+     * @param keywords 关键词列表（顺序即优先级）
+     * @param out 结果数组，长度不小于jobs.size()
+     */
+    public void matchAll(List<Job> jobs, List<String> keywords, MatchingResult[] out) {
+        CompiledKeywordMatcher engine = compiledFor(keywords);
+        for (int i = 0, n = jobs.size(); i < n; i++) {
+            Job job = jobs.get(i);
+            out[i] = job == null ? MatchingResult.NO_MATCH : engine.matchFirst(job.getJobName());
+        }
+    }
 
-            // 方案3：关键词是完整词（前后都是词边界）
-            if (enableScheme3) {
-                int index = jobName.indexOf(userKeyword);
-                if (index >= 0) {
-                    boolean isWordBoundaryBefore = (index == 0) || !BossUtils.isChineseChar(jobName.charAt(index - 1));
-                    int endIndex = index + userKeyword.length();
-                    boolean isWordBoundaryAfter = (endIndex >= jobName.length()) || !BossUtils.isChineseChar(jobName.charAt(endIndex));
-
-                    if (isWordBoundaryBefore && isWordBoundaryAfter) {
-                        log.debug("【关键词匹配】✓ 匹配成功（方案3-完整词匹配）: 岗位='{}', 关键词='{}'", jobName, userKeyword);
-                        return new MatchingResult(true, 0.7, 3);
-                    }
-                }
+    /**
+     * 获取与关键词列表对应的编译引擎：配置中的关键词直接使用构造时编译的引擎，其他列表编译一次后缓存
+     */
+    private CompiledKeywordMatcher compiledFor(List<String> keywords) {
+        List<String> expected = keywords != null ? keywords : Collections.emptyList();
+        if (this.compiled.keywords().equals(expected)) {
+            return this.compiled;
+        }
+        CompiledKeywordMatcher engine = extraEngines.get(expected);
+        if (engine == null) {
+            if (extraEngines.size() >= MAX_EXTRA_ENGINES) {
+                extraEngines.clear();
             }
-
-            // 方案5：短词+职位组合匹配
-            if (enableScheme5) {
-                for (String title : jobTitles) {
-                    String keywordWithTitle = userKeyword + title;
-                    if (jobName.contains(keywordWithTitle)) {
-                        int kwIndex = jobName.indexOf(userKeyword);
-                        if (kwIndex >= 0) {
-                            boolean isKwBoundaryBefore = (kwIndex == 0) || !BossUtils.isChineseChar(jobName.charAt(kwIndex - 1));
-                            if (isKwBoundaryBefore) {
-                                log.debug("【关键词匹配】✓ 匹配成功（方案5-短词+职位组合匹配）: 岗位='{}', 关键词='{}', 职位='{}', 组合='{}'",
-                                    jobName, userKeyword, title, keywordWithTitle);
-                                return new MatchingResult(true, 0.6, 5);
-                            }
-                        }
-                    }
-                }
+            engine = CompiledKeywordMatcher.compile(this.schemes, expected);
+            // 以引擎持有的不可变副本为键，调用方之后修改自己的列表不影响缓存
+            CompiledKeywordMatcher existing = extraEngines.putIfAbsent(engine.keywords(), engine);
+            if (existing != null) {
+                engine = existing;
             }
         }
-
-        log.debug("【关键词匹配】✗ 所有方案都失败，返回false: 岗位='{}', 关键词='{}'", jobName, userKeyword);
-        return new MatchingResult(false, 0.0, 0);
+        return engine;
     }
 
     /**
@@ -0,0 +1,379 @@
+package boss.matcher;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import boss.BossConfig;
+import boss.util.AhoCorasickAutomaton;
+import boss.util.BossUtils;
+
+/**
+ * 编译后的关键词匹配引擎
+ * 在配置加载时一次性解析启用的匹配方案，并把关键词、关键词+职位词、拆分核心词、排除词
+ * 编译进同一个Aho-Corasick自动机；每个岗位名称只扫描一遍，再按方案1-5的顺序判定
+ *
+ * 判定结果与逐条 String.contains 的旧实现完全一致；匹配结果对象在编译时预先创建，
+ * 热路径上不分配任何对象。实例不可变，可在多线程间共享
+ *
+ * @author ZhiTouJianLi Team
+ */
+public final class CompiledKeywordMatcher {
+
+    /**
+     * 职位词列表（前4个同时用于“排除词命中时的主要部分匹配”）
+     */
+    static final String[] JOB_TITLES = {"总监", "经理", "主管", "负责人", "专员", "助理", "专家", "工程师", "运营", "营销", "推广", "策划"};
+
+    /**
+     * 明显不相关的岗位类型（优先级最高）
+     */
+    static final String[] EXCLUDE_KEYWORDS = {"总厨", "厨师", "服务员", "保安", "保洁", "司机", "快递", "外卖", "收银", "理货", "仓管"};
+
+    private static final int MAIN_PART_TITLES = 4;
+
+    private final boolean[] schemes;
+    private final List<String> keywords;
+    private final AhoCorasickAutomaton automaton;
+    private final KeywordProgram[] programs;
+    private final int[] excludeIds;
+    private final ThreadLocal<ScanState> scratch;
+
+    /**
+     * 单个关键词的编译产物
+     */
+    private static final class KeywordProgram {
+        final String keyword;
+        final int keywordId;
+        final boolean longKeyword;
+        final int[] withTitleIds;
+        final int[] splitCoreIds;
+        final int[] splitTitleIds;
+        final BossJobMatcher.MatchingResult[] results;
+
+        KeywordProgram(String keyword, AhoCorasickAutomaton automaton) {
+            this.keyword = keyword;
+            this.keywordId = automaton.indexOf(keyword);
+            this.longKeyword = keyword.length() >= 3;
+            this.withTitleIds = new int[JOB_TITLES.length];
+            for (int t = 0; t < JOB_TITLES.length; t++) {
+                withTitleIds[t] = automaton.indexOf(keyword + JOB_TITLES[t]);
+            }
+
+            List<int[]> splits = new ArrayList<>();
+            for (String title : JOB_TITLES) {
+                String core = splitCore(keyword, title);
+                if (core != null) {
+                    splits.add(new int[]{automaton.indexOf(core), automaton.indexOf(title)});
+                }
+            }
+            this.splitCoreIds = new int[splits.size()];
+            this.splitTitleIds = new int[splits.size()];
+            for (int i = 0; i < splits.size(); i++) {
+                splitCoreIds[i] = splits.get(i)[0];
+                splitTitleIds[i] = splits.get(i)[1];
+            }
+
+            // 方案1-5的分数固定，预先创建结果对象
+            this.results = new BossJobMatcher.MatchingResult[]{
+                BossJobMatcher.MatchingResult.NO_MATCH,
+                new BossJobMatcher.MatchingResult(true, 1.0, 1, keyword),
+                new BossJobMatcher.MatchingResult(true, 0.8, 2, keyword),
+                new BossJobMatcher.MatchingResult(true, 0.7, 3, keyword),
+                new BossJobMatcher.MatchingResult(true, 0.6, 4, keyword),
+                new BossJobMatcher.MatchingResult(true, 0.6, 5, keyword)
+            };
+        }
+    }
+
+    /**
+     * 单线程扫描现场：记录每个模式在当前岗位名称中的首次/末次出现位置
+     * 通过代数（generation）标记失效，避免每次扫描清空数组
+     */
+    private static final class ScanState implements AhoCorasickAutomaton.MatchListener {
+        final int[] first;
+        final int[] last;
+        final int[] stamp;
+        int generation;
+
+        ScanState(int size) {
+            this.first = new int[size];
+            this.last = new int[size];
+            this.stamp = new int[size];
+        }
+
+        void reset() {
+            if (++generation == Integer.MAX_VALUE) {
+                java.util.Arrays.fill(stamp, 0);
+                generation = 1;
+            }
+        }
+
+        @Override
+        public boolean onMatch(int patternId, int start, int end) {
+            if (stamp[patternId] != generation) {
+                stamp[patternId] = generation;
+                first[patternId] = start;
+            }
+            last[patternId] = start;
+            return true;
+        }
+
+        int first(int id) {
+            return id >= 0 && stamp[id] == generation ? first[id] : -1;
+        }
+
+        int last(int id) {
+            return id >= 0 && stamp[id] == generation ? last[id] : -1;
+        }
+    }
+
+    private CompiledKeywordMatcher(boolean[] schemes, List<String> keywords) {
+        this.schemes = schemes;
+        this.keywords = keywords;
+
+        List<String> patterns = new ArrayList<>();
+        Collections.addAll(patterns, EXCLUDE_KEYWORDS);
+        Collections.addAll(patterns, JOB_TITLES);
+        for (String keyword : keywords) {
+            if (keyword == null || keyword.isEmpty()) {
+                continue;
+            }
+            patterns.add(keyword);
+            for (String title : JOB_TITLES) {
+                patterns.add(keyword + title);
+                String core = splitCore(keyword, title);
+                if (core != null) {
+                    patterns.add(core);
+                }
+            }
+        }
+        this.automaton = AhoCorasickAutomaton.compile(patterns);
+
+        this.excludeIds = new int[EXCLUDE_KEYWORDS.length];
+        for (int i = 0; i < EXCLUDE_KEYWORDS.length; i++) {
+            excludeIds[i] = automaton.indexOf(EXCLUDE_KEYWORDS[i]);
+        }
+
+        this.programs = new KeywordProgram[keywords.size()];
+        for (int k = 0; k < keywords.size(); k++) {
+            String keyword = keywords.get(k);
+            programs[k] = keyword == null || keyword.isEmpty() ? null : new KeywordProgram(keyword, automaton);
+        }
+
+        int size = automaton.size();
+        this.scratch = ThreadLocal.withInitial(() -> new ScanState(size));
+    }
+
+    /**
+     * 编译匹配引擎
+     *
+     * @param config Boss配置（用于解析启用的匹配方案）
+     * @param keywords 关键词列表，顺序即优先级
+     * @return 编译后的引擎
+     */
+    public static CompiledKeywordMatcher compile(BossConfig config, List<String> keywords) {
+        return compile(resolveSchemes(config), keywords);
+    }
+
+    static CompiledKeywordMatcher compile(boolean[] schemes, List<String> keywords) {
+        List<String> copy = keywords == null ? Collections.emptyList()
+            : Collections.unmodifiableList(new ArrayList<>(keywords));
+        return new CompiledKeywordMatcher(schemes, copy);
+    }
+
+    /**
+     * 根据投递策略解析启用的匹配方案
+     *
+     * @param config Boss配置
+     * @return 长度为6的数组，下标1-5对应方案1-5
+     */
+    static boolean[] resolveSchemes(BossConfig config) {
+        BossConfig.DeliveryStrategy strategy = config != null ? config.getDeliveryStrategy() : null;
+        BossConfig.MatchingSchemes schemes = strategy != null ? strategy.getMatchingSchemes() : null;
+        String matchingMode = strategy != null && strategy.getKeywordMatchingMode() != null
+            ? strategy.getKeywordMatchingMode() : "STANDARD";
+
+        if (schemes != null) {
+            // 自定义模式：使用用户配置
+            return new boolean[]{false,
+                schemes.getEnableScheme1() != null ? schemes.getEnableScheme1() : true,
+                schemes.getEnableScheme2() != null ? schemes.getEnableScheme2() : true,
+                schemes.getEnableScheme3() != null ? schemes.getEnableScheme3() : true,
+                schemes.getEnableScheme4() != null ? schemes.getEnableScheme4() : false,
+                schemes.getEnableScheme5() != null ? schemes.getEnableScheme5() : false};
+        }
+
+        switch (matchingMode.toUpperCase()) {
+            case "STRICT":
+                // 严格模式：只启用方案1
+                return new boolean[]{false, true, false, false, false, false};
+            case "FLEXIBLE":
+                // 灵活模式：启用所有方案
+                return new boolean[]{false, true, true, true, true, true};
+            case "STANDARD":
+            default:
+                // 标准模式：启用方案1+2+3（默认）
+                return new boolean[]{false, true, true, true, false, false};
+        }
+    }
+
+    /**
+     * 匹配岗位名称与单个关键词
+     *
+     * @param jobName 岗位名称
+     * @param keywordIndex 关键词在编译列表中的下标
+     * @return 匹配结果
+     */
+    public BossJobMatcher.MatchingResult match(String jobName, int keywordIndex) {
+        KeywordProgram program = programs[keywordIndex];
+        if (jobName == null || jobName.isEmpty() || program == null) {
+            return BossJobMatcher.MatchingResult.NO_MATCH;
+        }
+        ScanState state = scan(jobName);
+        return evaluate(program, jobName, state, hasExclude(state));
+    }
+
+    /**
+     * 按关键词优先级返回第一个匹配成功的结果（岗位名称只扫描一遍）
+     *
+     * @param jobName 岗位名称
+     * @return 匹配结果，全部失败返回 {@link BossJobMatcher.MatchingResult#NO_MATCH}
+     */
+    public BossJobMatcher.MatchingResult matchFirst(String jobName) {
+        if (jobName == null || jobName.isEmpty()) {
+            return BossJobMatcher.MatchingResult.NO_MATCH;
+        }
+        ScanState state = scan(jobName);
+        boolean excluded = hasExclude(state);
+        for (KeywordProgram program : programs) {
+            if (program == null) {
+                continue;
+            }
+            BossJobMatcher.MatchingResult result = evaluate(program, jobName, state, excluded);
+            if (result.isMatched()) {
+                return result;
+            }
+        }
+        return BossJobMatcher.MatchingResult.NO_MATCH;
+    }
+
+    /**
+     * @param keyword 关键词
+     * @return 关键词在编译列表中的下标，不存在返回-1
+     */
+    public int keywordIndex(String keyword) {
+        return keyword == null ? -1 : keywords.indexOf(keyword);
+    }
+
+    /**
+     * @return 编译时使用的关键词列表（只读）
+     */
+    public List<String> keywords() {
+        return keywords;
+    }
+
+    /**
+     * @param scheme 方案编号（1-5）
+     * @return 方案是否启用
+     */
+    public boolean isSchemeEnabled(int scheme) {
+        return scheme >= 1 && scheme <= 5 && schemes[scheme];
+    }
+
+    private ScanState scan(String jobName) {
+        ScanState state = scratch.get();
+        state.reset();
+        automaton.scan(jobName, state);
+        return state;
+    }
+
+    private boolean hasExclude(ScanState state) {
+        for (int id : excludeIds) {
+            if (state.first(id) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private BossJobMatcher.MatchingResult evaluate(KeywordProgram p, String jobName, ScanState state, boolean excluded) {
+        BossJobMatcher.MatchingResult[] results = p.results;
+        int kwIndex = state.first(p.keywordId);
+
+        // 包含排除词：只有关键词是主要部分时才匹配（不受方案开关影响）
+        if (excluded) {
+            if (kwIndex == 0) {
+                return results[1];
+            }
+            for (int t = 0; t < MAIN_PART_TITLES; t++) {
+                if (state.first(p.withTitleIds[t]) >= 0) {
+                    return results[1];
+                }
+            }
+            return results[0];
+        }
+
+        // 方案1：关键词是岗位名称的开头
+        if (schemes[1] && kwIndex == 0) {
+            return results[1];
+        }
+
+        boolean hasWithTitle = false;
+        for (int id : p.withTitleIds) {
+            if (state.first(id) >= 0) {
+                hasWithTitle = true;
+                break;
+            }
+        }
+
+        // 方案2：关键词后面跟着职位相关词汇
+        if (schemes[2] && hasWithTitle) {
+            return results[2];
+        }
+
+        // 方案3：完整词匹配（只检查首次出现位置）
+        if (schemes[3] && kwIndex >= 0
+            && isBoundaryBefore(jobName, kwIndex) && isBoundaryAfter(jobName, kwIndex + p.keyword.length())) {
+            return results[3];
+        }
+
+        if (p.longKeyword) {
+            // 方案4：拆分匹配（长关键词）
+            if (schemes[4]) {
+                for (int i = 0; i < p.splitCoreIds.length; i++) {
+                    int coreIndex = state.first(p.splitCoreIds[i]);
+                    if (coreIndex < 0 || state.first(p.splitTitleIds[i]) < 0) {
+                        continue;
+                    }
+                    int coreEnd = coreIndex + automaton.pattern(p.splitCoreIds[i]).length();
+                    if (isBoundaryBefore(jobName, coreIndex)
+                        && (isBoundaryAfter(jobName, coreEnd) || state.last(p.splitTitleIds[i]) >= coreEnd)) {
+                        return results[4];
+                    }
+                }
+            }
+        } else if (schemes[5] && hasWithTitle && isBoundaryBefore(jobName, kwIndex)) {
+            // 方案5：短词+职位组合匹配
+            return results[5];
+        }
+
+        return results[0];
+    }
+
+    private static boolean isBoundaryBefore(String jobName, int index) {
+        return index == 0 || !BossUtils.isChineseChar(jobName.charAt(index - 1));
+    }
+
+    private static boolean isBoundaryAfter(String jobName, int endIndex) {
+        return endIndex >= jobName.length() || !BossUtils.isChineseChar(jobName.charAt(endIndex));
+    }
+
+    private static String splitCore(String keyword, String title) {
+        if (keyword.length() >= 3 && keyword.endsWith(title) && keyword.length() > title.length()) {
+            String core = keyword.substring(0, keyword.length() - title.length());
+            return core.length() >= 2 ? core : null;
+        }
+        return null;
+    }
+}
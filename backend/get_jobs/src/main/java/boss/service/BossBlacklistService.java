@@ -12,6 +12,7 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -26,6 +27,9 @@ import org.slf4j.LoggerFactory;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.microsoft.playwright.Locator;
 
+import boss.BossRunContext;
+import boss.util.AhoCorasickAutomaton;
+import boss.util.SuffixAutomaton;
 import utils.PlaywrightUtil;
 
 /**
@@ -42,6 +46,11 @@ public class BossBlacklistService {
     private final String userId;
     private final String dataPath;
 
+    /**
+     * 黑名单索引（loadData/更新后重新编译，整体替换）
+     */
+    private volatile BlacklistIndex index = BlacklistIndex.EMPTY;
+
     public BossBlacklistService(String userId, String dataPath) {
         this.userId = userId;
         this.dataPath = dataPath;
@@ -49,6 +58,57 @@ public class BossBlacklistService {
         this.blackJobs = new HashSet<>();
     }
 
+    /**
+     * 编译后的黑名单索引
+     * - 公司名包含黑名单项：Aho-Corasick自动机，一次扫描公司名
+     * - 黑名单项包含公司名：广义后缀自动机，按公司名长度查询
+     * - 职位名包含黑名单项：Aho-Corasick自动机，一次扫描职位名
+     */
+    private static final class BlacklistIndex {
+        static final BlacklistIndex EMPTY = new BlacklistIndex(new HashSet<>(), new HashSet<>());
+
+        final AhoCorasickAutomaton companyEntries;
+        final SuffixAutomaton companyEntryText;
+        final AhoCorasickAutomaton jobEntries;
+        // 职位黑名单中存在空字符串时，任何职位都会命中（与 String.contains("") 行为一致）
+        final boolean matchAllJobs;
+
+        BlacklistIndex(Set<String> blackCompanies, Set<String> blackJobs) {
+            List<String> companies = new ArrayList<>();
+            for (String item : blackCompanies) {
+                if (item != null && !item.trim().isEmpty()) {
+                    companies.add(item.trim());
+                }
+            }
+            this.companyEntries = AhoCorasickAutomaton.compile(companies);
+            this.companyEntryText = SuffixAutomaton.compile(companies);
+
+            List<String> jobs = new ArrayList<>();
+            boolean hasEmpty = false;
+            for (String item : blackJobs) {
+                if (item == null) {
+                    continue;
+                }
+                if (item.isEmpty()) {
+                    hasEmpty = true;
+                } else {
+                    jobs.add(item);
+                }
+            }
+            this.jobEntries = AhoCorasickAutomaton.compile(jobs);
+            this.matchAllJobs = hasEmpty;
+        }
+    }
+
+    /**
+     * 重新编译黑名单索引
+     */
+    private void rebuildIndex() {
+        this.index = new BlacklistIndex(
+            blackCompanies != null ? blackCompanies : new HashSet<>(),
+            blackJobs != null ? blackJobs : new HashSet<>());
+    }
+
     /**
      * 加载黑名单数据
      * ⚠️ 优先从config.json的blacklistConfig读取，向后兼容blacklist.json
@@ -70,6 +130,8 @@ public class BossBlacklistService {
             // 初始化为空集合
             this.blackCompanies = new HashSet<>();
             this.blackJobs = new HashSet<>();
+        } finally {
+            rebuildIndex();
         }
     }
 
@@ -80,7 +142,7 @@ public class BossBlacklistService {
      */
     private boolean loadBlacklistFromConfig() {
         try {
-            String userId = System.getenv("BOSS_USER_ID");
+            String userId = BossRunContext.currentUserId();
             if (userId == null || userId.isEmpty()) {
                 userId = this.userId;
             }
@@ -177,26 +239,27 @@ public class BossBlacklistService {
      * @return true=在黑名单中，false=不在黑名单中
      */
     public boolean isCompanyBlacklisted(String companyName) {
-        if (companyName == null || companyName.trim().isEmpty() || blackCompanies == null || blackCompanies.isEmpty()) {
+        if (companyName == null || companyName.trim().isEmpty()) {
             return false;
         }
 
+        BlacklistIndex current = this.index;
         String normalizedCompanyName = companyName.trim();
 
-        // 双向匹配：检查黑名单项是否包含公司名，或公司名是否包含黑名单项
-        for (String blackItem : blackCompanies) {
-            if (blackItem == null || blackItem.trim().isEmpty()) {
-                continue;
-            }
-
-            String normalizedBlackItem = blackItem.trim();
+        // 公司名包含黑名单项
+        int entryId = current.companyEntries.findFirst(normalizedCompanyName);
+        if (entryId >= 0) {
+            log.info("🚫 黑名单匹配：公司【{}】与黑名单项【{}】匹配", normalizedCompanyName,
+                current.companyEntries.pattern(entryId));
+            return true;
+        }
 
-            // 双向包含匹配
-            if (normalizedBlackItem.contains(normalizedCompanyName) ||
-                normalizedCompanyName.contains(normalizedBlackItem)) {
-                log.info("🚫 黑名单匹配：公司【{}】与黑名单项【{}】匹配", normalizedCompanyName, normalizedBlackItem);
-                return true;
-            }
+        // 黑名单项包含公司名
+        int textId = current.companyEntryText.findContaining(normalizedCompanyName);
+        if (textId >= 0) {
+            log.info("🚫 黑名单匹配：公司【{}】与黑名单项【{}】匹配", normalizedCompanyName,
+                current.companyEntryText.text(textId));
+            return true;
         }
 
         return false;
@@ -209,12 +272,12 @@ public class BossBlacklistService {
      * @return true=在黑名单中，false=不在黑名单中
      */
     public boolean isJobBlacklisted(String jobName) {
-        if (jobName == null || jobName.trim().isEmpty() || blackJobs == null || blackJobs.isEmpty()) {
+        if (jobName == null || jobName.trim().isEmpty()) {
             return false;
         }
 
-        String normalizedJobName = jobName.trim();
-        return blackJobs.stream().anyMatch(normalizedJobName::contains);
+        BlacklistIndex current = this.index;
+        return current.matchAllJobs || current.jobEntries.findFirst(jobName.trim()) >= 0;
     }
 
     /**
@@ -315,6 +378,7 @@ public class BossBlacklistService {
                 break;
             }
         }
+        rebuildIndex();
         log.info("黑名单公司数量：{}", blackCompanies.size());
     }
 
@@ -341,19 +405,19 @@ public class BossBlacklistService {
     /**
      * 获取公司黑名单
      *
-     * @return 公司黑名单集合
+     * @return 公司黑名单集合（只读视图，修改须经过本服务以同步查找索引）
      */
     public Set<String> getBlackCompanies() {
-        return blackCompanies;
+        return Collections.unmodifiableSet(blackCompanies);
     }
 
     /**
      * 获取职位黑名单
      *
-     * @return 职位黑名单集合
+     * @return 职位黑名单集合（只读视图，修改须经过本服务以同步查找索引）
      */
     public Set<String> getBlackJobs() {
-        return blackJobs;
+        return Collections.unmodifiableSet(blackJobs);
     }
 }
 
@@ -0,0 +1,378 @@
+package boss.service;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import utils.Job;
+
+/**
+ * 已投递岗位索引（按用户持久化）
+ * 记录已沟通过的岗位ID和（公司, 岗位名称）指纹，下次运行时在打开详情页之前直接跳过
+ *
+ * 存储格式：内存映射文件上的开放寻址哈希表（线性探测），打开时无需解析，
+ * 每个槽位16字节 = 64位键 + 写入时间戳；过期条目在扩容/压缩时清理
+ * 写入映射内存后由操作系统回写，进程崩溃不会丢失；只在关闭时force一次，不在每次记录时同步落盘
+ *
+ * @author ZhiTouJianLi Team
+ */
+public class BossDeliveredJobIndex implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(BossDeliveredJobIndex.class);
+
+    /**
+     * 索引文件名（位于用户数据目录下）
+     */
+    public static final String FILE_NAME = "delivered_jobs.idx";
+
+    /**
+     * 默认保留时长
+     */
+    public static final Duration DEFAULT_TTL = Duration.ofDays(30);
+
+    private static final int MAGIC = 0x424A4458; // "BJDX"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+    private static final int SLOT_BYTES = 16;
+    private static final int INITIAL_CAPACITY = 1 << 12;
+    private static final double MAX_LOAD_FACTOR = 0.6;
+
+    private static final int OFFSET_MAGIC = 0;
+    private static final int OFFSET_VERSION = 4;
+    private static final int OFFSET_CAPACITY = 8;
+    private static final int OFFSET_SIZE = 12;
+
+    private final Path path;
+    private final long ttlMillis;
+    private final LongSupplier clock;
+
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int capacity;
+    private int size;
+
+    BossDeliveredJobIndex(Path path, Duration ttl, LongSupplier clock) throws IOException {
+        this.path = path;
+        this.ttlMillis = ttl.toMillis();
+        this.clock = clock;
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        map();
+    }
+
+    /**
+     * 打开（或创建）用户的已投递岗位索引
+     *
+     * @param userDataDir 用户数据目录
+     * @return 索引；文件无法打开时返回null（不影响投递流程）
+     */
+    public static BossDeliveredJobIndex open(Path userDataDir) {
+        long startTime = System.currentTimeMillis();
+        try {
+            BossDeliveredJobIndex index = new BossDeliveredJobIndex(userDataDir.resolve(FILE_NAME), DEFAULT_TTL,
+                System::currentTimeMillis);
+            log.info("✅ 已投递岗位索引已加载: 条目={}, 容量={}, 耗时{}ms",
+                index.size(), index.capacity, System.currentTimeMillis() - startTime);
+            return index;
+        } catch (IOException e) {
+            log.warn("⚠️ 已投递岗位索引打开失败，本次不跳过已投递岗位: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 岗位是否已投递（岗位ID或公司+岗位名称任一命中，且未过期）
+     *
+     * @param job 岗位
+     * @return true=已投递
+     */
+    public synchronized boolean contains(Job job) {
+        if (job == null) {
+            return false;
+        }
+        long now = clock.getAsLong();
+        long idKey = jobIdKey(job.getJobId());
+        if (idKey != 0 && isLive(find(idKey), now)) {
+            return true;
+        }
+        long postingKey = postingKey(job.getCompanyName(), job.getJobName());
+        return postingKey != 0 && isLive(find(postingKey), now);
+    }
+
+    /**
+     * 记录一次成功投递（岗位ID和公司+岗位名称指纹都会写入）
+     *
+     * @param job 岗位
+     */
+    public synchronized void record(Job job) {
+        if (job == null) {
+            return;
+        }
+        long now = clock.getAsLong();
+        try {
+            put(jobIdKey(job.getJobId()), now);
+            put(postingKey(job.getCompanyName(), job.getJobName()), now);
+            buffer.putInt(OFFSET_SIZE, size);
+        } catch (IOException e) {
+            log.warn("⚠️ 写入已投递岗位索引失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @return 已占用的槽位数（包含尚未清理的过期条目）
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            if (buffer != null) {
+                buffer.force();
+            }
+            if (channel != null) {
+                channel.close();
+            }
+        } catch (IOException e) {
+            log.debug("关闭已投递岗位索引失败: {}", e.getMessage());
+        } finally {
+            buffer = null;
+            channel = null;
+        }
+    }
+
+    // ========== 哈希表 ==========
+
+    private int find(long key) {
+        int mask = capacity - 1;
+        for (int slot = (int) key & mask; ; slot = (slot + 1) & mask) {
+            long stored = buffer.getLong(slotOffset(slot));
+            if (stored == 0) {
+                return -1;
+            }
+            if (stored == key) {
+                return slot;
+            }
+        }
+    }
+
+    private boolean isLive(int slot, long now) {
+        return slot >= 0 && now - buffer.getLong(slotOffset(slot) + 8) <= ttlMillis;
+    }
+
+    private void put(long key, long timestamp) throws IOException {
+        if (key == 0) {
+            return;
+        }
+        if (size + 1 > capacity * MAX_LOAD_FACTOR) {
+            rebuild();
+        }
+        int mask = capacity - 1;
+        for (int slot = (int) key & mask; ; slot = (slot + 1) & mask) {
+            int offset = slotOffset(slot);
+            long stored = buffer.getLong(offset);
+            if (stored == key) {
+                buffer.putLong(offset + 8, timestamp);
+                return;
+            }
+            if (stored == 0) {
+                buffer.putLong(offset, key);
+                buffer.putLong(offset + 8, timestamp);
+                size++;
+                return;
+            }
+        }
+    }
+
+    /**
+     * 清理过期条目并按需扩容：写入临时文件并映射成功后原子替换，再切换到新映射、关闭旧映射；
+     * 任一步失败时继续使用旧文件
+     */
+    private void rebuild() throws IOException {
+        long now = clock.getAsLong();
+        int live = 0;
+        for (int slot = 0; slot < capacity; slot++) {
+            int offset = slotOffset(slot);
+            if (buffer.getLong(offset) != 0 && now - buffer.getLong(offset + 8) <= ttlMillis) {
+                live++;
+            }
+        }
+        int newCapacity = capacity;
+        while (live + 1 > newCapacity * MAX_LOAD_FACTOR / 2) {
+            newCapacity <<= 1;
+        }
+
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel tmpChannel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer target = tmpChannel.map(FileChannel.MapMode.READ_WRITE, 0,
+                HEADER_BYTES + (long) newCapacity * SLOT_BYTES);
+            writeHeader(target, newCapacity, live);
+            int mask = newCapacity - 1;
+            for (int slot = 0; slot < capacity; slot++) {
+                int offset = slotOffset(slot);
+                long key = buffer.getLong(offset);
+                long timestamp = buffer.getLong(offset + 8);
+                if (key == 0 || now - timestamp > ttlMillis) {
+                    continue;
+                }
+                int s = (int) key & mask;
+                while (target.getLong(slotOffset(s)) != 0) {
+                    s = (s + 1) & mask;
+                }
+                target.putLong(slotOffset(s), key);
+                target.putLong(slotOffset(s) + 8, timestamp);
+            }
+            target.force();
+        }
+
+        FileChannel newChannel = null;
+        try {
+            newChannel = FileChannel.open(tmp, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            MappedByteBuffer newBuffer = newChannel.map(FileChannel.MapMode.READ_WRITE, 0,
+                HEADER_BYTES + (long) newCapacity * SLOT_BYTES);
+            replaceWith(tmp);
+            FileChannel oldChannel = channel;
+            this.channel = newChannel;
+            this.buffer = newBuffer;
+            this.capacity = newCapacity;
+            this.size = live;
+            if (oldChannel != null) {
+                closeQuietly(oldChannel);
+            }
+        } catch (IOException e) {
+            if (newChannel != null) {
+                closeQuietly(newChannel);
+            }
+            Files.deleteIfExists(tmp);
+            if (channel == null) {
+                // 旧映射已释放（见replaceWith），重新映射旧文件
+                map();
+            }
+            throw e;
+        }
+        log.info("已投递岗位索引已重建: 有效条目={}, 容量={}", live, newCapacity);
+    }
+
+    /**
+     * 用临时文件原子替换索引文件
+     * 部分平台（如Windows）不允许替换仍被映射的文件，此时先释放旧映射再重试
+     */
+    private void replaceWith(Path tmp) throws IOException {
+        try {
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.debug("替换被映射的索引文件失败，释放旧映射后重试: {}", e.getMessage());
+            buffer.force();
+            closeQuietly(channel);
+            this.channel = null;
+            this.buffer = null;
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    private static void closeQuietly(FileChannel target) {
+        try {
+            target.close();
+        } catch (IOException e) {
+            log.debug("关闭已投递岗位索引文件失败: {}", e.getMessage());
+        }
+    }
+
+    private void map() throws IOException {
+        boolean exists = Files.exists(path) && Files.size(path) >= HEADER_BYTES;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+        if (exists) {
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+            int fileCapacity = header.getInt(OFFSET_CAPACITY);
+            boolean valid = header.getInt(OFFSET_MAGIC) == MAGIC && header.getInt(OFFSET_VERSION) == VERSION
+                && fileCapacity > 0 && Integer.bitCount(fileCapacity) == 1
+                && channel.size() >= HEADER_BYTES + (long) fileCapacity * SLOT_BYTES;
+            if (valid) {
+                this.capacity = fileCapacity;
+                this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    HEADER_BYTES + (long) capacity * SLOT_BYTES);
+                this.size = buffer.getInt(OFFSET_SIZE);
+                return;
+            }
+            log.warn("⚠️ 已投递岗位索引文件损坏或版本不兼容，重新创建: {}", path);
+            channel.truncate(0);
+        }
+        this.capacity = INITIAL_CAPACITY;
+        this.size = 0;
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + (long) capacity * SLOT_BYTES);
+        writeHeader(buffer, capacity, 0);
+        buffer.force();
+    }
+
+    private static void writeHeader(MappedByteBuffer target, int capacity, int size) {
+        target.putInt(OFFSET_MAGIC, MAGIC);
+        target.putInt(OFFSET_VERSION, VERSION);
+        target.putInt(OFFSET_CAPACITY, capacity);
+        target.putInt(OFFSET_SIZE, size);
+    }
+
+    private static int slotOffset(int slot) {
+        return HEADER_BYTES + slot * SLOT_BYTES;
+    }
+
+    // ========== 键计算 ==========
+
+    static long jobIdKey(String jobId) {
+        if (jobId == null || jobId.trim().isEmpty()) {
+            return 0;
+        }
+        return hash("id:" + jobId.trim());
+    }
+
+    static long postingKey(String companyName, String jobName) {
+        String company = normalize(companyName);
+        String title = normalize(jobName);
+        if (company.isEmpty() || title.isEmpty()) {
+            return 0;
+        }
+        return hash("ct:" + company + '\u0001' + title);
+    }
+
+    /**
+     * 去掉空白并转小写，避免“Java 开发”与“java开发”被当作不同岗位
+     */
+    private static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (!Character.isWhitespace(c)) {
+                sb.append(Character.toLowerCase(c));
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * FNV-1a 64位哈希 + 混淆，结果为0时映射为1（0表示空槽位）
+     */
+    private static long hash(String text) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : text.getBytes(StandardCharsets.UTF_8)) {
+            h ^= (b & 0xff);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h == 0 ? 1 : h;
+    }
+}
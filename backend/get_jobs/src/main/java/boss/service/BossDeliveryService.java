@@ -5,6 +5,11 @@ import java.net.URL;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -13,8 +18,10 @@ import com.microsoft.playwright.Locator;
 import com.microsoft.playwright.Page;
 
 import boss.BossConfig;
+import boss.BossRunContext;
 import boss.VerificationCodeHelper;
 import boss.VerificationCodeRequiredException;
+import boss.matcher.BossJobMatcher;
 import lombok.SneakyThrows;
 import utils.Job;
 import utils.PlaywrightUtil;
@@ -37,6 +44,19 @@ public class BossDeliveryService {
     private final BossBlacklistService blacklistService;
     private final BossBehaviorLogger behaviorLogger;
     private final BossLoginService loginService;
+    // 下一个岗位详情页预取（与当前岗位的打招呼语生成并行）
+    private final BossDetailPrefetcher prefetcher;
+    // 打招呼语后台生成线程（只做AI请求，不调用Playwright）
+    private final ExecutorService greetingExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(BossRunContext.propagate(r), "boss-greeting");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * 等待打招呼语生成的最长时间（AI请求本身最长120秒）
+     */
+    private static final long GREETING_TIMEOUT_SECONDS = 150;
 
     public BossDeliveryService(BossConfig config, String userId,
                                 BossGreetingService greetingService,
@@ -49,18 +69,55 @@ public class BossDeliveryService {
         this.blacklistService = blacklistService;
         this.behaviorLogger = behaviorLogger;
         this.loginService = loginService;
+        this.prefetcher = new BossDetailPrefetcher(greetingService);
     }
 
     /**
-     * 简历投递主流程
+     * 简历投递主流程（不预取下一个岗位）
      *
      * @param page 页面对象
      * @param keyword 搜索关键词
      * @param job 岗位信息
      * @return true=投递成功, false=投递失败
      */
-    @SneakyThrows
     public boolean resumeSubmission(Page page, String keyword, Job job) {
+        return resumeSubmission(page, keyword, job, null);
+    }
+
+    /**
+     * 释放预取标签页和打招呼语生成线程
+     */
+    public void shutdown() {
+        prefetcher.close();
+        greetingExecutor.shutdownNow();
+    }
+
+    /**
+     * 简历投递主流程（两级流水线）
+     * 当前岗位的打招呼语在后台生成期间，在第二个标签页预取nextJob的详情页并抓取JD、HR活跃状态
+     *
+     * @param page 页面对象
+     * @param keyword 搜索关键词
+     * @param job 岗位信息
+     * @param nextJob 下一个待投递岗位（列表快照），为null时不预取
+     * @return true=投递成功, false=投递失败
+     */
+    public boolean resumeSubmission(Page page, String keyword, Job job, Job nextJob) {
+        AtomicReference<Future<String>> pendingGreeting = new AtomicReference<>();
+        try {
+            return submit(page, keyword, job, nextJob, pendingGreeting);
+        } finally {
+            // 点击失败、Cookie失效、对话框未出现等提前返回时，取消仍在进行的AI请求
+            cancelGreeting(pendingGreeting.get());
+        }
+    }
+
+    /**
+     * @param pendingGreeting 输出参数：后台打招呼语生成任务（开始生成后写入）
+     */
+    @SneakyThrows
+    private boolean submit(Page page, String keyword, Job job, Job nextJob,
+                           AtomicReference<Future<String>> pendingGreeting) {
         // ✅ 修复：在投递流程开始时再次检查黑名单（双重保险）
         String companyName = job.getCompanyName();
         if (blacklistService.isCompanyBlacklisted(companyName)) {
@@ -93,17 +150,32 @@ public class BossDeliveryService {
         // ✅ 风控优化：点击前再次随机延迟
         PlaywrightUtil.randomSleepMillis(2000, 4000);
 
-        // 2. 新开详情页，添加异常处理
+        // 2. 新开详情页（上一个岗位投递期间已预取时直接复用），添加异常处理
         Page detailPage = null;
         String fullJobDescription = null; // 🔧 在方法开始处声明，确保作用域覆盖整个方法
+        Future<String> greetingFuture = null;
+        BossDetailPrefetcher.PrefetchedDetail prefetched = prefetcher.take(detailUrl);
         try {
-            detailPage = page.context().newPage();
+            if (prefetched != null) {
+                detailPage = prefetched.getPage();
+                fullJobDescription = prefetched.getFullJobDescription();
+                log.info("【预取】复用已加载的详情页: {}", job.getJobName());
+                if (config.getDeadStatus() != null
+                    && BossJobMatcher.containsDeadStatus(prefetched.getBossActiveTime(), config.getDeadStatus())) {
+                    log.info("【预取】{}的HR活跃状态为【{}】，跳过", job.getJobName(), prefetched.getBossActiveTime());
+                    detailPage.close();
+                    return false;
+                }
+                detailPage.bringToFront();
+            } else {
+                detailPage = page.context().newPage();
 
-            // 使用标准导航方法，添加超时设置
-            detailPage.navigate(detailUrl);
+                // 使用标准导航方法，添加超时设置
+                detailPage.navigate(detailUrl);
 
-            // ✅ 风控优化：导航后增加延迟时间，从2-4秒增加到4-8秒
-            PlaywrightUtil.randomSleepMillis(4000, 8000);
+                // ✅ 风控优化：导航后增加延迟时间，从2-4秒增加到4-8秒
+                PlaywrightUtil.randomSleepMillis(4000, 8000);
+            }
             PlaywrightUtil.simulateHumanBehavior();
         } catch (Exception e) {
             log.error("创建详情页失败：{}", e.getMessage());
@@ -159,8 +231,13 @@ public class BossDeliveryService {
 
             // 🔧 关键修复：在点击"立即沟通"按钮之前先抓取JD
             // 因为点击按钮后页面会跳转到聊天页面，详情页内容将不可见
-            log.info("【完整JD】在点击'立即沟通'按钮之前先抓取JD（避免页面跳转后内容不可见）");
-            fullJobDescription = greetingService.extractFullJobDescription(detailPage);
+            if (fullJobDescription == null || fullJobDescription.isEmpty()) {
+                log.info("【完整JD】在点击'立即沟通'按钮之前先抓取JD（避免页面跳转后内容不可见）");
+                fullJobDescription = greetingService.extractFullJobDescription(detailPage);
+            }
+            // JD就绪后立即在后台生成打招呼语，与点击沟通、等待对话框并行
+            greetingFuture = startGreeting(keyword, job, fullJobDescription);
+            pendingGreeting.set(greetingFuture);
             log.info("【完整JD】岗位: {}, JD长度: {}字", job.getJobName(), fullJobDescription != null ? fullJobDescription.length() : 0);
 
             // 使用安全点击方法，自动处理登录弹窗
@@ -412,7 +489,7 @@ public class BossDeliveryService {
             // 尝试备用方案：使用JavaScript直接发送消息
             // ✅ 修复：tryAlternativeMessageSending() 内部已经调用了 verifyMessageSent() 进行验证
             // 如果返回 true，说明已经验证成功，直接信任结果，不再进行二次验证
-            boolean alternativeSuccess = tryAlternativeMessageSending(detailPage, job, keyword);
+            boolean alternativeSuccess = tryAlternativeMessageSending(detailPage, job, keyword, greetingFuture);
             if (alternativeSuccess) {
                 // ✅ 修复：备用方案内部已经验证过，直接信任结果
                 log.info("✅ 备用方案执行并验证成功，投递完成: {}", job.getJobName());
@@ -803,7 +880,7 @@ public class BossDeliveryService {
                 }
 
                 // 尝试备用方案：使用JavaScript直接发送消息
-                if (tryAlternativeMessageSending(detailPage, job, keyword)) {
+                if (tryAlternativeMessageSending(detailPage, job, keyword, greetingFuture)) {
                     log.info("✅ 备用方案成功，投递完成: {}", job.getJobName());
                     detailPage.close();
                     return true;
@@ -818,8 +895,8 @@ public class BossDeliveryService {
             return false;
         }
 
-        // 7. 生成打招呼语（智能AI生成 或 默认）
-        String message = greetingService.generateGreetingMessage(keyword, job, fullJobDescription);
+        // 7. 生成打招呼语（智能AI生成 或 默认），生成期间预取下一个岗位
+        String message = awaitGreeting(greetingFuture, page, detailPage, nextJob);
         if (message == null || message.trim().isEmpty()) {
             log.warn("打招呼语为空，跳过: {}", job.getJobName());
             detailPage.close();
@@ -1001,6 +1078,61 @@ public class BossDeliveryService {
         }
     }
 
+    /**
+     * 在后台线程生成打招呼语（取消时中断生成线程，AI请求随之中止）
+     */
+    private Future<String> startGreeting(String keyword, Job job, String fullJobDescription) {
+        return greetingExecutor.submit(() -> greetingService.generateGreetingMessage(keyword, job, fullJobDescription));
+    }
+
+    /**
+     * 取消尚未完成的打招呼语生成
+     */
+    private void cancelGreeting(Future<String> greetingFuture) {
+        if (greetingFuture != null && !greetingFuture.isDone()) {
+            greetingFuture.cancel(true);
+            log.info("【打招呼语】投递提前结束，已取消生成");
+        }
+    }
+
+    /**
+     * 等待打招呼语生成；等待期间在第二个标签页预取下一个岗位的详情并抓取JD
+     *
+     * @param greetingFuture 打招呼语生成任务
+     * @param listPage 搜索列表页（用于获取浏览器上下文）
+     * @param detailPage 当前岗位的聊天页
+     * @param nextJob 下一个待投递岗位，为null时不预取
+     * @return 打招呼语，生成失败时返回null
+     */
+    private String awaitGreeting(Future<String> greetingFuture, Page listPage, Page detailPage, Job nextJob) {
+        if (nextJob != null) {
+            prefetcher.prefetch(listPage.context(), nextJob);
+            try {
+                detailPage.bringToFront();
+            } catch (Exception e) {
+                log.debug("切回聊天页失败，已忽略: {}", e.getMessage());
+            }
+            prefetcher.prepare();
+        }
+        return greetingResult(greetingFuture);
+    }
+
+    /**
+     * @return 打招呼语，生成失败或超时时返回null（超时时取消生成）
+     */
+    private String greetingResult(Future<String> greetingFuture) {
+        try {
+            return greetingFuture.get(GREETING_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (Exception e) {
+            log.error("【打招呼语】生成失败: {}", e.getMessage());
+            greetingFuture.cancel(true);
+            return null;
+        }
+    }
+
     /**
      * 尝试备用方案发送消息
      *
@@ -1010,12 +1142,24 @@ public class BossDeliveryService {
      * @return 是否发送成功
      */
     public boolean tryAlternativeMessageSending(Page page, Job job, String keyword) {
+        return tryAlternativeMessageSending(page, job, keyword, null);
+    }
+
+    /**
+     * @param pendingGreeting 主流程已开始生成的打招呼语，为null时重新生成
+     */
+    private boolean tryAlternativeMessageSending(Page page, Job job, String keyword, Future<String> pendingGreeting) {
         try {
             log.info("尝试备用方案发送消息: {}", job.getJobName());
 
-            // 获取打招呼语
-            String fullJobDescription = greetingService.extractFullJobDescription(page);
-            String message = greetingService.generateGreetingMessage(keyword, job, fullJobDescription);
+            // 获取打招呼语（复用主流程的生成结果，避免重复请求AI）
+            String message;
+            if (pendingGreeting != null) {
+                message = greetingResult(pendingGreeting);
+            } else {
+                String fullJobDescription = greetingService.extractFullJobDescription(page);
+                message = greetingService.generateGreetingMessage(keyword, job, fullJobDescription);
+            }
 
             if (message == null || message.trim().isEmpty()) {
                 log.warn("备用方案：打招呼语为空");
@@ -0,0 +1,179 @@
+package boss.service;
+
+import static boss.Locators.HR_ACTIVE_TIME;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.microsoft.playwright.BrowserContext;
+import com.microsoft.playwright.Locator;
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.options.WaitUntilState;
+
+import boss.util.BossUtils;
+import utils.Job;
+
+/**
+ * 岗位详情页预取
+ * 当前岗位的打招呼语在后台生成时，提前在第二个标签页打开下一个岗位的详情页，
+ * 并完成JD抓取和HR活跃状态读取；下一个岗位投递时直接复用该标签页
+ *
+ * 同一时间最多保留一个预取标签页；所有Playwright调用都在投递线程中执行
+ *
+ * @author ZhiTouJianLi Team
+ */
+public class BossDetailPrefetcher implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(BossDetailPrefetcher.class);
+
+    private static final String BASE_URL = "https://www.zhipin.com";
+
+    /**
+     * 预取结果
+     */
+    public static final class PrefetchedDetail {
+        private final String jobId;
+        private final Page page;
+        private String fullJobDescription;
+        private String bossActiveTime;
+
+        PrefetchedDetail(String jobId, Page page) {
+            this.jobId = jobId;
+            this.page = page;
+        }
+
+        public Page getPage() {
+            return page;
+        }
+
+        /**
+         * @return 预先抓取的完整JD，未抓取时为null
+         */
+        public String getFullJobDescription() {
+            return fullJobDescription;
+        }
+
+        /**
+         * @return HR活跃状态文本，页面上没有时为空串
+         */
+        public String getBossActiveTime() {
+            return bossActiveTime != null ? bossActiveTime : "";
+        }
+    }
+
+    private final BossGreetingService greetingService;
+    private PrefetchedDetail pending;
+    private boolean prepared;
+
+    public BossDetailPrefetcher(BossGreetingService greetingService) {
+        this.greetingService = greetingService;
+    }
+
+    /**
+     * 在新标签页开始加载下一个岗位的详情页（只等待导航提交，不等待页面加载完成）
+     *
+     * @param context 浏览器上下文
+     * @param nextJob 下一个待投递岗位（需包含岗位ID或详情链接）
+     */
+    public void prefetch(BrowserContext context, Job nextJob) {
+        String jobId = jobIdOf(nextJob);
+        if (jobId == null) {
+            return;
+        }
+        if (pending != null && jobId.equals(pending.jobId)) {
+            return;
+        }
+        discard();
+        Page page = null;
+        try {
+            page = context.newPage();
+            page.navigate(BASE_URL + "/job_detail/" + jobId + ".html",
+                new Page.NavigateOptions().setWaitUntil(WaitUntilState.COMMIT));
+            pending = new PrefetchedDetail(jobId, page);
+            prepared = false;
+            log.info("【预取】已在后台标签页打开下一个岗位详情: {}", nextJob.getJobName());
+        } catch (Exception e) {
+            log.debug("【预取】打开下一个岗位详情页失败，已忽略: {}", e.getMessage());
+            closeQuietly(page);
+        }
+    }
+
+    /**
+     * 在预取标签页上抓取JD和HR活跃状态（每个预取页只执行一次）
+     */
+    public void prepare() {
+        if (pending == null || prepared) {
+            return;
+        }
+        prepared = true;
+        try {
+            Locator activeTime = pending.page.locator(HR_ACTIVE_TIME);
+            pending.fullJobDescription = greetingService.extractFullJobDescription(pending.page);
+            pending.bossActiveTime = activeTime.count() > 0 ? activeTime.first().textContent().trim() : "";
+            log.info("【预取】下一个岗位详情已就绪: JD长度={}字, HR活跃状态={}",
+                pending.fullJobDescription != null ? pending.fullJobDescription.length() : 0,
+                pending.getBossActiveTime());
+        } catch (Exception e) {
+            log.debug("【预取】抓取下一个岗位详情失败，投递时重新抓取: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 取出指定岗位的预取结果；不匹配的预取页会被关闭
+     *
+     * @param detailUrl 详情页链接（绝对或相对路径）
+     * @return 预取结果，没有可用预取时返回null
+     */
+    public PrefetchedDetail take(String detailUrl) {
+        if (pending == null) {
+            return null;
+        }
+        PrefetchedDetail detail = pending;
+        pending = null;
+        String jobId = BossUtils.extractJobId(detailUrl);
+        try {
+            if (jobId != null && jobId.equals(detail.jobId) && !detail.page.isClosed()) {
+                return detail;
+            }
+        } catch (Exception e) {
+            log.debug("【预取】检查预取页状态失败: {}", e.getMessage());
+        }
+        closeQuietly(detail.page);
+        return null;
+    }
+
+    /**
+     * 关闭尚未使用的预取页
+     */
+    public void discard() {
+        if (pending != null) {
+            closeQuietly(pending.page);
+            pending = null;
+        }
+    }
+
+    @Override
+    public void close() {
+        discard();
+    }
+
+    private static String jobIdOf(Job job) {
+        if (job == null) {
+            return null;
+        }
+        if (job.getJobId() != null && !job.getJobId().isEmpty()) {
+            return job.getJobId();
+        }
+        return BossUtils.extractJobId(job.getHref());
+    }
+
+    private static void closeQuietly(Page page) {
+        if (page == null) {
+            return;
+        }
+        try {
+            page.close();
+        } catch (Exception e) {
+            log.debug("关闭预取页面时出现异常，已忽略: {}", e.getMessage());
+        }
+    }
+}
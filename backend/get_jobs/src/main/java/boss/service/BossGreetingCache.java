@@ -0,0 +1,274 @@
+package boss.service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import ai.AiService;
+
+/**
+ * 智能打招呼语缓存（按内容寻址）
+ * 同一岗位会出现在多个关键词、多个城市的搜索结果中，招聘方也经常复用JD文本；
+ * 键为 简历内容版本 + 规范化后的JD + 岗位名称 的哈希，简历或JD有实质变化时自然失效
+ *
+ * 两级缓存：
+ * 1. 进程内LRU（条目数有上限，带TTL），多租户宿主进程中各用户共享（键已包含简历版本）
+ * 2. 用户数据目录下的greeting_cache.json（可选，跨运行保留），写入时整体替换文件
+ *
+ * @author ZhiTouJianLi Team
+ */
+public class BossGreetingCache {
+    private static final Logger log = LoggerFactory.getLogger(BossGreetingCache.class);
+
+    /**
+     * 磁盘缓存文件名（位于用户数据目录下）
+     */
+    public static final String FILE_NAME = "greeting_cache.json";
+
+    /**
+     * 默认保留时长
+     */
+    public static final Duration DEFAULT_TTL = Duration.ofDays(7);
+
+    private static final int MEMORY_CAPACITY = 512;
+    private static final int DISK_CAPACITY = 500;
+
+    /**
+     * JD规范化：去掉空白和标点，避免排版差异导致缓存不命中
+     */
+    private static final Pattern JD_NOISE = Pattern.compile("[\\s\\p{Punct}\\p{IsPunctuation}·～￥…—]+");
+
+    private static final BossGreetingCache SHARED = new BossGreetingCache(MEMORY_CAPACITY, DISK_CAPACITY,
+        DEFAULT_TTL, System::currentTimeMillis,
+        Boolean.parseBoolean(System.getProperty("boss.greeting-cache.disk", "true")));
+
+    private final int diskCapacity;
+    private final long ttlMillis;
+    private final LongSupplier clock;
+    private final boolean diskEnabled;
+    private final LinkedHashMap<String, CachedGreeting> memory;
+    private final Map<Path, DiskTier> diskTiers = new ConcurrentHashMap<>();
+
+    BossGreetingCache(int memoryCapacity, int diskCapacity, Duration ttl, LongSupplier clock, boolean diskEnabled) {
+        this.diskCapacity = diskCapacity;
+        this.ttlMillis = ttl.toMillis();
+        this.clock = clock;
+        this.diskEnabled = diskEnabled;
+        this.memory = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedGreeting> eldest) {
+                return size() > memoryCapacity;
+            }
+        };
+    }
+
+    /**
+     * @return 进程内共享的缓存（-Dboss.greeting-cache.disk=false 关闭磁盘缓存）
+     */
+    public static BossGreetingCache shared() {
+        return SHARED;
+    }
+
+    /**
+     * 计算缓存键
+     *
+     * @param resumeContent 简历文件内容（内容变化即视为新的简历版本）
+     * @param jobTitle 岗位名称
+     * @param jobDescription 完整岗位描述
+     * @return 十六进制哈希
+     */
+    public static String key(byte[] resumeContent, String jobTitle, String jobDescription) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(digest.digest(resumeContent));
+            digest.update((byte) 0);
+            digest.update(normalizeTitle(jobTitle).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(normalizeDescription(jobDescription).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest(), 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256不可用", e);
+        }
+    }
+
+    static String normalizeDescription(String jobDescription) {
+        if (jobDescription == null) {
+            return "";
+        }
+        String cleaned = AiService.cleanBossDesc(jobDescription).toLowerCase(Locale.ROOT);
+        return JD_NOISE.matcher(cleaned).replaceAll("");
+    }
+
+    private static String normalizeTitle(String jobTitle) {
+        return jobTitle == null ? "" : jobTitle.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 查找缓存的打招呼语（先查内存，未命中再查磁盘并回填内存）
+     *
+     * @param key 缓存键
+     * @param userDataDir 用户数据目录，null表示不使用磁盘缓存
+     * @return 打招呼语，未命中或已过期时返回null
+     */
+    public String get(String key, Path userDataDir) {
+        long now = clock.getAsLong();
+        synchronized (memory) {
+            CachedGreeting cached = memory.get(key);
+            if (cached != null) {
+                if (isLive(cached, now)) {
+                    return cached.greeting;
+                }
+                memory.remove(key);
+            }
+        }
+        DiskTier disk = diskTier(userDataDir);
+        if (disk == null) {
+            return null;
+        }
+        CachedGreeting cached = disk.get(key, now);
+        if (cached == null) {
+            return null;
+        }
+        synchronized (memory) {
+            memory.put(key, cached);
+        }
+        return cached.greeting;
+    }
+
+    /**
+     * 写入缓存
+     *
+     * @param key 缓存键
+     * @param greeting 打招呼语（只缓存AI生成成功的结果）
+     * @param userDataDir 用户数据目录，null表示不使用磁盘缓存
+     */
+    public void put(String key, String greeting, Path userDataDir) {
+        CachedGreeting cached = new CachedGreeting(greeting, clock.getAsLong());
+        synchronized (memory) {
+            memory.put(key, cached);
+        }
+        DiskTier disk = diskTier(userDataDir);
+        if (disk != null) {
+            disk.put(key, cached);
+        }
+    }
+
+    private boolean isLive(CachedGreeting cached, long now) {
+        return now - cached.createdAt < ttlMillis;
+    }
+
+    private DiskTier diskTier(Path userDataDir) {
+        if (!diskEnabled || userDataDir == null) {
+            return null;
+        }
+        return diskTiers.computeIfAbsent(userDataDir.toAbsolutePath().normalize(),
+            dir -> new DiskTier(dir.resolve(FILE_NAME)));
+    }
+
+    /**
+     * 缓存的打招呼语
+     */
+    static final class CachedGreeting {
+        private final String greeting;
+        private final long createdAt;
+
+        CachedGreeting(String greeting, long createdAt) {
+            this.greeting = greeting;
+            this.createdAt = createdAt;
+        }
+    }
+
+    /**
+     * 用户的磁盘缓存：首次访问时加载，写入时丢弃过期条目、超出上限时淘汰最旧的条目后整体写回
+     */
+    private final class DiskTier {
+        private static final ObjectMapper MAPPER = new ObjectMapper();
+        private static final TypeReference<Map<String, Map<String, Object>>> FILE_TYPE = new TypeReference<>() { };
+
+        private final Path file;
+        private Map<String, CachedGreeting> entries;
+
+        DiskTier(Path file) {
+            this.file = file;
+        }
+
+        synchronized CachedGreeting get(String key, long now) {
+            CachedGreeting cached = load().get(key);
+            return cached != null && isLive(cached, now) ? cached : null;
+        }
+
+        synchronized void put(String key, CachedGreeting cached) {
+            Map<String, CachedGreeting> current = load();
+            current.put(key, cached);
+            long now = clock.getAsLong();
+            current.values().removeIf(entry -> !isLive(entry, now));
+            while (current.size() > diskCapacity) {
+                String oldest = null;
+                long oldestAt = Long.MAX_VALUE;
+                for (Map.Entry<String, CachedGreeting> entry : current.entrySet()) {
+                    if (entry.getValue().createdAt < oldestAt) {
+                        oldest = entry.getKey();
+                        oldestAt = entry.getValue().createdAt;
+                    }
+                }
+                current.remove(oldest);
+            }
+            write(current);
+        }
+
+        private Map<String, CachedGreeting> load() {
+            if (entries != null) {
+                return entries;
+            }
+            entries = new HashMap<>();
+            if (Files.exists(file)) {
+                try {
+                    Map<String, Map<String, Object>> raw = MAPPER.readValue(file.toFile(), FILE_TYPE);
+                    raw.forEach((key, value) -> {
+                        Object greeting = value.get("greeting");
+                        Object createdAt = value.get("createdAt");
+                        if (greeting instanceof String && createdAt instanceof Number) {
+                            entries.put(key, new CachedGreeting((String) greeting, ((Number) createdAt).longValue()));
+                        }
+                    });
+                    log.info("【打招呼语缓存】已加载磁盘缓存: {}条 ({})", entries.size(), file);
+                } catch (IOException e) {
+                    log.warn("【打招呼语缓存】磁盘缓存读取失败，将重新生成: {}", e.getMessage());
+                }
+            }
+            return entries;
+        }
+
+        private void write(Map<String, CachedGreeting> current) {
+            Map<String, Map<String, Object>> raw = new LinkedHashMap<>();
+            current.forEach((key, value) -> raw.put(key, Map.of("greeting", value.greeting, "createdAt", value.createdAt)));
+            try {
+                Files.createDirectories(file.getParent());
+                Path tmp = file.resolveSibling(FILE_NAME + ".tmp");
+                MAPPER.writeValue(tmp.toFile(), raw);
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                log.warn("【打招呼语缓存】磁盘缓存写入失败: {}", e.getMessage());
+            }
+        }
+    }
+}
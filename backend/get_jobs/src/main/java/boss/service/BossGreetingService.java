@@ -1,6 +1,8 @@
 package boss.service;
 
 import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -17,6 +19,7 @@ import com.microsoft.playwright.Page;
 
 import ai.SmartGreetingService;
 import boss.BossConfig;
+import boss.BossRunContext;
 import utils.Job;
 import utils.PlaywrightUtil;
 
@@ -62,13 +65,9 @@ public class BossGreetingService {
         log.info("【打招呼语】✅ 智能打招呼已启用，开始生成个性化打招呼语");
 
         // 支持多种用户ID格式和文件名（candidate_resume.json优先）
-        // 获取用户ID（优先级：系统属性 > 环境变量）
-        String userId = System.getProperty("boss.user.id");
-        String userIdSource = "系统属性(boss.user.id)";
-        if (userId == null || userId.isEmpty()) {
-            userId = System.getenv("BOSS_USER_ID");
-            userIdSource = "环境变量(BOSS_USER_ID)";
-        }
+        // 获取用户ID（优先级：当前Boss运行 > 构造函数参数）
+        String userId = BossRunContext.currentUserId();
+        String userIdSource = "当前运行(boss.user.id/BOSS_USER_ID)";
         if (userId == null || userId.isEmpty()) {
             userId = this.userId; // 使用构造函数传入的userId
             userIdSource = "构造函数参数";
@@ -146,7 +145,8 @@ public class BossGreetingService {
         try {
             // 直接从文件加载候选人信息
             ObjectMapper mapper = new ObjectMapper();
-            Map<String, Object> resumeData = mapper.readValue(resumeFile, Map.class);
+            byte[] resumeContent = Files.readAllBytes(resumeFile.toPath());
+            Map<String, Object> resumeData = mapper.readValue(resumeContent, Map.class);
             if (resumeData == null) {
                 log.warn("【打招呼语】简历文件为空，使用默认招呼语");
                 return sayHi;
@@ -171,23 +171,45 @@ public class BossGreetingService {
             }
             log.info("【智能打招呼】完整JD已获取，长度: {}字", fullJobDescription.length());
 
-            // 使用完整JD生成智能打招呼语
+            // 同一简历 + 相同（规范化后）JD + 相同岗位名称，直接复用之前生成的打招呼语
+            BossGreetingCache cache = BossGreetingCache.shared();
+            String cacheKey = BossGreetingCache.key(resumeContent, job.getJobName(), fullJobDescription);
+            Path cacheDir = resumeFile.getParentFile().toPath();
+            String cachedGreeting = cache.get(cacheKey, cacheDir);
+            if (cachedGreeting != null) {
+                log.info("【智能打招呼】✅ 命中打招呼语缓存，跳过AI调用，岗位: {}", job.getJobName());
+                return cachedGreeting;
+            }
+
+            // 使用完整JD生成智能打招呼语：AI在预算内返回则用AI结果，否则用模板打招呼语，不阻塞投递
             log.info("【智能打招呼】开始调用AI生成，岗位: {}, JD长度: {}字",
                 job.getJobName(), fullJobDescription.length());
-            String smartGreeting = SmartGreetingService.generateSmartGreeting(
+            SmartGreetingService.TieredGreeting tiered = SmartGreetingService.generateTieredGreeting(
                 candidate,
                 job.getJobName(),
                 fullJobDescription
             );
+            if (tiered.getLateAiGreeting() != null) {
+                // AI稍后返回的结果写入缓存，同一岗位在其他关键词/城市下再次出现时直接使用
+                tiered.getLateAiGreeting().thenAccept(late -> {
+                    if (late != null && !late.trim().isEmpty()) {
+                        cache.put(cacheKey, late, cacheDir);
+                    }
+                });
+            }
 
+            String smartGreeting = tiered.getGreeting();
             if (smartGreeting != null && !smartGreeting.trim().isEmpty()) {
-                log.info("【智能打招呼】✅ 成功生成，长度: {}字，内容预览: {}",
+                log.info("【智能打招呼】✅ 成功生成（{}），长度: {}字，内容预览: {}",
+                    tiered.isFromAi() ? "AI" : "模板",
                     smartGreeting.length(),
                     smartGreeting.length() > 50 ? smartGreeting.substring(0, 50) + "..." : smartGreeting);
+                if (tiered.isFromAi()) {
+                    cache.put(cacheKey, smartGreeting, cacheDir);
+                }
                 return smartGreeting;
             } else {
-                log.warn("【智能打招呼】❌ 生成失败或超时（返回null或空字符串），使用默认招呼语");
-                log.warn("【智能打招呼】可能原因: 1) AI服务超时 2) AI服务返回空响应 3) 网络连接问题");
+                log.warn("【智能打招呼】❌ AI未及时返回且简历信息不足以生成模板打招呼语，使用默认招呼语");
                 return sayHi;
             }
 
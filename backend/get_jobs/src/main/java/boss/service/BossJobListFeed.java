@@ -0,0 +1,209 @@
+package boss.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.microsoft.playwright.Page;
+
+import utils.Job;
+import utils.PlaywrightUtil;
+
+/**
+ * Boss搜索结果接口响应订阅
+ * 监听页面自身发出的岗位列表XHR，把JSON直接解码为Job（含稳定的岗位ID），
+ * 岗位顺序与页面上卡片的渲染顺序一致
+ *
+ * @author ZhiTouJianLi Team
+ */
+public class BossJobListFeed implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(BossJobListFeed.class);
+
+    /**
+     * 岗位列表接口路径
+     */
+    public static final String JOB_LIST_API = "/wapi/zpgeek/search/joblist.json";
+
+    private static final int POLL_INTERVAL_MS = 100;
+
+    private final List<Job> jobs = new ArrayList<>();
+    private final Runnable unsubscribe;
+    private volatile boolean hasMore = true;
+    private volatile int responseCount;
+
+    /**
+     * 在页面上订阅岗位列表接口（需在导航到搜索页之前调用）
+     *
+     * @param page 页面对象
+     */
+    public BossJobListFeed(Page page) {
+        this.unsubscribe = PlaywrightUtil.onResponseBody(page, JOB_LIST_API, this::accept);
+    }
+
+    /**
+     * 切换关键词/城市前清空已收到的岗位
+     */
+    public synchronized void reset() {
+        jobs.clear();
+        hasMore = true;
+        responseCount = 0;
+    }
+
+    /**
+     * 等待接口返回下标 fromIndex 之后的新岗位
+     * 使用 page.waitForTimeout 轮询，保证同步API能分发响应事件
+     *
+     * @param page 页面对象
+     * @param fromIndex 已处理的岗位数
+     * @param timeoutMs 最长等待时间
+     * @return true=有新岗位, false=超时或没有更多岗位
+     */
+    public boolean awaitJobsAfter(Page page, int fromIndex, long timeoutMs) {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (size() <= fromIndex && hasMore && System.currentTimeMillis() < deadline) {
+            page.waitForTimeout(POLL_INTERVAL_MS);
+        }
+        return size() > fromIndex;
+    }
+
+    /**
+     * @param fromIndex 起始下标
+     * @return 下标 fromIndex 之后的岗位副本
+     */
+    public synchronized List<Job> jobsFrom(int fromIndex) {
+        if (fromIndex >= jobs.size()) {
+            return Collections.emptyList();
+        }
+        return new ArrayList<>(jobs.subList(fromIndex, jobs.size()));
+    }
+
+    /**
+     * @return 已收到的岗位数
+     */
+    public synchronized int size() {
+        return jobs.size();
+    }
+
+    /**
+     * @return 接口是否声明还有更多岗位
+     */
+    public boolean hasMore() {
+        return hasMore;
+    }
+
+    /**
+     * @return 已收到的接口响应数
+     */
+    public int getResponseCount() {
+        return responseCount;
+    }
+
+    @Override
+    public void close() {
+        try {
+            unsubscribe.run();
+        } catch (Exception e) {
+            log.debug("取消岗位列表接口监听失败: {}", e.getMessage());
+        }
+    }
+
+    private void accept(String body) {
+        List<Job> parsed = parse(body);
+        if (parsed == null) {
+            return;
+        }
+        synchronized (this) {
+            jobs.addAll(parsed);
+        }
+        responseCount++;
+        log.debug("收到岗位列表接口响应: 新岗位={}个, 累计={}个, hasMore={}", parsed.size(), size(), hasMore);
+    }
+
+    /**
+     * 解析岗位列表接口响应
+     *
+     * @param body 响应体
+     * @return 岗位列表，响应无效时返回null
+     */
+    List<Job> parse(String body) {
+        try {
+            JSONObject root = new JSONObject(body);
+            if (root.optInt("code", -1) != 0) {
+                log.warn("岗位列表接口返回异常: code={}, message={}", root.opt("code"), root.optString("message"));
+                return null;
+            }
+            JSONObject zpData = root.optJSONObject("zpData");
+            if (zpData == null) {
+                return null;
+            }
+            this.hasMore = zpData.optBoolean("hasMore", false);
+            return toJobs(zpData.optJSONArray("jobList"));
+        } catch (Exception e) {
+            log.warn("解析岗位列表接口响应失败: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 将接口返回的jobList转换为Job列表
+     *
+     * @param jobList 接口jobList数组
+     * @return 岗位列表
+     */
+    static List<Job> toJobs(JSONArray jobList) {
+        List<Job> result = new ArrayList<>();
+        if (jobList == null) {
+            return result;
+        }
+        for (int i = 0; i < jobList.length(); i++) {
+            JSONObject item = jobList.optJSONObject(i);
+            if (item == null) {
+                continue;
+            }
+            Job job = new Job();
+            String jobId = item.optString("encryptJobId", "");
+            job.setJobId(jobId.isEmpty() ? null : jobId);
+            job.setHref(jobId.isEmpty() ? "" : "/job_detail/" + jobId + ".html");
+            job.setJobName(item.optString("jobName", "").trim());
+            job.setSalary(item.optString("salaryDesc", "").trim());
+            job.setCompanyName(item.optString("brandName", "").trim());
+            job.setRecruiter(item.optString("bossName", "").trim());
+            job.setJobArea(join("·", item.optString("cityName", ""), item.optString("areaDistrict", ""),
+                item.optString("businessDistrict", "")));
+            job.setCompanyTag(join(", ", toStrings(item.optJSONArray("jobLabels")).toArray(new String[0])));
+            job.setCompanyInfo(join(", ", item.optString("brandStageName", ""), item.optString("brandScaleName", ""),
+                item.optString("brandIndustry", "")));
+            result.add(job);
+        }
+        return result;
+    }
+
+    private static List<String> toStrings(JSONArray array) {
+        List<String> values = new ArrayList<>();
+        if (array != null) {
+            for (int i = 0; i < array.length(); i++) {
+                values.add(array.optString(i, ""));
+            }
+        }
+        return values;
+    }
+
+    private static String join(String delimiter, String... parts) {
+        StringBuilder sb = new StringBuilder();
+        for (String part : parts) {
+            if (part == null || part.trim().isEmpty()) {
+                continue;
+            }
+            if (sb.length() > 0) {
+                sb.append(delimiter);
+            }
+            sb.append(part.trim());
+        }
+        return sb.toString();
+    }
+}
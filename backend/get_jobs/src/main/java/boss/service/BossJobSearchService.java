@@ -4,6 +4,8 @@ import static boss.Locators.JOB_LIST_CONTAINER;
 
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -12,9 +14,12 @@ import org.slf4j.LoggerFactory;
 
 import com.microsoft.playwright.Locator;
 import com.microsoft.playwright.Page;
+import com.microsoft.playwright.PlaywrightException;
 
 import boss.BossConfig;
 import boss.BossEnum;
+import boss.util.BossUtils;
+import utils.Job;
 import utils.JobUtils;
 import utils.PlaywrightUtil;
 
@@ -27,6 +32,76 @@ import utils.PlaywrightUtil;
 public class BossJobSearchService {
     private static final Logger log = LoggerFactory.getLogger(BossJobSearchService.class);
 
+    /**
+     * 岗位卡片快照脚本：一次 page.evaluate 读取从指定下标开始的所有卡片字段
+     * 选择器与 {@link #getJobCards(Page)} 的XPath等价，保证下标一致
+     */
+    private static final String CARD_SNAPSHOT_SCRIPT = """
+        (from) => {
+            const cards = document.querySelectorAll("ul[class*='rec-job-list'] li[class*='job-card-box']");
+            const text = (root, selector) => {
+                const el = root.querySelector(selector);
+                return el ? (el.innerText || el.textContent || '').trim() : '';
+            };
+            const result = [];
+            for (let i = from; i < cards.length; i++) {
+                const card = cards[i];
+                const link = card.querySelector("a[class*='job-name']") || card.querySelector("a[href*='/job_detail/']");
+                result.push({
+                    jobName: link ? (link.innerText || link.textContent || '').trim() : text(card, "[class*='job-name']"),
+                    href: link ? (link.getAttribute('href') || '') : '',
+                    salary: text(card, "[class*='job-salary'], .salary"),
+                    companyName: text(card, "[class*='boss-name'], [class*='company-name']"),
+                    recruiter: text(card, ".info-public, [class*='recruiter']"),
+                    jobArea: text(card, "[class*='company-location'], [class*='job-area']"),
+                    tags: Array.from(card.querySelectorAll("ul[class*='tag-list'] li")).map(li => (li.innerText || '').trim())
+                });
+            }
+            return result;
+        }
+        """;
+
+    /**
+     * 详情面板快照脚本：一次 page.evaluate 读取岗位名称、薪资、标签、描述和Boss信息，详情面板不存在时返回null
+     */
+    private static final String DETAIL_SNAPSHOT_SCRIPT = """
+        () => {
+            const box = document.querySelector("div[class*='job-detail-box']");
+            if (!box) {
+                return null;
+            }
+            const text = (selector) => {
+                const el = box.querySelector(selector);
+                return el ? (el.innerText || el.textContent || '').trim() : '';
+            };
+            return {
+                jobName: text("span[class*='job-name']"),
+                salary: text("span.job-salary"),
+                tags: Array.from(box.querySelectorAll("ul[class*='tag-list'] > li")).map(li => (li.innerText || '').trim()),
+                desc: text("p.desc"),
+                bossName: text("h2[class*='name']"),
+                bossTitle: text("div[class*='boss-info-attr']")
+            };
+        }
+        """;
+
+    /**
+     * 等待DOM渲染出指定数量卡片的脚本，返回当前卡片数（未达到时返回0继续等待）
+     */
+    private static final String CARD_COUNT_AT_LEAST_SCRIPT =
+        "n => { const c = document.querySelectorAll(\"ul[class*='rec-job-list'] li[class*='job-card-box']\").length;"
+            + " return c >= n ? c : 0; }";
+
+    /**
+     * 接口拦截模式下等待新岗位响应的最长时间
+     */
+    private static final long FEED_WAIT_TIMEOUT_MS = 8000;
+
+    /**
+     * 接口拦截模式下等待卡片渲染的最长时间
+     */
+    private static final double CARD_RENDER_TIMEOUT_MS = 3000;
+
     private final BossConfig config;
     private final String baseUrl;
 
@@ -326,6 +401,163 @@ public class BossJobSearchService {
         return page.locator("//ul[contains(@class, 'rec-job-list')]//li[contains(@class, 'job-card-box')]");
     }
 
+    /**
+     * 岗位卡片快照：一次浏览器往返读取新加载卡片的名称、薪资、公司、招聘者、标签和链接
+     * 返回列表的第k个元素对应页面上第 fromIndex+k 张卡片，后续过滤全部在Java侧完成
+     *
+     * @param page 页面对象
+     * @param fromIndex 起始卡片下标（已处理的卡片数）
+     * @return 岗位快照列表，页面卡片数不足时返回空列表
+     */
+    public List<Job> snapshotJobCards(Page page, int fromIndex) {
+        long startTime = System.currentTimeMillis();
+        List<Job> jobs;
+        try {
+            jobs = toJobs(page.evaluate(CARD_SNAPSHOT_SCRIPT, fromIndex));
+        } catch (PlaywrightException e) {
+            if (BossUtils.isTargetClosed(e)) {
+                // 页面/浏览器已关闭：交给调用方停止处理
+                throw e;
+            }
+            log.error("获取岗位卡片快照时发生Playwright异常: {}，视为没有新卡片", e.getMessage());
+            return Collections.emptyList();
+        }
+        log.debug("岗位卡片快照完成: 起始下标={}, 新卡片={}个, 耗时{}ms",
+            fromIndex, jobs.size(), System.currentTimeMillis() - startTime);
+        return jobs;
+    }
+
+    /**
+     * 读取当前详情面板的字段（一次浏览器往返）
+     * 页面/浏览器关闭时抛出PlaywrightException，其他读取失败时返回空的详情（岗位名称为空，由调用方跳过）
+     *
+     * @param page 页面对象
+     * @return 详情面板字段
+     */
+    public JobDetail readJobDetail(Page page) {
+        try {
+            return toJobDetail(page.evaluate(DETAIL_SNAPSHOT_SCRIPT));
+        } catch (PlaywrightException e) {
+            if (BossUtils.isTargetClosed(e)) {
+                throw e;
+            }
+            log.warn("读取岗位详情失败: {}", e.getMessage());
+            return toJobDetail(null);
+        }
+    }
+
+    /**
+     * 滚动后获取新加载的岗位
+     * - 未启用接口拦截：随机等待2-4秒后做一次DOM快照
+     * - 启用接口拦截：等待岗位列表接口返回新岗位，再等待对应卡片渲染（供后续点击），不再固定等待；
+     *   接口无响应或与页面卡片数不一致时回退到DOM快照
+     *
+     * @param page 页面对象
+     * @param feed 岗位列表接口订阅，null表示未启用
+     * @param fromIndex 起始卡片下标（已处理的卡片数）
+     * @return 新岗位列表，第k个元素对应页面上第 fromIndex+k 张卡片
+     */
+    public List<Job> loadNewCards(Page page, BossJobListFeed feed, int fromIndex) {
+        if (feed == null) {
+            log.debug("等待页面加载（2-4秒）...");
+            PlaywrightUtil.randomSleepMillis(2000, 4000);
+            return snapshotJobCards(page, fromIndex);
+        }
+
+        long startTime = System.currentTimeMillis();
+        if (!feed.awaitJobsAfter(page, fromIndex, FEED_WAIT_TIMEOUT_MS)) {
+            if (!feed.hasMore() && feed.getResponseCount() > 0) {
+                log.info("岗位列表接口已无更多岗位（累计{}个）", feed.size());
+                return Collections.emptyList();
+            }
+            log.warn("岗位列表接口{}ms内无新响应（累计响应{}次），回退到DOM快照",
+                System.currentTimeMillis() - startTime, feed.getResponseCount());
+            return snapshotJobCards(page, fromIndex);
+        }
+
+        int expected = feed.size();
+        try {
+            Object rendered = page.waitForFunction(CARD_COUNT_AT_LEAST_SCRIPT, expected,
+                new Page.WaitForFunctionOptions().setTimeout(CARD_RENDER_TIMEOUT_MS)).jsonValue();
+            int renderedCount = rendered instanceof Number ? ((Number) rendered).intValue() : -1;
+            if (renderedCount != expected) {
+                log.warn("接口岗位数({})与页面卡片数({})不一致，回退到DOM快照", expected, renderedCount);
+                return snapshotJobCards(page, fromIndex);
+            }
+        } catch (com.microsoft.playwright.TimeoutError e) {
+            log.warn("等待{}张岗位卡片渲染超时，回退到DOM快照", expected);
+            return snapshotJobCards(page, fromIndex);
+        }
+
+        List<Job> jobs = feed.jobsFrom(fromIndex);
+        log.debug("从岗位列表接口获取{}个新岗位，耗时{}ms", jobs.size(), System.currentTimeMillis() - startTime);
+        return jobs;
+    }
+
+    /**
+     * 将快照脚本的返回值转换为Job列表（无法解析的元素保留为空Job，保证下标对齐）
+     *
+     * @param evaluated page.evaluate 返回值
+     * @return 岗位列表
+     */
+    @SuppressWarnings("unchecked")
+    static List<Job> toJobs(Object evaluated) {
+        List<Job> jobs = new ArrayList<>();
+        if (!(evaluated instanceof List)) {
+            return jobs;
+        }
+        for (Object item : (List<Object>) evaluated) {
+            Job job = new Job();
+            if (item instanceof Map) {
+                Map<String, Object> card = (Map<String, Object>) item;
+                job.setJobName(stringValue(card.get("jobName")));
+                job.setHref(stringValue(card.get("href")));
+                job.setJobId(BossUtils.extractJobId(job.getHref()));
+                job.setSalary(BossUtils.decodeSalary(stringValue(card.get("salary"))));
+                job.setCompanyName(stringValue(card.get("companyName")));
+                job.setRecruiter(stringValue(card.get("recruiter")));
+                job.setJobArea(stringValue(card.get("jobArea")));
+                Object tags = card.get("tags");
+                if (tags instanceof List) {
+                    List<String> tagTexts = new ArrayList<>();
+                    for (Object tag : (List<Object>) tags) {
+                        if (tag != null && !tag.toString().isEmpty()) {
+                            tagTexts.add(tag.toString());
+                        }
+                    }
+                    job.setCompanyTag(String.join(", ", tagTexts));
+                }
+            }
+            jobs.add(job);
+        }
+        return jobs;
+    }
+
+    /**
+     * 将详情快照脚本的返回值转换为详情字段（无法解析时各字段为空）
+     *
+     * @param evaluated page.evaluate 返回值
+     * @return 详情字段
+     */
+    @SuppressWarnings("unchecked")
+    static JobDetail toJobDetail(Object evaluated) {
+        Map<String, Object> detail = evaluated instanceof Map ? (Map<String, Object>) evaluated : Collections.emptyMap();
+        List<String> tags = new ArrayList<>();
+        if (detail.get("tags") instanceof List) {
+            for (Object tag : (List<Object>) detail.get("tags")) {
+                if (tag != null && !tag.toString().isEmpty()) {
+                    tags.add(tag.toString());
+                }
+            }
+        }
+        return new JobDetail(stringValue(detail.get("jobName")), stringValue(detail.get("salary")), tags,
+            stringValue(detail.get("desc")), stringValue(detail.get("bossName")), stringValue(detail.get("bossTitle")));
+    }
+
+    private static String stringValue(Object value) {
+        return value != null ? value.toString().trim() : "";
+    }
+
     /**
      * 滚动到页面顶部
      *
@@ -335,7 +567,49 @@ public class BossJobSearchService {
         page.evaluate("window.scrollTo(0, 0);");
         PlaywrightUtil.randomSleepMillis(1000, 2000);
     }
-}
 
+    /**
+     * 岗位详情面板字段（原始文本，薪资解码和Boss信息拆分由调用方完成）
+     */
+    public static final class JobDetail {
+        private final String jobName;
+        private final String salary;
+        private final List<String> tags;
+        private final String desc;
+        private final String bossName;
+        private final String bossTitle;
+
+        JobDetail(String jobName, String salary, List<String> tags, String desc, String bossName, String bossTitle) {
+            this.jobName = jobName;
+            this.salary = salary;
+            this.tags = tags;
+            this.desc = desc;
+            this.bossName = bossName;
+            this.bossTitle = bossTitle;
+        }
 
+        public String getJobName() {
+            return jobName;
+        }
 
+        public String getSalary() {
+            return salary;
+        }
+
+        public List<String> getTags() {
+            return tags;
+        }
+
+        public String getDesc() {
+            return desc;
+        }
+
+        public String getBossName() {
+            return bossName;
+        }
+
+        public String getBossTitle() {
+            return bossTitle;
+        }
+    }
+}
@@ -23,6 +23,7 @@ import org.slf4j.LoggerFactory;
 import com.microsoft.playwright.Locator;
 import com.microsoft.playwright.Page;
 
+import boss.BossRunContext;
 import lombok.SneakyThrows;
 import utils.PlaywrightUtil;
 
@@ -125,7 +126,7 @@ public class BossLoginService {
 
                 // ✅ 修复：Cookie有效时也要更新状态文件为success，让前端知道登录成功
                 try {
-                    String userId = System.getenv("BOSS_USER_ID");
+                    String userId = BossRunContext.currentUserId();
                     String safeUserId = userId != null ? userId.replaceAll("[^a-zA-Z0-9_-]", "_") : "default";
                     String statusFile = System.getProperty("java.io.tmpdir") + java.io.File.separator + "boss_login_status_" + safeUserId + ".txt";
                     java.nio.file.Files.write(java.nio.file.Paths.get(statusFile), "success".getBytes(java.nio.charset.StandardCharsets.UTF_8));
@@ -275,7 +276,7 @@ public class BossLoginService {
 
                 if (qrcodeElement != null) {
                     // ✅ 修复：按用户隔离二维码文件和状态文件
-                    String userId = System.getenv("BOSS_USER_ID");
+                    String userId = BossRunContext.currentUserId();
                     String safeUserId = userId != null ? userId.replaceAll("[^a-zA-Z0-9_-]", "_") : "default";
                     String qrcodePath = System.getProperty("java.io.tmpdir") + File.separator + "boss_qrcode_" + safeUserId + ".png";
                     qrcodeElement.screenshot(new Locator.ScreenshotOptions().setPath(Paths.get(qrcodePath)));
@@ -290,7 +291,7 @@ public class BossLoginService {
                     // 作为备选方案，截取整个页面，然后裁剪中心区域
                     log.info("🔄 备选方案：截取整个登录页面并裁剪二维码区域");
                     // ✅ 修复：按用户隔离二维码文件和状态文件
-                    String userId = System.getenv("BOSS_USER_ID");
+                    String userId = BossRunContext.currentUserId();
                     String safeUserId = userId != null ? userId.replaceAll("[^a-zA-Z0-9_-]", "_") : "default";
                     String fullPagePath = System.getProperty("java.io.tmpdir") + File.separator + "boss_qrcode_full_" + safeUserId + ".png";
                     String qrcodePath = System.getProperty("java.io.tmpdir") + File.separator + "boss_qrcode_" + safeUserId + ".png";
@@ -349,7 +350,7 @@ public class BossLoginService {
                     log.error("超过15分钟未完成登录，程序退出...");
                     // ✅ 修复：按用户隔离状态文件
                     try {
-                        String userId = System.getenv("BOSS_USER_ID");
+                        String userId = BossRunContext.currentUserId();
                         String safeUserId = userId != null ? userId.replaceAll("[^a-zA-Z0-9_-]", "_") : "default";
                         Files.write(Paths.get(System.getProperty("java.io.tmpdir") + File.separator + "boss_login_status_" + safeUserId + ".txt"), "failed".getBytes(StandardCharsets.UTF_8));
                         log.info("✅ 登录状态已更新为failed (用户: {})", safeUserId);
@@ -509,7 +510,7 @@ public class BossLoginService {
 
                                             // 重新截图二维码（用户可能需要在手机上重新扫码或确认）
                                             try {
-                                                String userId = System.getenv("BOSS_USER_ID");
+                                                String userId = BossRunContext.currentUserId();
                                                 String safeUserId = userId != null ? userId.replaceAll("[^a-zA-Z0-9_-]", "_") : "default";
                                                 String qrcodePath = System.getProperty("java.io.tmpdir") + File.separator + "boss_qrcode_" + safeUserId + ".png";
 
@@ -594,7 +595,7 @@ public class BossLoginService {
                         // ===== 新增：更新登录状态为success =====
                         try {
                             // ✅ 修复：按用户隔离状态文件
-                            String userId = System.getenv("BOSS_USER_ID");
+                            String userId = BossRunContext.currentUserId();
                             String safeUserId = userId != null ? userId.replaceAll("[^a-zA-Z0-9_-]", "_") : "default";
                             Files.write(Paths.get(System.getProperty("java.io.tmpdir") + File.separator + "boss_login_status_" + safeUserId + ".txt"), "success".getBytes(StandardCharsets.UTF_8));
                             log.info("✅ 登录状态已更新为success (用户: {})", safeUserId);
@@ -9,6 +9,7 @@ import java.time.LocalDate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import boss.BossRunContext;
 import service.QuotaService;
 import util.SpringContextUtil;
 
@@ -16,15 +17,58 @@ import util.SpringContextUtil;
  * Boss配额管理服务
  * 负责配额检查和消费
  *
+ * 主进程提供了配额租约通道时（见{@link QuotaLeaseClient}），从主进程成批领取配额在内存中扣减，
+ * 每次投递不访问数据库；通道不可用时退回到直接查询数据库
+ *
  * @author ZhiTouJianLi Team
  */
 public class BossQuotaService {
     private static final Logger log = LoggerFactory.getLogger(BossQuotaService.class);
 
     private final String userId;
+    private volatile QuotaLeaseClient leaseClient;
 
     public BossQuotaService(String userId) {
         this.userId = userId;
+        this.leaseClient = QuotaLeaseClient.of(BossRunContext.currentQuotaLease());
+    }
+
+    /**
+     * 获取今日已投递数量（用于初始化投递计数）
+     *
+     * @return 今日已使用的投递配额；没有租约通道或查询失败时返回null（调用方自行查询）
+     */
+    public Integer loadTodayUsage() {
+        QuotaLeaseClient client = leaseClient;
+        if (client == null) {
+            return null;
+        }
+        try {
+            return (int) client.todayUsage();
+        } catch (Exception e) {
+            log.warn("⚠️ 通过配额租约通道查询今日投递数量失败: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 投递未成功时调用：退回投递前预留的配额（只有租约模式下有预留）
+     */
+    public void releaseQuotaReservation() {
+        QuotaLeaseClient client = leaseClient;
+        if (client != null) {
+            client.cancel();
+        }
+    }
+
+    /**
+     * 运行结束时调用：归还租约中未使用的配额
+     */
+    public void close() {
+        QuotaLeaseClient client = leaseClient;
+        if (client != null) {
+            client.release();
+        }
     }
 
     /**
@@ -36,6 +80,21 @@ public class BossQuotaService {
      * @return true表示配额足够，可以投递；false表示配额不足，需要停止投递
      */
     public boolean checkQuotaBeforeDelivery() {
+        QuotaLeaseClient client = leaseClient;
+        if (client != null) {
+            try {
+                boolean reserved = client.tryReserve();
+                if (!reserved) {
+                    log.warn("⚠️ 配额检查失败: userId={}, quotaKey=daily_job_application, 配额不足", this.userId);
+                }
+                return reserved;
+            } catch (Exception e) {
+                // 已领取的单位留在主进程会话中，运行结束后按已使用处理；之后直接查询数据库
+                log.warn("⚠️ 配额租约通道不可用，改为直接查询数据库: {}", e.getMessage());
+                leaseClient = null;
+            }
+        }
+
         try {
             log.info("🔍 开始配额检查: userId={}, quotaKey=daily_job_application", this.userId);
 
@@ -332,6 +391,11 @@ public class BossQuotaService {
      * 由于Boss在独立进程中运行，无法使用Spring Bean，因此通过JDBC直接更新数据库
      */
     public void consumeQuotaAfterDelivery() {
+        QuotaLeaseClient client = leaseClient;
+        if (client != null && client.commit()) {
+            log.debug("✅ 配额消费成功（租约）: userId={}, quotaKey=daily_job_application, amount=1", this.userId);
+            return;
+        }
         try {
             // 优先尝试通过SpringContextUtil获取QuotaService（如果Boss在Spring环境中运行）
             // 注意：在隔离JVM进程中，SpringContextUtil可能无法加载（缺少Spring依赖）
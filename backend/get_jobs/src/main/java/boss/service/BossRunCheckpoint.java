@@ -0,0 +1,218 @@
+package boss.service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 投递运行检查点（按用户持久化）
+ * 每处理完一个岗位写入一次：当前城市、关键词、滚动深度、已处理岗位数、最后一个岗位ID和计数器，
+ * 以及已完成的（城市, 关键词）；进程被超时终止或浏览器崩溃后，恢复模式据此跳过已完成的工作
+ *
+ * 写入采用临时文件+原子替换，进程在任意时刻被强制终止都不会留下半个文件
+ *
+ * @author ZhiTouJianLi Team
+ */
+public class BossRunCheckpoint {
+    private static final Logger log = LoggerFactory.getLogger(BossRunCheckpoint.class);
+
+    /**
+     * 检查点文件名（位于用户数据目录下）
+     */
+    public static final String FILE_NAME = "run_checkpoint.json";
+
+    /**
+     * 单个（城市, 关键词）的进度
+     */
+    public static final class Progress {
+        private final int scrollCount;
+        private final int processedCount;
+        private final String lastJobId;
+        private final int postCount;
+        private final int skipCount;
+        private final int failCount;
+
+        Progress(int scrollCount, int processedCount, String lastJobId, int postCount, int skipCount, int failCount) {
+            this.scrollCount = scrollCount;
+            this.processedCount = processedCount;
+            this.lastJobId = lastJobId;
+            this.postCount = postCount;
+            this.skipCount = skipCount;
+            this.failCount = failCount;
+        }
+
+        public int getScrollCount() {
+            return scrollCount;
+        }
+
+        public int getProcessedCount() {
+            return processedCount;
+        }
+
+        public String getLastJobId() {
+            return lastJobId;
+        }
+
+        public int getPostCount() {
+            return postCount;
+        }
+
+        public int getSkipCount() {
+            return skipCount;
+        }
+
+        public int getFailCount() {
+            return failCount;
+        }
+    }
+
+    private final Path path;
+    private final Set<String> completed = new LinkedHashSet<>();
+    private String cityCode;
+    private String keyword;
+    private Progress progress;
+
+    public BossRunCheckpoint(Path userDataDir) {
+        this.path = userDataDir.resolve(FILE_NAME);
+    }
+
+    /**
+     * 恢复模式：加载当天未完成运行留下的检查点
+     *
+     * @return true=存在可恢复的检查点
+     */
+    public synchronized boolean load() {
+        reset();
+        if (!Files.exists(path)) {
+            return false;
+        }
+        try {
+            JSONObject root = new JSONObject(new String(Files.readAllBytes(path), StandardCharsets.UTF_8));
+            if (!LocalDate.now().toString().equals(root.optString("runDate"))) {
+                log.info("检查点不是今天的运行（{}），从头开始", root.optString("runDate"));
+                return false;
+            }
+            JSONArray done = root.optJSONArray("completed");
+            if (done != null) {
+                for (int i = 0; i < done.length(); i++) {
+                    completed.add(done.optString(i));
+                }
+            }
+            JSONObject current = root.optJSONObject("current");
+            if (current != null) {
+                cityCode = current.optString("cityCode", null);
+                keyword = current.optString("keyword", null);
+                progress = new Progress(current.optInt("scrollCount"), current.optInt("processedCount"),
+                    current.optString("lastJobId", null), current.optInt("postCount"),
+                    current.optInt("skipCount"), current.optInt("failCount"));
+            }
+            log.info("✅ 已加载运行检查点: 已完成{}组（城市, 关键词），中断于 城市={}, 关键词={}, 已处理={}个岗位",
+                completed.size(), cityCode, keyword, progress != null ? progress.getProcessedCount() : 0);
+            return true;
+        } catch (Exception e) {
+            log.warn("读取运行检查点失败：{}，从头开始", e.getMessage());
+            reset();
+            return false;
+        }
+    }
+
+    /**
+     * 全新运行：丢弃旧检查点
+     */
+    public synchronized void clear() {
+        reset();
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("删除运行检查点失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @return 该（城市, 关键词）在中断的运行中是否已完成
+     */
+    public synchronized boolean isCompleted(String cityCode, String keyword) {
+        return completed.contains(key(cityCode, keyword));
+    }
+
+    /**
+     * @return 中断时该（城市, 关键词）的进度，不是中断位置时返回null
+     */
+    public synchronized Progress resumePoint(String cityCode, String keyword) {
+        if (progress != null && cityCode.equals(this.cityCode) && keyword.equals(this.keyword)) {
+            return progress;
+        }
+        return null;
+    }
+
+    /**
+     * 记录处理完一个岗位后的进度
+     */
+    public synchronized void recordJob(String cityCode, String keyword, int scrollCount, int processedCount,
+                                       String lastJobId, int postCount, int skipCount, int failCount) {
+        this.cityCode = cityCode;
+        this.keyword = keyword;
+        this.progress = new Progress(scrollCount, processedCount, lastJobId, postCount, skipCount, failCount);
+        save();
+    }
+
+    /**
+     * 记录一个（城市, 关键词）已完成
+     */
+    public synchronized void markCompleted(String cityCode, String keyword) {
+        completed.add(key(cityCode, keyword));
+        if (cityCode.equals(this.cityCode) && keyword.equals(this.keyword)) {
+            this.cityCode = null;
+            this.keyword = null;
+            this.progress = null;
+        }
+        save();
+    }
+
+    private void reset() {
+        completed.clear();
+        cityCode = null;
+        keyword = null;
+        progress = null;
+    }
+
+    private void save() {
+        JSONObject root = new JSONObject();
+        root.put("runDate", LocalDate.now().toString());
+        root.put("completed", new JSONArray(completed));
+        if (progress != null) {
+            JSONObject current = new JSONObject();
+            current.put("cityCode", cityCode);
+            current.put("keyword", keyword);
+            current.put("scrollCount", progress.scrollCount);
+            current.put("processedCount", progress.processedCount);
+            current.put("lastJobId", progress.lastJobId != null ? progress.lastJobId : JSONObject.NULL);
+            current.put("postCount", progress.postCount);
+            current.put("skipCount", progress.skipCount);
+            current.put("failCount", progress.failCount);
+            root.put("current", current);
+        }
+        try {
+            Files.createDirectories(path.toAbsolutePath().getParent());
+            Path tmp = path.resolveSibling(FILE_NAME + ".tmp");
+            Files.write(tmp, root.toString().getBytes(StandardCharsets.UTF_8));
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("保存运行检查点失败: {}", e.getMessage());
+        }
+    }
+
+    private static String key(String cityCode, String keyword) {
+        return cityCode + "|" + keyword;
+    }
+}
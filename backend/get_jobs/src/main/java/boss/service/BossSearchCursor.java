@@ -0,0 +1,198 @@
+package boss.service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import utils.Job;
+
+/**
+ * 增量搜索游标（按用户持久化）
+ * 为每个（城市, 关键词）记录上次运行搜索结果头部中已处理（已投递或已按条件过滤）的岗位ID；
+ * 本次运行滚动到上次已处理的区域时即可停止，定时重跑只需处理新发布的岗位
+ * 上次运行中有列出但未处理的岗位（例如因每日/每小时限额跳过）时不记录游标，下次全量搜索，
+ * 保证提前停止时其后的岗位在之前的运行中都已处理过
+ * 方法均为同步方法，可在并行的城市/关键词流之间共享
+ *
+ * @author ZhiTouJianLi Team
+ */
+public class BossSearchCursor {
+    private static final Logger log = LoggerFactory.getLogger(BossSearchCursor.class);
+
+    /**
+     * 游标文件名（位于用户数据目录下）
+     */
+    public static final String FILE_NAME = "search_cursor.json";
+
+    /**
+     * 每个（城市, 关键词）保留的头部岗位ID数量
+     */
+    static final int HEAD_SIZE = 90;
+
+    private final Path path;
+    // 上次完整处理的运行的头部岗位ID
+    private final Map<String, Set<String>> previousHeads = new HashMap<>();
+    // 本次运行的处理进度
+    private final Map<String, Progress> currentRuns = new HashMap<>();
+
+    public BossSearchCursor(Path userDataDir) {
+        this.path = userDataDir.resolve(FILE_NAME);
+    }
+
+    /**
+     * 加载游标文件，文件不存在或损坏时从空游标开始
+     */
+    public synchronized void load() {
+        previousHeads.clear();
+        if (!Files.exists(path)) {
+            return;
+        }
+        try {
+            JSONObject root = new JSONObject(new String(Files.readAllBytes(path), StandardCharsets.UTF_8));
+            for (String key : root.keySet()) {
+                JSONObject entry = root.optJSONObject(key);
+                JSONArray ids = entry != null ? entry.optJSONArray("headJobIds") : null;
+                // 旧版本按"列出"记录的游标不能证明岗位已处理，忽略
+                if (ids == null || !entry.optBoolean("processed", false)) {
+                    continue;
+                }
+                Set<String> head = new HashSet<>();
+                for (int i = 0; i < ids.length(); i++) {
+                    String id = ids.optString(i, "");
+                    if (!id.isEmpty()) {
+                        head.add(id);
+                    }
+                }
+                previousHeads.put(key, head);
+            }
+            log.info("已加载增量搜索游标: {}组（城市, 关键词）", previousHeads.size());
+        } catch (Exception e) {
+            log.warn("读取增量搜索游标失败：{}，本次全量搜索", e.getMessage());
+            previousHeads.clear();
+        }
+    }
+
+    /**
+     * 开始一次（城市, 关键词）搜索，清空本次收集的头部
+     */
+    public synchronized void begin(String cityCode, String keyword) {
+        currentRuns.put(key(cityCode, keyword), new Progress());
+    }
+
+    /**
+     * 处理一批新加载的卡片：登记为待处理，并返回其中已在上次头部出现的比例
+     *
+     * @param cityCode 城市代码
+     * @param keyword 关键词
+     * @param cards 本次新加载的卡片快照
+     * @return 已见比例（0~1）；上次没有游标或卡片缺少岗位ID时返回0
+     */
+    public synchronized double observe(String cityCode, String keyword, List<Job> cards) {
+        String key = key(cityCode, keyword);
+        Progress current = currentRuns.computeIfAbsent(key, k -> new Progress());
+        Set<String> previous = previousHeads.getOrDefault(key, Collections.emptySet());
+
+        int withId = 0;
+        int seen = 0;
+        for (Job card : cards) {
+            String jobId = card.getJobId();
+            if (jobId == null || jobId.isEmpty()) {
+                continue;
+            }
+            withId++;
+            if (previous.contains(jobId)) {
+                seen++;
+            }
+            if (!current.processed.contains(jobId)) {
+                current.unprocessed.add(jobId);
+            }
+        }
+        return withId == 0 ? 0 : (double) seen / withId;
+    }
+
+    /**
+     * 记录一个岗位已处理（已投递，或因关键词、黑名单、已投递等条件确定不再投递）
+     * 因限额、配额、页面异常等原因跳过的岗位不要调用
+     */
+    public synchronized void markProcessed(String cityCode, String keyword, String jobId) {
+        Progress current = currentRuns.get(key(cityCode, keyword));
+        if (current == null || jobId == null || jobId.isEmpty()) {
+            return;
+        }
+        current.unprocessed.remove(jobId);
+        current.processed.add(jobId);
+        if (current.head.size() < HEAD_SIZE) {
+            current.head.add(jobId);
+        }
+    }
+
+    /**
+     * 结束一次（城市, 关键词）搜索：列出的岗位都已处理时用本次头部替换上次头部，
+     * 否则清除游标（下次全量搜索），并写盘
+     * 本次没有拿到任何岗位ID时保留原游标
+     */
+    public synchronized void commit(String cityCode, String keyword) {
+        String key = key(cityCode, keyword);
+        Progress current = currentRuns.remove(key);
+        if (current == null || (current.head.isEmpty() && current.unprocessed.isEmpty())) {
+            return;
+        }
+        if (!current.unprocessed.isEmpty()) {
+            log.info("【{}】有{}个岗位列出但未处理，下次运行不提前停止", keyword, current.unprocessed.size());
+            if (previousHeads.remove(key) == null) {
+                return;
+            }
+        } else {
+            previousHeads.put(key, current.head);
+        }
+        save();
+    }
+
+    private void save() {
+        JSONObject root = new JSONObject();
+        for (Map.Entry<String, Set<String>> entry : previousHeads.entrySet()) {
+            JSONObject value = new JSONObject();
+            value.put("headJobIds", new JSONArray(new ArrayList<>(entry.getValue())));
+            value.put("processed", true);
+            root.put(entry.getKey(), value);
+        }
+        try {
+            Files.createDirectories(path.toAbsolutePath().getParent());
+            Path tmp = path.resolveSibling(FILE_NAME + ".tmp");
+            Files.write(tmp, root.toString().getBytes(StandardCharsets.UTF_8));
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("保存增量搜索游标失败: {}", e.getMessage());
+        }
+    }
+
+    private static String key(String cityCode, String keyword) {
+        return cityCode + "|" + keyword;
+    }
+
+    /**
+     * 一次（城市, 关键词）搜索的处理进度
+     */
+    private static final class Progress {
+        // 已处理的岗位ID（头部按处理顺序，最多HEAD_SIZE个）
+        private final LinkedHashSet<String> head = new LinkedHashSet<>();
+        private final Set<String> processed = new HashSet<>();
+        // 已列出但尚未处理的岗位ID
+        private final Set<String> unprocessed = new HashSet<>();
+    }
+}
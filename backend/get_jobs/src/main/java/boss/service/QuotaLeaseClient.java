@@ -0,0 +1,184 @@
+package boss.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.function.LongSupplier;
+
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Boss投递配额租约（子进程）
+ * 从主进程申请一批投递配额在内存中扣减：投递前预留一个单位，投递成功后确认，失败时退回；
+ * 用完或到期时申请下一批（同时归还上一批未用完的部分并上报已确认的单位），运行结束时归还剩余单位
+ *
+ * 协议见主进程的service.BossQuotaLeaseServer
+ *
+ * @author ZhiTouJianLi Team
+ */
+public class QuotaLeaseClient {
+    private static final Logger log = LoggerFactory.getLogger(QuotaLeaseClient.class);
+
+    private static final int CONNECT_TIMEOUT_MILLIS = 3_000;
+    private static final int READ_TIMEOUT_MILLIS = 30_000;
+
+    /**
+     * 一次申请的单位数（主进程会按配置和剩余额度截断）
+     */
+    private static final long BLOCK_SIZE = 10;
+
+    private final int port;
+    private final String token;
+    private final LongSupplier clock;
+
+    // 以下状态由this保护
+    private long available;
+    private long reserved;
+    // 上次上报后确认的单位，随下一次续租或归还上报给主进程
+    private long committed;
+    private long expiresAt;
+    private boolean unlimited;
+    private boolean exhausted;
+
+    QuotaLeaseClient(int port, String token, LongSupplier clock) {
+        this.port = port;
+        this.token = token;
+        this.clock = clock;
+    }
+
+    /**
+     * @param channel 主进程提供的通道（端口:令牌）
+     * @return 客户端；通道为空或格式不正确时返回null
+     */
+    public static QuotaLeaseClient of(String channel) {
+        if (channel == null) {
+            return null;
+        }
+        int separator = channel.indexOf(':');
+        try {
+            return separator > 0
+                ? new QuotaLeaseClient(Integer.parseInt(channel.substring(0, separator)),
+                    channel.substring(separator + 1), System::currentTimeMillis)
+                : null;
+        } catch (NumberFormatException e) {
+            log.warn("配额租约通道格式不正确: {}", channel);
+            return null;
+        }
+    }
+
+    /**
+     * 投递前预留一个单位（租约用完或到期时向主进程续租）
+     *
+     * @return true表示已预留；false表示今日配额已用完
+     * @throws IOException 与主进程通信失败
+     */
+    public synchronized boolean tryReserve() throws IOException {
+        // 到期后续租；配额已用完时不反复续租，到期后再确认一次（套餐可能已升级）
+        if (clock.getAsLong() >= expiresAt || (!unlimited && available == 0 && !exhausted)) {
+            renew();
+        }
+        if (unlimited) {
+            return true;
+        }
+        if (available == 0) {
+            return false;
+        }
+        available--;
+        reserved++;
+        return true;
+    }
+
+    /**
+     * 投递成功，确认一个预留的单位
+     *
+     * @return 是否有预留的单位被确认（没有时调用方按原方式消费配额）
+     */
+    public synchronized boolean commit() {
+        if (unlimited) {
+            return true;
+        }
+        if (reserved == 0) {
+            return false;
+        }
+        reserved--;
+        committed++;
+        return true;
+    }
+
+    /**
+     * 投递未成功，退回一个预留的单位供下一个岗位使用
+     */
+    public synchronized void cancel() {
+        if (reserved > 0) {
+            reserved--;
+            available++;
+        }
+    }
+
+    /**
+     * 运行结束，归还未使用的单位（包括尚未确认的预留）并上报已确认的单位
+     */
+    public synchronized void release() {
+        long unused = available + reserved;
+        long used = committed;
+        available = 0;
+        reserved = 0;
+        committed = 0;
+        expiresAt = 0;
+        if (unused == 0 && used == 0) {
+            return;
+        }
+        try {
+            call(new JSONObject().put("op", "release").put("unused", unused).put("committed", used));
+            log.info("↩️ 已归还未使用的投递配额: {}次（本次确认使用{}次）", unused, used);
+        } catch (IOException e) {
+            log.warn("归还投递配额失败（按已使用处理）: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @return 今日已使用的投递配额（只查询，不发放租约）
+     * @throws IOException 与主进程通信失败
+     */
+    public long todayUsage() throws IOException {
+        return call(new JSONObject().put("op", "usage")).optLong("used", 0L);
+    }
+
+    private void renew() throws IOException {
+        // 到期的租约在续租时一并归还（预留中的单位仍归本次运行，不归还）
+        long unused = available;
+        JSONObject response = call(new JSONObject().put("op", "renew").put("want", BLOCK_SIZE)
+            .put("unused", unused).put("committed", committed));
+        committed = 0;
+        available = response.optLong("granted", 0L);
+        unlimited = response.optBoolean("unlimited", false);
+        expiresAt = response.optLong("expiresAt", 0L);
+        exhausted = !unlimited && available == 0;
+        log.info("📜 获得投递配额租约: {}次{}，今日已使用{}次",
+            unlimited ? "不限" : String.valueOf(available), unlimited ? "" : "（到期前有效）", response.optLong("used", 0L));
+    }
+
+    private JSONObject call(JSONObject request) throws IOException {
+        request.put("token", token);
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), CONNECT_TIMEOUT_MILLIS);
+            socket.setSoTimeout(READ_TIMEOUT_MILLIS);
+            PrintStream out = new PrintStream(socket.getOutputStream(), true, StandardCharsets.UTF_8);
+            out.println(request);
+            String line = new BufferedReader(
+                new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8)).readLine();
+            JSONObject response = line != null ? new JSONObject(line) : null;
+            if (response == null || !response.optBoolean("ok", false)) {
+                throw new IOException("配额租约请求失败: " + (response != null ? response.optString("error") : "连接已关闭"));
+            }
+            return response;
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package boss.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Aho-Corasick多模式匹配自动机
+ * 一次编译，多次扫描：扫描文本时每个字符只走一次状态转移，与模式数量无关
+ *
+ * 编译后的自动机是不可变的，可在多线程间共享；扫描过程不分配任何对象
+ *
+ * @author ZhiTouJianLi Team
+ */
+public final class AhoCorasickAutomaton {
+
+    /**
+     * 匹配回调
+     */
+    @FunctionalInterface
+    public interface MatchListener {
+        /**
+         * 命中一个模式
+         *
+         * @param patternId 模式编号（与{@link #indexOf(String)}一致）
+         * @param start 命中起始下标（包含）
+         * @param end 命中结束下标（不包含）
+         * @return true=继续扫描, false=立即停止
+         */
+        boolean onMatch(int patternId, int start, int end);
+    }
+
+    private static final int[] NO_OUTPUT = new int[0];
+
+    private final String[] patterns;
+    private final int[] patternLengths;
+    private final Map<String, Integer> patternIndex;
+
+    // 扁平化的转移表：每个状态的出边按字符排序，扫描时二分查找
+    private final char[][] edgeChars;
+    private final int[][] edgeTargets;
+    private final int[] fail;
+    // 每个状态可输出的模式（已合并失败链上的输出）
+    private final int[][] outputs;
+
+    private AhoCorasickAutomaton(String[] patterns, Map<String, Integer> patternIndex,
+                                 List<TreeMap<Character, Integer>> trie, List<List<Integer>> terminal) {
+        this.patterns = patterns;
+        this.patternIndex = patternIndex;
+        this.patternLengths = new int[patterns.length];
+        for (int i = 0; i < patterns.length; i++) {
+            patternLengths[i] = patterns[i].length();
+        }
+
+        int stateCount = trie.size();
+        this.edgeChars = new char[stateCount][];
+        this.edgeTargets = new int[stateCount][];
+        this.fail = new int[stateCount];
+        this.outputs = new int[stateCount][];
+
+        for (int s = 0; s < stateCount; s++) {
+            TreeMap<Character, Integer> edges = trie.get(s);
+            char[] chars = new char[edges.size()];
+            int[] targets = new int[edges.size()];
+            int k = 0;
+            for (Map.Entry<Character, Integer> e : edges.entrySet()) {
+                chars[k] = e.getKey();
+                targets[k] = e.getValue();
+                k++;
+            }
+            edgeChars[s] = chars;
+            edgeTargets[s] = targets;
+        }
+
+        // BFS计算失败指针，并沿失败链合并输出
+        outputs[0] = toArray(terminal.get(0));
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int target : edgeTargets[0]) {
+            fail[target] = 0;
+            queue.add(target);
+        }
+        while (!queue.isEmpty()) {
+            int s = queue.poll();
+            List<Integer> own = terminal.get(s);
+            int[] inherited = outputs[fail[s]];
+            if (own.isEmpty()) {
+                outputs[s] = inherited;
+            } else {
+                int[] merged = Arrays.copyOf(toArray(own), own.size() + inherited.length);
+                System.arraycopy(inherited, 0, merged, own.size(), inherited.length);
+                outputs[s] = merged;
+            }
+
+            char[] chars = edgeChars[s];
+            int[] targets = edgeTargets[s];
+            for (int k = 0; k < chars.length; k++) {
+                int next = targets[k];
+                int f = fail[s];
+                int t;
+                while ((t = transition(f, chars[k])) < 0 && f != 0) {
+                    f = fail[f];
+                }
+                fail[next] = t >= 0 ? t : 0;
+                queue.add(next);
+            }
+        }
+    }
+
+    /**
+     * 编译模式集合
+     * 空串和null会被忽略，重复模式共享同一个编号
+     *
+     * @param patterns 模式集合
+     * @return 编译后的自动机
+     */
+    public static AhoCorasickAutomaton compile(Collection<String> patterns) {
+        Map<String, Integer> index = new LinkedHashMap<>();
+        if (patterns != null) {
+            for (String p : patterns) {
+                if (p != null && !p.isEmpty()) {
+                    index.putIfAbsent(p, index.size());
+                }
+            }
+        }
+
+        List<TreeMap<Character, Integer>> trie = new ArrayList<>();
+        List<List<Integer>> terminal = new ArrayList<>();
+        trie.add(new TreeMap<>());
+        terminal.add(new ArrayList<>());
+
+        for (Map.Entry<String, Integer> entry : index.entrySet()) {
+            String p = entry.getKey();
+            int state = 0;
+            for (int i = 0; i < p.length(); i++) {
+                Integer next = trie.get(state).get(p.charAt(i));
+                if (next == null) {
+                    next = trie.size();
+                    trie.add(new TreeMap<>());
+                    terminal.add(new ArrayList<>());
+                    trie.get(state).put(p.charAt(i), next);
+                }
+                state = next;
+            }
+            terminal.get(state).add(entry.getValue());
+        }
+
+        String[] patternArray = index.keySet().toArray(new String[0]);
+        return new AhoCorasickAutomaton(patternArray, Collections.unmodifiableMap(index), trie, terminal);
+    }
+
+    /**
+     * 扫描文本，按结束位置从左到右回调所有命中（同一结束位置先回调较长的模式）
+     *
+     * @param text 待扫描文本
+     * @param listener 命中回调
+     */
+    public void scan(CharSequence text, MatchListener listener) {
+        if (text == null || patterns.length == 0) {
+            return;
+        }
+        int state = 0;
+        for (int i = 0, n = text.length(); i < n; i++) {
+            state = step(state, text.charAt(i));
+            int[] out = outputs[state];
+            for (int id : out) {
+                if (!listener.onMatch(id, i + 1 - patternLengths[id], i + 1)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * 文本是否包含任一模式
+     *
+     * @param text 待扫描文本
+     * @return 第一个命中的模式编号，未命中返回-1
+     */
+    public int findFirst(CharSequence text) {
+        if (text == null || patterns.length == 0) {
+            return -1;
+        }
+        int state = 0;
+        for (int i = 0, n = text.length(); i < n; i++) {
+            state = step(state, text.charAt(i));
+            if (outputs[state].length > 0) {
+                return outputs[state][0];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 查询模式编号
+     *
+     * @param pattern 模式
+     * @return 模式编号，不存在返回-1
+     */
+    public int indexOf(String pattern) {
+        Integer id = pattern == null ? null : patternIndex.get(pattern);
+        return id != null ? id : -1;
+    }
+
+    /**
+     * @param patternId 模式编号
+     * @return 模式文本
+     */
+    public String pattern(int patternId) {
+        return patterns[patternId];
+    }
+
+    /**
+     * @return 去重后的模式数量
+     */
+    public int size() {
+        return patterns.length;
+    }
+
+    private int step(int state, char c) {
+        int next;
+        while ((next = transition(state, c)) < 0 && state != 0) {
+            state = fail[state];
+        }
+        return next >= 0 ? next : 0;
+    }
+
+    private int transition(int state, char c) {
+        int k = Arrays.binarySearch(edgeChars[state], c);
+        return k >= 0 ? edgeTargets[state][k] : -1;
+    }
+
+    private static int[] toArray(List<Integer> list) {
+        if (list.isEmpty()) {
+            return NO_OUTPUT;
+        }
+        int[] arr = new int[list.size()];
+        for (int i = 0; i < arr.length; i++) {
+            arr[i] = list.get(i);
+        }
+        return arr;
+    }
+}
@@ -50,6 +50,17 @@ public class BossUtils {
         return result.toString();
     }
 
+    /**
+     * 判断Playwright异常是否由页面/浏览器关闭引起（包括 TargetClosedError）
+     *
+     * @param e 异常
+     * @return 是否是页面关闭相关的错误
+     */
+    public static boolean isTargetClosed(Throwable e) {
+        String errorMsg = e.getMessage() != null ? e.getMessage() : "";
+        return e.getClass().getName().contains("TargetClosed") || errorMsg.contains("closed") || errorMsg.contains("Target");
+    }
+
     /**
      * 判断字符是否是中文字符
      *
@@ -274,5 +285,30 @@ public class BossUtils {
     public static boolean hasExpectedSalary(List<Integer> expectedSalary) {
         return expectedSalary != null && !expectedSalary.isEmpty();
     }
-}
 
+    /**
+     * 从岗位详情链接中提取岗位ID
+     * 例如："/job_detail/abc123~.html?lid=xx" → "abc123~"
+     *
+     * @param href 岗位链接
+     * @return 岗位ID，无法识别时返回null
+     */
+    public static String extractJobId(String href) {
+        if (href == null) {
+            return null;
+        }
+        int start = href.indexOf("/job_detail/");
+        if (start < 0) {
+            return null;
+        }
+        start += "/job_detail/".length();
+        int end = href.indexOf(".html", start);
+        if (end < 0) {
+            end = href.indexOf('?', start);
+        }
+        if (end < 0) {
+            end = href.length();
+        }
+        return end > start ? href.substring(start, end) : null;
+    }
+}
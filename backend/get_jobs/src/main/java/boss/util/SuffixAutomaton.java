@@ -0,0 +1,167 @@
+package boss.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 广义后缀自动机
+ * 把多段文本编译为一个自动机，用于判断“查询串是否为其中某段文本的子串”
+ * 查询耗时只与查询串长度有关，与文本数量无关
+ *
+ * 编译后的自动机是不可变的，可在多线程间共享；查询过程不分配任何对象
+ *
+ * @author ZhiTouJianLi Team
+ */
+public final class SuffixAutomaton {
+
+    /**
+     * 文本之间的分隔符（查询串中出现该字符时不会命中）
+     */
+    private static final char SEPARATOR = '\u0000';
+
+    private final String[] texts;
+    private final int[] textStarts;
+    private final char[][] edgeChars;
+    private final int[][] edgeTargets;
+    // 每个状态对应子串第一次出现的结束位置
+    private final int[] firstEnd;
+
+    private SuffixAutomaton(String[] texts, int[] textStarts, List<TreeMap<Character, Integer>> next, int[] firstEnd) {
+        this.texts = texts;
+        this.textStarts = textStarts;
+        this.firstEnd = firstEnd;
+        this.edgeChars = new char[next.size()][];
+        this.edgeTargets = new int[next.size()][];
+        for (int s = 0; s < next.size(); s++) {
+            TreeMap<Character, Integer> edges = next.get(s);
+            char[] chars = new char[edges.size()];
+            int[] targets = new int[edges.size()];
+            int k = 0;
+            for (Map.Entry<Character, Integer> e : edges.entrySet()) {
+                chars[k] = e.getKey();
+                targets[k] = e.getValue();
+                k++;
+            }
+            edgeChars[s] = chars;
+            edgeTargets[s] = targets;
+        }
+    }
+
+    /**
+     * 编译文本列表
+     *
+     * @param texts 文本列表（不应包含null）
+     * @return 编译后的自动机
+     */
+    public static SuffixAutomaton compile(List<String> texts) {
+        String[] textArray = texts.toArray(new String[0]);
+        int[] starts = new int[textArray.length];
+
+        List<TreeMap<Character, Integer>> next = new ArrayList<>();
+        List<Integer> len = new ArrayList<>();
+        List<Integer> link = new ArrayList<>();
+        List<Integer> firstEnd = new ArrayList<>();
+        next.add(new TreeMap<>());
+        len.add(0);
+        link.add(-1);
+        firstEnd.add(-1);
+
+        int last = 0;
+        int pos = 0;
+        for (int t = 0; t < textArray.length; t++) {
+            if (t > 0) {
+                last = extend(SEPARATOR, pos++, last, next, len, link, firstEnd);
+            }
+            starts[t] = pos;
+            String text = textArray[t];
+            for (int i = 0; i < text.length(); i++) {
+                last = extend(text.charAt(i), pos++, last, next, len, link, firstEnd);
+            }
+        }
+
+        int[] firstEndArray = new int[firstEnd.size()];
+        for (int i = 0; i < firstEndArray.length; i++) {
+            firstEndArray[i] = firstEnd.get(i);
+        }
+        return new SuffixAutomaton(textArray, starts, next, firstEndArray);
+    }
+
+    private static int extend(char c, int pos, int last, List<TreeMap<Character, Integer>> next,
+                              List<Integer> len, List<Integer> link, List<Integer> firstEnd) {
+        int cur = next.size();
+        next.add(new TreeMap<>());
+        len.add(len.get(last) + 1);
+        link.add(0);
+        firstEnd.add(pos);
+
+        int p = last;
+        while (p != -1 && !next.get(p).containsKey(c)) {
+            next.get(p).put(c, cur);
+            p = link.get(p);
+        }
+        if (p != -1) {
+            int q = next.get(p).get(c);
+            if (len.get(p) + 1 == len.get(q)) {
+                link.set(cur, q);
+            } else {
+                int clone = next.size();
+                next.add(new TreeMap<>(next.get(q)));
+                len.add(len.get(p) + 1);
+                link.add(link.get(q));
+                firstEnd.add(firstEnd.get(q));
+                while (p != -1 && next.get(p).get(c) == q) {
+                    next.get(p).put(c, clone);
+                    p = link.get(p);
+                }
+                link.set(q, clone);
+                link.set(cur, clone);
+            }
+        }
+        return cur;
+    }
+
+    /**
+     * 查找包含查询串的文本
+     *
+     * @param query 查询串（非空）
+     * @return 包含查询串的某段文本的下标，不存在返回-1
+     */
+    public int findContaining(CharSequence query) {
+        if (query == null || query.length() == 0 || texts.length == 0) {
+            return -1;
+        }
+        int state = 0;
+        for (int i = 0, n = query.length(); i < n; i++) {
+            char c = query.charAt(i);
+            if (c == SEPARATOR) {
+                return -1;
+            }
+            int k = Arrays.binarySearch(edgeChars[state], c);
+            if (k < 0) {
+                return -1;
+            }
+            state = edgeTargets[state][k];
+        }
+        int start = firstEnd[state] - query.length() + 1;
+        int t = Arrays.binarySearch(textStarts, start);
+        return t >= 0 ? t : -t - 2;
+    }
+
+    /**
+     * @param index 文本下标
+     * @return 文本内容
+     */
+    public String text(int index) {
+        return texts[index];
+    }
+
+    /**
+     * @return 文本数量
+     */
+    public int size() {
+        return texts.length;
+    }
+}
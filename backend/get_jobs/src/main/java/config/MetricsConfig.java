@@ -1,5 +1,8 @@
 package config;
 
+import ai.AiRequestGovernor;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.binder.MeterBinder;
 import lombok.extern.slf4j.Slf4j;
@@ -44,8 +47,33 @@ public class MetricsConfig {
 
             // 这些指标会在应用启动时注册
             // 实际数值由各个服务和切面更新
+            bindAiGovernorMetrics(registry, AiRequestGovernor.shared());
         };
     }
+
+    /**
+     * AI请求准入控制指标：并发上限、在途、排队、熔断状态（0关闭 1半开 2打开）、按原因统计的拒绝次数
+     */
+    private void bindAiGovernorMetrics(MeterRegistry registry, AiRequestGovernor governor) {
+        Gauge.builder("ai.limiter.limit", governor, AiRequestGovernor::getLimit)
+            .description("AI请求当前并发上限")
+            .register(registry);
+        Gauge.builder("ai.limiter.inflight", governor, AiRequestGovernor::getInFlight)
+            .description("AI请求在途数")
+            .register(registry);
+        Gauge.builder("ai.limiter.queued", governor, AiRequestGovernor::getQueued)
+            .description("AI请求排队数")
+            .register(registry);
+        Gauge.builder("ai.circuit.state", governor, g -> g.getCircuitState().ordinal())
+            .description("AI熔断状态")
+            .register(registry);
+        for (AiRequestGovernor.RejectReason reason : AiRequestGovernor.RejectReason.values()) {
+            FunctionCounter.builder("ai.limiter.rejected", governor, g -> g.getRejectedCount(reason))
+                .description("AI请求被拒绝次数")
+                .tag("reason", reason.name().toLowerCase())
+                .register(registry);
+        }
+    }
 }
 
 
@@ -18,6 +18,7 @@ import enums.PlanType;
 import lombok.extern.slf4j.Slf4j;
 import repository.UserPlanRepository;
 import service.AdminService;
+import service.QuotaService;
 import util.UserContextUtil;
 
 /**
@@ -40,6 +41,9 @@ public class AdminUserPlanController {
     @Autowired
     private AdminService adminService;
 
+    @Autowired
+    private QuotaService quotaService;
+
     /**
      * 获取所有用户套餐列表
      */
@@ -153,6 +157,9 @@ public class AdminUserPlanController {
 
             userPlanRepository.save(newPlan);
 
+            // 清除本实例的套餐缓存，并通知其他实例
+            quotaService.evictUserPlan(userId);
+
             log.info("✅ 管理员升级用户套餐成功: userId={}, newPlan={}, adminId={}",
                      userId, targetPlan, currentUserId);
 
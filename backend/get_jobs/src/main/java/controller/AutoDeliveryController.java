@@ -251,6 +251,15 @@ public class AutoDeliveryController {
             data.put("failedDelivered", userFailedDelivered.getOrDefault(userId, 0));
             data.put("userId", userId); // 添加userId用于调试
 
+            // 排队中的任务：返回排队位置和预计等待时间
+            service.BossRunScheduler.QueueStatus queueStatus = bossExecutionService.getQueueStatus(userId);
+            boolean queued = queueStatus != null && !queueStatus.isRunning();
+            data.put("queued", queued);
+            if (queued) {
+                data.put("queuePosition", queueStatus.getPosition());
+                data.put("queueEtaSeconds", queueStatus.getEtaSeconds());
+            }
+
             log.debug("用户{}查询投递状态: isRunning={}", userId, isRunning);
             return ResponseEntity.ok(ApiResponse.success(data, "获取状态成功"));
         } catch (Exception e) {
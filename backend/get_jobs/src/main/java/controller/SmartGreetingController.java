@@ -3,11 +3,15 @@ package controller;
 import ai.SmartGreetingService;
 import ai.CandidateResumeService;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 智能打招呼语控制器
@@ -83,6 +87,72 @@ public class SmartGreetingController {
         }
     }
 
+    /**
+     * 流式生成智能打招呼语（Server-Sent Events）
+     * 事件：delta（新增片段）、done（最终打招呼语）、error（失败原因）
+     *
+     * @param request 请求参数，包含jobDescription
+     * @return SSE流
+     */
+    @PostMapping(value = "/generate/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter generateGreetingStream(@RequestBody Map<String, String> request) {
+        // 期限由AI请求控制，这里只留出余量
+        SseEmitter emitter = new SseEmitter(150_000L);
+
+        String jobDescription = request.get("jobDescription");
+        String error = null;
+        Map<String, Object> candidate = null;
+        if (jobDescription == null || jobDescription.trim().isEmpty()) {
+            error = "岗位描述不能为空";
+        } else if (!CandidateResumeService.hasCandidateResume()) {
+            error = "请先上传简历，才能生成智能打招呼语";
+        } else if ((candidate = CandidateResumeService.loadCandidateInfo()) == null) {
+            error = "加载简历信息失败，请重新上传简历";
+        }
+        if (error != null) {
+            sendEvent(emitter, "error", Map.of("message", error));
+            emitter.complete();
+            return emitter;
+        }
+
+        log.info("【智能打招呼】开始流式生成打招呼语，岗位描述长度: {}", jobDescription.length());
+        CompletableFuture<String> stream = SmartGreetingService.streamSmartGreeting(candidate, "目标岗位", jobDescription,
+                // 客户端断开后停止接收，AI请求随之取消
+                (delta, text) -> sendEvent(emitter, "delta", Map.of("text", delta)));
+        // 连接结束、超时或出错时取消AI请求（生成已结束时无影响），不再占用AI并发名额
+        emitter.onCompletion(() -> stream.cancel(true));
+        emitter.onTimeout(() -> stream.cancel(true));
+        emitter.onError(e -> stream.cancel(true));
+        stream.whenComplete((greeting, e) -> {
+            if (stream.isCancelled()) {
+                log.info("【智能打招呼】客户端已断开或连接超时，已取消流式生成");
+                return;
+            }
+            if (e != null) {
+                log.warn("【智能打招呼】流式生成失败: {}", e.getMessage());
+                sendEvent(emitter, "error", Map.of("message", "智能打招呼语生成失败，请稍后重试"));
+            } else {
+                log.info("【智能打招呼】流式生成成功，长度: {}字", greeting.length());
+                sendEvent(emitter, "done", Map.of("data", greeting));
+            }
+            emitter.complete();
+        });
+        return emitter;
+    }
+
+    /**
+     * @return 是否发送成功（客户端已断开时返回false）
+     */
+    private boolean sendEvent(SseEmitter emitter, String name, Map<String, Object> data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON));
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            log.debug("【智能打招呼】推送{}事件失败，客户端可能已断开: {}", name, e.getMessage());
+            return false;
+        }
+    }
+
     /**
      * 测试AI连接
      *
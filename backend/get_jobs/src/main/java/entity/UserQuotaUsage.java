@@ -11,6 +11,7 @@ import java.time.LocalDateTime;
 
 /**
  * 用户配额使用记录实体
+ * (user_id, quota_id, reset_date)上的唯一索引uk_user_quota_usage_period由QuotaCounterEngine在启动时建立
  *
  * @author ZhiTouJianLi Team
  * @since 2025-10-01
@@ -1,26 +1,35 @@
 package service;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
 
 import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
 import controller.BossWebSocketController;
 
 /**
@@ -38,6 +47,70 @@ public class BossExecutionService {
     @Autowired
     private BossWebSocketController bossWebSocketController;
 
+    @Autowired
+    private BossWorkerPool bossWorkerPool;
+
+    @Autowired
+    private BossQuotaLeaseServer bossQuotaLeaseServer;
+
+    @Autowired
+    private BossRunScheduler bossRunScheduler;
+
+    @Autowired
+    private PlanPermissionService planPermissionService;
+
+    /**
+     * 是否为Boss运行器生成类数据共享（AppCDS）归档
+     */
+    @Value("${boss.cds.enabled:true}")
+    private boolean sharedArchiveEnabled;
+
+    /**
+     * 生成归档的训练进程最长运行时间
+     */
+    @Value("${boss.cds.build-timeout-seconds:120}")
+    private int sharedArchiveBuildTimeoutSeconds;
+
+    /**
+     * 启动参数快速检查通过时，完整构建指纹（遍历classes目录）的最长复用时间
+     */
+    @Value("${boss.launch-spec.recheck-seconds:60}")
+    private int launchSpecRecheckSeconds = 60;
+
+    // 启动参数缓存（按构建指纹整体替换）
+    private volatile BossLaunchSpec launchSpec;
+    // 最近一次计算完整指纹时的快速标记及时间，标记不变且未超过复用时间时不再遍历classes目录
+    private volatile String launchStamp;
+    private volatile long launchCheckedAt;
+    private volatile String cachedJavaBin;
+    private final ExecutorService archiveBuilder = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "boss-cds-builder");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * 启动初始化：接管遗留的Boss进程，准备启动参数和类数据共享归档，启动常驻工作进程池（未启用时不启动）
+     */
+    @PostConstruct
+    public void startWorkerPool() {
+        // 接管服务重启前遗留的Boss进程，避免同一用户重复启动
+        util.BossProcessManager.adoptOrphanedProcesses();
+        archiveBuilder.execute(() -> {
+            try {
+                currentLaunchSpec();
+            } catch (IOException e) {
+                log.warn("预先准备Boss启动参数失败（首次启动任务时重试）: {}", e.getMessage());
+            }
+        });
+        bossWorkerPool.start(this::createWorkerProcess);
+    }
+
+    @PreDestroy
+    public void shutdownArchiveBuilder() {
+        archiveBuilder.shutdownNow();
+    }
+
     /**
      * 异步执行Boss程序 - 完全隔离模式
      * 使用独立的JVM进程避免线程和资源冲突
@@ -66,6 +139,7 @@ public class BossExecutionService {
         final String userId = util.UserContextUtil.sanitizeUserId(util.UserContextUtil.getCurrentUserId());
         final org.springframework.security.core.context.SecurityContext securityContext =
             org.springframework.security.core.context.SecurityContextHolder.getContext();
+        final enums.PlanType planType = planPermissionService.getUserPlanType(util.UserContextUtil.getCurrentUserId());
 
         // ✅ 进程检查：在启动前检查是否有该用户的进程在运行
         if (util.BossProcessManager.isUserBossProcessRunning(userId)) {
@@ -80,11 +154,13 @@ public class BossExecutionService {
             return failedFuture;
         }
 
-        return CompletableFuture.runAsync(() -> {
+        Runnable bossRun = () -> {
             // 在异步线程中恢复SecurityContext
             org.springframework.security.core.context.SecurityContextHolder.setContext(securityContext);
 
             Process process = null;
+            // 投递运行通过配额租约通道成批领取投递配额（只登录不需要）
+            String quotaLease = loginOnly ? null : bossQuotaLeaseServer.openSession(userId);
             try {
                 // 使用预先获取的用户ID（支持多用户隔离）
 
@@ -95,39 +171,41 @@ public class BossExecutionService {
                 File logFile = new File(logFilePath);
                 ensureLogFileExists(logFile);
 
-                try (FileWriter logWriter = new FileWriter(logFile, StandardCharsets.UTF_8, true)) {
+                try (FileWriter logWriter = new FileWriter(logFile, StandardCharsets.UTF_8, true);
+                     BossLogSink logSink = new BossLogSink(logWriter, this::onLogEvent)) {
 
-                    writeLogHeader(logWriter);
+                    writeLogHeader(logSink);
 
-                // 创建独立的Boss进程（传递用户ID以支持多用户隔离）
-                ProcessBuilder pb = createIsolatedBossProcess(userId, headless, loginOnly);
+                    // 优先使用预热好的常驻工作进程（JVM和Playwright驱动已就绪），没有空闲工作进程时冷启动
+                    process = submitToWorkerPool(userId, loginOnly, quotaLease);
+                    if (process != null) {
+                        logSink.append(formatTimestamp() + " - 使用常驻Boss工作进程（用户: " + userId + "）...");
+                    } else {
+                        // 创建独立的Boss进程（传递用户ID以支持多用户隔离）
+                        ProcessBuilder pb = createIsolatedBossProcess(userId, headless, loginOnly);
 
-                // 为Boss程序设置用户ID环境变量（多用户支持）
-                pb.environment().put("BOSS_USER_ID", userId);
-                log.info("📋 已设置Boss程序环境变量: BOSS_USER_ID={}, loginOnly={}", userId, loginOnly);
+                        // 为Boss程序设置用户ID环境变量（多用户支持）
+                        pb.environment().put("BOSS_USER_ID", userId);
+                        if (quotaLease != null) {
+                            pb.environment().put(boss.BossRunContext.QUOTA_LEASE_ENV, quotaLease);
+                        }
+                        log.info("📋 已设置Boss程序环境变量: BOSS_USER_ID={}, loginOnly={}", userId, loginOnly);
 
-                    logWriter.write(formatTimestamp() + " - 启动独立Boss进程（用户: " + userId + "）...\n");
-                    logWriter.flush();
+                        logSink.append(formatTimestamp() + " - 启动独立Boss进程（用户: " + userId + "）...");
 
-                    // 启动进程
-                    process = pb.start();
+                        // 启动进程
+                        process = pb.start();
+                        util.BossProcessManager.register(userId, process.toHandle());
+                    }
                     log.info("Boss进程已启动，PID: {}", process.pid());
 
-                    // 使用CountDownLatch确保日志线程安全
+                    // 读取线程只把日志放入缓冲区，由共享写入线程批量落盘
                     CountDownLatch outputLatch = new CountDownLatch(1);
                     CountDownLatch errorLatch = new CountDownLatch(1);
-
-                    // 启动日志捕获线程
-                    final FileWriter finalLogWriter = logWriter;
-                    Thread outputThread = createLogCaptureThread(
-                        new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8)),
-                        finalLogWriter, "OUT", outputLatch
-                    );
-
-                    Thread errorThread = createLogCaptureThread(
-                        new BufferedReader(new InputStreamReader(process.getErrorStream(), StandardCharsets.UTF_8)),
-                        finalLogWriter, "ERROR", errorLatch
-                    );
+                    Thread outputThread = logSink.newCaptureThread(
+                        process.getInputStream(), BossLogSink.Stream.OUT, outputLatch);
+                    Thread errorThread = logSink.newCaptureThread(
+                        process.getErrorStream(), BossLogSink.Stream.ERROR, errorLatch);
 
                     outputThread.start();
                     errorThread.start();
@@ -139,10 +217,9 @@ public class BossExecutionService {
                     // 记录任务开始时间和超时设置（确保写入日志文件）
                     String startTimeStr = formatTimestamp();
                     log.info("⏱️ Boss程序超时设置: {}分钟 (用户: {})", timeoutMinutes, userId);
-                    logWriter.write(startTimeStr + " - 任务开始时间: " + startTimeStr + "\n");
-                    logWriter.write(startTimeStr + " - 超时设置: " + timeoutMinutes + "分钟\n");
-                    logWriter.write(startTimeStr + " - 超时时间计算详情: 已根据用户投递策略动态计算\n");
-                    logWriter.flush();
+                    logSink.append(startTimeStr + " - 任务开始时间: " + startTimeStr);
+                    logSink.append(startTimeStr + " - 超时设置: " + timeoutMinutes + "分钟");
+                    logSink.append(startTimeStr + " - 超时时间计算详情: 已根据用户投递策略动态计算");
 
                     // 等待进程完成，使用动态计算的超时时间
                     boolean finished = process.waitFor(timeoutMinutes, TimeUnit.MINUTES);
@@ -164,7 +241,7 @@ public class BossExecutionService {
                             "WARNING: 输出日志线程未在%d秒内完成（可能原因: 1) 日志缓冲区数据量大 2) 文件I/O阻塞 3) 进程终止后仍有数据待处理）",
                             logThreadWaitSeconds
                         );
-                        logWriter.write(currentTimeStr + " - " + warningMsg + "\n");
+                        logSink.append(currentTimeStr + " - " + warningMsg);
                         log.warn("输出日志线程超时: 等待{}秒后仍未完成", logThreadWaitSeconds);
                     }
                     if (!errorFinished) {
@@ -172,7 +249,7 @@ public class BossExecutionService {
                             "WARNING: 错误日志线程未在%d秒内完成（可能原因: 1) 错误日志缓冲区数据量大 2) 文件I/O阻塞 3) 进程终止后仍有数据待处理）",
                             logThreadWaitSeconds
                         );
-                        logWriter.write(currentTimeStr + " - " + warningMsg + "\n");
+                        logSink.append(currentTimeStr + " - " + warningMsg);
                         log.warn("错误日志线程超时: 等待{}秒后仍未完成", logThreadWaitSeconds);
                     }
 
@@ -189,8 +266,7 @@ public class BossExecutionService {
                             actualDurationSeconds % 60, (double) actualDurationSeconds / 60,
                             (double) actualDurationSeconds / 60, timeoutMinutes
                         );
-                        logWriter.write(currentTimeStr + " - " + timeoutMsg + "\n");
-                        logWriter.flush();
+                        logSink.append(currentTimeStr + " - " + timeoutMsg);
                         process.destroyForcibly();
                         log.error("Boss程序超时，强制终止 - 执行时间: {}分钟，超时设置: {}分钟",
                             actualDurationMinutes, timeoutMinutes);
@@ -206,10 +282,9 @@ public class BossExecutionService {
                             actualDurationMinutes, actualDurationSeconds % 60,
                             (double) actualDurationSeconds / 60, timeoutMinutes
                         );
-                        logWriter.write(currentTimeStr + " - " + successMsg + "\n");
+                        logSink.append(currentTimeStr + " - " + successMsg);
                         log.info("Boss程序执行完成，退出码: {}，执行时间: {}分钟", exitCode, actualDurationMinutes);
                     }
-                    logWriter.flush();
 
                 } catch (Exception e) {
                     log.error("Boss程序执行异常", e);
@@ -222,8 +297,43 @@ public class BossExecutionService {
 
             } catch (Exception e) {
                 log.error("Boss执行服务异常", e);
+            } finally {
+                bossQuotaLeaseServer.closeSession(quotaLease);
             }
-        });
+        };
+
+        // ✅ 交给多租户调度器：按套餐并发上限、加权公平顺序和主机资源放行；
+        // 只登录时用户正在等待扫码，走优先通道立即运行，不排在投递任务后面
+        CompletableFuture<Void> future = loginOnly
+            ? bossRunScheduler.submitPriority(userId, planType, bossRun)
+            : bossRunScheduler.submit(userId, planType, bossRun);
+
+        // 排队时在日志中提示位置和预计等待时间
+        BossRunScheduler.QueueStatus queueStatus = bossRunScheduler.getQueueStatus(userId);
+        if (!future.isCompletedExceptionally() && queueStatus != null && !queueStatus.isRunning()) {
+            writeQueueLog(logFilePath, queueStatus);
+        }
+        return future;
+    }
+
+    /**
+     * @return 用户Boss任务的排队状态，没有排队或运行中的任务时返回null
+     */
+    public BossRunScheduler.QueueStatus getQueueStatus(String userId) {
+        return bossRunScheduler.getQueueStatus(userId);
+    }
+
+    private void writeQueueLog(String logFilePath, BossRunScheduler.QueueStatus queueStatus) {
+        try {
+            File logFile = new File(logFilePath);
+            ensureLogFileExists(logFile);
+            try (FileWriter logWriter = new FileWriter(logFile, StandardCharsets.UTF_8, true)) {
+                logWriter.write(formatTimestamp() + " - 投递任务排队中：第" + queueStatus.getPosition()
+                    + "位，预计" + Math.max(1, queueStatus.getEtaSeconds() / 60) + "分钟后开始\n");
+            }
+        } catch (IOException e) {
+            log.warn("写入排队日志失败: {}", e.getMessage());
+        }
     }
 
     /**
@@ -279,6 +389,36 @@ public class BossExecutionService {
         return "/root/zhitoujianli/backend/get_jobs";
     }
 
+    /**
+     * 检查用户是否留有未完成的投递检查点（路径规则与Boss程序一致）
+     */
+    private boolean hasRunCheckpoint(String projectDir, String userId) {
+        String userDataBaseDir = System.getenv("USER_DATA_DIR");
+        if (userDataBaseDir == null || userDataBaseDir.isEmpty()) {
+            userDataBaseDir = projectDir + File.separator + "user_data";
+        }
+        String safeUserId = userId.replaceAll("[^a-zA-Z0-9_-]", "_");
+        return Files.exists(Paths.get(userDataBaseDir, safeUserId, boss.service.BossRunCheckpoint.FILE_NAME));
+    }
+
+    /**
+     * Boss隔离运行器的程序参数
+     * @param userId 用户ID
+     * @param loginOnly 是否只登录不投递
+     */
+    private String[] buildRunnerArgs(String projectDir, String userId, boolean loginOnly) {
+        // ✅ 如果是只登录模式，添加 "login-only" 参数
+        if (loginOnly) {
+            return new String[] {"login-only"};
+        }
+        // ✅ 上次投递被中断（超时强制终止、崩溃）时留有检查点：以恢复模式启动，跳过已完成的工作
+        if (hasRunCheckpoint(projectDir, userId)) {
+            log.info("🔁 检测到未完成的投递检查点，以恢复模式启动: userId={}", userId);
+            return new String[] {"resume"};
+        }
+        return new String[0];
+    }
+
     /**
      * 创建完全隔离的Boss进程
      * @param userId 用户ID（支持多用户隔离）
@@ -286,11 +426,60 @@ public class BossExecutionService {
      * @param loginOnly 是否只登录不投递（用于二维码登录）
      */
     private ProcessBuilder createIsolatedBossProcess(String userId, boolean headless, boolean loginOnly) throws IOException {
-        // 🔧 修复：自动检测项目目录，支持本地开发和生产环境
-        String projectDir = detectProjectDir();
-        
+        BossLaunchSpec spec = currentLaunchSpec();
+
+        // 🔧 修复：使用动态用户ID支持多用户隔离
+        List<String> command = spec.command(headless, "-Dboss.user.id=" + userId);
+        command.addAll(java.util.Arrays.asList(
+            buildRunnerArgs(spec.getProjectDir().getAbsolutePath(), userId, loginOnly)));
+        return spec.processBuilder(command);
+    }
+
+    /**
+     * 创建常驻Boss工作进程或多租户宿主进程（由进程池预先启动，不绑定用户）
+     * @param jvmArgs 额外的JVM参数（工作进程回收策略等）
+     * @param mode 运行模式（worker或tenant-host）
+     */
+    ProcessBuilder createWorkerProcess(List<String> jvmArgs, String mode) throws IOException {
+        BossLaunchSpec spec = currentLaunchSpec();
+        List<String> command = spec.command(true, jvmArgs.toArray(new String[0]));
+        command.add(mode);
+        ProcessBuilder pb = spec.processBuilder(command);
+        // 用户ID随每次运行请求传入，工作进程环境中不能带有固定用户
+        pb.environment().remove("BOSS_USER_ID");
+        return pb;
+    }
+
+    /**
+     * 工作进程池可用时：在预热好的工作进程上提交一次运行
+     * 投递运行优先放到多租户宿主进程（共享浏览器）；只登录需要有头浏览器扫码，始终使用独占的工作进程
+     * @param quotaLease 配额租约通道，没有时为null
+     * @return 代表本次运行的进程对象；没有空闲工作进程时返回null
+     */
+    private Process submitToWorkerPool(String userId, boolean loginOnly, String quotaLease) {
+        String[] args = buildRunnerArgs(detectProjectDir(), userId, loginOnly);
+        if (!loginOnly) {
+            Process hosted = bossWorkerPool.submitHosted(userId, args, quotaLease);
+            if (hosted != null) {
+                return hosted;
+            }
+        }
+        if (!bossWorkerPool.isEnabled()) {
+            return null;
+        }
+        return bossWorkerPool.submit(userId, args, quotaLease);
+    }
+
+    /**
+     * 解析java可执行文件（结果缓存，只在首次启动时探测一次）
+     */
+    private String resolveJavaBin() {
+        String javaBin = cachedJavaBin;
+        if (javaBin != null) {
+            return javaBin;
+        }
         // 🔧 修复：优先使用系统PATH中的java，如果失败再使用java.home
-        String javaBin = "java"; // 默认使用PATH中的java
+        javaBin = "java"; // 默认使用PATH中的java
         try {
             // 验证java命令是否可用（使用超时避免阻塞）
             Process testProcess = new ProcessBuilder("java", "-version").redirectErrorStream(true).start();
@@ -304,7 +493,220 @@ public class BossExecutionService {
             javaBin = javaHome + File.separator + "bin" + File.separator + "java";
             log.warn("PATH中的java不可用，使用java.home: {}", javaBin);
         }
+        cachedJavaBin = javaBin;
+        return javaBin;
+    }
 
+    /**
+     * 当前的启动参数：构建产物（classes、classpath.txt）或环境变量文件变化时重新解析，并在后台重新生成归档
+     * 每次启动只检查几个文件的修改时间（{@link #launchStamp}），不加锁；标记变化或超过复用时间才计算完整指纹
+     */
+    private BossLaunchSpec currentLaunchSpec() throws IOException {
+        String projectDir = detectProjectDir();
+        String stamp = launchStamp(projectDir);
+        BossLaunchSpec spec = launchSpec;
+        if (spec != null && stamp.equals(launchStamp)
+                && System.currentTimeMillis() - launchCheckedAt < TimeUnit.SECONDS.toMillis(launchSpecRecheckSeconds)) {
+            return spec;
+        }
+        return refreshLaunchSpec(projectDir, stamp);
+    }
+
+    private synchronized BossLaunchSpec refreshLaunchSpec(String projectDir, String stamp) throws IOException {
+        String fingerprint = buildFingerprint(projectDir);
+        BossLaunchSpec spec = launchSpec;
+        if (spec != null && spec.getFingerprint().equals(fingerprint)) {
+            launchStamp = stamp;
+            launchCheckedAt = System.currentTimeMillis();
+            return spec;
+        }
+
+        spec = new BossLaunchSpec(fingerprint, resolveJavaBin(), new File(projectDir),
+            buildRunnerClasspath(projectDir), buildBossEnvironment(projectDir), null);
+        Path archive = sharedArchivePath(spec);
+        Path runnerJar = runnerJarPath(archive);
+        if (Files.exists(archive) && Files.exists(runnerJar)) {
+            spec = spec.withSharedArchive(runnerJarClasspath(spec, runnerJar), archive);
+            log.info("✅ 使用已有的Boss运行器类数据共享归档: {}", archive);
+        } else if (sharedArchiveEnabled) {
+            BossLaunchSpec baseSpec = spec;
+            archiveBuilder.execute(() -> buildSharedArchive(baseSpec, archive, runnerJar));
+        }
+        launchSpec = spec;
+        launchStamp = stamp;
+        launchCheckedAt = System.currentTimeMillis();
+        log.info("✅ Boss启动参数已更新: 构建指纹={}", fingerprint);
+        return spec;
+    }
+
+    /**
+     * 快速标记：项目目录、target和classes目录、运行器类、classpath.txt、环境变量文件的修改时间（只读几个文件属性）
+     * 重新编译、增删文件会改变其中至少一项；只改写已有文件内容的情况由完整指纹的定时复核兜底
+     */
+    private String launchStamp(String projectDir) {
+        File target = new File(projectDir, "target");
+        File classes = new File(target, "classes");
+        return projectDir
+            + "|" + target.lastModified()
+            + "|" + classes.lastModified()
+            + "|" + new File(classes, "boss/IsolatedBossRunner.class").lastModified()
+            + "|" + new File("classpath.txt").lastModified()
+            + "|" + new File("/etc/zhitoujianli/backend.env").lastModified()
+            + "|" + new File(projectDir, ".env").lastModified();
+    }
+
+    /**
+     * 构建指纹：项目目录 + classes目录（最新修改时间和文件数）、classpath.txt、环境变量文件的修改时间
+     * 归档启动时子进程从classes目录的jar快照加载类，任何类或资源重新编译后都必须换新的快照
+     */
+    private String buildFingerprint(String projectDir) {
+        String classesPath = projectDir + File.separator + "target" + File.separator + "classes";
+        return projectDir
+            + "|" + classesStamp(new File(classesPath))
+            + "|" + new File("classpath.txt").lastModified()
+            + "|" + new File("/etc/zhitoujianli/backend.env").lastModified()
+            + "|" + new File(projectDir, ".env").lastModified();
+    }
+
+    /**
+     * @return classes目录中运行器会加载的文件（与打包jar的范围一致）的最新修改时间和数量
+     */
+    private String classesStamp(File classesDir) {
+        Path root = classesDir.toPath();
+        if (!Files.isDirectory(root)) {
+            return "0:0";
+        }
+        long latest = 0;
+        long count = 0;
+        try (java.util.stream.Stream<Path> files = Files.walk(root)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String entry = root.relativize(file).toString().replace(File.separatorChar, '/');
+                if (!Files.isRegularFile(file) || isWebResource(entry)) {
+                    continue;
+                }
+                latest = Math.max(latest, Files.getLastModifiedTime(file).toMillis());
+                count++;
+            }
+        } catch (IOException e) {
+            log.debug("读取classes目录修改时间失败，只按运行器类判断: {}", e.getMessage());
+            return String.valueOf(new File(classesDir, "boss/IsolatedBossRunner.class").lastModified());
+        }
+        return latest + ":" + count;
+    }
+
+    private static boolean isWebResource(String entry) {
+        return entry.startsWith("static/") || entry.startsWith("templates/");
+    }
+
+    /**
+     * 归档文件按构建指纹命名，构建变化后旧归档自然失效
+     */
+    private Path sharedArchivePath(BossLaunchSpec spec) {
+        String name = String.format("runner-%08x.jsa", spec.getFingerprint().hashCode());
+        return Paths.get(spec.getProjectDir().getAbsolutePath(), "target", "boss-cds", name);
+    }
+
+    private Path runnerJarPath(Path archive) {
+        String name = archive.getFileName().toString();
+        return archive.resolveSibling(name.substring(0, name.length() - ".jsa".length()) + ".jar");
+    }
+
+    /**
+     * classpath中的classes目录替换为打包后的jar
+     */
+    private String runnerJarClasspath(BossLaunchSpec spec, Path runnerJar) {
+        String classesPath = spec.getProjectDir().getAbsolutePath() + File.separator + "target" + File.separator + "classes";
+        return runnerJar + spec.getClasspath().substring(classesPath.length());
+    }
+
+    /**
+     * 打包classes目录为jar（跳过Web静态资源，运行器用不到）
+     */
+    private void packRunnerJar(File classesDir, Path runnerJar) throws IOException {
+        Path root = classesDir.toPath();
+        Path tmp = runnerJar.resolveSibling(runnerJar.getFileName() + ".tmp");
+        try (JarOutputStream jar = new JarOutputStream(Files.newOutputStream(tmp));
+             java.util.stream.Stream<Path> files = Files.walk(root)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String entry = root.relativize(file).toString().replace(File.separatorChar, '/');
+                if (!Files.isRegularFile(file) || isWebResource(entry)) {
+                    continue;
+                }
+                jar.putNextEntry(new JarEntry(entry));
+                Files.copy(file, jar);
+                jar.closeEntry();
+            }
+        }
+        Files.move(tmp, runnerJar, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * 以训练模式运行一次运行器，退出时转储动态类数据共享归档，成功后切换到带归档的启动参数
+     */
+    private void buildSharedArchive(BossLaunchSpec spec, Path archive, Path runnerJar) {
+        Path tmp = archive.resolveSibling(archive.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(archive.getParent());
+            packRunnerJar(new File(spec.getProjectDir(), "target" + File.separator + "classes"), runnerJar);
+            String jarClasspath = runnerJarClasspath(spec, runnerJar);
+            BossLaunchSpec trainingSpec = spec.withSharedArchive(jarClasspath, null);
+            List<String> command = trainingSpec.command(true, "-XX:ArchiveClassesAtExit=" + tmp);
+            command.add("cds-training");
+            ProcessBuilder pb = trainingSpec.processBuilder(command);
+            pb.redirectErrorStream(true);
+            pb.redirectOutput(ProcessBuilder.Redirect.DISCARD);
+
+            long start = System.currentTimeMillis();
+            Process process = pb.start();
+            if (!process.waitFor(sharedArchiveBuildTimeoutSeconds, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+                log.warn("生成Boss运行器类数据共享归档超时（{}秒），子进程不使用归档启动", sharedArchiveBuildTimeoutSeconds);
+                return;
+            }
+            if (process.exitValue() != 0 || !Files.exists(tmp)) {
+                log.warn("生成Boss运行器类数据共享归档失败（退出码{}），子进程不使用归档启动", process.exitValue());
+                return;
+            }
+            Files.move(tmp, archive, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            deleteStaleArchives(archive);
+
+            synchronized (this) {
+                BossLaunchSpec current = launchSpec;
+                if (current != null && current.getFingerprint().equals(spec.getFingerprint())) {
+                    launchSpec = current.withSharedArchive(jarClasspath, archive);
+                }
+            }
+            log.info("✅ Boss运行器类数据共享归档已生成: {}，耗时{}ms", archive, System.currentTimeMillis() - start);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.warn("生成Boss运行器类数据共享归档失败: {}", e.getMessage());
+        } finally {
+            try {
+                Files.deleteIfExists(tmp);
+            } catch (IOException e) {
+                log.debug("删除临时归档失败: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void deleteStaleArchives(Path current) {
+        Path currentJar = runnerJarPath(current);
+        try (DirectoryStream<Path> archives = Files.newDirectoryStream(current.getParent(), "runner-*.{jsa,jar}")) {
+            for (Path archive : archives) {
+                if (!archive.equals(current) && !archive.equals(currentJar)) {
+                    Files.deleteIfExists(archive);
+                }
+            }
+        } catch (IOException e) {
+            log.debug("清理旧的类数据共享归档失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 构建Boss隔离运行器的classpath（classes目录 + Maven依赖）
+     */
+    private String buildRunnerClasspath(String projectDir) throws IOException {
         // ✅ 修复：使用classes目录构建classpath（Spring Boot JAR中的类在BOOT-INF/classes下，不能直接用-cp加载）
         String mavenClasspath = buildMavenClasspath();
         String classesPath = projectDir + File.separator + "target" + File.separator + "classes";
@@ -322,40 +724,15 @@ public class BossExecutionService {
             throw new IOException("classes目录不存在或不完整，请先编译项目");
         }
 
-        String fullClasspath = classesPath + ":" + mavenClasspath;
         log.info("✅ 使用classes目录作为classpath: {}", classesPath);
+        return classesPath + ":" + mavenClasspath;
+    }
 
-        // Boss程序的完全隔离JVM参数
-        // ✅ 如果是只登录模式，添加 "login-only" 参数
-        String[] command = loginOnly ? new String[] {
-            javaBin,
-            "-Xms256m", "-Xmx1024m",  // 限制内存使用
-            "-XX:+UseG1GC",           // 使用G1垃圾收集器
-            "-XX:+DisableExplicitGC", // 禁用显式GC
-            "-Djava.awt.headless=" + headless, // 动态头模式
-            "-Dfile.encoding=UTF-8",   // 设置文件编码
-            "-Dsun.java.command=boss.IsolatedBossRunner", // 设置主类
-            "-Dboss.user.id=" + userId, // 🔧 修复：使用动态用户ID支持多用户隔离
-            "-cp", fullClasspath,      // 设置classpath
-            "boss.IsolatedBossRunner", // Boss隔离运行器
-            "login-only"               // ✅ 只登录参数
-        } : new String[] {
-            javaBin,
-            "-Xms256m", "-Xmx1024m",  // 限制内存使用
-            "-XX:+UseG1GC",           // 使用G1垃圾收集器
-            "-XX:+DisableExplicitGC", // 禁用显式GC
-            "-Djava.awt.headless=" + headless, // 动态头模式
-            "-Dfile.encoding=UTF-8",   // 设置文件编码
-            "-Dsun.java.command=boss.IsolatedBossRunner", // 设置主类
-            "-Dboss.user.id=" + userId, // 🔧 修复：使用动态用户ID支持多用户隔离
-            "-cp", fullClasspath,      // 设置classpath
-            "boss.IsolatedBossRunner"               // Boss隔离运行器
-        };
-
-        ProcessBuilder pb = new ProcessBuilder(command);
-        // 工作目录保持在项目目录（需要classpath.txt等文件）
-        // 🔧 修复：使用自动检测的项目目录，而不是硬编码路径
-        pb.directory(new File(projectDir));
+    /**
+     * 构建Boss进程的环境变量
+     */
+    private Map<String, String> buildBossEnvironment(String projectDir) {
+        ProcessBuilder pb = new ProcessBuilder();
 
         // 设置环境变量
         pb.environment().putAll(System.getenv());
@@ -401,10 +778,10 @@ public class BossExecutionService {
         new File(playwrightWorkDir).mkdirs();
 
         // 【重要】显式传递AI服务的环境变量（.env文件中的变量不会自动传递）
-        loadAndSetEnvVariables(pb);
+        loadAndSetEnvVariables(pb, projectDir);
         log.info("✅ 已加载并传递AI服务环境变量到Boss进程");
 
-        return pb;
+        return new HashMap<>(pb.environment());
     }
 
     /**
@@ -430,12 +807,10 @@ public class BossExecutionService {
      * 从.env文件加载并设置环境变量到ProcessBuilder
      * 修复: .env文件的变量不会自动传递给子进程
      */
-    private void loadAndSetEnvVariables(ProcessBuilder pb) {
+    private void loadAndSetEnvVariables(ProcessBuilder pb, String projectDir) {
         try {
             // ✅ 优先读取生产环境配置文件
             File prodEnvFile = new File("/etc/zhitoujianli/backend.env");
-            // 🔧 修复：自动检测项目目录，支持本地开发和生产环境
-            String projectDir = detectProjectDir();
             File devEnvFile = new File(projectDir + File.separator + ".env");
 
             File envFile = prodEnvFile.exists() ? prodEnvFile : devEnvFile;
@@ -517,56 +892,13 @@ public class BossExecutionService {
     }
 
     /**
-     * 创建日志捕获线程
+     * 处理Boss子进程日志中的事件（在日志写入线程回调）
      */
-    private Thread createLogCaptureThread(BufferedReader reader, FileWriter logWriter, String prefix, CountDownLatch latch) {
-        return new Thread(() -> {
-            try {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    // ✅ 过滤Playwright Node.js进程的已知错误（package.json缺失、模块加载失败等）
-                    // 这些错误来自Playwright的Node.js进程，不影响功能，但会污染日志
-                    if ("ERROR".equals(prefix)) {
-                        if (line.contains("package.json") ||
-                            line.contains("MODULE_NOT_FOUND") ||
-                            line.contains("playwright-java") ||
-                            line.contains("Cannot find module") ||
-                            line.contains("Error: Cannot find module") ||
-                            line.contains("const err = new Error") ||
-                            line.contains("Require stack:") ||
-                            line.contains("node:internal/modules/cjs/loader") ||
-                            line.contains("node:diagnostics_channel") ||
-                            line.contains("Function._resolveFilename") ||
-                            line.contains("Function._load") ||
-                            line.contains("TracingChannel.traceSync") ||
-                            line.contains("wrapModuleLoad") ||
-                            line.contains("Module.require") ||
-                            line.contains("require (node:internal/helpers") ||
-                            line.contains("Node.js v") ||
-                            (line.contains("^") && line.contains("at Function.") && line.contains("node:"))) {
-                            // 跳过已知错误，不写入日志（这些是Playwright清理时的已知问题）
-                            continue;
-                        }
-                    }
-
-                    synchronized (logWriter) {
-                        logWriter.write(line + "\n");
-                        logWriter.flush();
-                    }
-
-                    // ✅ 检测验证码请求标记
-                    if (line.contains("🔐 VERIFICATION_CODE_REQUIRED:")) {
-                        String requestFile = line.substring(line.indexOf(":") + 1).trim();
-                        log.info("🔐 检测到验证码请求: {}", requestFile);
-                        handleVerificationCodeRequest(requestFile);
-                    }
-                }
-            } catch (Exception e) {
-                log.error("日志捕获异常", e);
-            } finally {
-                latch.countDown();
-            }
-        });
+    private void onLogEvent(BossLogSink.EventType type, String payload) {
+        if (type == BossLogSink.EventType.VERIFICATION_CODE_REQUIRED) {
+            log.info("🔐 检测到验证码请求: {}", payload);
+            handleVerificationCodeRequest(payload);
+        }
     }
 
     /**
@@ -638,13 +970,12 @@ public class BossExecutionService {
     /**
      * 写入日志头部信息
      */
-    private void writeLogHeader(FileWriter logWriter) throws IOException {
-        logWriter.write("=== Boss程序隔离执行环境 ===\n");
-        logWriter.write(formatTimestamp() + " - 隔离执行服务启动\n");
-        logWriter.write(formatTimestamp() + " - JVM版本: " + System.getProperty("java.version") + "\n");
-        logWriter.write(formatTimestamp() + " - 工作目录: " + System.getProperty("user.dir") + "\n");
-        logWriter.write(formatTimestamp() + " - 内存限制: 1GB\n");
-        logWriter.flush();
+    private void writeLogHeader(BossLogSink logSink) {
+        logSink.append("=== Boss程序隔离执行环境 ===");
+        logSink.append(formatTimestamp() + " - 隔离执行服务启动");
+        logSink.append(formatTimestamp() + " - JVM版本: " + System.getProperty("java.version"));
+        logSink.append(formatTimestamp() + " - 工作目录: " + System.getProperty("user.dir"));
+        logSink.append(formatTimestamp() + " - 内存限制: 1GB");
     }
 
     /**
@@ -0,0 +1,109 @@
+package service;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Boss隔离运行器的启动参数（不可变）
+ * 解析好的java可执行文件、classpath、环境变量和类数据共享归档，
+ * 由{@link BossExecutionService}按构建指纹缓存，构建产物或配置文件变化时整体替换
+ *
+ * @author ZhiTouJianLi Team
+ */
+final class BossLaunchSpec {
+
+    /**
+     * 运行器主类
+     */
+    static final String MAIN_CLASS = "boss.IsolatedBossRunner";
+
+    private final String fingerprint;
+    private final String javaBin;
+    private final File projectDir;
+    private final String classpath;
+    private final Map<String, String> environment;
+    private final Path sharedArchive;
+
+    BossLaunchSpec(String fingerprint, String javaBin, File projectDir, String classpath,
+                   Map<String, String> environment, Path sharedArchive) {
+        this.fingerprint = fingerprint;
+        this.javaBin = javaBin;
+        this.projectDir = projectDir;
+        this.classpath = classpath;
+        this.environment = Collections.unmodifiableMap(new LinkedHashMap<>(environment));
+        this.sharedArchive = sharedArchive;
+    }
+
+    /**
+     * 归档只支持jar形式的classpath（类目录不能出现在共享路径中），启用归档时classpath同时替换为打包后的jar
+     *
+     * @param archiveClasspath 生成归档时使用的classpath
+     * @param archive 归档文件，null表示只替换classpath（用于训练进程）
+     * @return 新的启动参数
+     */
+    BossLaunchSpec withSharedArchive(String archiveClasspath, Path archive) {
+        return new BossLaunchSpec(fingerprint, javaBin, projectDir, archiveClasspath, environment, archive);
+    }
+
+    /**
+     * 构建启动命令（到主类为止，不含程序参数）
+     *
+     * @param headless 是否使用无头模式
+     * @param extraJvmArgs 额外的JVM参数
+     */
+    List<String> command(boolean headless, String... extraJvmArgs) {
+        List<String> command = new ArrayList<>(Arrays.asList(
+            javaBin,
+            "-Xms256m", "-Xmx1024m",  // 限制内存使用
+            "-XX:+UseG1GC",           // 使用G1垃圾收集器
+            "-XX:+DisableExplicitGC", // 禁用显式GC
+            "-Djava.awt.headless=" + headless, // 动态头模式
+            "-Dfile.encoding=UTF-8",   // 设置文件编码
+            "-Dsun.java.command=" + MAIN_CLASS // 设置主类
+        ));
+        if (sharedArchive != null) {
+            // 类数据共享：类元数据直接从归档映射，省去解析和校验，多个子进程共享只读部分
+            command.add("-XX:SharedArchiveFile=" + sharedArchive);
+            command.add("-Xshare:auto");
+        }
+        command.addAll(Arrays.asList(extraJvmArgs));
+        command.add("-cp");
+        command.add(classpath);
+        command.add(MAIN_CLASS);
+        return command;
+    }
+
+    /**
+     * 创建配置好工作目录和环境变量的ProcessBuilder
+     */
+    ProcessBuilder processBuilder(List<String> command) {
+        ProcessBuilder pb = new ProcessBuilder(command);
+        // 工作目录保持在项目目录（需要classpath.txt等文件）
+        pb.directory(projectDir);
+        pb.environment().clear();
+        pb.environment().putAll(environment);
+        return pb;
+    }
+
+    String getFingerprint() {
+        return fingerprint;
+    }
+
+    String getClasspath() {
+        return classpath;
+    }
+
+    File getProjectDir() {
+        return projectDir;
+    }
+
+    Path getSharedArchive() {
+        return sharedArchive;
+    }
+}
@@ -0,0 +1,379 @@
+package service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import boss.util.AhoCorasickAutomaton;
+
+/**
+ * Boss子进程日志汇聚器
+ * 读取线程只负责按行切分、过滤噪音并放入无锁环形缓冲区；
+ * 所有运行共享一个写入线程，定时批量写入日志文件，每批只flush一次
+ *
+ * 噪音过滤和事件识别都使用预编译的多模式匹配器，每行只扫描一遍；
+ * 识别到的事件（如验证码请求）在对应日志行写入文件后，由写入线程回调监听器
+ *
+ * @author ZhiTouJianLi Team
+ */
+public final class BossLogSink implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(BossLogSink.class);
+
+    /**
+     * 批量写入间隔
+     */
+    static final long FLUSH_INTERVAL_MILLIS = 200;
+
+    /**
+     * 环形缓冲区容量（2的幂）
+     */
+    private static final int DEFAULT_CAPACITY = 8192;
+
+    /**
+     * 缓冲区写满时读取线程的等待间隔（相当于对子进程输出施加背压）
+     */
+    private static final long FULL_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /**
+     * Playwright Node.js进程的已知错误（package.json缺失、模块加载失败等）
+     * 来自Playwright清理阶段，不影响功能，但会污染日志；只对错误输出生效
+     */
+    private static final AhoCorasickAutomaton STDERR_NOISE = AhoCorasickAutomaton.compile(List.of(
+        "package.json",
+        "MODULE_NOT_FOUND",
+        "playwright-java",
+        "Cannot find module",
+        "const err = new Error",
+        "Require stack:",
+        "node:internal/modules/cjs/loader",
+        "node:diagnostics_channel",
+        "Function._resolveFilename",
+        "Function._load",
+        "TracingChannel.traceSync",
+        "wrapModuleLoad",
+        "Module.require",
+        "require (node:internal/helpers",
+        "Node.js v"
+    ));
+
+    /**
+     * Node.js错误定位行（形如 "^" 指示符 + "at Function." 栈帧 + "node:" 内部模块），三者同时出现才算噪音
+     */
+    private static final AhoCorasickAutomaton NODE_FRAME_PARTS = AhoCorasickAutomaton.compile(List.of(
+        "^", "at Function.", "node:"
+    ));
+    private static final int NODE_FRAME_ALL_PARTS = (1 << NODE_FRAME_PARTS.size()) - 1;
+
+    /**
+     * 事件标记，与{@link EventType}的声明顺序一一对应
+     */
+    private static final AhoCorasickAutomaton EVENT_MARKERS;
+
+    static {
+        EventType[] types = EventType.values();
+        String[] markers = new String[types.length];
+        for (int i = 0; i < types.length; i++) {
+            markers[i] = types[i].marker;
+        }
+        EVENT_MARKERS = AhoCorasickAutomaton.compile(List.of(markers));
+    }
+
+    private static final Set<BossLogSink> ACTIVE = ConcurrentHashMap.newKeySet();
+    private static final ScheduledExecutorService WRITER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "boss-log-writer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    static {
+        WRITER.scheduleWithFixedDelay(BossLogSink::drainAll,
+            FLUSH_INTERVAL_MILLIS, FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 日志来源
+     */
+    public enum Stream {
+        OUT,
+        ERROR
+    }
+
+    /**
+     * 子进程通过标准输出发出的事件
+     */
+    public enum EventType {
+        /**
+         * 需要用户输入验证码，附带内容为验证码请求文件路径
+         */
+        VERIFICATION_CODE_REQUIRED("🔐 VERIFICATION_CODE_REQUIRED:");
+
+        private final String marker;
+
+        EventType(String marker) {
+            this.marker = marker;
+        }
+
+        /**
+         * @return 日志行中的事件标记
+         */
+        public String getMarker() {
+            return marker;
+        }
+    }
+
+    /**
+     * 事件监听器（在写入线程回调，应尽快返回）
+     */
+    @FunctionalInterface
+    public interface EventListener {
+        void onEvent(EventType type, String payload);
+    }
+
+    private final Writer writer;
+    private final EventListener listener;
+    private final int mask;
+    private final AtomicReferenceArray<String> slots;
+    private final AtomicLong tail = new AtomicLong();
+    // 只由持有drainLock的线程推进
+    private volatile long head;
+    private final Object drainLock = new Object();
+    private final Queue<PendingEvent> pendingEvents = new ConcurrentLinkedQueue<>();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile boolean closed;
+
+    public BossLogSink(Writer writer, EventListener listener) {
+        this(writer, listener, DEFAULT_CAPACITY);
+    }
+
+    BossLogSink(Writer writer, EventListener listener, int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("缓冲区容量必须是2的幂: " + capacity);
+        }
+        this.writer = writer;
+        this.listener = listener;
+        this.mask = capacity - 1;
+        this.slots = new AtomicReferenceArray<>(capacity);
+        ACTIVE.add(this);
+    }
+
+    /**
+     * 追加一行日志（不过滤、不识别事件），可从任意线程调用
+     *
+     * @param line 日志行（不含换行符）
+     */
+    public void append(String line) {
+        publish(line);
+    }
+
+    /**
+     * @return 因汇聚器关闭或写入文件失败而丢弃的日志行数
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * @return 该行写入后缓冲区的序号，关闭后返回-1
+     */
+    private long publish(String line) {
+        while (true) {
+            // 缓冲区写满时汇聚器可能被关闭，每次等待后都重新检查，避免读取线程永远等待
+            if (closed) {
+                dropped.incrementAndGet();
+                log.debug("日志汇聚器已关闭，丢弃日志: {}", line);
+                return -1;
+            }
+            long t = tail.get();
+            if (t - head >= slots.length()) {
+                LockSupport.parkNanos(FULL_PARK_NANOS);
+                continue;
+            }
+            if (tail.compareAndSet(t, t + 1)) {
+                slots.set((int) (t & mask), line);
+                return t + 1;
+            }
+        }
+    }
+
+    /**
+     * 处理子进程输出的一行：过滤噪音、识别事件后放入缓冲区
+     *
+     * @param stream 来源
+     * @param line 日志行
+     * @return 是否被接收（false表示被识别为噪音）
+     */
+    public boolean accept(Stream stream, String line) {
+        if (stream == Stream.ERROR && isNoise(line)) {
+            return false;
+        }
+        long sequence = publish(line);
+        EventType type = detectEvent(line);
+        if (type != null && sequence > 0) {
+            String payload = line.substring(line.indexOf(type.marker) + type.marker.length()).trim();
+            pendingEvents.offer(new PendingEvent(sequence, type, payload));
+        }
+        return true;
+    }
+
+    /**
+     * 创建读取线程：逐行读取子进程输出交给汇聚器，读到流结束后计数
+     *
+     * @param input 子进程输出流
+     * @param stream 来源
+     * @param latch 读取结束时计数
+     * @return 未启动的读取线程
+     */
+    public Thread newCaptureThread(InputStream input, Stream stream, CountDownLatch latch) {
+        Thread thread = new Thread(() -> {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    accept(stream, line);
+                }
+            } catch (Exception e) {
+                log.error("日志捕获异常", e);
+            } finally {
+                latch.countDown();
+            }
+        }, "boss-log-" + stream.name().toLowerCase());
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * 立即把缓冲区中的日志写入文件（调用方线程执行）
+     */
+    public void flush() {
+        drain();
+    }
+
+    /**
+     * 写出剩余日志并停止接收；不关闭底层Writer
+     */
+    @Override
+    public void close() {
+        closed = true;
+        ACTIVE.remove(this);
+        drain();
+    }
+
+    static boolean isNoise(String line) {
+        if (STDERR_NOISE.findFirst(line) >= 0) {
+            return true;
+        }
+        int[] seen = {0};
+        NODE_FRAME_PARTS.scan(line, (id, start, end) -> {
+            seen[0] |= 1 << id;
+            return seen[0] != NODE_FRAME_ALL_PARTS;
+        });
+        return seen[0] == NODE_FRAME_ALL_PARTS;
+    }
+
+    static EventType detectEvent(String line) {
+        int id = EVENT_MARKERS.findFirst(line);
+        return id >= 0 ? EventType.values()[id] : null;
+    }
+
+    private static void drainAll() {
+        for (BossLogSink sink : ACTIVE) {
+            try {
+                sink.drain();
+            } catch (RuntimeException e) {
+                log.warn("批量写入Boss日志失败: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void drain() {
+        synchronized (drainLock) {
+            long h = head;
+            long t = tail.get();
+            boolean wrote = false;
+            try {
+                while (h < t) {
+                    int index = (int) (h & mask);
+                    String line = slots.get(index);
+                    if (line == null) {
+                        // 读取线程已占位但尚未写入，留到下一批
+                        break;
+                    }
+                    writer.write(line);
+                    writer.write('\n');
+                    slots.set(index, null);
+                    h++;
+                    head = h;
+                    wrote = true;
+                }
+                if (wrote) {
+                    writer.flush();
+                }
+            } catch (IOException e) {
+                // 丢弃本批未写入的日志并推进head，否则缓冲区写满后读取线程会一直等待
+                long lost = 0;
+                while (h < t) {
+                    int index = (int) (h & mask);
+                    if (slots.get(index) == null) {
+                        break;
+                    }
+                    slots.set(index, null);
+                    h++;
+                    lost++;
+                }
+                head = h;
+                dropped.addAndGet(lost);
+                log.warn("写入Boss日志文件失败，丢弃{}行: {}", lost, e.getMessage());
+            }
+            // 写入失败时事件照常回调（如验证码请求不能因为日志文件异常而丢失）
+            dispatchEvents(h);
+        }
+    }
+
+    /**
+     * 回调已写入文件的日志行上的事件
+     */
+    private void dispatchEvents(long written) {
+        PendingEvent event;
+        while ((event = pendingEvents.peek()) != null && event.sequence <= written) {
+            pendingEvents.poll();
+            try {
+                listener.onEvent(event.type, event.payload);
+            } catch (RuntimeException e) {
+                log.error("处理Boss日志事件失败: {}", event.type, e);
+            }
+        }
+    }
+
+    /**
+     * 等待对应日志行落盘的事件
+     */
+    private static final class PendingEvent {
+        private final long sequence;
+        private final EventType type;
+        private final String payload;
+
+        PendingEvent(long sequence, EventType type, String payload) {
+            this.sequence = sequence;
+            this.type = type;
+            this.payload = payload;
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Boss投递配额租约服务（主进程）
+ * 每次Boss运行开始前登记一个租约会话，子进程（独立进程、常驻工作进程或多租户宿主进程中的运行）
+ * 通过本机回环端口申请一批投递配额，在内存中逐次扣减，用完或到期后再申请下一批，结束时归还未用完的部分；
+ * 每次投递不再访问数据库，发放时只发放剩余额度以内的单位，配额限制保持严格
+ *
+ * 协议（每个连接一次请求，UTF-8文本行JSON）：
+ * - {"token": "...", "op": "usage"} -> {"ok": true, "used": 今日已使用量}
+ * - {"token": "...", "op": "renew", "want": N, "unused": 上一租约未用完的数量, "committed": 上次上报后确认的数量}
+ *   -> {"ok": true, "granted": 发放数量, "unlimited": 是否无限, "expiresAt": 到期时间戳, "used": 发放前已使用量}
+ * - {"token": "...", "op": "release", "unused": 未用完的数量, "committed": 上次上报后确认的数量} -> {"ok": true}
+ *
+ * 会话中未结清的单位 = 已发放 - 已归还 - 已确认；
+ * 子进程异常退出未归还时，未结清的单位按已使用处理（宁可少投，不会超额）
+ *
+ * @author ZhiTouJianLi Team
+ */
+@Service
+public class BossQuotaLeaseServer {
+
+    private static final Logger log = LoggerFactory.getLogger(BossQuotaLeaseServer.class);
+
+    /**
+     * 租约对应的配额（每日投递次数）
+     */
+    public static final String QUOTA_KEY = "daily_job_application";
+
+    @Value("${boss.quota-lease.enabled:true}")
+    private boolean enabled;
+
+    @Value("${boss.quota-lease.block-size:10}")
+    private int blockSize;
+
+    @Value("${boss.quota-lease.ttl-minutes:10}")
+    private long ttlMinutes;
+
+    @Autowired
+    private QuotaService quotaService;
+
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final ExecutorService handlers = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "boss-quota-lease");
+        t.setDaemon(true);
+        return t;
+    });
+    private volatile ServerSocket server;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            log.info("Boss配额租约未启用（boss.quota-lease.enabled=false），子进程直接查询数据库");
+            return;
+        }
+        try {
+            server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        } catch (IOException e) {
+            log.error("Boss配额租约服务启动失败，子进程将直接查询数据库: {}", e.getMessage());
+            return;
+        }
+        Thread acceptor = new Thread(this::acceptLoop, "boss-quota-lease-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        log.info("✅ Boss配额租约服务已启动: 端口={}, 每批{}次, 有效期{}分钟",
+            server.getLocalPort(), blockSize, ttlMinutes);
+    }
+
+    @PreDestroy
+    public void stop() {
+        ServerSocket current = server;
+        server = null;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException e) {
+                log.debug("关闭配额租约服务失败: {}", e.getMessage());
+            }
+        }
+        handlers.shutdownNow();
+    }
+
+    /**
+     * 为一次Boss运行登记租约会话
+     *
+     * @param userId 用户ID
+     * @return 交给子进程的通道（端口:令牌）；服务未启用时返回null（子进程直接查询数据库）
+     */
+    public String openSession(String userId) {
+        ServerSocket current = server;
+        if (current == null) {
+            return null;
+        }
+        String token = UUID.randomUUID().toString();
+        sessions.put(token, new Session(userId));
+        return current.getLocalPort() + ":" + token;
+    }
+
+    /**
+     * Boss运行结束（进程退出或运行被终止）后注销会话
+     *
+     * @param channel {@link #openSession}返回的通道，可以为null
+     */
+    public void closeSession(String channel) {
+        if (channel == null) {
+            return;
+        }
+        Session session = sessions.remove(channel.substring(channel.indexOf(':') + 1));
+        if (session != null) {
+            synchronized (session) {
+                if (session.outstanding > 0) {
+                    log.warn("⚠️ Boss运行结束时未归还配额租约: userId={}, {}次按已使用处理",
+                        session.userId, session.outstanding);
+                }
+            }
+        }
+    }
+
+    private void acceptLoop() {
+        ServerSocket current;
+        while ((current = server) != null) {
+            try {
+                Socket socket = current.accept();
+                handlers.execute(() -> handle(socket));
+            } catch (IOException e) {
+                if (server != null) {
+                    log.warn("配额租约服务接受连接失败: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void handle(Socket socket) {
+        try (Socket s = socket) {
+            s.setSoTimeout((int) TimeUnit.SECONDS.toMillis(30));
+            BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+            PrintStream out = new PrintStream(s.getOutputStream(), true, StandardCharsets.UTF_8);
+            String line = in.readLine();
+            JSONObject request = line != null ? new JSONObject(line) : new JSONObject();
+            Session session = sessions.get(request.optString("token"));
+            if (session == null) {
+                log.warn("拒绝未登记的配额租约请求");
+                out.println(new JSONObject().put("ok", false).put("error", "unknown session"));
+                return;
+            }
+            out.println(handle(session, request));
+        } catch (Exception e) {
+            log.warn("处理配额租约请求失败: {}", e.getMessage());
+        }
+    }
+
+    private JSONObject handle(Session session, JSONObject request) {
+        String op = request.optString("op");
+        JSONObject response = new JSONObject().put("ok", true);
+        synchronized (session) {
+            switch (op) {
+                case "usage":
+                    return response.put("used", quotaService.getUsedAmount(session.userId, QUOTA_KEY));
+                case "renew": {
+                    settle(session, request.optLong("committed", 0L));
+                    giveBack(session, request.optLong("unused", 0L));
+                    long want = Math.max(1L, Math.min(blockSize, request.optLong("want", blockSize)));
+                    QuotaService.QuotaLease lease = quotaService.leaseQuota(session.userId, QUOTA_KEY, want);
+                    session.outstanding += lease.getGranted();
+                    session.leaseDate = LocalDate.now();
+                    return response.put("granted", lease.getGranted())
+                        .put("unlimited", lease.isUnlimited())
+                        .put("expiresAt", leaseDeadline())
+                        .put("used", lease.getUsedBefore());
+                }
+                case "release":
+                    settle(session, request.optLong("committed", 0L));
+                    giveBack(session, request.optLong("unused", 0L));
+                    return response;
+                default:
+                    return new JSONObject().put("ok", false).put("error", "unknown op: " + op);
+            }
+        }
+    }
+
+    /**
+     * 结清子进程已确认（投递成功）的单位：计数在发放时已经扣减，这里只从未结清数量中减去
+     */
+    private void settle(Session session, long committed) {
+        session.outstanding -= Math.min(Math.max(0L, committed), session.outstanding);
+    }
+
+    /**
+     * 归还未使用的单位：不超过会话尚未归还的数量；跨天的租约不再归还（旧的计数已不影响今日配额）
+     */
+    private void giveBack(Session session, long unused) {
+        long units = Math.min(Math.max(0L, unused), session.outstanding);
+        if (units <= 0) {
+            return;
+        }
+        session.outstanding -= units;
+        if (LocalDate.now().equals(session.leaseDate)) {
+            quotaService.returnLeasedQuota(session.userId, QUOTA_KEY, units);
+        }
+    }
+
+    /**
+     * 租约有效期：不超过配置的分钟数，也不跨过今天（每日配额在零点重置）
+     */
+    private long leaseDeadline() {
+        long now = System.currentTimeMillis();
+        long midnight = LocalDate.now().plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        return Math.min(now + TimeUnit.MINUTES.toMillis(ttlMinutes), midnight);
+    }
+
+    /**
+     * 一次Boss运行的租约会话
+     */
+    private static final class Session {
+        private final String userId;
+        // 以下由会话对象保护
+        // 已发放但尚未归还或确认的单位
+        private long outstanding;
+        private LocalDate leaseDate;
+
+        Session(String userId) {
+            this.userId = userId;
+        }
+    }
+}
@@ -0,0 +1,392 @@
+package service;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import enums.PlanType;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Boss投递任务调度器（多租户）
+ * 替代原来的单线程bossExecutor：所有Boss任务先进入有界队列，再按以下规则放行
+ * 1. 全局并发上限 + 每个套餐的并发上限
+ * 2. 按套餐权重的加权公平排序：每个用户的排队标签 = max(系统虚拟时间, 该用户上次标签) + 1/权重，
+ *    刚运行过的用户排在后面，高级套餐按权重更快轮到
+ * 3. 准入控制：主机CPU负载或可用内存不足时暂缓放行（没有任务在运行时总是放行一个）
+ * 只登录（扫码）这类用户正在等待的短任务走优先通道：不排队、不占并发名额，立即运行
+ *
+ * 排队中的用户可查询位置和预计等待时间（按最近任务耗时的滑动平均估算）
+ *
+ * @author ZhiTouJianLi Team
+ */
+@Service
+public class BossRunScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(BossRunScheduler.class);
+
+    /**
+     * 准入检查的轮询间隔（主机资源不足时等待资源释放）
+     */
+    private static final long ADMISSION_POLL_SECONDS = 5;
+
+    /**
+     * 任务耗时滑动平均的平滑系数
+     */
+    private static final double DURATION_SMOOTHING = 0.3;
+
+    /**
+     * 排队状态
+     */
+    public static final class QueueStatus {
+        private final boolean running;
+        private final int position;
+        private final long etaSeconds;
+
+        QueueStatus(boolean running, int position, long etaSeconds) {
+            this.running = running;
+            this.position = position;
+            this.etaSeconds = etaSeconds;
+        }
+
+        /**
+         * @return 是否已开始运行
+         */
+        public boolean isRunning() {
+            return running;
+        }
+
+        /**
+         * @return 排队位置（从1开始，运行中为0）
+         */
+        public int getPosition() {
+            return position;
+        }
+
+        /**
+         * @return 预计等待秒数（运行中为0）
+         */
+        public long getEtaSeconds() {
+            return etaSeconds;
+        }
+    }
+
+    /**
+     * 排队中的任务
+     */
+    private static final class RunRequest {
+        private final String userId;
+        private final PlanType plan;
+        private final Runnable task;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+        private final long sequence;
+        private final double tag;
+        private final boolean priority;
+
+        RunRequest(String userId, PlanType plan, Runnable task, long sequence, double tag, boolean priority) {
+            this.userId = userId;
+            this.plan = plan;
+            this.task = task;
+            this.sequence = sequence;
+            this.tag = tag;
+            this.priority = priority;
+        }
+    }
+
+    private static final Comparator<RunRequest> FAIR_ORDER =
+        Comparator.<RunRequest>comparingDouble(r -> r.tag).thenComparingLong(r -> r.sequence);
+
+    private final int maxConcurrent;
+    private final int queueCapacity;
+    private final Map<PlanType, Integer> planLimits;
+    private final Map<PlanType, Integer> planWeights;
+    private final BooleanSupplier hostHeadroom;
+    private final Executor runExecutor;
+    private final ScheduledExecutorService admissionTimer;
+
+    // 以下状态由this保护
+    private final List<RunRequest> queue = new ArrayList<>();
+    private final Map<String, Double> userTags = new HashMap<>();
+    private final Map<String, RunRequest> runningByUser = new HashMap<>();
+    private final Map<PlanType, Integer> runningByPlan = new EnumMap<>(PlanType.class);
+    // runningByUser中优先通道任务的数量（不占并发名额）
+    private int priorityRunning;
+    private double virtualTime;
+    private long sequence;
+    private double averageRunMillis;
+
+    public BossRunScheduler(
+            @Value("${boss.scheduler.max-concurrent:2}") int maxConcurrent,
+            @Value("${boss.scheduler.queue-capacity:20}") int queueCapacity,
+            @Value("${boss.scheduler.plan-limit.free:1}") int freeLimit,
+            @Value("${boss.scheduler.plan-limit.basic:2}") int basicLimit,
+            @Value("${boss.scheduler.plan-limit.professional:2}") int professionalLimit,
+            @Value("${boss.scheduler.plan-weight.free:1}") int freeWeight,
+            @Value("${boss.scheduler.plan-weight.basic:2}") int basicWeight,
+            @Value("${boss.scheduler.plan-weight.professional:4}") int professionalWeight,
+            @Value("${boss.scheduler.max-cpu-load:0.85}") double maxCpuLoad,
+            @Value("${boss.scheduler.min-free-memory-mb:1024}") long minFreeMemoryMb,
+            @Value("${boss.scheduler.initial-run-estimate-minutes:30}") int initialRunEstimateMinutes) {
+        this(maxConcurrent, queueCapacity,
+            planMap(freeLimit, basicLimit, professionalLimit),
+            planMap(freeWeight, basicWeight, professionalWeight),
+            () -> hasHostHeadroom(maxCpuLoad, minFreeMemoryMb),
+            newRunExecutor(),
+            TimeUnit.MINUTES.toMillis(initialRunEstimateMinutes));
+    }
+
+    BossRunScheduler(int maxConcurrent, int queueCapacity, Map<PlanType, Integer> planLimits,
+                     Map<PlanType, Integer> planWeights, BooleanSupplier hostHeadroom, Executor runExecutor,
+                     long initialRunEstimateMillis) {
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        this.queueCapacity = Math.max(0, queueCapacity);
+        this.planLimits = planLimits;
+        this.planWeights = planWeights;
+        this.hostHeadroom = hostHeadroom;
+        this.runExecutor = runExecutor;
+        this.averageRunMillis = initialRunEstimateMillis;
+        this.admissionTimer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "boss-run-admission");
+            t.setDaemon(true);
+            return t;
+        });
+        this.admissionTimer.scheduleWithFixedDelay(this::dispatch,
+            ADMISSION_POLL_SECONDS, ADMISSION_POLL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 提交一个Boss任务
+     *
+     * @param userId 用户ID（同一用户同一时间只能有一个排队或运行中的任务）
+     * @param plan 用户套餐
+     * @param task 任务
+     * @return 任务完成时完成的Future；队列已满或用户已有任务时以IllegalStateException失败
+     */
+    public CompletableFuture<Void> submit(String userId, PlanType plan, Runnable task) {
+        RunRequest request;
+        synchronized (this) {
+            if (runningByUser.containsKey(userId) || queue.stream().anyMatch(r -> r.userId.equals(userId))) {
+                return CompletableFuture.failedFuture(
+                    new IllegalStateException("您已有投递任务在排队或运行中，请等待当前任务完成"));
+            }
+            if (queue.size() >= queueCapacity && !canStartNow(plan)) {
+                return CompletableFuture.failedFuture(
+                    new IllegalStateException("当前排队人数已满（" + queueCapacity + "人），请稍后再试"));
+            }
+            double tag = Math.max(virtualTime, userTags.getOrDefault(userId, 0.0)) + 1.0 / weightOf(plan);
+            userTags.put(userId, tag);
+            request = new RunRequest(userId, plan, task, sequence++, tag, false);
+            queue.add(request);
+        }
+        dispatch();
+
+        QueueStatus status = getQueueStatus(userId);
+        if (status != null && !status.isRunning()) {
+            log.info("⏳ Boss任务排队中: userId={}, 套餐={}, 位置={}, 预计等待{}分钟",
+                userId, plan, status.getPosition(), status.getEtaSeconds() / 60);
+        }
+        return request.future;
+    }
+
+    /**
+     * 通过优先通道提交任务（如扫码登录）：不排队，不受并发上限、套餐上限和主机准入限制，立即运行
+     * 同一用户同一时间仍只能有一个任务；优先任务不影响公平排序和耗时估算
+     *
+     * @param userId 用户ID
+     * @param plan 用户套餐（仅用于日志）
+     * @param task 任务
+     * @return 任务完成时完成的Future；用户已有任务时以IllegalStateException失败
+     */
+    public CompletableFuture<Void> submitPriority(String userId, PlanType plan, Runnable task) {
+        RunRequest request;
+        synchronized (this) {
+            if (runningByUser.containsKey(userId) || queue.stream().anyMatch(r -> r.userId.equals(userId))) {
+                return CompletableFuture.failedFuture(
+                    new IllegalStateException("您已有投递任务在排队或运行中，请等待当前任务完成"));
+            }
+            request = new RunRequest(userId, plan, task, sequence++, 0.0, true);
+            runningByUser.put(userId, request);
+            priorityRunning++;
+        }
+        start(request);
+        return request.future;
+    }
+
+    /**
+     * @return 用户任务的排队状态，没有排队或运行中的任务时返回null
+     */
+    public synchronized QueueStatus getQueueStatus(String userId) {
+        if (runningByUser.containsKey(userId)) {
+            return new QueueStatus(true, 0, 0);
+        }
+        List<RunRequest> ordered = new ArrayList<>(queue);
+        ordered.sort(FAIR_ORDER);
+        for (int i = 0; i < ordered.size(); i++) {
+            if (ordered.get(i).userId.equals(userId)) {
+                int position = i + 1;
+                long waves = (position + maxConcurrent - 1) / maxConcurrent;
+                return new QueueStatus(false, position, Math.round(waves * averageRunMillis / 1000));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return 排队中的任务数
+     */
+    public synchronized int getQueueLength() {
+        return queue.size();
+    }
+
+    /**
+     * @return 运行中的任务数
+     */
+    public synchronized int getRunningCount() {
+        return runningByUser.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        admissionTimer.shutdownNow();
+        if (runExecutor instanceof ExecutorService) {
+            ((ExecutorService) runExecutor).shutdown();
+        }
+    }
+
+    /**
+     * 按公平顺序放行满足并发上限和准入条件的任务
+     */
+    private void dispatch() {
+        List<RunRequest> toStart = new ArrayList<>();
+        synchronized (this) {
+            while (!queue.isEmpty() && normalRunning() < maxConcurrent) {
+                RunRequest next = null;
+                for (RunRequest candidate : queue) {
+                    if (planHasCapacity(candidate.plan) && (next == null || FAIR_ORDER.compare(candidate, next) < 0)) {
+                        next = candidate;
+                    }
+                }
+                // 没有普通任务在运行时总是放行一个（优先通道的登录任务不计入）
+                if (next == null || (normalRunning() > 0 && !hostHeadroom.getAsBoolean())) {
+                    break;
+                }
+                queue.remove(next);
+                virtualTime = Math.max(virtualTime, next.tag);
+                runningByUser.put(next.userId, next);
+                runningByPlan.merge(next.plan, 1, Integer::sum);
+                toStart.add(next);
+            }
+        }
+        for (RunRequest request : toStart) {
+            start(request);
+        }
+    }
+
+    private void start(RunRequest request) {
+        log.info("▶️ Boss任务开始运行: userId={}, 套餐={}{}", request.userId, request.plan,
+            request.priority ? "（优先通道）" : "");
+        try {
+            runExecutor.execute(() -> {
+                long startTime = System.currentTimeMillis();
+                try {
+                    request.task.run();
+                    request.future.complete(null);
+                } catch (Throwable e) {
+                    request.future.completeExceptionally(e);
+                } finally {
+                    finish(request, System.currentTimeMillis() - startTime);
+                }
+            });
+        } catch (Exception e) {
+            request.future.completeExceptionally(e);
+            finish(request, 0);
+        }
+    }
+
+    private void finish(RunRequest request, long durationMillis) {
+        synchronized (this) {
+            runningByUser.remove(request.userId);
+            if (request.priority) {
+                priorityRunning--;
+            } else {
+                runningByPlan.merge(request.plan, -1, Integer::sum);
+            }
+            if (durationMillis > 0 && !request.priority) {
+                averageRunMillis += DURATION_SMOOTHING * (durationMillis - averageRunMillis);
+            }
+        }
+        dispatch();
+    }
+
+    private boolean canStartNow(PlanType plan) {
+        return normalRunning() < maxConcurrent && planHasCapacity(plan);
+    }
+
+    /**
+     * @return 正在运行的普通任务数（不含优先通道任务）
+     */
+    private int normalRunning() {
+        return runningByUser.size() - priorityRunning;
+    }
+
+    private boolean planHasCapacity(PlanType plan) {
+        return runningByPlan.getOrDefault(plan, 0) < planLimits.getOrDefault(plan, maxConcurrent);
+    }
+
+    private int weightOf(PlanType plan) {
+        return Math.max(1, planWeights.getOrDefault(plan, 1));
+    }
+
+    private static Map<PlanType, Integer> planMap(int free, int basic, int professional) {
+        Map<PlanType, Integer> map = new EnumMap<>(PlanType.class);
+        map.put(PlanType.FREE, free);
+        map.put(PlanType.BASIC, basic);
+        map.put(PlanType.PROFESSIONAL, professional);
+        return map;
+    }
+
+    /**
+     * 主机资源是否足够再启动一个Boss任务（浏览器+JVM）
+     */
+    private static boolean hasHostHeadroom(double maxCpuLoad, long minFreeMemoryMb) {
+        java.lang.management.OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (!(os instanceof com.sun.management.OperatingSystemMXBean)) {
+            return true;
+        }
+        com.sun.management.OperatingSystemMXBean hostOs = (com.sun.management.OperatingSystemMXBean) os;
+        double cpuLoad = hostOs.getCpuLoad();
+        long freeMemoryMb = hostOs.getFreeMemorySize() / (1024 * 1024);
+        boolean admitted = (cpuLoad < 0 || cpuLoad < maxCpuLoad) && freeMemoryMb >= minFreeMemoryMb;
+        if (!admitted) {
+            log.info("⏸️ 主机资源不足，暂缓启动新的Boss任务: CPU负载={}%, 可用内存={}MB",
+                Math.round(cpuLoad * 100), freeMemoryMb);
+        }
+        return admitted;
+    }
+
+    private static ExecutorService newRunExecutor() {
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "boss-run-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+}
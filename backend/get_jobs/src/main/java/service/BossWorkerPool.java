@@ -0,0 +1,489 @@
+package service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import boss.BossWorker;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Boss常驻工作进程池
+ * 预先启动若干个IsolatedBossRunner工作进程（JVM和Playwright驱动已预热），
+ * 投递任务通过本机回环端口提交给空闲的工作进程，省去每次冷启动JVM和驱动的耗时
+ *
+ * 每个工作进程同一时间只服务一个用户，进程隔离保持不变；
+ * 工作进程运行达到次数上限、内存占用过高、超时被终止或异常退出后，由进程池补充新的工作进程
+ *
+ * 启用多租户宿主进程（boss.tenant-host.max-tenants > 0）时，投递运行优先提交给宿主进程：
+ * 一个JVM共享一个浏览器同时服务多个用户（见{@link boss.BossTenantHost}），宿主进程已满或不可用时再使用上面的工作进程
+ *
+ * @author ZhiTouJianLi Team
+ */
+@Service
+public class BossWorkerPool {
+
+    private static final Logger log = LoggerFactory.getLogger(BossWorkerPool.class);
+
+    /**
+     * 等待工作进程就绪的最长时间
+     */
+    private static final long READY_TIMEOUT_SECONDS = 120;
+
+    /**
+     * 工作进程启动器
+     */
+    @FunctionalInterface
+    interface WorkerLauncher {
+        ProcessBuilder create(List<String> jvmArgs, String mode) throws IOException;
+    }
+
+    @Value("${boss.worker-pool.size:1}")
+    private int poolSize;
+
+    @Value("${boss.worker-pool.max-runs:20}")
+    private int maxRunsPerWorker;
+
+    @Value("${boss.worker-pool.max-heap-ratio:0.75}")
+    private double maxHeapRatio;
+
+    @Value("${boss.tenant-host.max-tenants:0}")
+    private int maxTenants;
+
+    @Value("${boss.tenant-host.max-run-minutes:120}")
+    private long maxTenantRunMinutes;
+
+    @Value("${boss.tenant-host.max-cpu-minutes:30}")
+    private long maxTenantCpuMinutes;
+
+    private final BlockingQueue<Worker> idleWorkers = new LinkedBlockingQueue<>();
+    private final Set<Worker> allWorkers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService spawner = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "boss-worker-spawner");
+        t.setDaemon(true);
+        return t;
+    });
+    private volatile WorkerLauncher launcher;
+    private volatile Worker tenantHost;
+    private volatile boolean shuttingDown;
+
+    /**
+     * 启动进程池（在后台预热工作进程，不阻塞应用启动）
+     */
+    void start(WorkerLauncher launcher) {
+        if (maxTenants > 0) {
+            this.launcher = launcher;
+            spawnHostAsync();
+            log.info("Boss多租户宿主进程启动中: 最多同时运行{}个用户", maxTenants);
+        }
+        if (poolSize <= 0) {
+            log.info("Boss常驻工作进程池未启用（boss.worker-pool.size={}），每次任务冷启动独立进程", poolSize);
+            return;
+        }
+        this.launcher = launcher;
+        for (int i = 0; i < poolSize; i++) {
+            spawnAsync();
+        }
+        log.info("Boss常驻工作进程池启动中: 大小={}, 单进程最多运行{}次", poolSize, maxRunsPerWorker);
+    }
+
+    /**
+     * @return 进程池是否启用
+     */
+    public boolean isEnabled() {
+        return launcher != null && poolSize > 0 && !shuttingDown;
+    }
+
+    /**
+     * 在空闲工作进程上提交一次运行（不等待）
+     *
+     * @param userId 用户ID
+     * @param args Boss程序参数
+     * @param quotaLease 配额租约通道，没有时为null
+     * @return 代表本次运行的进程对象；没有空闲工作进程时返回null（调用方冷启动独立进程）
+     */
+    public Process submit(String userId, String[] args, String quotaLease) {
+        Worker worker;
+        while ((worker = idleWorkers.poll()) != null) {
+            if (!worker.process.isAlive()) {
+                retire(worker);
+                continue;
+            }
+            try {
+                PooledRun run = new PooledRun(worker, userId, args, quotaLease);
+                log.info("♨️ 使用常驻工作进程执行Boss任务: userId={}, PID={}", userId, worker.process.pid());
+                return run;
+            } catch (IOException e) {
+                log.warn("连接常驻工作进程失败（PID={}）: {}", worker.process.pid(), e.getMessage());
+                retire(worker);
+            }
+        }
+        log.info("没有空闲的常驻工作进程，冷启动独立Boss进程: userId={}", userId);
+        return null;
+    }
+
+    /**
+     * 在多租户宿主进程上提交一次运行（不等待）
+     *
+     * @param userId 用户ID
+     * @param args Boss程序参数
+     * @param quotaLease 配额租约通道，没有时为null
+     * @return 代表本次运行的进程对象；未启用、宿主进程已满或不可用时返回null
+     */
+    public Process submitHosted(String userId, String[] args, String quotaLease) {
+        Worker host = tenantHost;
+        if (host == null || shuttingDown || host.draining || !host.process.isAlive()) {
+            return null;
+        }
+        if (host.tenants.incrementAndGet() > maxTenants) {
+            host.tenants.decrementAndGet();
+            log.info("多租户宿主进程已满（{}个用户），使用独立工作进程: userId={}", maxTenants, userId);
+            return null;
+        }
+        try {
+            PooledRun run = new PooledRun(host, userId, args, quotaLease);
+            log.info("🏠 使用多租户宿主进程执行Boss任务: userId={}, PID={}, 当前{}个用户",
+                userId, host.process.pid(), host.tenants.get());
+            return run;
+        } catch (IOException e) {
+            host.tenants.decrementAndGet();
+            log.warn("连接多租户宿主进程失败（PID={}）: {}", host.process.pid(), e.getMessage());
+            replaceHost(host);
+            return null;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        shuttingDown = true;
+        spawner.shutdownNow();
+        for (Worker worker : allWorkers) {
+            worker.process.destroyForcibly();
+        }
+        Worker host = tenantHost;
+        if (host != null) {
+            host.process.destroyForcibly();
+        }
+        allWorkers.clear();
+        idleWorkers.clear();
+    }
+
+    private void spawnAsync() {
+        if (shuttingDown) {
+            return;
+        }
+        spawner.execute(() -> {
+            try {
+                Worker worker = spawn();
+                allWorkers.add(worker);
+                idleWorkers.offer(worker);
+            } catch (Exception e) {
+                log.error("启动常驻Boss工作进程失败: {}", e.getMessage());
+            }
+        });
+    }
+
+    private void spawnHostAsync() {
+        if (shuttingDown) {
+            return;
+        }
+        spawner.execute(() -> {
+            try {
+                List<String> jvmArgs = new ArrayList<>();
+                jvmArgs.add("-Dboss.tenant-host.maxTenants=" + maxTenants);
+                jvmArgs.add("-Dboss.tenant-host.maxRunMinutes=" + maxTenantRunMinutes);
+                jvmArgs.add("-Dboss.tenant-host.maxCpuMinutes=" + maxTenantCpuMinutes);
+                Worker host = spawn(jvmArgs, "tenant-host", true);
+                tenantHost = host;
+                // 宿主进程退出（共享浏览器断开、无法回收的运行后排空、崩溃）时补充新的宿主进程
+                host.process.onExit().thenRun(() -> replaceHost(host));
+            } catch (Exception e) {
+                log.error("启动Boss多租户宿主进程失败: {}", e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 宿主进程不再接收新运行：停止提交并启动替换的宿主进程（旧进程等进行中的运行结束后自行退出）
+     */
+    private void replaceHost(Worker host) {
+        synchronized (this) {
+            if (host.draining) {
+                return;
+            }
+            host.draining = true;
+        }
+        if (tenantHost == host) {
+            tenantHost = null;
+        }
+        log.info("♻️ Boss多租户宿主进程（PID={}）停止接收新运行，补充新的宿主进程", host.process.pid());
+        spawnHostAsync();
+    }
+
+    private Worker spawn() throws IOException, InterruptedException {
+        List<String> jvmArgs = new ArrayList<>();
+        jvmArgs.add("-Dboss.worker.maxRuns=" + maxRunsPerWorker);
+        jvmArgs.add("-Dboss.worker.maxHeapRatio=" + maxHeapRatio);
+        return spawn(jvmArgs, "worker", false);
+    }
+
+    private Worker spawn(List<String> jvmArgs, String mode, boolean hosted) throws IOException, InterruptedException {
+        ProcessBuilder pb = launcher.create(jvmArgs, mode);
+        String token = UUID.randomUUID().toString();
+        pb.environment().put(BossWorker.TOKEN_ENV, token);
+        pb.redirectErrorStream(true);
+
+        long start = System.currentTimeMillis();
+        Process process = pb.start();
+        BufferedReader output = new BufferedReader(
+            new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+
+        // 读取就绪行（工作进程预热Playwright驱动后打印端口）
+        CountDownLatch ready = new CountDownLatch(1);
+        int[] port = {0};
+        Thread outputThread = new Thread(() -> {
+            try {
+                String line;
+                while ((line = output.readLine()) != null) {
+                    if (port[0] == 0 && line.startsWith(BossWorker.READY_PREFIX)) {
+                        port[0] = Integer.parseInt(line.substring(BossWorker.READY_PREFIX.length()).trim());
+                        ready.countDown();
+                    } else {
+                        // 空闲期间的输出（运行日志通过连接回传，不在这里）
+                        log.debug("[boss-worker-{}] {}", process.pid(), line);
+                    }
+                }
+            } catch (Exception e) {
+                log.debug("读取工作进程输出结束: {}", e.getMessage());
+            } finally {
+                ready.countDown();
+            }
+        }, "boss-worker-output-" + process.pid());
+        outputThread.setDaemon(true);
+        outputThread.start();
+
+        if (!ready.await(READY_TIMEOUT_SECONDS, TimeUnit.SECONDS) || port[0] == 0) {
+            process.destroyForcibly();
+            throw new IOException("工作进程未能在" + READY_TIMEOUT_SECONDS + "秒内就绪");
+        }
+        log.info("✅ 常驻Boss{}已就绪: PID={}, 端口={}, 启动耗时{}ms",
+            hosted ? "多租户宿主进程" : "工作进程", process.pid(), port[0], System.currentTimeMillis() - start);
+        return new Worker(process, port[0], token, hosted);
+    }
+
+    /**
+     * 一次运行结束后归还工作进程
+     */
+    private void release(Worker worker, boolean reusable) {
+        if (reusable && !shuttingDown && worker.process.isAlive()) {
+            idleWorkers.offer(worker);
+        } else {
+            retire(worker);
+        }
+    }
+
+    private void retire(Worker worker) {
+        if (allWorkers.remove(worker)) {
+            worker.process.destroyForcibly();
+            log.info("♻️ 常驻Boss工作进程已回收: PID={}，补充新的工作进程", worker.process.pid());
+            spawnAsync();
+        }
+    }
+
+    /**
+     * 常驻工作进程（或多租户宿主进程）
+     */
+    private static final class Worker {
+        private final Process process;
+        private final int port;
+        private final String token;
+        private final boolean hosted;
+        // 以下只用于多租户宿主进程
+        private final AtomicInteger tenants = new AtomicInteger();
+        private volatile boolean draining;
+
+        Worker(Process process, int port, String token, boolean hosted) {
+            this.process = process;
+            this.port = port;
+            this.token = token;
+            this.hosted = hosted;
+        }
+    }
+
+    /**
+     * 在工作进程上的一次运行，按{@link Process}的语义暴露给调用方：
+     * 输出流为回传的运行日志，退出码取自结束行；运行中被终止时杀掉工作进程
+     * （宿主进程上的运行只关闭连接，由宿主进程中止该用户的运行，不影响其他用户）
+     */
+    private final class PooledRun extends Process {
+        private final Worker worker;
+        private final Socket socket;
+        private final PipedInputStream logInput;
+        private final CountDownLatch finished = new CountDownLatch(1);
+        private volatile int exitCode = -1;
+
+        PooledRun(Worker worker, String userId, String[] args, String quotaLease) throws IOException {
+            this.worker = worker;
+            this.socket = new Socket(InetAddress.getLoopbackAddress(), worker.port);
+            this.logInput = new PipedInputStream(64 * 1024);
+            PipedOutputStream logOutput = new PipedOutputStream(logInput);
+
+            JSONObject request = new JSONObject();
+            request.put("token", worker.token);
+            request.put("userId", userId);
+            request.put("args", new JSONArray(args));
+            if (quotaLease != null) {
+                request.put("quotaLease", quotaLease);
+            }
+            PrintStream requestOut = new PrintStream(socket.getOutputStream(), true, StandardCharsets.UTF_8);
+            requestOut.println(request);
+
+            if (worker.hosted) {
+                util.BossProcessManager.registerHosted(userId, this);
+            } else {
+                util.BossProcessManager.register(userId, worker.process.toHandle());
+            }
+            Thread pump = new Thread(() -> pump(userId, logOutput), "boss-worker-run-" + worker.process.pid());
+            pump.setDaemon(true);
+            pump.start();
+        }
+
+        private void pump(String userId, PipedOutputStream logOutput) {
+            boolean completed = false;
+            boolean retiring = false;
+            try (BufferedReader in = new BufferedReader(
+                    new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                 OutputStream out = logOutput) {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    if (line.startsWith(BossWorker.EXIT_PREFIX)) {
+                        retiring = line.endsWith(BossWorker.RETIRE_SUFFIX);
+                        String code = line.substring(BossWorker.EXIT_PREFIX.length(),
+                            line.length() - (retiring ? BossWorker.RETIRE_SUFFIX.length() : 0));
+                        exitCode = Integer.parseInt(code.trim());
+                        completed = true;
+                        break;
+                    }
+                    out.write((line + "\n").getBytes(StandardCharsets.UTF_8));
+                }
+            } catch (Exception e) {
+                log.debug("工作进程运行连接结束: {}", e.getMessage());
+            } finally {
+                if (!completed) {
+                    // 连接中断（超时被终止或工作进程崩溃）
+                    exitCode = 1;
+                }
+                closeSocket();
+                finished.countDown();
+                if (worker.hosted) {
+                    util.BossProcessManager.unregisterHosted(userId, this);
+                    worker.tenants.decrementAndGet();
+                    if (retiring) {
+                        replaceHost(worker);
+                    }
+                } else {
+                    util.BossProcessManager.unregister(userId, worker.process.toHandle());
+                    release(worker, completed && !retiring);
+                }
+            }
+        }
+
+        private void closeSocket() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                log.debug("关闭工作进程连接失败: {}", e.getMessage());
+            }
+        }
+
+        @Override
+        public OutputStream getOutputStream() {
+            return OutputStream.nullOutputStream();
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return logInput;
+        }
+
+        @Override
+        public InputStream getErrorStream() {
+            return InputStream.nullInputStream();
+        }
+
+        @Override
+        public int waitFor() throws InterruptedException {
+            finished.await();
+            return exitCode;
+        }
+
+        @Override
+        public boolean waitFor(long timeout, TimeUnit unit) throws InterruptedException {
+            return finished.await(timeout, unit);
+        }
+
+        @Override
+        public int exitValue() {
+            if (finished.getCount() > 0) {
+                throw new IllegalThreadStateException("工作进程上的运行尚未结束");
+            }
+            return exitCode;
+        }
+
+        @Override
+        public boolean isAlive() {
+            return finished.getCount() > 0;
+        }
+
+        @Override
+        public long pid() {
+            return worker.process.pid();
+        }
+
+        /**
+         * 运行中终止：工作进程的状态已不可信，直接杀掉由进程池替换；运行已结束时不做任何事
+         */
+        @Override
+        public void destroy() {
+            if (isAlive()) {
+                if (!worker.hosted) {
+                    worker.process.destroyForcibly();
+                }
+                closeSocket();
+            }
+        }
+
+        @Override
+        public Process destroyForcibly() {
+            destroy();
+            return this;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package service;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import entity.FeatureFlag;
+import enums.PlanType;
+
+/**
+ * 编译后的功能开关判定器（不可变）
+ * 每个功能键分配一个下标，按套餐预先计算可用功能的位图，指定了目标用户的功能另存“用户 -> 位图”；
+ * 判定只做一次哈希查找和位图读取，不查库也不分配对象。功能开关变化时由参考数据缓存整体重新编译并替换
+ *
+ * 判定规则与{@link FeatureFlag#isUserAllowed}一致：功能已启用，目标套餐为空或包含该套餐，
+ * 目标用户为空或包含该用户
+ *
+ * @author ZhiTouJianLi Team
+ */
+public final class FeatureFlagEvaluator {
+
+    private static final PlanType[] PLANS = PlanType.values();
+    private static final Map<String, PlanType> PLAN_NAMES = new HashMap<>();
+
+    static {
+        for (PlanType plan : PLANS) {
+            PLAN_NAMES.put(plan.name(), plan);
+        }
+    }
+
+    private final Map<String, Integer> index = new HashMap<>();
+    private final BitSet enabled = new BitSet();
+    // 目标套餐为空（所有套餐可用）的已启用功能
+    private final BitSet openToAllPlans = new BitSet();
+    // 下标为PlanType.ordinal()
+    private final BitSet[] planFeatures = new BitSet[PLANS.length];
+    // 目标套餐中出现、但不属于PlanType的套餐名（例如旗舰版）
+    private final Map<String, BitSet> otherPlanFeatures = new HashMap<>();
+    // 限定了目标用户的功能，以及每个目标用户可用的这些功能
+    private final BitSet userRestricted = new BitSet();
+    private final Map<String, BitSet> userGrants = new HashMap<>();
+    // 下标对应的功能开关，以及按套餐预先筛选的功能列表
+    private final List<FeatureFlag> flags = new ArrayList<>();
+    private final List<List<FeatureFlag>> featuresByPlan = new ArrayList<>();
+    private final Map<String, List<FeatureFlag>> otherPlanFeatureLists = new HashMap<>();
+    private List<FeatureFlag> openFeatures = Collections.emptyList();
+
+    private FeatureFlagEvaluator() {
+    }
+
+    /**
+     * @param flags 全部功能开关（编译后不再读取这些对象的开关状态）
+     */
+    public static FeatureFlagEvaluator compile(Collection<FeatureFlag> flags) {
+        FeatureFlagEvaluator evaluator = new FeatureFlagEvaluator();
+        for (int i = 0; i < PLANS.length; i++) {
+            evaluator.planFeatures[i] = new BitSet();
+        }
+        for (FeatureFlag flag : flags) {
+            evaluator.add(flag);
+        }
+        for (PlanType plan : PLANS) {
+            evaluator.featuresByPlan.add(evaluator.select(evaluator.planFeatures[plan.ordinal()]));
+        }
+        evaluator.otherPlanFeatures.forEach((planName, features) ->
+            evaluator.otherPlanFeatureLists.put(planName, evaluator.select(features)));
+        evaluator.openFeatures = evaluator.select(evaluator.openToAllPlans);
+        return evaluator;
+    }
+
+    private void add(FeatureFlag flag) {
+        if (flag.getFeatureKey() == null || index.containsKey(flag.getFeatureKey())) {
+            return;
+        }
+        int bit = index.size();
+        index.put(flag.getFeatureKey(), bit);
+        flags.add(flag);
+        if (!Boolean.TRUE.equals(flag.getEnabled())) {
+            return;
+        }
+        enabled.set(bit);
+
+        List<String> targetPlans = flag.getTargetPlans();
+        if (targetPlans == null || targetPlans.isEmpty()) {
+            openToAllPlans.set(bit);
+            for (BitSet features : planFeatures) {
+                features.set(bit);
+            }
+            otherPlanFeatures.values().forEach(features -> features.set(bit));
+        } else {
+            for (String planName : targetPlans) {
+                PlanType plan = PLAN_NAMES.get(planName);
+                if (plan != null) {
+                    planFeatures[plan.ordinal()].set(bit);
+                } else if (planName != null) {
+                    otherPlanFeatures.computeIfAbsent(planName, name -> (BitSet) openToAllPlans.clone()).set(bit);
+                }
+            }
+        }
+
+        List<String> targetUsers = flag.getTargetUsers();
+        if (targetUsers != null && !targetUsers.isEmpty()) {
+            userRestricted.set(bit);
+            for (String userId : targetUsers) {
+                userGrants.computeIfAbsent(userId, id -> new BitSet()).set(bit);
+            }
+        }
+    }
+
+    private List<FeatureFlag> select(BitSet features) {
+        List<FeatureFlag> selected = new ArrayList<>();
+        for (int bit = features.nextSetBit(0); bit >= 0; bit = features.nextSetBit(bit + 1)) {
+            selected.add(flags.get(bit));
+        }
+        return Collections.unmodifiableList(selected);
+    }
+
+    /**
+     * @return 功能键是否存在
+     */
+    public boolean contains(String featureKey) {
+        return index.containsKey(featureKey);
+    }
+
+    /**
+     * @return 功能是否启用（不考虑套餐和用户）
+     */
+    public boolean isEnabled(String featureKey) {
+        Integer bit = index.get(featureKey);
+        return bit != null && enabled.get(bit);
+    }
+
+    /**
+     * @return 指定套餐的用户是否可以使用该功能
+     */
+    public boolean isAvailable(String featureKey, String userId, PlanType planType) {
+        Integer bit = index.get(featureKey);
+        return bit != null && planType != null && planFeatures[planType.ordinal()].get(bit) && userAllowed(bit, userId);
+    }
+
+    /**
+     * @param planType 套餐名（可以不属于PlanType）
+     */
+    public boolean isAvailable(String featureKey, String userId, String planType) {
+        Integer bit = index.get(featureKey);
+        return bit != null && planFeatures(planType).get(bit) && userAllowed(bit, userId);
+    }
+
+    /**
+     * @param planType 套餐名（可以不属于PlanType）
+     * @return 该套餐可用的功能（不考虑目标用户），不可修改
+     */
+    public List<FeatureFlag> featuresForPlan(String planType) {
+        PlanType plan = planType != null ? PLAN_NAMES.get(planType) : null;
+        if (plan != null) {
+            return featuresByPlan.get(plan.ordinal());
+        }
+        List<FeatureFlag> other = planType != null ? otherPlanFeatureLists.get(planType) : null;
+        return other != null ? other : openFeatures;
+    }
+
+    private BitSet planFeatures(String planType) {
+        PlanType plan = planType != null ? PLAN_NAMES.get(planType) : null;
+        if (plan != null) {
+            return planFeatures[plan.ordinal()];
+        }
+        BitSet other = planType != null ? otherPlanFeatures.get(planType) : null;
+        return other != null ? other : openToAllPlans;
+    }
+
+    private boolean userAllowed(int bit, String userId) {
+        if (!userRestricted.get(bit)) {
+            return true;
+        }
+        BitSet grants = userId != null ? userGrants.get(userId) : null;
+        return grants != null && grants.get(bit);
+    }
+}
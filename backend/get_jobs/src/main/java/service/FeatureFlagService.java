@@ -25,6 +25,10 @@ public class FeatureFlagService {
     @Autowired
     private FeatureFlagRepository featureFlagRepository;
 
+    // 参考数据快照：已加载时开关检查使用快照中编译好的判定器，不再逐次查库（管理接口的读写仍直接访问数据库，写入提交后使快照失效）
+    @Autowired(required = false)
+    private ReferenceDataCache referenceDataCache;
+
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     /**
@@ -34,6 +38,10 @@ public class FeatureFlagService {
      * @return 是否启用
      */
     public boolean isFeatureEnabled(String featureKey) {
+        FeatureFlagEvaluator evaluator = evaluator();
+        if (evaluator != null) {
+            return evaluator.isEnabled(featureKey);
+        }
         Optional<FeatureFlag> feature = featureFlagRepository.findByFeatureKey(featureKey);
         return feature.map(FeatureFlag::getEnabled).orElse(false);
     }
@@ -47,6 +55,10 @@ public class FeatureFlagService {
      * @return 是否可以使用
      */
     public boolean isFeatureAvailable(String featureKey, String userId, PlanType planType) {
+        FeatureFlagEvaluator evaluator = evaluator();
+        if (evaluator != null && evaluator.contains(featureKey)) {
+            return evaluator.isAvailable(featureKey, userId, planType);
+        }
         return isFeatureAvailable(featureKey, userId, planType.name());
     }
 
@@ -55,6 +67,15 @@ public class FeatureFlagService {
      */
     public boolean isFeatureAvailable(String featureKey, String userId, String planType) {
         try {
+            FeatureFlagEvaluator evaluator = evaluator();
+            if (evaluator != null) {
+                if (!evaluator.contains(featureKey)) {
+                    log.warn("⚠️ 功能不存在: {}", featureKey);
+                    return false;
+                }
+                return evaluator.isAvailable(featureKey, userId, planType);
+            }
+
             // 先尝试使用数据库查询（更高效）
             String planTypeJson = "[\"" + planType + "\"]";
             String userIdJson = "[\"" + userId + "\"]";
@@ -94,6 +115,11 @@ public class FeatureFlagService {
      */
     public List<FeatureFlag> getAvailableFeaturesByPlan(String planType) {
         try {
+            FeatureFlagEvaluator evaluator = evaluator();
+            if (evaluator != null) {
+                return evaluator.featuresForPlan(planType);
+            }
+
             // 将套餐类型转换为JSON字符串格式 ["PLAN_TYPE"]
             String planTypeJson = "[\"" + planType + "\"]";
             return featureFlagRepository.findEnabledByPlanType(planTypeJson);
@@ -125,7 +151,9 @@ public class FeatureFlagService {
         if (featureFlagRepository.existsByFeatureKey(feature.getFeatureKey())) {
             throw new IllegalArgumentException("功能键已存在: " + feature.getFeatureKey());
         }
-        return featureFlagRepository.save(feature);
+        FeatureFlag saved = featureFlagRepository.save(feature);
+        ReferenceDataCache.invalidateAfterCommit(referenceDataCache, "创建功能开关 " + saved.getFeatureKey());
+        return saved;
     }
 
     /**
@@ -136,7 +164,9 @@ public class FeatureFlagService {
         if (!featureFlagRepository.existsByFeatureKey(feature.getFeatureKey())) {
             throw new IllegalArgumentException("功能不存在: " + feature.getFeatureKey());
         }
-        return featureFlagRepository.save(feature);
+        FeatureFlag saved = featureFlagRepository.save(feature);
+        ReferenceDataCache.invalidateAfterCommit(referenceDataCache, "更新功能开关 " + saved.getFeatureKey());
+        return saved;
     }
 
     /**
@@ -148,7 +178,9 @@ public class FeatureFlagService {
                 .orElseThrow(() -> new IllegalArgumentException("功能不存在: " + featureKey));
 
         feature.setEnabled(!feature.getEnabled());
-        return featureFlagRepository.save(feature);
+        FeatureFlag saved = featureFlagRepository.save(feature);
+        ReferenceDataCache.invalidateAfterCommit(referenceDataCache, "切换功能开关 " + featureKey);
+        return saved;
     }
 
     /**
@@ -160,6 +192,7 @@ public class FeatureFlagService {
                 .orElseThrow(() -> new IllegalArgumentException("功能不存在: " + featureKey));
         feature.setEnabled(true);
         featureFlagRepository.save(feature);
+        ReferenceDataCache.invalidateAfterCommit(referenceDataCache, "启用功能开关 " + featureKey);
     }
 
     /**
@@ -171,6 +204,7 @@ public class FeatureFlagService {
                 .orElseThrow(() -> new IllegalArgumentException("功能不存在: " + featureKey));
         feature.setEnabled(false);
         featureFlagRepository.save(feature);
+        ReferenceDataCache.invalidateAfterCommit(referenceDataCache, "禁用功能开关 " + featureKey);
     }
 
     /**
@@ -181,9 +215,15 @@ public class FeatureFlagService {
         FeatureFlag feature = featureFlagRepository.findByFeatureKey(featureKey)
                 .orElseThrow(() -> new IllegalArgumentException("功能不存在: " + featureKey));
         featureFlagRepository.delete(feature);
+        ReferenceDataCache.invalidateAfterCommit(referenceDataCache, "删除功能开关 " + featureKey);
         log.info("✅ 功能开关删除成功: {}", featureKey);
     }
 
+    private FeatureFlagEvaluator evaluator() {
+        ReferenceDataCache.Snapshot reference = referenceDataCache != null ? referenceDataCache.current() : null;
+        return reference != null ? reference.featureFlags() : null;
+    }
+
     /**
      * 获取所有功能列表
      */
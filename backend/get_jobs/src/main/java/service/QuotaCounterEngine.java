@@ -0,0 +1,506 @@
+package service;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import enums.PlanType;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * 配额计数引擎（写回缓存）
+ * 每个（用户, 配额, 周期）在内存中维护一个计数器，检查和消费只读写内存（比较并交换，不加锁也不查库）；
+ * 增量由定时任务写回user_quota_usage，每个计数器一条INSERT ... ON CONFLICT DO UPDATE原子累加，
+ * 并用数据库返回的总量校正内存中的基数。应用启动完成后从user_quota_usage重建当天的计数器
+ *
+ * 引擎之外写入的使用量（其他实例、Boss子进程在租约通道不可用时的直连写入）在每个写回周期对账：
+ * 一次查询读取当天全部使用记录，没有待写回增量的计数器用数据库中的值校正基数
+ *
+ * 严格模式（付费套餐）：有限配额的消费直接写数据库，由带上限条件的原子累加保证不会超额
+ * （多实例部署时同样成立）；免费套餐走写回路径，进程崩溃时最多丢失一个写回周期的计数
+ *
+ * 周期与原有实现一致：使用记录按reset_date = 当天归档
+ *
+ * 配置：
+ * - quota.counters.enabled：是否启用，默认true；关闭或唯一索引无法建立时QuotaService按原方式逐次查库
+ * - quota.counters.flush-interval-ms：写回间隔，默认1000
+ * - quota.counters.strict-paid-plans：付费套餐严格模式，默认true
+ *
+ * @author ZhiTouJianLi Team
+ */
+@Service
+public class QuotaCounterEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(QuotaCounterEngine.class);
+
+    /**
+     * 严格模式下条件累加因并发失败后的重试次数（发放租约时）
+     */
+    private static final int STRICT_RETRIES = 3;
+
+    @Value("${quota.counters.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${quota.counters.strict-paid-plans:true}")
+    private boolean strictPaidPlans = true;
+
+    private final UsageStore store;
+    private final Supplier<LocalDate> today;
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    // 基数每次从数据库更新时递增，对账时只校正查询开始前更新过的计数器
+    private final AtomicLong baseSequence = new AtomicLong();
+    private volatile boolean ready;
+
+    @Autowired
+    public QuotaCounterEngine(JdbcTemplate jdbcTemplate) {
+        this(new JdbcUsageStore(jdbcTemplate), LocalDate::now);
+    }
+
+    QuotaCounterEngine(UsageStore store, Supplier<LocalDate> today) {
+        this.store = store;
+        this.today = today;
+    }
+
+    /**
+     * 应用启动完成（Hibernate已建好表）后建立唯一索引并重建当天的计数器
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            log.info("配额计数引擎未启用（quota.counters.enabled=false），配额检查逐次查询数据库");
+            return;
+        }
+        try {
+            store.prepare();
+            LocalDate period = today.get();
+            store.loadPeriod(period, (userId, quotaId, used) ->
+                counters.put(key(userId, quotaId, period), new Counter(userId, quotaId, period, used)));
+            ready = true;
+            log.info("✅ 配额计数引擎已启动: 从user_quota_usage重建{}个计数器, 付费套餐严格模式={}",
+                counters.size(), strictPaidPlans);
+        } catch (Exception e) {
+            log.error("❌ 配额计数引擎启动失败，配额检查将逐次查询数据库: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (ready) {
+            flush();
+            ready = false;
+        }
+    }
+
+    /**
+     * @return 是否已就绪（未就绪时调用方按原方式查库）
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * @param planType 套餐类型
+     * @return 该套餐的有限配额是否使用严格模式
+     */
+    public boolean isStrict(PlanType planType) {
+        return strictPaidPlans && planType != null && planType != PlanType.FREE;
+    }
+
+    /**
+     * @return 当前周期的已使用量（包括尚未写回的增量）
+     */
+    public long used(String userId, long quotaId) {
+        return counter(userId, quotaId).used();
+    }
+
+    /**
+     * 在不超过上限的前提下消费
+     *
+     * @return true表示已计入；false表示配额不足
+     */
+    public boolean tryConsume(String userId, long quotaId, long amount, long limit, boolean strict) {
+        Counter counter = counter(userId, quotaId);
+        if (!strict) {
+            return counter.tryAdd(amount, limit);
+        }
+        synchronized (counter) {
+            return strictAdd(counter, amount, limit);
+        }
+    }
+
+    /**
+     * 在不超过上限的前提下尽量多地消费（用于发放配额租约）
+     *
+     * @return 实际计入的数量，可能为0
+     */
+    public long consumeUpTo(String userId, long quotaId, long maxAmount, long limit, boolean strict) {
+        Counter counter = counter(userId, quotaId);
+        if (!strict) {
+            return counter.addUpTo(maxAmount, limit);
+        }
+        synchronized (counter) {
+            for (int attempt = 0; attempt < STRICT_RETRIES; attempt++) {
+                long granted = Math.max(0L, Math.min(maxAmount, limit - counter.used()));
+                if (granted == 0) {
+                    return 0L;
+                }
+                if (strictAdd(counter, granted, limit)) {
+                    return granted;
+                }
+            }
+            return 0L;
+        }
+    }
+
+    /**
+     * 不检查上限直接计入（无限配额仍记录使用量）
+     */
+    public void record(String userId, long quotaId, long amount, boolean strict) {
+        Counter counter = counter(userId, quotaId);
+        if (!strict) {
+            counter.pending.addAndGet(amount);
+            return;
+        }
+        synchronized (counter) {
+            setBase(counter, store.add(userId, quotaId, counter.period, amount));
+        }
+    }
+
+    /**
+     * 退回已计入的数量（不会退到0以下）
+     *
+     * @return 实际退回的数量
+     */
+    public long refund(String userId, long quotaId, long amount, boolean strict) {
+        Counter counter = counter(userId, quotaId);
+        if (!strict) {
+            return counter.subtractUpTo(amount);
+        }
+        synchronized (counter) {
+            long refund = Math.max(0L, Math.min(amount, counter.used()));
+            if (refund > 0) {
+                setBase(counter, store.add(userId, quotaId, counter.period, -refund));
+            }
+            return refund;
+        }
+    }
+
+    /**
+     * 把尚未写回的增量写入数据库，用数据库中的使用量校正其他计数器，并清理已过周期的计数器
+     */
+    @Scheduled(fixedDelayString = "${quota.counters.flush-interval-ms:1000}")
+    public void flush() {
+        if (!ready) {
+            return;
+        }
+        LocalDate current = today.get();
+        // 先取序号再查询：查询开始后才更新过基数的计数器不用查询结果校正
+        long snapshotSequence = baseSequence.get();
+        Map<String, Long> stored = loadForReconcile(current);
+        int flushed = 0;
+        int failed = 0;
+        for (Iterator<Map.Entry<String, Counter>> it = counters.entrySet().iterator(); it.hasNext();) {
+            Map.Entry<String, Counter> entry = it.next();
+            Counter counter = entry.getValue();
+            try {
+                if (writeBack(counter)) {
+                    flushed++;
+                } else if (stored != null) {
+                    reconcile(counter, stored.get(entry.getKey()), snapshotSequence);
+                }
+                if (counter.period.isBefore(current) && counters.remove(entry.getKey(), counter)) {
+                    // 移除前已取得该计数器的线程可能又计入了增量
+                    writeBack(counter);
+                }
+            } catch (Exception e) {
+                failed++;
+                log.warn("配额计数写回失败，下个周期重试: userId={}, quotaId={}, pending={}, error={}",
+                    counter.userId, counter.quotaId, counter.pending.get(), e.getMessage());
+            }
+        }
+        if (flushed > 0 || failed > 0) {
+            log.debug("📝 配额计数写回: 成功{}个, 失败{}个", flushed, failed);
+        }
+    }
+
+    /**
+     * 读取当前周期的全部使用记录（失败时本周期不对账）
+     */
+    private Map<String, Long> loadForReconcile(LocalDate period) {
+        try {
+            Map<String, Long> stored = new HashMap<>();
+            store.loadPeriod(period, (userId, quotaId, used) -> stored.put(key(userId, quotaId, period), used));
+            return stored;
+        } catch (Exception e) {
+            log.warn("配额使用量对账查询失败，下个周期重试: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 用对账查询的结果校正基数：查询开始后基数已从数据库更新过的计数器（写回、严格模式写入）不再校正
+     * 只有写回路径的增量不在数据库中，基数+增量仍是准确的已使用量
+     */
+    private void reconcile(Counter counter, Long storedUsed, long snapshotSequence) {
+        if (storedUsed == null || counter.base == storedUsed) {
+            return;
+        }
+        synchronized (counter) {
+            if (counter.baseSequence <= snapshotSequence && counter.base != storedUsed) {
+                log.debug("配额使用量对账: userId={}, quotaId={}, {} -> {}",
+                    counter.userId, counter.quotaId, counter.base, storedUsed);
+                counter.base = storedUsed;
+            }
+        }
+    }
+
+    /**
+     * 用数据库返回的值更新基数（调用方持有计数器锁）
+     */
+    private void setBase(Counter counter, long base) {
+        counter.base = base;
+        counter.baseSequence = baseSequence.incrementAndGet();
+    }
+
+    private boolean writeBack(Counter counter) {
+        if (counter.pending.get() == 0) {
+            return false;
+        }
+        synchronized (counter) {
+            long pending = counter.pending.get();
+            if (pending == 0) {
+                return false;
+            }
+            // 先更新基数再扣除已写回的增量：中间状态只会多算，不会少算
+            setBase(counter, store.add(counter.userId, counter.quotaId, counter.period, pending));
+            counter.pending.addAndGet(-pending);
+            return true;
+        }
+    }
+
+    /**
+     * 严格模式累加（调用方持有计数器锁）：尚未写回的增量计入上限，数据库拒绝时用数据库中的值校正基数
+     */
+    private boolean strictAdd(Counter counter, long amount, long limit) {
+        Long total = store.addWithin(counter.userId, counter.quotaId, counter.period, amount,
+            limit - counter.pending.get());
+        if (total == null) {
+            setBase(counter, store.load(counter.userId, counter.quotaId, counter.period));
+            return false;
+        }
+        setBase(counter, total);
+        return true;
+    }
+
+    private Counter counter(String userId, long quotaId) {
+        LocalDate period = today.get();
+        String key = key(userId, quotaId, period);
+        Counter counter = counters.get(key);
+        if (counter == null) {
+            // 启动后新出现的（用户, 配额, 周期）：从数据库读取一次基数
+            Counter loaded = new Counter(userId, quotaId, period, store.load(userId, quotaId, period));
+            loaded.baseSequence = baseSequence.incrementAndGet();
+            counter = counters.putIfAbsent(key, loaded);
+            if (counter == null) {
+                counter = loaded;
+            }
+        }
+        return counter;
+    }
+
+    private static String key(String userId, long quotaId, LocalDate period) {
+        return userId + "|" + quotaId + "|" + period;
+    }
+
+    /**
+     * 一个（用户, 配额, 周期）的计数：已使用量 = 数据库中的基数 + 尚未写回的增量
+     * 写回路径的消费只对增量做比较并交换（先读增量再读基数）；基数只在持有计数器锁时更新
+     */
+    private static final class Counter {
+        private final String userId;
+        private final long quotaId;
+        private final LocalDate period;
+        private final AtomicLong pending = new AtomicLong();
+        private volatile long base;
+        // 基数最近一次从数据库更新时的序号（由计数器锁保护）
+        private long baseSequence;
+
+        Counter(String userId, long quotaId, LocalDate period, long base) {
+            this.userId = userId;
+            this.quotaId = quotaId;
+            this.period = period;
+            this.base = base;
+        }
+
+        long used() {
+            long p = pending.get();
+            return base + p;
+        }
+
+        boolean tryAdd(long amount, long limit) {
+            while (true) {
+                long p = pending.get();
+                if (base + p + amount > limit) {
+                    return false;
+                }
+                if (pending.compareAndSet(p, p + amount)) {
+                    return true;
+                }
+            }
+        }
+
+        long addUpTo(long maxAmount, long limit) {
+            while (true) {
+                long p = pending.get();
+                long granted = Math.max(0L, Math.min(maxAmount, limit - base - p));
+                if (granted == 0 || pending.compareAndSet(p, p + granted)) {
+                    return granted;
+                }
+            }
+        }
+
+        long subtractUpTo(long amount) {
+            while (true) {
+                long p = pending.get();
+                long refund = Math.max(0L, Math.min(amount, base + p));
+                if (refund == 0 || pending.compareAndSet(p, p - refund)) {
+                    return refund;
+                }
+            }
+        }
+    }
+
+    /**
+     * 使用量存储（user_quota_usage）
+     */
+    interface UsageStore {
+
+        /**
+         * 确保(user_id, quota_id, reset_date)唯一，ON CONFLICT依赖该索引
+         */
+        void prepare();
+
+        void loadPeriod(LocalDate period, UsageConsumer consumer);
+
+        long load(String userId, long quotaId, LocalDate period);
+
+        /**
+         * 原子累加（结果不小于0）
+         *
+         * @return 累加后的总量
+         */
+        long add(String userId, long quotaId, LocalDate period, long delta);
+
+        /**
+         * 累加后不超过limit时才原子累加
+         *
+         * @return 累加后的总量；会超过limit时返回null
+         */
+        Long addWithin(String userId, long quotaId, LocalDate period, long delta, long limit);
+    }
+
+    interface UsageConsumer {
+        void accept(String userId, long quotaId, long used);
+    }
+
+    /**
+     * 基于PostgreSQL的使用量存储
+     */
+    static final class JdbcUsageStore implements UsageStore {
+
+        private static final String INDEX_NAME = "uk_user_quota_usage_period";
+        private static final String PERIOD_INDEX_NAME = "idx_user_quota_usage_reset_date";
+
+        private static final String UPSERT =
+            "INSERT INTO user_quota_usage (user_id, quota_id, used_amount, reset_date, created_at, updated_at) "
+                + "VALUES (?, ?, GREATEST(?, 0), ?, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP) "
+                + "ON CONFLICT (user_id, quota_id, reset_date) DO UPDATE "
+                + "SET used_amount = GREATEST(user_quota_usage.used_amount + ?, 0), updated_at = CURRENT_TIMESTAMP ";
+
+        private final JdbcTemplate jdbcTemplate;
+
+        JdbcUsageStore(JdbcTemplate jdbcTemplate) {
+            this.jdbcTemplate = jdbcTemplate;
+        }
+
+        @Override
+        public void prepare() {
+            // 每个写回周期按reset_date读取当天的使用记录对账
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS " + PERIOD_INDEX_NAME
+                + " ON user_quota_usage (reset_date)");
+            Integer existing = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM pg_indexes WHERE tablename = 'user_quota_usage' AND indexname = ?",
+                Integer.class, INDEX_NAME);
+            if (existing != null && existing > 0) {
+                return;
+            }
+            // 原有的“查询不到就插入”存在并发重复记录，建索引前合并到id最小的一条
+            int merged = jdbcTemplate.update(
+                "UPDATE user_quota_usage k SET used_amount = d.total FROM ("
+                    + "SELECT MIN(id) AS id, SUM(used_amount) AS total FROM user_quota_usage "
+                    + "GROUP BY user_id, quota_id, reset_date HAVING COUNT(*) > 1) d WHERE k.id = d.id");
+            if (merged > 0) {
+                int removed = jdbcTemplate.update(
+                    "DELETE FROM user_quota_usage a USING user_quota_usage b "
+                        + "WHERE a.user_id = b.user_id AND a.quota_id = b.quota_id "
+                        + "AND a.reset_date = b.reset_date AND a.id > b.id");
+                log.warn("⚠️ 合并了{}组重复的配额使用记录（删除{}条）", merged, removed);
+            }
+            jdbcTemplate.execute("CREATE UNIQUE INDEX IF NOT EXISTS " + INDEX_NAME
+                + " ON user_quota_usage (user_id, quota_id, reset_date)");
+            log.info("✅ 已建立配额使用记录唯一索引: {}", INDEX_NAME);
+        }
+
+        @Override
+        public void loadPeriod(LocalDate period, UsageConsumer consumer) {
+            jdbcTemplate.query(
+                "SELECT user_id, quota_id, used_amount FROM user_quota_usage WHERE reset_date = ?",
+                rs -> {
+                    consumer.accept(rs.getString("user_id"), rs.getLong("quota_id"), rs.getLong("used_amount"));
+                },
+                period);
+        }
+
+        @Override
+        public long load(String userId, long quotaId, LocalDate period) {
+            List<Long> used = jdbcTemplate.queryForList(
+                "SELECT used_amount FROM user_quota_usage WHERE user_id = ? AND quota_id = ? AND reset_date = ?",
+                Long.class, userId, quotaId, period);
+            return used.isEmpty() || used.get(0) == null ? 0L : used.get(0);
+        }
+
+        @Override
+        public long add(String userId, long quotaId, LocalDate period, long delta) {
+            Long total = jdbcTemplate.queryForObject(UPSERT + "RETURNING used_amount",
+                Long.class, userId, quotaId, delta, period, delta);
+            return total != null ? total : 0L;
+        }
+
+        @Override
+        public Long addWithin(String userId, long quotaId, LocalDate period, long delta, long limit) {
+            if (delta > limit) {
+                return null;
+            }
+            // 冲突且累加后超过上限时不更新，也不返回行
+            List<Long> total = jdbcTemplate.queryForList(
+                UPSERT + "WHERE user_quota_usage.used_amount + ? <= ? RETURNING used_amount",
+                Long.class, userId, quotaId, delta, period, delta, delta, limit);
+            return total.isEmpty() ? null : total.get(0);
+        }
+    }
+}
@@ -34,8 +34,12 @@ import repository.UserQuotaUsageRepository;
 @Service
 public class QuotaService {
 
-    // 缓存用户套餐信息
+    // 缓存用户套餐信息（参考数据版本号变化时清空，管理员修改套餐后其他实例也能看到）
     private final Map<String, UserPlan> userPlanCache = new ConcurrentHashMap<>();
+    private volatile long userPlanCacheVersion = -1L;
+
+    // 同一用户同一配额的检查+更新串行执行（计数引擎未就绪时的消费，以及租约发放和归还）
+    private final Map<String, Object> usageLocks = new ConcurrentHashMap<>();
 
     @Autowired
     private QuotaDefinitionRepository quotaDefinitionRepository;
@@ -49,6 +53,14 @@ public class QuotaService {
     @Autowired
     private UserPlanRepository userPlanRepository;
 
+    // 内存计数引擎：就绪后使用量的检查和消费不再逐次查库，未就绪时按原方式读写user_quota_usage
+    @Autowired(required = false)
+    private QuotaCounterEngine quotaCounterEngine;
+
+    // 参考数据快照：已加载时配额定义和套餐配额配置不再逐次查库
+    @Autowired(required = false)
+    private ReferenceDataCache referenceDataCache;
+
     /**
      * 检查用户配额是否足够
      *
@@ -102,8 +114,7 @@ public class QuotaService {
             }
 
             // 5. 获取当前使用量
-            UserQuotaUsage currentUsage = getCurrentUsage(userId, quotaDefinition.getId());
-            long usedAmount = currentUsage != null ? currentUsage.getUsedAmount() : 0L;
+            long usedAmount = currentUsed(userId, quotaId);
             long limit = planConfig.getEffectiveLimit();
 
             boolean canUse = (usedAmount + requestAmount) <= limit;
@@ -133,15 +144,22 @@ public class QuotaService {
         try {
             log.debug("🔥 消费配额: userId={}, quotaKey={}, amount={}", userId, quotaKey, amount);
 
-            // 1. 检查配额是否足够
-            if (!checkQuotaLimit(userId, quotaKey, amount)) {
-                throw new QuotaExceededException(
-                    String.format("配额不足，无法使用 %d %s。请升级套餐或等待配额重置。",
-                        amount, quotaKey));
-            }
+            if (countersReady()) {
+                // 检查和计入在计数器上一次原子完成
+                if (!consumeCounted(userId, quotaKey, amount)) {
+                    throw quotaExceeded(quotaKey, amount);
+                }
+            } else {
+                synchronized (usageLock(userId, quotaKey)) {
+                    // 1. 检查配额是否足够
+                    if (!checkQuotaLimit(userId, quotaKey, amount)) {
+                        throw quotaExceeded(quotaKey, amount);
+                    }
 
-            // 2. 更新使用量
-            updateUsage(userId, quotaKey, amount);
+                    // 2. 更新使用量
+                    updateUsage(userId, quotaKey, amount);
+                }
+            }
 
             log.info("✅ 配额消费成功: userId={}, quotaKey={}, amount={}", userId, quotaKey, amount);
 
@@ -155,6 +173,108 @@ public class QuotaService {
         }
     }
 
+    /**
+     * 发放配额租约：一次预先消费最多maxUnits个单位交给Boss子进程在内存中使用，未用完的通过
+     * {@link #returnLeasedQuota}归还。只发放剩余额度以内的单位，配额限制保持严格
+     * （配额定义不存在或套餐未配置时不发放，与子进程直接查库时的行为一致）
+     *
+     * @param userId 用户ID
+     * @param quotaKey 配额键
+     * @param maxUnits 最多发放的单位数
+     * @return 租约，不会为null
+     */
+    public QuotaLease leaseQuota(String userId, String quotaKey, long maxUnits) {
+        synchronized (usageLock(userId, quotaKey)) {
+            try {
+                UserPlan userPlan = getUserCurrentPlan(userId);
+                if (userPlan == null || !userPlan.isValid()) {
+                    userPlan = createDefaultFreePlan(userId);
+                }
+                QuotaDefinition quotaDefinition = getQuotaDefinition(quotaKey);
+                if (quotaDefinition == null || quotaDefinition.getId() == null) {
+                    log.warn("⚠️ 配额定义不存在，不发放租约: quotaKey={}", quotaKey);
+                    return new QuotaLease(0L, false, 0L, 0L);
+                }
+                PlanQuotaConfig planConfig = getPlanQuotaConfig(userPlan.getPlanType(), quotaDefinition.getId());
+                if (planConfig == null || !Boolean.TRUE.equals(planConfig.getIsEnabled())) {
+                    log.warn("⚠️ 套餐配额配置不存在或未启用，不发放租约: planType={}, quotaKey={}",
+                        userPlan.getPlanType(), quotaKey);
+                    return new QuotaLease(0L, false, 0L, 0L);
+                }
+
+                long usedAmount = currentUsed(userId, quotaDefinition.getId());
+                if (planConfig.isUnlimited()) {
+                    return new QuotaLease(0L, true, usedAmount, Long.MAX_VALUE);
+                }
+
+                long limit = planConfig.getEffectiveLimit();
+                long granted;
+                if (countersReady()) {
+                    granted = quotaCounterEngine.consumeUpTo(userId, quotaDefinition.getId(), maxUnits, limit,
+                        quotaCounterEngine.isStrict(userPlan.getPlanType()));
+                } else {
+                    granted = Math.max(0L, Math.min(maxUnits, limit - usedAmount));
+                    if (granted > 0) {
+                        updateUsage(userId, quotaKey, granted);
+                    }
+                }
+                log.info("📜 发放配额租约: userId={}, quotaKey={}, granted={}, used={}, limit={}",
+                    userId, quotaKey, granted, usedAmount, limit);
+                return new QuotaLease(granted, false, usedAmount, limit);
+            } catch (Exception e) {
+                log.error("❌ 发放配额租约异常: userId={}, quotaKey={}", userId, quotaKey, e);
+                return new QuotaLease(0L, false, 0L, 0L);
+            }
+        }
+    }
+
+    /**
+     * 归还租约中未使用的单位（只归还当天发放的租约）
+     *
+     * @param userId 用户ID
+     * @param quotaKey 配额键
+     * @param units 未使用的单位数
+     */
+    public void returnLeasedQuota(String userId, String quotaKey, long units) {
+        if (units <= 0) {
+            return;
+        }
+        synchronized (usageLock(userId, quotaKey)) {
+            QuotaDefinition quotaDefinition = getQuotaDefinition(quotaKey);
+            if (quotaDefinition == null || quotaDefinition.getId() == null) {
+                return;
+            }
+            if (countersReady()) {
+                long refund = quotaCounterEngine.refund(userId, quotaDefinition.getId(), units,
+                    quotaCounterEngine.isStrict(currentPlanType(userId)));
+                log.info("↩️ 归还配额租约: userId={}, quotaKey={}, units={}", userId, quotaKey, refund);
+                return;
+            }
+            UserQuotaUsage usage = getCurrentUsage(userId, quotaDefinition.getId());
+            long refund = usage != null && usage.getUsedAmount() != null
+                ? Math.min(units, usage.getUsedAmount()) : 0L;
+            if (refund > 0) {
+                updateUsage(userId, quotaKey, -refund);
+                log.info("↩️ 归还配额租约: userId={}, quotaKey={}, units={}", userId, quotaKey, refund);
+            }
+        }
+    }
+
+    /**
+     * 获取当前周期的已使用量
+     *
+     * @param userId 用户ID
+     * @param quotaKey 配额键
+     * @return 已使用量，配额定义不存在时返回0
+     */
+    public long getUsedAmount(String userId, String quotaKey) {
+        QuotaDefinition quotaDefinition = getQuotaDefinition(quotaKey);
+        if (quotaDefinition == null || quotaDefinition.getId() == null) {
+            return 0L;
+        }
+        return currentUsed(userId, quotaDefinition.getId());
+    }
+
     /**
      * 获取用户配额使用详情
      *
@@ -180,8 +300,7 @@ public class QuotaService {
                 if (quotaDefinition != null && quotaDefinition.getId() != null) {
                     PlanQuotaConfig planConfig = getPlanQuotaConfig(userPlan.getPlanType(), quotaDefinition.getId());
                     if (planConfig != null) {
-                        UserQuotaUsage usage = getCurrentUsage(userId, quotaDefinition.getId());
-                        long usedAmount = usage != null ? usage.getUsedAmount() : 0L;
+                        long usedAmount = currentUsed(userId, quotaDefinition.getId());
 
                         QuotaUsageDetail detail = new QuotaUsageDetail();
                         detail.setQuotaKey(quotaKey);
@@ -250,13 +369,86 @@ public class QuotaService {
         }
     }
 
+    /**
+     * 用户套餐变化后清除本实例的套餐缓存，并在事务提交后通过参考数据版本号通知其他实例
+     *
+     * @param userId 用户ID
+     */
+    public void evictUserPlan(String userId) {
+        userPlanCache.remove(userId);
+        ReferenceDataCache.invalidateAfterCommit(referenceDataCache, "修改用户套餐 " + userId);
+    }
+
     // ==================== 私有方法 ====================
 
+    private boolean countersReady() {
+        return quotaCounterEngine != null && quotaCounterEngine.isReady();
+    }
+
+    /**
+     * 当前周期的已使用量：计数引擎就绪时读内存，否则查库
+     */
+    private long currentUsed(String userId, Long quotaId) {
+        if (countersReady()) {
+            return quotaCounterEngine.used(userId, quotaId);
+        }
+        UserQuotaUsage usage = getCurrentUsage(userId, quotaId);
+        return usage != null && usage.getUsedAmount() != null ? usage.getUsedAmount() : 0L;
+    }
+
+    /**
+     * 通过计数引擎检查并消费配额（与checkQuotaLimit + updateUsage的判定一致）
+     *
+     * @return false表示配额不足
+     */
+    private boolean consumeCounted(String userId, String quotaKey, long amount) {
+        try {
+            PlanType planType = currentPlanType(userId);
+            QuotaDefinition quotaDefinition = getQuotaDefinition(quotaKey);
+            if (quotaDefinition == null || quotaDefinition.getId() == null) {
+                log.warn("⚠️ 配额定义不存在: quotaKey={}，使用默认配额（临时方案）", quotaKey);
+                return true;
+            }
+            Long quotaId = quotaDefinition.getId();
+            PlanQuotaConfig planConfig = getPlanQuotaConfig(planType, quotaId);
+            if (planConfig == null || !Boolean.TRUE.equals(planConfig.getIsEnabled()) || planConfig.isUnlimited()) {
+                // 不限制，但仍记录使用量（无上限可超，走写回路径）
+                quotaCounterEngine.record(userId, quotaId, amount, false);
+                return true;
+            }
+            return quotaCounterEngine.tryConsume(userId, quotaId, amount, planConfig.getEffectiveLimit(),
+                quotaCounterEngine.isStrict(planType));
+        } catch (Exception e) {
+            // 与checkQuotaLimit一致：异常时不阻塞用户（临时方案）
+            log.error("❌ 配额计数异常: userId={}, quotaKey={}", userId, quotaKey, e);
+            return true;
+        }
+    }
+
+    private PlanType currentPlanType(String userId) {
+        UserPlan userPlan = getUserCurrentPlan(userId);
+        if (userPlan == null || !userPlan.isValid()) {
+            userPlan = createDefaultFreePlan(userId);
+        }
+        return userPlan.getPlanType();
+    }
+
+    private static QuotaExceededException quotaExceeded(String quotaKey, long amount) {
+        return new QuotaExceededException(
+            String.format("配额不足，无法使用 %d %s。请升级套餐或等待配额重置。", amount, quotaKey));
+    }
+
     /**
      * 获取用户当前套餐
      * ✅ 修复：实现数据库查询逻辑
      */
     private UserPlan getUserCurrentPlan(String userId) {
+        long referenceVersion = referenceDataCache != null ? referenceDataCache.version() : -1L;
+        if (referenceVersion != userPlanCacheVersion) {
+            userPlanCache.clear();
+            userPlanCacheVersion = referenceVersion;
+        }
+
         // 先从缓存获取
         UserPlan cachedPlan = userPlanCache.get(userId);
         if (cachedPlan != null && cachedPlan.isValid()) {
@@ -311,6 +503,10 @@ public class QuotaService {
      * ✅ 修复：实现数据库查询逻辑
      */
     private QuotaDefinition getQuotaDefinition(String quotaKey) {
+        ReferenceDataCache.Snapshot reference = referenceData();
+        if (reference != null) {
+            return reference.activeQuotaDefinition(quotaKey);
+        }
         try {
             Optional<QuotaDefinition> quotaOpt = quotaDefinitionRepository
                 .findByQuotaKeyAndIsActive(quotaKey, true);
@@ -334,15 +530,14 @@ public class QuotaService {
      */
     private PlanQuotaConfig getPlanQuotaConfig(PlanType planType, Long quotaId) {
         try {
-            Optional<PlanQuotaConfig> configOpt = planQuotaConfigRepository
-                .findByPlanTypeAndQuotaIdAndIsEnabled(planType, quotaId, true);
+            Optional<PlanQuotaConfig> configOpt = findEnabledPlanQuotaConfig(planType, quotaId);
 
             if (configOpt.isPresent()) {
                 PlanQuotaConfig dbConfig = configOpt.get();
 
                 // ✅ 修复：对于极速上岸版，验证并修复错误的配额配置
                 if (planType == PlanType.PROFESSIONAL) {
-                    QuotaDefinition quotaDefinition = quotaDefinitionRepository.findById(quotaId).orElse(null);
+                    QuotaDefinition quotaDefinition = findQuotaDefinitionById(quotaId);
                     if (quotaDefinition != null) {
                         String quotaKey = quotaDefinition.getQuotaKey();
 
@@ -373,6 +568,30 @@ public class QuotaService {
         }
     }
 
+    private ReferenceDataCache.Snapshot referenceData() {
+        return referenceDataCache != null ? referenceDataCache.current() : null;
+    }
+
+    private Optional<PlanQuotaConfig> findEnabledPlanQuotaConfig(PlanType planType, Long quotaId) {
+        ReferenceDataCache.Snapshot reference = referenceData();
+        if (reference != null) {
+            return Optional.ofNullable(reference.enabledPlanQuotaConfig(planType, quotaId));
+        }
+        return planQuotaConfigRepository.findByPlanTypeAndQuotaIdAndIsEnabled(planType, quotaId, true);
+    }
+
+    private QuotaDefinition findQuotaDefinitionById(Long quotaId) {
+        ReferenceDataCache.Snapshot reference = referenceData();
+        if (reference != null) {
+            return reference.quotaDefinition(quotaId);
+        }
+        return quotaDefinitionRepository.findById(quotaId).orElse(null);
+    }
+
+    private Object usageLock(String userId, String quotaKey) {
+        return usageLocks.computeIfAbsent(userId + "|" + quotaKey, key -> new Object());
+    }
+
     /**
      * 获取默认套餐配额配置（硬编码fallback）
      *
@@ -380,7 +599,7 @@ public class QuotaService {
      */
     private PlanQuotaConfig getDefaultPlanQuotaConfig(PlanType planType, Long quotaId) {
         // 根据quotaId获取quotaKey（需要先查询QuotaDefinition）
-        QuotaDefinition quotaDefinition = quotaDefinitionRepository.findById(quotaId).orElse(null);
+        QuotaDefinition quotaDefinition = findQuotaDefinitionById(quotaId);
         if (quotaDefinition == null) {
             log.warn("⚠️ 配额定义不存在: quotaId={}，无法确定默认配置", quotaId);
             return null;
@@ -547,6 +766,34 @@ public class QuotaService {
         public void setNextResetDate(LocalDate nextResetDate) { this.nextResetDate = nextResetDate; }
     }
 
+    /**
+     * 配额租约
+     */
+    public static final class QuotaLease {
+        private final long granted;
+        private final boolean unlimited;
+        private final long usedBefore;
+        private final long limit;
+
+        public QuotaLease(long granted, boolean unlimited, long usedBefore, long limit) {
+            this.granted = granted;
+            this.unlimited = unlimited;
+            this.usedBefore = usedBefore;
+            this.limit = limit;
+        }
+
+        /** 本次发放的单位数（无限配额时为0） */
+        public long getGranted() { return granted; }
+
+        /** 是否为无限配额（无需计数） */
+        public boolean isUnlimited() { return unlimited; }
+
+        /** 发放前的已使用量 */
+        public long getUsedBefore() { return usedBefore; }
+
+        public long getLimit() { return limit; }
+    }
+
     /**
      * 配额超限异常
      */
@@ -0,0 +1,279 @@
+package service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import entity.FeatureFlag;
+import entity.PlanQuotaConfig;
+import entity.QuotaDefinition;
+import entity.SystemConfig;
+import enums.PlanType;
+import repository.FeatureFlagRepository;
+import repository.PlanQuotaConfigRepository;
+import repository.QuotaDefinitionRepository;
+import repository.SystemConfigRepository;
+
+/**
+ * 参考数据缓存（配额定义、套餐配额配置、功能开关、系统配置）
+ * 这些数据只在管理员修改时变化：整体加载为一个不可变快照，读取时不访问数据库；
+ * 各服务的写入方法在事务提交后调用{@link #invalidate}递增数据库中的版本号并重新加载，
+ * 其他实例定时比对版本号，发现变化后重新加载（直接改库时由最长缓存时间兜底）
+ *
+ * 快照中的实体只读，需要修改时从Repository重新查询
+ *
+ * 配置：
+ * - reference-data.cache.enabled：是否启用，默认true；未启用或尚未加载时各服务按原方式查库
+ * - reference-data.cache.poll-interval-ms：检查版本号的间隔，默认5000
+ * - reference-data.cache.max-age-minutes：版本号未变化时的最长缓存时间，默认10
+ *
+ * @author ZhiTouJianLi Team
+ */
+@Service
+public class ReferenceDataCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ReferenceDataCache.class);
+
+    @Value("${reference-data.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${reference-data.cache.max-age-minutes:10}")
+    private long maxAgeMinutes;
+
+    @Autowired
+    private QuotaDefinitionRepository quotaDefinitionRepository;
+
+    @Autowired
+    private PlanQuotaConfigRepository planQuotaConfigRepository;
+
+    @Autowired
+    private FeatureFlagRepository featureFlagRepository;
+
+    @Autowired
+    private SystemConfigRepository systemConfigRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private volatile Snapshot snapshot;
+
+    /**
+     * 应用启动完成（初始数据已写入）后加载第一个快照
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            log.info("参考数据缓存未启用（reference-data.cache.enabled=false），配额定义和功能开关逐次查询数据库");
+            return;
+        }
+        try {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS reference_data_version ("
+                + "id INTEGER PRIMARY KEY, version BIGINT NOT NULL, updated_at TIMESTAMP NOT NULL)");
+        } catch (Exception e) {
+            log.warn("⚠️ 创建参考数据版本表失败，其他实例将只按最长缓存时间刷新: {}", e.getMessage());
+        }
+        reload("启动");
+    }
+
+    /**
+     * @return 当前快照；未启用或尚未加载时返回null（调用方按原方式查库）
+     */
+    public Snapshot current() {
+        return snapshot;
+    }
+
+    /**
+     * @return 当前快照的版本号；未加载时返回-1
+     */
+    public long version() {
+        Snapshot current = snapshot;
+        return current != null ? current.version : -1L;
+    }
+
+    /**
+     * 管理后台写入参考数据（或用户套餐）后调用：递增版本号通知其他实例，并重新加载本实例的快照
+     *
+     * @param reason 变化原因（日志用）
+     */
+    public void invalidate(String reason) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            jdbcTemplate.queryForObject("INSERT INTO reference_data_version (id, version, updated_at) "
+                + "VALUES (1, 1, CURRENT_TIMESTAMP) ON CONFLICT (id) DO UPDATE "
+                + "SET version = reference_data_version.version + 1, updated_at = CURRENT_TIMESTAMP "
+                + "RETURNING version", Long.class);
+        } catch (Exception e) {
+            log.warn("⚠️ 递增参考数据版本号失败，其他实例将按最长缓存时间刷新: {}", e.getMessage());
+        }
+        reload(reason);
+    }
+
+    /**
+     * 在当前事务提交后再使参考数据失效（提交前重新加载会读到旧数据；事务回滚时不失效），没有事务时立即失效
+     *
+     * @param reason 变化原因（日志用）
+     */
+    public void invalidateAfterCommit(String reason) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidate(reason);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidate(reason);
+            }
+        });
+    }
+
+    /**
+     * 供可选注入本缓存的服务调用：未启用缓存（cache为null）时忽略
+     *
+     * @param cache 参考数据缓存，可为null
+     * @param reason 变化原因（日志用）
+     */
+    public static void invalidateAfterCommit(ReferenceDataCache cache, String reason) {
+        if (cache != null) {
+            cache.invalidateAfterCommit(reason);
+        }
+    }
+
+    /**
+     * 比对数据库中的版本号，其他实例修改过或快照超过最长缓存时间时重新加载
+     */
+    @Scheduled(fixedDelayString = "${reference-data.cache.poll-interval-ms:5000}")
+    public void poll() {
+        Snapshot current = snapshot;
+        if (!enabled || current == null) {
+            return;
+        }
+        long stored = readVersion();
+        if (stored != current.version) {
+            reload("版本号变化 " + current.version + " -> " + stored);
+        } else if (System.currentTimeMillis() - current.loadedAt > maxAgeMinutes * 60_000L) {
+            reload("超过最长缓存时间");
+        }
+    }
+
+    private synchronized void reload(String reason) {
+        // 先读版本号再读数据：加载期间发生的修改会在下一次比对时再加载一次
+        long version = readVersion();
+        try {
+            Snapshot loaded = new Snapshot(version,
+                quotaDefinitionRepository.findAll(),
+                planQuotaConfigRepository.findAll(),
+                featureFlagRepository.findAll(),
+                systemConfigRepository.findAll());
+            snapshot = loaded;
+            log.info("🔄 参考数据已加载（{}）: 版本={}, 配额定义{}个, 套餐配额配置{}个, 功能开关{}个, 系统配置{}个",
+                reason, version, loaded.quotaDefinitionsById.size(), loaded.planQuotaConfigs.size(),
+                loaded.featureFlagCount, loaded.systemConfigs.size());
+        } catch (Exception e) {
+            // 保留旧快照（首次加载失败时各服务继续查库）
+            log.error("❌ 加载参考数据失败（{}）: {}", reason, e.getMessage());
+        }
+    }
+
+    private long readVersion() {
+        try {
+            List<Long> versions = jdbcTemplate.queryForList(
+                "SELECT version FROM reference_data_version WHERE id = 1", Long.class);
+            return versions.isEmpty() ? 0L : versions.get(0);
+        } catch (Exception e) {
+            log.debug("读取参考数据版本号失败: {}", e.getMessage());
+            return 0L;
+        }
+    }
+
+    /**
+     * 参考数据快照（不可变）
+     */
+    public static final class Snapshot {
+        private final long version;
+        private final long loadedAt = System.currentTimeMillis();
+        private final Map<String, QuotaDefinition> activeQuotaDefinitions = new HashMap<>();
+        private final Map<Long, QuotaDefinition> quotaDefinitionsById = new HashMap<>();
+        private final Map<String, PlanQuotaConfig> planQuotaConfigs = new HashMap<>();
+        private final FeatureFlagEvaluator featureFlags;
+        private final Map<String, String> systemConfigs = new HashMap<>();
+        private final int featureFlagCount;
+
+        Snapshot(long version, List<QuotaDefinition> quotaDefinitions, List<PlanQuotaConfig> planQuotaConfigs,
+                 List<FeatureFlag> featureFlags, List<SystemConfig> systemConfigs) {
+            this.version = version;
+            for (QuotaDefinition definition : quotaDefinitions) {
+                quotaDefinitionsById.put(definition.getId(), definition);
+                if (Boolean.TRUE.equals(definition.getIsActive())) {
+                    activeQuotaDefinitions.put(definition.getQuotaKey(), definition);
+                }
+            }
+            for (PlanQuotaConfig config : planQuotaConfigs) {
+                if (Boolean.TRUE.equals(config.getIsEnabled())) {
+                    this.planQuotaConfigs.putIfAbsent(planQuotaKey(config.getPlanType(), config.getQuotaId()), config);
+                }
+            }
+            this.featureFlags = FeatureFlagEvaluator.compile(featureFlags);
+            this.featureFlagCount = featureFlags.size();
+            for (SystemConfig config : systemConfigs) {
+                this.systemConfigs.put(config.getConfigKey(), config.getConfigValue());
+            }
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        /**
+         * @return 启用的配额定义，不存在时返回null
+         */
+        public QuotaDefinition activeQuotaDefinition(String quotaKey) {
+            return activeQuotaDefinitions.get(quotaKey);
+        }
+
+        /**
+         * @return 配额定义（包括未启用的），不存在时返回null
+         */
+        public QuotaDefinition quotaDefinition(Long quotaId) {
+            return quotaDefinitionsById.get(quotaId);
+        }
+
+        /**
+         * @return 启用的套餐配额配置，不存在时返回null
+         */
+        public PlanQuotaConfig enabledPlanQuotaConfig(PlanType planType, Long quotaId) {
+            return planQuotaConfigs.get(planQuotaKey(planType, quotaId));
+        }
+
+        /**
+         * @return 随快照一起编译的功能开关判定器
+         */
+        public FeatureFlagEvaluator featureFlags() {
+            return featureFlags;
+        }
+
+        /**
+         * @return 系统配置值，不存在时返回null
+         */
+        public String systemConfig(String configKey) {
+            return systemConfigs.get(configKey);
+        }
+
+        private static String planQuotaKey(PlanType planType, Long quotaId) {
+            return planType + "|" + quotaId;
+        }
+    }
+}
@@ -23,6 +23,10 @@ public class SystemConfigService {
     @Autowired
     private SystemConfigRepository systemConfigRepository;
 
+    // 参考数据快照：已加载时读取配置值不再逐次查库（写入提交后使快照失效）
+    @Autowired(required = false)
+    private ReferenceDataCache referenceDataCache;
+
     /**
      * 获取配置值
      *
@@ -30,6 +34,10 @@ public class SystemConfigService {
      * @return 配置值（字符串）
      */
     public Optional<String> getConfigValue(String configKey) {
+        ReferenceDataCache.Snapshot reference = referenceDataCache != null ? referenceDataCache.current() : null;
+        if (reference != null) {
+            return Optional.ofNullable(reference.systemConfig(configKey));
+        }
         return systemConfigRepository.findByConfigKey(configKey)
                 .map(SystemConfig::getConfigValue);
     }
@@ -123,7 +131,9 @@ public class SystemConfigService {
                     .build();
         }
 
-        return systemConfigRepository.save(config);
+        SystemConfig saved = systemConfigRepository.save(config);
+        ReferenceDataCache.invalidateAfterCommit(referenceDataCache, "更新系统配置 " + configKey);
+        return saved;
     }
 
     /**
@@ -156,6 +166,7 @@ public class SystemConfigService {
     @Transactional
     public void deleteConfig(String configKey) {
         systemConfigRepository.deleteByConfigKey(configKey);
+        ReferenceDataCache.invalidateAfterCommit(referenceDataCache, "删除系统配置 " + configKey);
     }
 
     /**
@@ -172,4 +183,3 @@ public class SystemConfigService {
         return systemConfigRepository.findAll();
     }
 }
-
@@ -1,10 +1,13 @@
 package util;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStreamReader;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -12,15 +15,122 @@ import lombok.extern.slf4j.Slf4j;
  * Boss进程管理工具类
  * 用于检查和管理Boss投递进程
  *
+ * 进程登记表：子进程启动时按用户登记ProcessHandle，进程退出时自动注销，查询为O(1)且不再fork ps；
+ * 首次使用时扫描一次本机进程（ProcessHandle.allProcesses），接管服务重启前遗留的Boss进程
+ *
  * @author ZhiTouJianLi Team
  * @since 2025-11-25
  */
 @Slf4j
 public class BossProcessManager {
 
+    private static final String RUNNER_CLASS = "IsolatedBossRunner";
+    private static final String USER_ID_MARKER = "-Dboss.user.id=";
+
+    /**
+     * 用户ID -> 运行中的Boss进程（独立进程，或正在为该用户运行的常驻工作进程）
+     */
+    private static final Map<String, Set<ProcessHandle>> REGISTRY = new ConcurrentHashMap<>();
+
+    /**
+     * 用户ID -> 在多租户宿主进程中进行的运行
+     * 宿主进程同时服务多个用户，不能按进程登记（终止进程会波及其他用户），终止时只中止该用户的运行
+     */
+    private static final Map<String, Set<Process>> HOSTED_RUNS = new ConcurrentHashMap<>();
+
+    private static volatile boolean adopted = false;
+
+    /**
+     * 登记用户的Boss进程，进程退出时自动注销
+     *
+     * @param userId 用户ID
+     * @param process 进程
+     */
+    public static void register(String userId, ProcessHandle process) {
+        adoptOrphanedProcesses();
+        REGISTRY.computeIfAbsent(userId, k -> ConcurrentHashMap.newKeySet()).add(process);
+        process.onExit().thenRun(() -> unregister(userId, process));
+        log.debug("已登记用户{}的Boss进程: PID={}", userId, process.pid());
+    }
+
+    /**
+     * 注销用户的Boss进程（常驻工作进程完成一次运行后调用）
+     *
+     * @param userId 用户ID
+     * @param process 进程
+     */
+    public static void unregister(String userId, ProcessHandle process) {
+        REGISTRY.computeIfPresent(userId, (k, processes) -> {
+            processes.remove(process);
+            return processes.isEmpty() ? null : processes;
+        });
+    }
+
+    /**
+     * 登记用户在多租户宿主进程中的运行（运行结束后调用{@link #unregisterHosted}）
+     *
+     * @param userId 用户ID
+     * @param run 代表本次运行的进程对象，destroy()只中止该用户的运行
+     */
+    public static void registerHosted(String userId, Process run) {
+        HOSTED_RUNS.computeIfAbsent(userId, k -> ConcurrentHashMap.newKeySet()).add(run);
+        log.debug("已登记用户{}在多租户宿主进程中的运行: PID={}", userId, run.pid());
+    }
+
+    /**
+     * 注销用户在多租户宿主进程中的运行
+     *
+     * @param userId 用户ID
+     * @param run 代表本次运行的进程对象
+     */
+    public static void unregisterHosted(String userId, Process run) {
+        HOSTED_RUNS.computeIfPresent(userId, (k, runs) -> {
+            runs.remove(run);
+            return runs.isEmpty() ? null : runs;
+        });
+    }
+
+    /**
+     * 扫描本机进程，接管服务重启前遗留的Boss进程（只执行一次）
+     * 带用户ID的独立进程按用户登记；不带用户的常驻工作进程已无法连接（访问令牌随旧服务丢失），直接终止
+     */
+    public static void adoptOrphanedProcesses() {
+        if (adopted) {
+            return;
+        }
+        synchronized (BossProcessManager.class) {
+            if (adopted) {
+                return;
+            }
+            adopted = true;
+            long selfPid = ProcessHandle.current().pid();
+            int adoptedCount = 0;
+            for (ProcessHandle process : (Iterable<ProcessHandle>) ProcessHandle.allProcesses()::iterator) {
+                if (process.pid() == selfPid) {
+                    continue;
+                }
+                Optional<String> commandLine = process.info().commandLine();
+                if (commandLine.isEmpty() || !commandLine.get().contains(RUNNER_CLASS)) {
+                    continue;
+                }
+                String userId = parseUserId(commandLine.get());
+                if (userId != null) {
+                    REGISTRY.computeIfAbsent(userId, k -> ConcurrentHashMap.newKeySet()).add(process);
+                    process.onExit().thenRun(() -> unregister(userId, process));
+                    adoptedCount++;
+                    log.info("接管遗留的Boss进程: 用户={}, PID={}", userId, process.pid());
+                } else if (commandLine.get().trim().endsWith(" worker")
+                        || commandLine.get().trim().endsWith(" tenant-host")) {
+                    log.info("终止遗留的常驻Boss工作进程: PID={}", process.pid());
+                    process.destroyForcibly();
+                }
+            }
+            log.info("Boss进程登记表已初始化，接管{}个遗留进程", adoptedCount);
+        }
+    }
+
     /**
      * 检查指定用户的Boss进程是否在运行
-     * 通过检查进程命令行参数中的用户ID来判断
      *
      * @param userId 用户ID
      * @return 运行中的进程PID列表，如果没有运行则返回空列表
@@ -33,52 +143,25 @@ public class BossProcessManager {
             return pids;
         }
 
-        try {
-            // 使用ps命令查找包含用户ID的Boss进程
-            // 查找命令行中包含 "boss.user.id=userId" 或 "BOSS_USER_ID=userId" 的进程
-            ProcessBuilder pb = new ProcessBuilder(
-                "ps", "aux"
-            );
-
-            Process process = pb.start();
-
-            try (BufferedReader reader = new BufferedReader(
-                    new InputStreamReader(process.getInputStream()))) {
-
-                String line;
-                String userIdMarker1 = "boss.user.id=" + userId;
-                String userIdMarker2 = "BOSS_USER_ID=" + userId;
-
-                while ((line = reader.readLine()) != null) {
-                    // 检查是否包含IsolatedBossRunner且包含用户ID
-                    if (line.contains("IsolatedBossRunner") &&
-                        (line.contains(userIdMarker1) ||
-                         line.contains(userIdMarker2))) {
-
-                        // 提取PID（ps aux输出的第二列）
-                        String[] parts = line.trim().split("\\s+");
-                        if (parts.length > 1) {
-                            try {
-                                long pid = Long.parseLong(parts[1]);
-                                pids.add(pid);
-                                log.debug("找到用户{}的Boss进程: PID={}", userId, pid);
-                            } catch (NumberFormatException e) {
-                                log.warn("无法解析进程PID: {}", parts[1]);
-                            }
-                        }
-                    }
+        adoptOrphanedProcesses();
+        Set<ProcessHandle> processes = REGISTRY.get(userId);
+        if (processes != null) {
+            for (ProcessHandle process : processes) {
+                if (process.isAlive()) {
+                    pids.add(process.pid());
+                    log.debug("找到用户{}的Boss进程: PID={}", userId, process.pid());
                 }
             }
-
-            int exitCode = process.waitFor();
-            if (exitCode != 0) {
-                log.warn("ps命令执行失败，退出码: {}", exitCode);
+        }
+        Set<Process> hostedRuns = HOSTED_RUNS.get(userId);
+        if (hostedRuns != null) {
+            for (Process run : hostedRuns) {
+                if (run.isAlive()) {
+                    pids.add(run.pid());
+                    log.debug("找到用户{}在多租户宿主进程中的运行: PID={}", userId, run.pid());
+                }
             }
-
-        } catch (IOException | InterruptedException e) {
-            log.error("检查用户{}的Boss进程失败", userId, e);
         }
-
         return pids;
     }
 
@@ -108,32 +191,40 @@ public class BossProcessManager {
      * @return 成功终止的进程数量
      */
     public static int killUserBossProcesses(String userId) {
-        List<Long> pids = findUserBossProcesses(userId);
+        adoptOrphanedProcesses();
+        Set<ProcessHandle> processes = REGISTRY.get(userId);
+        Set<Process> hostedRuns = HOSTED_RUNS.get(userId);
 
-        if (pids.isEmpty()) {
+        if ((processes == null || processes.isEmpty()) && (hostedRuns == null || hostedRuns.isEmpty())) {
             log.info("用户{}没有运行中的Boss进程", userId);
             return 0;
         }
 
+        int found = 0;
         int killedCount = 0;
-        for (Long pid : pids) {
-            try {
-                ProcessBuilder pb = new ProcessBuilder("kill", "-9", String.valueOf(pid));
-                Process process = pb.start();
-                int exitCode = process.waitFor();
-
-                if (exitCode == 0) {
-                    killedCount++;
-                    log.info("✅ 已终止用户{}的Boss进程: PID={}", userId, pid);
-                } else {
-                    log.warn("终止进程失败: PID={}, 退出码={}", pid, exitCode);
-                }
-            } catch (IOException | InterruptedException e) {
-                log.error("终止进程异常: PID={}", pid, e);
+        if (hostedRuns != null) {
+            for (Process run : new ArrayList<>(hostedRuns)) {
+                found++;
+                // 只中止该用户的运行，宿主进程继续服务其他用户
+                run.destroy();
+                killedCount++;
+                log.info("✅ 已中止用户{}在多租户宿主进程中的运行: PID={}", userId, run.pid());
+            }
+        }
+        if (processes == null) {
+            processes = Set.of();
+        }
+        found += processes.size();
+        for (ProcessHandle process : new ArrayList<>(processes)) {
+            if (process.destroyForcibly() || !process.isAlive()) {
+                killedCount++;
+                log.info("✅ 已终止用户{}的Boss进程: PID={}", userId, process.pid());
+            } else {
+                log.warn("终止进程失败: PID={}", process.pid());
             }
         }
 
-        log.info("用户{}的Boss进程清理完成: 找到{}个，成功终止{}个", userId, pids.size(), killedCount);
+        log.info("用户{}的Boss进程清理完成: 找到{}个，成功终止{}个", userId, found, killedCount);
         return killedCount;
     }
 
@@ -141,36 +232,49 @@ public class BossProcessManager {
      * 获取进程信息（用于调试）
      *
      * @param userId 用户ID
-     * @return 进程信息列表
+     * @return 进程信息列表（PID、已运行时长、命令行）
      */
     public static List<String> getUserBossProcessInfo(String userId) {
         List<String> info = new ArrayList<>();
-        List<Long> pids = findUserBossProcesses(userId);
-
-        for (Long pid : pids) {
-            try {
-                ProcessBuilder pb = new ProcessBuilder("ps", "-p", String.valueOf(pid), "-o", "pid,etime,cmd");
-                Process process = pb.start();
-
-                try (BufferedReader reader = new BufferedReader(
-                        new InputStreamReader(process.getInputStream()))) {
-                    String line;
-                    boolean firstLine = true;
-                    while ((line = reader.readLine()) != null) {
-                        if (!firstLine && !line.trim().isEmpty()) {
-                            info.add(line.trim());
-                        }
-                        firstLine = false;
-                    }
-                }
-
-                process.waitFor();
-            } catch (IOException | InterruptedException e) {
-                log.error("获取进程信息失败: PID={}", pid, e);
+        adoptOrphanedProcesses();
+        Set<Process> hostedRuns = HOSTED_RUNS.get(userId);
+        if (hostedRuns != null) {
+            for (Process run : hostedRuns) {
+                info.add(run.pid() + " - tenant-host");
             }
         }
+        Set<ProcessHandle> processes = REGISTRY.get(userId);
+        if (processes == null) {
+            return info;
+        }
+
+        for (ProcessHandle process : processes) {
+            ProcessHandle.Info processInfo = process.info();
+            String elapsed = processInfo.startInstant()
+                .map(start -> formatElapsed(Duration.between(start, Instant.now())))
+                .orElse("-");
+            info.add(process.pid() + " " + elapsed + " " + processInfo.commandLine().orElse("-"));
+        }
 
         return info;
     }
-}
 
+    /**
+     * 从命令行中解析用户ID（-Dboss.user.id=xxx）
+     */
+    static String parseUserId(String commandLine) {
+        int index = commandLine.indexOf(USER_ID_MARKER);
+        if (index < 0) {
+            return null;
+        }
+        int start = index + USER_ID_MARKER.length();
+        int end = commandLine.indexOf(' ', start);
+        String userId = end < 0 ? commandLine.substring(start) : commandLine.substring(start, end);
+        return userId.isEmpty() ? null : userId;
+    }
+
+    private static String formatElapsed(Duration elapsed) {
+        long seconds = elapsed.getSeconds();
+        return String.format("%02d:%02d:%02d", seconds / 3600, (seconds % 3600) / 60, seconds % 60);
+    }
+}
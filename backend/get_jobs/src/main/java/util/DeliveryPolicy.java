@@ -0,0 +1,156 @@
+package util;
+
+import java.time.Duration;
+import java.time.LocalTime;
+import java.time.ZoneId;
+
+/**
+ * 投递节奏策略（不可变）
+ * 一个策略描述全部发送限制：滑动一小时内的次数上限、每日上限、两次投递的最短间隔、允许投递的时间段，
+ * 由{@link DeliveryRateLimiter}执行。策略与具体平台无关，Boss投递、多用户调度等场景共用
+ *
+ * 上限为{@link #UNLIMITED}表示不限制，为0表示不允许投递
+ *
+ * @author ZhiTouJianLi Team
+ */
+public final class DeliveryPolicy {
+
+    /**
+     * 不限制
+     */
+    public static final int UNLIMITED = -1;
+
+    private final int hourlyLimit;
+    private final int dailyLimit;
+    private final long minIntervalMillis;
+    // 两者都为null表示全天可投递；开始晚于结束表示跨零点的时间段（例如22:00-06:00）
+    private final LocalTime windowStart;
+    private final LocalTime windowEnd;
+    private final ZoneId zone;
+
+    private DeliveryPolicy(Builder builder) {
+        this.hourlyLimit = builder.hourlyLimit;
+        this.dailyLimit = builder.dailyLimit;
+        this.minIntervalMillis = Math.max(0L, builder.minInterval.toMillis());
+        boolean allDay = builder.windowStart == null || builder.windowEnd == null
+            || builder.windowStart.equals(builder.windowEnd);
+        this.windowStart = allDay ? null : builder.windowStart;
+        this.windowEnd = allDay ? null : builder.windowEnd;
+        this.zone = builder.zone;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return 滑动一小时内的投递次数上限
+     */
+    public int getHourlyLimit() {
+        return hourlyLimit;
+    }
+
+    /**
+     * @return 每个自然日的投递次数上限
+     */
+    public int getDailyLimit() {
+        return dailyLimit;
+    }
+
+    /**
+     * @return 两次投递的最短间隔（毫秒）
+     */
+    public long getMinIntervalMillis() {
+        return minIntervalMillis;
+    }
+
+    /**
+     * @return 是否限定了投递时间段
+     */
+    public boolean hasWindow() {
+        return windowStart != null;
+    }
+
+    public LocalTime getWindowStart() {
+        return windowStart;
+    }
+
+    public LocalTime getWindowEnd() {
+        return windowEnd;
+    }
+
+    /**
+     * @return 计算自然日和时间段使用的时区
+     */
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    /**
+     * @return 该时刻是否在投递时间段内（包含开始时刻，不包含结束时刻）
+     */
+    public boolean inWindow(LocalTime time) {
+        if (windowStart == null) {
+            return true;
+        }
+        if (windowStart.isBefore(windowEnd)) {
+            return !time.isBefore(windowStart) && time.isBefore(windowEnd);
+        }
+        return !time.isBefore(windowStart) || time.isBefore(windowEnd);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("每小时%s次, 每日%s次, 间隔%d秒, 时间段%s",
+            hourlyLimit == UNLIMITED ? "不限" : hourlyLimit,
+            dailyLimit == UNLIMITED ? "不限" : dailyLimit,
+            minIntervalMillis / 1000,
+            windowStart == null ? "全天" : windowStart + "-" + windowEnd);
+    }
+
+    public static final class Builder {
+        private int hourlyLimit = UNLIMITED;
+        private int dailyLimit = UNLIMITED;
+        private Duration minInterval = Duration.ZERO;
+        private LocalTime windowStart;
+        private LocalTime windowEnd;
+        private ZoneId zone = ZoneId.systemDefault();
+
+        private Builder() {
+        }
+
+        public Builder hourlyLimit(int hourlyLimit) {
+            this.hourlyLimit = hourlyLimit < 0 ? UNLIMITED : hourlyLimit;
+            return this;
+        }
+
+        public Builder dailyLimit(int dailyLimit) {
+            this.dailyLimit = dailyLimit < 0 ? UNLIMITED : dailyLimit;
+            return this;
+        }
+
+        public Builder minInterval(Duration minInterval) {
+            this.minInterval = minInterval != null ? minInterval : Duration.ZERO;
+            return this;
+        }
+
+        /**
+         * @param start 开始时刻，null表示全天
+         * @param end 结束时刻，null表示全天
+         */
+        public Builder window(LocalTime start, LocalTime end) {
+            this.windowStart = start;
+            this.windowEnd = end;
+            return this;
+        }
+
+        public Builder zone(ZoneId zone) {
+            this.zone = zone != null ? zone : ZoneId.systemDefault();
+            return this;
+        }
+
+        public DeliveryPolicy build() {
+            return new DeliveryPolicy(this);
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package util;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 投递限流器（滑动日志，无锁）
+ * 按{@link DeliveryPolicy}同时执行滑动一小时次数上限、每日上限、最短间隔和投递时间段：
+ * - 每小时上限使用滑动日志：只保留最近N次（N为上限）的投递时间，第N次之前的那次满一小时后才放行，
+ *   不会像整点重置的计数器那样在窗口交界处连续放行2N次
+ * - 每日上限按策略时区的自然日计数，跨天后自动归零
+ * - 状态是一个不可变对象，所有修改通过CAS整体替换，多个线程共用同一个限流器时不需要加锁
+ *
+ * {@link #nextAllowedAt()}返回满足全部限制的最早时刻，调用方据此一次睡够，不需要轮询；
+ * {@link #tryAcquire()}原子地检查并记录，适合没有“投递可能失败”环节的调用方
+ *
+ * @author ZhiTouJianLi Team
+ */
+public class DeliveryRateLimiter {
+
+    /**
+     * 滑动窗口长度
+     */
+    public static final long HOUR_MILLIS = 3600_000L;
+
+    /**
+     * 永远不会放行（上限为0）
+     */
+    public static final long NEVER = Long.MAX_VALUE;
+
+    /**
+     * 当前阻止投递的限制（按检查顺序返回第一个）
+     */
+    public enum Limit {
+        NONE,
+        TIME_WINDOW,
+        DAILY_LIMIT,
+        HOURLY_LIMIT,
+        MIN_INTERVAL;
+
+        /**
+         * @return 是否只需等待几分钟即可放行（时间段和每日上限通常需要等到第二天）
+         */
+        public boolean isPacing() {
+            return this == HOURLY_LIMIT || this == MIN_INTERVAL;
+        }
+    }
+
+    private final DeliveryPolicy policy;
+    private final Clock clock;
+    private final AtomicReference<State> state;
+
+    public DeliveryRateLimiter(DeliveryPolicy policy) {
+        this(policy, Clock.system(policy.getZone()), 0);
+    }
+
+    /**
+     * @param clock 时钟（测试时可替换）
+     * @param todayCount 今日已投递次数（例如重启前已投递的数量）
+     */
+    public DeliveryRateLimiter(DeliveryPolicy policy, Clock clock, int todayCount) {
+        this.policy = policy;
+        this.clock = clock;
+        this.state = new AtomicReference<>(new State(today(clock.millis()), Math.max(0, todayCount), new long[0], 0L));
+    }
+
+    public DeliveryPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * @return 当前阻止投递的限制，{@link Limit#NONE}表示可以投递
+     */
+    public Limit blockingLimit() {
+        return blockingLimit(state.get(), clock.millis());
+    }
+
+    /**
+     * @return 满足全部限制的最早时刻（毫秒时间戳），不晚于当前时间表示现在即可投递；
+     * 上限为0时返回{@link #NEVER}
+     */
+    public long nextAllowedAt() {
+        return nextAllowedAt(state.get(), clock.millis());
+    }
+
+    /**
+     * @return 距离可以投递还需等待的毫秒数，0表示现在即可投递
+     */
+    public long millisUntilAllowed() {
+        long now = clock.millis();
+        long next = nextAllowedAt(state.get(), now);
+        return next == NEVER ? NEVER : Math.max(0L, next - now);
+    }
+
+    /**
+     * 现在可以投递时记录一次投递并返回true，否则不改变状态并返回false
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            long now = clock.millis();
+            State current = state.get();
+            if (nextAllowedAt(current, now) > now) {
+                return false;
+            }
+            if (state.compareAndSet(current, current.record(now))) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 记录一次已完成的投递（不检查限制）
+     */
+    public void record() {
+        while (true) {
+            long now = clock.millis();
+            State current = state.get();
+            if (state.compareAndSet(current, current.record(now))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return 今日已投递次数
+     */
+    public int dailyCount() {
+        long now = clock.millis();
+        return state.get().dailyCount(today(now));
+    }
+
+    /**
+     * @return 最近一小时的投递次数（最多统计到每小时上限）
+     */
+    public int hourlyCount() {
+        long now = clock.millis();
+        return state.get().countSince(now - HOUR_MILLIS);
+    }
+
+    /**
+     * @return 最近一次投递的时间戳，0表示还没有投递
+     */
+    public long lastDeliveryAt() {
+        return state.get().last;
+    }
+
+    /**
+     * 清空全部计数
+     */
+    public void reset() {
+        state.set(new State(today(clock.millis()), 0, new long[0], 0L));
+    }
+
+    private Limit blockingLimit(State current, long now) {
+        LocalDateTime local = local(now);
+        if (!policy.inWindow(local.toLocalTime())) {
+            return Limit.TIME_WINDOW;
+        }
+        if (policy.getDailyLimit() != DeliveryPolicy.UNLIMITED
+            && current.dailyCount(local.toLocalDate()) >= policy.getDailyLimit()) {
+            return Limit.DAILY_LIMIT;
+        }
+        if (hourlyReleaseAt(current) > now) {
+            return Limit.HOURLY_LIMIT;
+        }
+        if (current.last > 0 && current.last + policy.getMinIntervalMillis() > now) {
+            return Limit.MIN_INTERVAL;
+        }
+        return Limit.NONE;
+    }
+
+    private long nextAllowedAt(State current, long now) {
+        if (policy.getDailyLimit() == 0 || policy.getHourlyLimit() == 0) {
+            return NEVER;
+        }
+        // 每小时上限和最短间隔只给出下界；之后的时刻不会因为它们再被推迟
+        long at = Math.max(now, hourlyReleaseAt(current));
+        if (current.last > 0) {
+            at = Math.max(at, current.last + policy.getMinIntervalMillis());
+        }
+        // 当天已满则顺延到次日零点（次日计数为0）
+        LocalDate day = local(at).toLocalDate();
+        if (policy.getDailyLimit() != DeliveryPolicy.UNLIMITED && current.dailyCount(day) >= policy.getDailyLimit()) {
+            at = toMillis(day.plusDays(1), LocalTime.MIDNIGHT);
+        }
+        return windowOpenAt(at);
+    }
+
+    /**
+     * @return 该时刻之后（含）最早落在投递时间段内的时刻
+     */
+    private long windowOpenAt(long at) {
+        LocalDateTime local = local(at);
+        LocalTime time = local.toLocalTime();
+        if (policy.inWindow(time)) {
+            return at;
+        }
+        LocalDate day = local.toLocalDate();
+        // 不在时间段内：当天开始时刻未到则等到当天，否则等到次日（跨零点的时间段总是当天）
+        if (time.isAfter(policy.getWindowStart()) && policy.getWindowStart().isBefore(policy.getWindowEnd())) {
+            day = day.plusDays(1);
+        }
+        return toMillis(day, policy.getWindowStart());
+    }
+
+    private long hourlyReleaseAt(State current) {
+        int limit = policy.getHourlyLimit();
+        if (limit == 0) {
+            return NEVER;
+        }
+        if (limit == DeliveryPolicy.UNLIMITED || current.recent.length < limit) {
+            return 0L;
+        }
+        // 最近limit次中最早的一次满一小时后放行
+        return current.recent[current.recent.length - limit] + HOUR_MILLIS;
+    }
+
+    private LocalDate today(long now) {
+        return local(now).toLocalDate();
+    }
+
+    private LocalDateTime local(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), policy.getZone());
+    }
+
+    private long toMillis(LocalDate day, LocalTime time) {
+        return ZonedDateTime.of(day, time, policy.getZone()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * 限流状态（不可变）
+     */
+    private final class State {
+        private final LocalDate day;
+        private final int daily;
+        // 最近的投递时间，升序，最多保留每小时上限个
+        private final long[] recent;
+        private final long last;
+
+        State(LocalDate day, int daily, long[] recent, long last) {
+            this.day = day;
+            this.daily = daily;
+            this.recent = recent;
+            this.last = last;
+        }
+
+        int dailyCount(LocalDate date) {
+            return date.equals(day) ? daily : 0;
+        }
+
+        int countSince(long since) {
+            int count = 0;
+            for (int i = recent.length - 1; i >= 0 && recent[i] > since; i--) {
+                count++;
+            }
+            return count;
+        }
+
+        State record(long now) {
+            LocalDate today = today(now);
+            int keep = policy.getHourlyLimit() == DeliveryPolicy.UNLIMITED
+                ? countSince(now - HOUR_MILLIS) + 1
+                : Math.max(1, policy.getHourlyLimit());
+            long[] next = Arrays.copyOfRange(recent, Math.max(0, recent.length + 1 - keep), recent.length + 1);
+            next[next.length - 1] = now;
+            // 时钟回拨或并发记录时保持升序
+            for (int i = next.length - 1; i > 0 && next[i] < next[i - 1]; i--) {
+                long swap = next[i];
+                next[i] = next[i - 1];
+                next[i - 1] = swap;
+            }
+            return new State(today, dailyCount(today) + 1, next, Math.max(last, now));
+        }
+    }
+}
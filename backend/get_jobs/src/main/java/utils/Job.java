@@ -11,6 +11,11 @@ import java.io.Serializable;
 @Data
 public class Job implements Serializable {
     private static final long serialVersionUID = 1L;
+    /**
+     * 岗位ID（Boss直聘encryptJobId，跨关键词/城市稳定）
+     */
+    private String jobId;
+
     /**
      * 岗位链接
      */
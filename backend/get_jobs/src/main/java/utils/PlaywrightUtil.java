@@ -13,6 +13,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Random;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import org.json.JSONArray;
 import org.json.JSONObject;
@@ -26,6 +27,7 @@ import com.microsoft.playwright.Locator;
 import com.microsoft.playwright.Page;
 import com.microsoft.playwright.Playwright;
 import com.microsoft.playwright.PlaywrightException;
+import com.microsoft.playwright.Response;
 import com.microsoft.playwright.options.Cookie;
 import com.microsoft.playwright.options.LoadState;
 import com.microsoft.playwright.options.SelectOption;
@@ -47,32 +49,133 @@ public class PlaywrightUtil {
         MOBILE // 移动设备
     }
 
-    // 默认设备类型
-    private static DeviceType defaultDeviceType = DeviceType.DESKTOP;
+    /**
+     * 一次运行的浏览器会话：Playwright驱动、浏览器、上下文、页面和头模式等可变状态
+     * 独立进程中所有线程共用默认会话；多租户宿主进程中每个用户的运行线程（及其创建的子线程）使用自己的会话
+     */
+    public static final class Session {
+        // 默认设备类型
+        private DeviceType defaultDeviceType = DeviceType.DESKTOP;
+        // Playwright实例
+        private Playwright playwright;
+        // 浏览器实例
+        private Browser browser;
+        // 桌面浏览器上下文
+        private BrowserContext desktopContext;
+        // 移动设备浏览器上下文
+        private BrowserContext mobileContext;
+        // 桌面浏览器页面
+        private Page desktopPage;
+        // 移动设备浏览器页面
+        private Page mobilePage;
+        // 当前头模式状态
+        private boolean headlessMode = true;
+        // 是否已初始化
+        private boolean initialized = false;
+        // 远程调试端口（大于0时启用，供其他线程的Playwright实例通过CDP连接同一个浏览器）
+        private int remoteDebuggingPort = 0;
+        // 是否在关闭浏览器时保留Playwright驱动（常驻工作进程预热后为true，下次运行无需重新启动驱动）
+        private boolean keepPlaywright = false;
+        // 共享浏览器的CDP地址（多租户宿主进程中由宿主启动浏览器，会话只创建自己的上下文）
+        private final String sharedBrowserEndpoint;
+        // 运行被宿主中止（超出时间/CPU预算或主进程断开）
+        private volatile boolean aborted;
+
+        private Session(String sharedBrowserEndpoint) {
+            this.sharedBrowserEndpoint = sharedBrowserEndpoint;
+        }
+
+        /**
+         * 中止使用本会话的运行：之后本会话线程内的等待方法抛出{@link RunAbortedException}
+         */
+        public void abort() {
+            aborted = true;
+        }
 
-    // Playwright实例
-    private static Playwright PLAYWRIGHT;
+        public boolean isAborted() {
+            return aborted;
+        }
+    }
+
+    /**
+     * 运行被宿主中止
+     */
+    public static class RunAbortedException extends RuntimeException {
+        public RunAbortedException() {
+            super("运行已被中止");
+        }
+    }
 
-    // 浏览器实例
-    private static Browser BROWSER;
+    // 独立进程的默认会话
+    private static final Session DEFAULT_SESSION = new Session(null);
 
-    // 桌面浏览器上下文
-    private static BrowserContext DESKTOP_CONTEXT;
+    // 当前线程的会话，未设置时使用默认会话（不自动继承，工作线程通过bindSession绑定）
+    private static final ThreadLocal<Session> CURRENT_SESSION = new ThreadLocal<>();
 
-    // 当前头模式状态
-    private static boolean HEADLESS_MODE = true;
+    // 当前线程绑定的桌面页面（多上下文并行模式下，每个工作线程使用自己的页面）
+    private static final ThreadLocal<Page> BOUND_PAGE = new ThreadLocal<>();
 
-    // 是否已初始化
-    private static boolean INITIALIZED = false;
+    private static Session session() {
+        Session s = CURRENT_SESSION.get();
+        return s != null ? s : DEFAULT_SESSION;
+    }
 
-    // 移动设备浏览器上下文
-    private static BrowserContext MOBILE_CONTEXT;
+    /**
+     * 为当前线程开启连接共享浏览器的独立会话（多租户宿主进程中每个用户的运行线程调用）
+     * 之后本线程中的所有方法都作用于该会话；本次运行创建的工作线程通过{@link #bindSession}使用同一会话
+     *
+     * @param sharedBrowserEndpoint 宿主浏览器的CDP地址
+     * @return 新会话
+     */
+    public static Session openSession(String sharedBrowserEndpoint) {
+        Session s = new Session(sharedBrowserEndpoint);
+        CURRENT_SESSION.set(s);
+        return s;
+    }
 
-    // 桌面浏览器页面
-    private static Page DESKTOP_PAGE;
+    /**
+     * @return 当前线程绑定的会话，使用默认会话时返回null
+     */
+    public static Session currentSession() {
+        return CURRENT_SESSION.get();
+    }
 
-    // 移动设备浏览器页面
-    private static Page MOBILE_PAGE;
+    /**
+     * 将已开启的会话绑定到当前线程（工作线程使用运行线程的会话，不负责关闭）
+     *
+     * @param s 会话，null表示恢复为默认会话
+     */
+    public static void bindSession(Session s) {
+        if (s == null) {
+            CURRENT_SESSION.remove();
+        } else {
+            CURRENT_SESSION.set(s);
+        }
+    }
+
+    /**
+     * 关闭当前线程的会话（关闭上下文、断开共享浏览器、关闭驱动）并恢复为默认会话
+     */
+    public static void closeSession() {
+        if (CURRENT_SESSION.get() == null) {
+            return;
+        }
+        try {
+            close();
+        } finally {
+            BOUND_PAGE.remove();
+            CURRENT_SESSION.remove();
+        }
+    }
+
+    /**
+     * 当前会话被中止时抛出{@link RunAbortedException}（等待方法在等待前后检查）
+     */
+    public static void checkAborted() {
+        if (session().aborted) {
+            throw new RunAbortedException();
+        }
+    }
 
     // 默认超时时间（毫秒）
     private static final int DEFAULT_TIMEOUT = 30000;
@@ -93,29 +196,71 @@ public class PlaywrightUtil {
      * @param headless 是否使用无头模式
      */
     public static void init(boolean headless) {
-        HEADLESS_MODE = headless;
+        Session s = session();
+        s.headlessMode = headless;
 
         // 如果已经初始化且头模式相同，直接返回
-        if (INITIALIZED && (BROWSER == null || BROWSER.isConnected())) {
-            log.info("Playwright已初始化，当前头模式: {}", HEADLESS_MODE ? "无头" : "有头");
+        if (s.initialized && (s.browser == null || s.browser.isConnected())) {
+            log.info("Playwright已初始化，当前头模式: {}", s.headlessMode ? "无头" : "有头");
             return;
         }
 
         // 清理现有实例
         cleanup();
 
-        // 启动Playwright
-        PLAYWRIGHT = Playwright.create();
+        // 启动Playwright（常驻工作进程中复用预热好的驱动）
+        if (s.playwright == null) {
+            s.playwright = Playwright.create();
+        }
+
+        if (s.sharedBrowserEndpoint != null) {
+            // 多租户宿主：连接宿主启动的共享浏览器，只创建本会话自己的上下文（Cookie、存储互相隔离）
+            s.headlessMode = true;
+            s.browser = s.playwright.chromium().connectOverCDP(s.sharedBrowserEndpoint);
+            log.info("已连接共享浏览器: {}", s.sharedBrowserEndpoint);
+        } else {
+            // 创建浏览器实例
+            s.browser = launchBrowser(s.playwright, s.headlessMode, s.remoteDebuggingPort);
+        }
+
+        // 创建桌面浏览器上下文 - 增强反检测配置
+        s.desktopContext = newDesktopContext(s.browser);
 
+        // 创建移动设备浏览器上下文
+        s.mobileContext = s.browser.newContext(new Browser.NewContextOptions()
+                .setViewportSize(375, 812)
+                .setDeviceScaleFactor(3.0)
+                .setIsMobile(true)
+                .setHasTouch(true)
+                .setUserAgent(
+                        "Mozilla/5.0 (iPhone; CPU iPhone OS 13_2_3 like Mac OS X) AppleWebKit/605.1.15 (KHTML, like Gecko) Version/13.0.3 Mobile/15E148 Safari/604.1"));
+
+        // 创建桌面页面
+        s.desktopPage = s.desktopContext.newPage();
+        s.desktopPage.setDefaultTimeout(DEFAULT_TIMEOUT);
+
+        s.initialized = true;
+        log.info("Playwright初始化完成，头模式: {}", s.headlessMode ? "无头" : "有头");
+    }
+
+    /**
+     * 启动本地浏览器
+     *
+     * @param playwright Playwright实例
+     * @param headless 是否使用无头模式
+     * @param remoteDebuggingPort 远程调试端口，0表示关闭
+     * @return 浏览器实例
+     */
+    public static Browser launchBrowser(Playwright playwright, boolean headless, int remoteDebuggingPort) {
         // 尝试使用系统Chrome路径
         String chromePath = "/Applications/Google Chrome.app/Contents/MacOS/Google Chrome";
         java.io.File chromeFile = new java.io.File(chromePath);
 
         BrowserType.LaunchOptions options = new BrowserType.LaunchOptions()
-                .setHeadless(HEADLESS_MODE); // 动态头模式
+                .setHeadless(headless); // 动态头模式
 
         // 根据头模式设置不同的浏览器参数
-        if (HEADLESS_MODE) {
+        if (headless) {
             // 无头模式：优化性能参数
             // ✅ 风控优化：将SlowMo从100ms增加到300ms，模拟更真实的人类操作速度
             options.setSlowMo(300)
@@ -151,17 +296,30 @@ public class PlaywrightUtil {
                 ));
         }
 
+        if (remoteDebuggingPort > 0) {
+            List<String> args = new ArrayList<>(options.args);
+            args.add("--remote-debugging-port=" + remoteDebuggingPort);
+            options.setArgs(args);
+            log.info("已启用浏览器远程调试端口: {}（多上下文并行模式）", remoteDebuggingPort);
+        }
+
         if (chromeFile.exists()) {
             options.setExecutablePath(java.nio.file.Paths.get(chromePath));
-            log.info("使用系统Chrome浏览器: {}, 头模式: {}", chromePath, HEADLESS_MODE ? "无头" : "有头");
+            log.info("使用系统Chrome浏览器: {}, 头模式: {}", chromePath, headless ? "无头" : "有头");
         } else {
-            log.info("系统Chrome不存在，使用Playwright默认浏览器, 头模式: {}", HEADLESS_MODE ? "无头" : "有头");
+            log.info("系统Chrome不存在，使用Playwright默认浏览器, 头模式: {}", headless ? "无头" : "有头");
         }
 
-        // 创建浏览器实例
-        BROWSER = PLAYWRIGHT.chromium().launch(options);
+        return playwright.chromium().launch(options);
+    }
 
-        // 创建桌面浏览器上下文 - 增强反检测配置
+    /**
+     * 在浏览器上创建桌面上下文（User-Agent、HTTP头与操作系统匹配，并注入反检测脚本）
+     *
+     * @param browser 浏览器实例
+     * @return 新的桌面上下文
+     */
+    public static BrowserContext newDesktopContext(Browser browser) {
         // ✅ 修复：根据操作系统动态设置User-Agent和HTTP头
         String osName = System.getProperty("os.name").toLowerCase();
         String userAgent;
@@ -182,7 +340,7 @@ public class PlaywrightUtil {
 
         log.info("操作系统: {}, 使用User-Agent平台: {}", osName, secChUaPlatform);
 
-        DESKTOP_CONTEXT = BROWSER.newContext(new Browser.NewContextOptions()
+        BrowserContext context = browser.newContext(new Browser.NewContextOptions()
                 .setViewportSize(1920, 1080)
                 .setUserAgent(userAgent)
                 .setDeviceScaleFactor(1.0)
@@ -229,24 +387,9 @@ public class PlaywrightUtil {
                 });
                 """;
 
-        DESKTOP_CONTEXT.addInitScript(earlyStealthScript);
+        context.addInitScript(earlyStealthScript);
         log.info("✅ 已在Context级别注入反检测脚本（在所有页面加载前生效）");
-
-        // 创建移动设备浏览器上下文
-        MOBILE_CONTEXT = BROWSER.newContext(new Browser.NewContextOptions()
-                .setViewportSize(375, 812)
-                .setDeviceScaleFactor(3.0)
-                .setIsMobile(true)
-                .setHasTouch(true)
-                .setUserAgent(
-                        "Mozilla/5.0 (iPhone; CPU iPhone OS 13_2_3 like Mac OS X) AppleWebKit/605.1.15 (KHTML, like Gecko) Version/13.0.3 Mobile/15E148 Safari/604.1"));
-
-        // 创建桌面页面
-        DESKTOP_PAGE = DESKTOP_CONTEXT.newPage();
-        DESKTOP_PAGE.setDefaultTimeout(DEFAULT_TIMEOUT);
-
-        INITIALIZED = true;
-        log.info("Playwright初始化完成，头模式: {}", HEADLESS_MODE ? "无头" : "有头");
+        return context;
     }
 
     /**
@@ -261,12 +404,17 @@ public class PlaywrightUtil {
      * @param headless 是否使用无头模式
      */
     public static void switchHeadlessMode(boolean headless) {
-        if (HEADLESS_MODE == headless) {
+        Session s = session();
+        if (s.sharedBrowserEndpoint != null) {
+            log.info("共享浏览器会话不支持切换头模式，保持{}模式", s.headlessMode ? "无头" : "有头");
+            return;
+        }
+        if (s.headlessMode == headless) {
             log.info("头模式未改变: {}", headless ? "无头" : "有头");
             return;
         }
 
-        log.info("切换头模式: {} -> {}", HEADLESS_MODE ? "无头" : "有头", headless ? "无头" : "有头");
+        log.info("切换头模式: {} -> {}", s.headlessMode ? "无头" : "有头", headless ? "无头" : "有头");
         init(headless);
     }
 
@@ -288,25 +436,26 @@ public class PlaywrightUtil {
      * 获取当前头模式状态
      */
     public static boolean isHeadless() {
-        return HEADLESS_MODE;
+        return session().headlessMode;
     }
 
     /**
      * 清理Playwright资源
      */
     public static void cleanup() {
+        Session s = session();
         try {
-            if (DESKTOP_PAGE != null) {
+            if (s.desktopPage != null) {
                 try {
-                    DESKTOP_PAGE.close();
+                    s.desktopPage.close();
                 } catch (Exception e) {
                     log.debug("关闭桌面页面时出错（可忽略）: {}", e.getMessage());
                 }
-                DESKTOP_PAGE = null;
+                s.desktopPage = null;
             }
-            if (DESKTOP_CONTEXT != null) {
+            if (s.desktopContext != null) {
                 try {
-                    DESKTOP_CONTEXT.close();
+                    s.desktopContext.close();
                 } catch (Exception e) {
                     // Playwright关闭时可能尝试读取package.json失败，这是已知问题，不影响功能
                     String errorMsg = e.getMessage();
@@ -316,11 +465,11 @@ public class PlaywrightUtil {
                         log.warn("关闭桌面上下文时出错: {}", e.getMessage());
                     }
                 }
-                DESKTOP_CONTEXT = null;
+                s.desktopContext = null;
             }
-            if (MOBILE_CONTEXT != null) {
+            if (s.mobileContext != null) {
                 try {
-                    MOBILE_CONTEXT.close();
+                    s.mobileContext.close();
                 } catch (Exception e) {
                     String errorMsg = e.getMessage();
                     if (errorMsg != null && (errorMsg.contains("package.json") || errorMsg.contains("MODULE_NOT_FOUND"))) {
@@ -329,19 +478,19 @@ public class PlaywrightUtil {
                         log.warn("关闭移动上下文时出错: {}", e.getMessage());
                     }
                 }
-                MOBILE_CONTEXT = null;
+                s.mobileContext = null;
             }
-            if (BROWSER != null) {
+            if (s.browser != null) {
                 try {
-                    BROWSER.close();
+                    s.browser.close();
                 } catch (Exception e) {
                     log.debug("关闭浏览器时出错（可忽略）: {}", e.getMessage());
                 }
-                BROWSER = null;
+                s.browser = null;
             }
-            if (PLAYWRIGHT != null) {
+            if (s.playwright != null && !s.keepPlaywright) {
                 try {
-                    PLAYWRIGHT.close();
+                    s.playwright.close();
                 } catch (Exception e) {
                     String errorMsg = e.getMessage();
                     if (errorMsg != null && (errorMsg.contains("package.json") || errorMsg.contains("MODULE_NOT_FOUND"))) {
@@ -350,9 +499,9 @@ public class PlaywrightUtil {
                         log.warn("关闭Playwright时出错: {}", e.getMessage());
                     }
                 }
-                PLAYWRIGHT = null;
+                s.playwright = null;
             }
-            INITIALIZED = false;
+            s.initialized = false;
             log.info("Playwright资源已清理");
         } catch (Exception e) {
             // 最外层异常处理，确保不会抛出未捕获的异常
@@ -366,7 +515,7 @@ public class PlaywrightUtil {
     }
 
 //        // 启用JavaScript捕获控制台日志（用于调试）
-//        DESKTOP_PAGE.onConsoleMessage(message -> {
+//        session().desktopPage.onConsoleMessage(message -> {
 //            if (message.type().equals("error")) {
 //                log.error("Browser console error: {}", message.text());
 //            }
@@ -378,7 +527,7 @@ public class PlaywrightUtil {
      * @param deviceType 设备类型
      */
     public static void setDefaultDeviceType(DeviceType deviceType) {
-        defaultDeviceType = deviceType;
+        session().defaultDeviceType = deviceType;
         log.info("已设置默认设备类型为: {}", deviceType);
     }
 
@@ -389,7 +538,7 @@ public class PlaywrightUtil {
      * @return 对应的Page对象
      */
     private static Page getPage(DeviceType deviceType) {
-        return deviceType == DeviceType.DESKTOP ? DESKTOP_PAGE : MOBILE_PAGE;
+        return getPageObject(deviceType);
     }
 
     /**
@@ -399,7 +548,7 @@ public class PlaywrightUtil {
      * @return 对应的BrowserContext对象
      */
     private static BrowserContext getContext(DeviceType deviceType) {
-        return deviceType == DeviceType.DESKTOP ? DESKTOP_CONTEXT : MOBILE_CONTEXT;
+        return deviceType == DeviceType.DESKTOP ? session().desktopContext : session().mobileContext;
     }
 
     /**
@@ -408,10 +557,11 @@ public class PlaywrightUtil {
      * ✅ 修复：捕获并忽略Playwright清理时的package.json错误（已知问题，不影响功能）
      */
     public static void close() {
+        Session s = session();
         try {
-            if (DESKTOP_PAGE != null) {
+            if (s.desktopPage != null) {
                 try {
-                    DESKTOP_PAGE.close();
+                    s.desktopPage.close();
                 } catch (Exception e) {
                     String errorMsg = e.getMessage();
                     if (errorMsg != null && (errorMsg.contains("package.json") || errorMsg.contains("MODULE_NOT_FOUND"))) {
@@ -420,11 +570,11 @@ public class PlaywrightUtil {
                         log.warn("关闭桌面页面时出错: {}", e.getMessage());
                     }
                 }
-                DESKTOP_PAGE = null;
+                s.desktopPage = null;
             }
-            if (MOBILE_PAGE != null) {
+            if (s.mobilePage != null) {
                 try {
-                    MOBILE_PAGE.close();
+                    s.mobilePage.close();
                 } catch (Exception e) {
                     String errorMsg = e.getMessage();
                     if (errorMsg != null && (errorMsg.contains("package.json") || errorMsg.contains("MODULE_NOT_FOUND"))) {
@@ -433,11 +583,11 @@ public class PlaywrightUtil {
                         log.warn("关闭移动页面时出错: {}", e.getMessage());
                     }
                 }
-                MOBILE_PAGE = null;
+                s.mobilePage = null;
             }
-            if (DESKTOP_CONTEXT != null) {
+            if (s.desktopContext != null) {
                 try {
-                    DESKTOP_CONTEXT.close();
+                    s.desktopContext.close();
                 } catch (Exception e) {
                     String errorMsg = e.getMessage();
                     if (errorMsg != null && (errorMsg.contains("package.json") || errorMsg.contains("MODULE_NOT_FOUND"))) {
@@ -446,11 +596,11 @@ public class PlaywrightUtil {
                         log.warn("关闭桌面上下文时出错: {}", e.getMessage());
                     }
                 }
-                DESKTOP_CONTEXT = null;
+                s.desktopContext = null;
             }
-            if (MOBILE_CONTEXT != null) {
+            if (s.mobileContext != null) {
                 try {
-                    MOBILE_CONTEXT.close();
+                    s.mobileContext.close();
                 } catch (Exception e) {
                     String errorMsg = e.getMessage();
                     if (errorMsg != null && (errorMsg.contains("package.json") || errorMsg.contains("MODULE_NOT_FOUND"))) {
@@ -459,11 +609,11 @@ public class PlaywrightUtil {
                         log.warn("关闭移动上下文时出错: {}", e.getMessage());
                     }
                 }
-                MOBILE_CONTEXT = null;
+                s.mobileContext = null;
             }
-            if (BROWSER != null) {
+            if (s.browser != null) {
                 try {
-                    BROWSER.close();
+                    s.browser.close();
                 } catch (Exception e) {
                     String errorMsg = e.getMessage();
                     if (errorMsg != null && (errorMsg.contains("package.json") || errorMsg.contains("MODULE_NOT_FOUND"))) {
@@ -472,11 +622,11 @@ public class PlaywrightUtil {
                         log.warn("关闭浏览器时出错: {}", e.getMessage());
                     }
                 }
-                BROWSER = null;
+                s.browser = null;
             }
-            if (PLAYWRIGHT != null) {
+            if (s.playwright != null && !s.keepPlaywright) {
                 try {
-                    PLAYWRIGHT.close();
+                    s.playwright.close();
                 } catch (Exception e) {
                     String errorMsg = e.getMessage();
                     if (errorMsg != null && (errorMsg.contains("package.json") || errorMsg.contains("MODULE_NOT_FOUND"))) {
@@ -485,8 +635,9 @@ public class PlaywrightUtil {
                         log.warn("关闭Playwright时出错: {}", e.getMessage());
                     }
                 }
-                PLAYWRIGHT = null;
+                s.playwright = null;
             }
+            s.initialized = false;
 
             log.info("Playwright及浏览器实例已成功关闭");
         } catch (Exception e) {
@@ -517,7 +668,7 @@ public class PlaywrightUtil {
      * @param url 目标URL
      */
     public static void navigate(String url) {
-        navigate(url, defaultDeviceType);
+        navigate(url, session().defaultDeviceType);
     }
 
     /**
@@ -535,12 +686,15 @@ public class PlaywrightUtil {
      * @param seconds 等待的秒数
      */
     public static void sleep(int seconds) {
+        checkAborted();
         try {
             TimeUnit.SECONDS.sleep(seconds);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
+            checkAborted();
             log.error("Sleep被中断", e);
         }
+        checkAborted();
     }
 
     /**
@@ -578,12 +732,15 @@ public class PlaywrightUtil {
      * @param millis 等待的毫秒数
      */
     public static void sleepMillis(int millis) {
+        checkAborted();
         try {
             TimeUnit.MILLISECONDS.sleep(millis);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
+            checkAborted();
             log.error("Sleep被中断", e);
         }
+        checkAborted();
     }
 
     /**
@@ -613,7 +770,7 @@ public class PlaywrightUtil {
      * @return 元素对象，如果未找到则返回null
      */
     public static Locator findElement(String selector) {
-        return findElement(selector, defaultDeviceType);
+        return findElement(selector, session().defaultDeviceType);
     }
 
     /**
@@ -638,7 +795,7 @@ public class PlaywrightUtil {
      * @return 元素对象，如果未找到则返回null
      */
     public static Locator waitForElement(String selector, int timeout) {
-        return waitForElement(selector, timeout, defaultDeviceType);
+        return waitForElement(selector, timeout, session().defaultDeviceType);
     }
 
     /**
@@ -648,7 +805,7 @@ public class PlaywrightUtil {
      * @return 元素对象，如果未找到则返回null
      */
     public static Locator waitForElement(String selector) {
-        return waitForElement(selector, DEFAULT_WAIT_TIME, defaultDeviceType);
+        return waitForElement(selector, DEFAULT_WAIT_TIME, session().defaultDeviceType);
     }
 
     /**
@@ -681,7 +838,7 @@ public class PlaywrightUtil {
      * @param selector 元素选择器
      */
     public static void click(String selector) {
-        click(selector, defaultDeviceType);
+        click(selector, session().defaultDeviceType);
     }
 
     /**
@@ -718,7 +875,7 @@ public class PlaywrightUtil {
      * @param text     要输入的文本
      */
     public static void fill(String selector, String text) {
-        fill(selector, text, defaultDeviceType);
+        fill(selector, text, session().defaultDeviceType);
     }
 
     /**
@@ -799,7 +956,7 @@ public class PlaywrightUtil {
      * @param maxDelay 字符间最大延迟（毫秒）
      */
     public static void typeHumanLike(String selector, String text, int minDelay, int maxDelay) {
-        typeHumanLike(selector, text, minDelay, maxDelay, defaultDeviceType);
+        typeHumanLike(selector, text, minDelay, maxDelay, session().defaultDeviceType);
     }
 
     /**
@@ -825,7 +982,7 @@ public class PlaywrightUtil {
      * @return 元素文本内容
      */
     public static String getText(String selector) {
-        return getText(selector, defaultDeviceType);
+        return getText(selector, session().defaultDeviceType);
     }
 
     /**
@@ -853,7 +1010,7 @@ public class PlaywrightUtil {
      * @return 属性值
      */
     public static String getAttribute(String selector, String attributeName) {
-        return getAttribute(selector, attributeName, defaultDeviceType);
+        return getAttribute(selector, attributeName, session().defaultDeviceType);
     }
 
     /**
@@ -877,7 +1034,7 @@ public class PlaywrightUtil {
      * @param path 保存路径
      */
     public static void screenshot(String path) {
-        screenshot(path, defaultDeviceType);
+        screenshot(path, session().defaultDeviceType);
     }
 
     /**
@@ -903,7 +1060,7 @@ public class PlaywrightUtil {
      * @param path     保存路径
      */
     public static void screenshotElement(String selector, String path) {
-        screenshotElement(selector, path, defaultDeviceType);
+        screenshotElement(selector, path, session().defaultDeviceType);
     }
 
     /**
@@ -946,7 +1103,7 @@ public class PlaywrightUtil {
      * @param path 保存路径
      */
     public static void saveCookies(String path) {
-        saveCookies(path, defaultDeviceType);
+        saveCookies(path, session().defaultDeviceType);
     }
 
     /**
@@ -956,6 +1113,19 @@ public class PlaywrightUtil {
      * @param deviceType 设备类型
      */
     public static void loadCookies(String path, DeviceType deviceType) {
+        if (loadCookies(getContext(deviceType), path)) {
+            log.info("已从文件加载Cookie: {} (设备类型: {})", path, deviceType);
+        }
+    }
+
+    /**
+     * 从文件加载Cookie到指定上下文
+     *
+     * @param context 浏览器上下文
+     * @param path    Cookie文件路径
+     * @return 是否加载成功
+     */
+    public static boolean loadCookies(BrowserContext context, String path) {
         try {
             String jsonText = new String(Files.readAllBytes(Paths.get(path)), StandardCharsets.UTF_8);
             JSONArray jsonArray = new JSONArray(jsonText);
@@ -991,10 +1161,11 @@ public class PlaywrightUtil {
                 cookies.add(cookie);
             }
 
-            getContext(deviceType).addCookies(cookies);
-            log.info("已从文件加载Cookie: {} (设备类型: {})", path, deviceType);
+            context.addCookies(cookies);
+            return true;
         } catch (IOException e) {
-            log.error("加载Cookie失败 (设备类型: {})", deviceType, e);
+            log.error("加载Cookie失败: {}", path, e);
+            return false;
         }
     }
 
@@ -1004,7 +1175,7 @@ public class PlaywrightUtil {
      * @param path Cookie文件路径
      */
     public static void loadCookies(String path) {
-        loadCookies(path, defaultDeviceType);
+        loadCookies(path, session().defaultDeviceType);
     }
 
     /**
@@ -1027,7 +1198,31 @@ public class PlaywrightUtil {
      * @param script JavaScript代码
      */
     public static void evaluate(String script) {
-        evaluate(script, defaultDeviceType);
+        evaluate(script, session().defaultDeviceType);
+    }
+
+    /**
+     * 监听页面响应：URL包含指定片段且状态为2xx时，把响应体文本交给回调
+     * 注意：同步API下回调在调用Playwright方法的线程上分发（如 page.waitForTimeout 期间）
+     *
+     * @param page 页面对象
+     * @param urlFragment URL片段
+     * @param bodyConsumer 响应体回调
+     * @return 取消监听的句柄
+     */
+    public static Runnable onResponseBody(Page page, String urlFragment, Consumer<String> bodyConsumer) {
+        Consumer<Response> handler = response -> {
+            if (!response.url().contains(urlFragment) || !response.ok()) {
+                return;
+            }
+            try {
+                bodyConsumer.accept(response.text());
+            } catch (Exception e) {
+                log.debug("读取响应体失败: url={}, error={}", response.url(), e.getMessage());
+            }
+        };
+        page.onResponse(handler);
+        return () -> page.offResponse(handler);
     }
 
     /**
@@ -1062,7 +1257,7 @@ public class PlaywrightUtil {
      * @return 是否可见
      */
     public static boolean elementIsVisible(String selector) {
-        return elementIsVisible(selector, defaultDeviceType);
+        return elementIsVisible(selector, session().defaultDeviceType);
     }
 
     /**
@@ -1083,7 +1278,7 @@ public class PlaywrightUtil {
      * @param optionText 选项文本
      */
     public static void selectByText(String selector, String optionText) {
-        selectByText(selector, optionText, defaultDeviceType);
+        selectByText(selector, optionText, session().defaultDeviceType);
     }
 
     /**
@@ -1104,7 +1299,7 @@ public class PlaywrightUtil {
      * @param value    选项值
      */
     public static void selectByValue(String selector, String value) {
-        selectByValue(selector, value, defaultDeviceType);
+        selectByValue(selector, value, session().defaultDeviceType);
     }
 
     /**
@@ -1123,7 +1318,7 @@ public class PlaywrightUtil {
      * @return 页面标题
      */
     public static String getTitle() {
-        return getTitle(defaultDeviceType);
+        return getTitle(session().defaultDeviceType);
     }
 
     /**
@@ -1142,7 +1337,7 @@ public class PlaywrightUtil {
      * @return 页面URL
      */
     public static String getUrl() {
-        return getUrl(defaultDeviceType);
+        return getUrl(session().defaultDeviceType);
     }
 
     /**
@@ -1314,7 +1509,7 @@ public class PlaywrightUtil {
      * 使用默认设备类型初始化Stealth模式
      */
     public static void initStealth() {
-        initStealth(defaultDeviceType);
+        initStealth(session().defaultDeviceType);
     }
 
     /**
@@ -1344,7 +1539,7 @@ public class PlaywrightUtil {
      * 使用默认设备类型设置默认请求头
      */
     public static void setDefaultHeaders() {
-        setDefaultHeaders(defaultDeviceType);
+        setDefaultHeaders(session().defaultDeviceType);
     }
 
     /**
@@ -1354,7 +1549,72 @@ public class PlaywrightUtil {
      * @return 对应的Page对象
      */
     public static Page getPageObject(DeviceType deviceType) {
-        return deviceType == DeviceType.DESKTOP ? DESKTOP_PAGE : MOBILE_PAGE;
+        if (deviceType == DeviceType.DESKTOP) {
+            Page bound = BOUND_PAGE.get();
+            return bound != null ? bound : session().desktopPage;
+        }
+        return session().mobilePage;
+    }
+
+    /**
+     * 将当前线程的桌面页面绑定为指定页面（多上下文并行模式）
+     * 绑定后，本线程内的 getPageObject() 和人类行为模拟方法都作用于该页面
+     *
+     * @param page 页面对象，传null解除绑定
+     */
+    public static void bindPage(Page page) {
+        if (page == null) {
+            BOUND_PAGE.remove();
+        } else {
+            BOUND_PAGE.set(page);
+        }
+    }
+
+    /**
+     * 设置远程调试端口，需在init之前调用
+     *
+     * @param port 端口，0表示关闭
+     */
+    public static void setRemoteDebuggingPort(int port) {
+        session().remoteDebuggingPort = port;
+    }
+
+    /**
+     * 预热Playwright驱动（常驻工作进程启动时调用）
+     * 之后关闭浏览器时保留驱动，下一次运行只需启动浏览器
+     */
+    public static void warmUp() {
+        Session s = session();
+        s.keepPlaywright = true;
+        if (s.playwright == null) {
+            long start = System.currentTimeMillis();
+            s.playwright = Playwright.create();
+            log.info("Playwright驱动预热完成，耗时{}ms", System.currentTimeMillis() - start);
+        }
+    }
+
+    /**
+     * 重置为初始状态（常驻工作进程在两次运行之间调用）
+     * 关闭上一位用户的浏览器、上下文和页面，清除线程绑定、远程调试端口和默认设备类型
+     */
+    public static void resetForNextRun() {
+        Session s = session();
+        close();
+        BOUND_PAGE.remove();
+        s.remoteDebuggingPort = 0;
+        s.headlessMode = true;
+        s.defaultDeviceType = DeviceType.DESKTOP;
+    }
+
+    /**
+     * @return 浏览器CDP地址（共享浏览器会话返回宿主浏览器地址），未启用远程调试时返回null
+     */
+    public static String getCdpEndpoint() {
+        Session s = session();
+        if (s.sharedBrowserEndpoint != null) {
+            return s.sharedBrowserEndpoint;
+        }
+        return s.remoteDebuggingPort > 0 ? "http://127.0.0.1:" + s.remoteDebuggingPort : null;
     }
 
     /**
@@ -1363,7 +1623,7 @@ public class PlaywrightUtil {
      * @return 对应的Page对象
      */
     public static Page getPageObject() {
-        return getPageObject(defaultDeviceType);
+        return getPageObject(session().defaultDeviceType);
     }
 
     /**
@@ -1416,7 +1676,7 @@ public class PlaywrightUtil {
      */
     public static void setCookie(String name, String value, String domain, String path,
                                  Double expires, Boolean secure, Boolean httpOnly) {
-        setCookie(name, value, domain, path, expires, secure, httpOnly, defaultDeviceType);
+        setCookie(name, value, domain, path, expires, secure, httpOnly, session().defaultDeviceType);
     }
 
     /**
@@ -1441,7 +1701,7 @@ public class PlaywrightUtil {
      * @param path   Cookie路径
      */
     public static void setCookie(String name, String value, String domain, String path) {
-        setCookie(name, value, domain, path, null, null, null, defaultDeviceType);
+        setCookie(name, value, domain, path, null, null, null, session().defaultDeviceType);
     }
 
     /**
@@ -1533,7 +1793,7 @@ public class PlaywrightUtil {
      * @return 元素对象的Optional包装
      */
     public static Optional<Locator> findElementWithMessage(String selector, String message) {
-        return findElementWithMessage(selector, message, defaultDeviceType);
+        return findElementWithMessage(selector, message, session().defaultDeviceType);
     }
 
     /**
@@ -1591,7 +1851,7 @@ public class PlaywrightUtil {
      * 使用默认设备类型模拟鼠标移动
      */
     public static void simulateMouseMove() {
-        simulateMouseMove(defaultDeviceType);
+        simulateMouseMove(session().defaultDeviceType);
     }
 
     /**
@@ -1645,7 +1905,7 @@ public class PlaywrightUtil {
      * 使用默认设备类型模拟滚动
      */
     public static void simulateScroll() {
-        simulateScroll(defaultDeviceType);
+        simulateScroll(session().defaultDeviceType);
     }
 
     /**
@@ -1674,7 +1934,7 @@ public class PlaywrightUtil {
      * 使用默认设备类型模拟键盘活动
      */
     public static void simulateKeyboardActivity() {
-        simulateKeyboardActivity(defaultDeviceType);
+        simulateKeyboardActivity(session().defaultDeviceType);
     }
 
     /**
@@ -1728,7 +1988,7 @@ public class PlaywrightUtil {
      * 使用默认设备类型综合人类行为模拟
      */
     public static void simulateHumanBehavior() {
-        simulateHumanBehavior(defaultDeviceType);
+        simulateHumanBehavior(session().defaultDeviceType);
     }
 
     /**
@@ -1762,7 +2022,7 @@ public class PlaywrightUtil {
      * @param url 目标URL
      */
     public static void navigateWithHumanBehavior(String url) {
-        navigateWithHumanBehavior(url, defaultDeviceType);
+        navigateWithHumanBehavior(url, session().defaultDeviceType);
     }
 
     /**
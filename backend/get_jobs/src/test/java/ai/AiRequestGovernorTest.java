@@ -0,0 +1,104 @@
+package ai;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * AiRequestGovernor单元测试
+ */
+@DisplayName("AiRequestGovernor AI请求准入控制测试")
+class AiRequestGovernorTest {
+
+    private final AtomicLong now = new AtomicLong(TimeUnit.SECONDS.toNanos(100));
+
+    private AiRequestGovernor governor(int initialConcurrency) {
+        return new AiRequestGovernor(initialConcurrency, 32, 45_000L, 1_000, 1_000, now::get);
+    }
+
+    @Test
+    @DisplayName("超过并发上限的请求排队，释放后按顺序放行")
+    void testQueueing() throws Exception {
+        AiRequestGovernor governor = governor(1);
+        AiRequestGovernor.Permit first = governor.acquire("key", "u1").get();
+        CompletableFuture<AiRequestGovernor.Permit> second = governor.acquire("key", "u2");
+        assertFalse(second.isDone());
+        assertEquals(1, governor.getQueued());
+
+        first.release(AiRequestGovernor.Outcome.SUCCESS, TimeUnit.SECONDS.toNanos(1));
+        assertTrue(second.isDone());
+        assertEquals(0, governor.getQueued());
+        assertEquals(1, governor.getInFlight());
+    }
+
+    @Test
+    @DisplayName("429时并发上限减半，成功时缓慢回升")
+    void testAimd() throws Exception {
+        AiRequestGovernor governor = governor(8);
+        governor.acquire("key", null).get().release(AiRequestGovernor.Outcome.RATE_LIMITED, 0);
+        assertEquals(4.0, governor.getLimit(), 1e-9);
+
+        // 冷却期内的第二次失败不再下调
+        governor.acquire("key", null).get().release(AiRequestGovernor.Outcome.RATE_LIMITED, 0);
+        assertEquals(4.0, governor.getLimit(), 1e-9);
+
+        for (int i = 0; i < 4; i++) {
+            governor.acquire("key", null).get().release(AiRequestGovernor.Outcome.SUCCESS, 0);
+        }
+        assertTrue(governor.getLimit() > 4.9 && governor.getLimit() < 5.0);
+    }
+
+    @Test
+    @DisplayName("限速拒绝的请求不占用令牌，负载下降后立即恢复")
+    void testThrottledCallsDoNotDelayNextAdmission() throws Exception {
+        // 用户每100秒1个令牌，突发5个
+        AiRequestGovernor governor = new AiRequestGovernor(8, 32, 45_000L, 1_000, 0.01, now::get);
+        for (int i = 0; i < 5; i++) {
+            governor.acquire("key", "u1").get().release(AiRequestGovernor.Outcome.SUCCESS, 0);
+        }
+        for (int i = 0; i < 20; i++) {
+            ExecutionException rejected = assertThrows(ExecutionException.class,
+                () -> governor.acquire("key", "u1").get());
+            assertInstanceOf(AiRequestGovernor.AiUnavailableException.class, rejected.getCause());
+        }
+        assertEquals(20, governor.getRejectedCount(AiRequestGovernor.RejectReason.THROTTLED));
+
+        // 补充1个令牌后下一次请求立即放行
+        now.addAndGet(TimeUnit.SECONDS.toNanos(100));
+        CompletableFuture<AiRequestGovernor.Permit> next = governor.acquire("key", "u1");
+        assertTrue(next.isDone());
+        assertFalse(next.isCompletedExceptionally());
+    }
+
+    @Test
+    @DisplayName("失败率过高时熔断，冷却后探测成功即恢复")
+    void testCircuitBreaker() throws Exception {
+        AiRequestGovernor governor = governor(8);
+        for (int i = 0; i < 10; i++) {
+            governor.acquire("key", null).get().release(AiRequestGovernor.Outcome.FAILURE, 0);
+        }
+        assertEquals(AiRequestGovernor.CircuitState.OPEN, governor.getCircuitState());
+
+        ExecutionException rejected = assertThrows(ExecutionException.class,
+            () -> governor.acquire("key", null).get());
+        assertInstanceOf(AiRequestGovernor.AiUnavailableException.class, rejected.getCause());
+        assertEquals(1, governor.getRejectedCount(AiRequestGovernor.RejectReason.CIRCUIT_OPEN));
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(31));
+        AiRequestGovernor.Permit probe = governor.acquire("key", null).get();
+        // 探测期间只放行一个请求
+        assertTrue(governor.acquire("key", null).isCompletedExceptionally());
+        probe.release(AiRequestGovernor.Outcome.SUCCESS, 0);
+        assertEquals(AiRequestGovernor.CircuitState.CLOSED, governor.getCircuitState());
+    }
+}
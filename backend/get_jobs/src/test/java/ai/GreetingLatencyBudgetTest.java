@@ -0,0 +1,42 @@
+package ai;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * GreetingLatencyBudget单元测试
+ */
+@DisplayName("GreetingLatencyBudget打招呼语AI等待预算测试")
+class GreetingLatencyBudgetTest {
+
+    @Test
+    @DisplayName("样本不足时使用初始预算")
+    void testInitialBudget() {
+        GreetingLatencyBudget budget = new GreetingLatencyBudget(3_000, 30_000, 15_000);
+        budget.record(1_000);
+        assertEquals(15_000, budget.currentMillis());
+    }
+
+    @Test
+    @DisplayName("预算取P90并留出余量，且限制在上下限之间")
+    void testPercentileAndClamp() {
+        GreetingLatencyBudget budget = new GreetingLatencyBudget(3_000, 30_000, 15_000);
+        for (int i = 1; i <= 10; i++) {
+            budget.record(i * 1_000L);
+        }
+        // P90 = 9000ms，余量25%
+        assertEquals(11_250, budget.currentMillis());
+
+        for (int i = 0; i < 64; i++) {
+            budget.record(100);
+        }
+        assertEquals(3_000, budget.currentMillis());
+
+        for (int i = 0; i < 64; i++) {
+            budget.record(90_000);
+        }
+        assertEquals(30_000, budget.currentMillis());
+    }
+}
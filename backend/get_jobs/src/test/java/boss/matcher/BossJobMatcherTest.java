@@ -3,6 +3,9 @@ package boss.matcher;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
+import java.util.Arrays;
+import java.util.List;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -12,6 +15,7 @@ import org.junit.jupiter.params.provider.CsvSource;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import boss.BossConfig;
+import utils.Job;
 
 /**
  * BossJobMatcher服务类单元测试
@@ -110,4 +114,94 @@ class BossJobMatcherTest {
         assertEquals(0.0, result.getScore());
         assertEquals(0, result.getMatchedScheme());
     }
+
+    @Test
+    @DisplayName("测试关键词匹配 - 排除词优先")
+    void testIsKeywordMatchedWithScore_ExcludeKeyword() {
+        BossJobMatcher.MatchingResult excluded = matcher.isKeywordMatchedWithScore("市场品牌区域总厨", "市场");
+        assertFalse(excluded.isMatched());
+
+        // 关键词是主要部分时忽略排除词
+        BossJobMatcher.MatchingResult mainPart = matcher.isKeywordMatchedWithScore("餐饮市场总监（总厨背景）", "市场");
+        assertTrue(mainPart.isMatched());
+        assertEquals(1.0, mainPart.getScore());
+        assertEquals(1, mainPart.getMatchedScheme());
+    }
+
+    @Test
+    @DisplayName("测试关键词匹配 - 灵活模式拆分匹配")
+    void testIsKeywordMatchedWithScore_FlexibleSplit() {
+        BossJobMatcher flexible = new BossJobMatcher(configWithMode("FLEXIBLE", null));
+
+        BossJobMatcher.MatchingResult result = flexible.isKeywordMatchedWithScore("营销运营总监", "营销总监");
+        assertTrue(result.isMatched());
+        assertEquals(0.6, result.getScore());
+        assertEquals(4, result.getMatchedScheme());
+
+        // 标准模式不启用方案4
+        assertFalse(matcher.isKeywordMatchedWithScore("营销运营总监", "营销总监").isMatched());
+    }
+
+    @Test
+    @DisplayName("测试关键词匹配 - 严格模式只启用开头匹配")
+    void testIsKeywordMatchedWithScore_StrictMode() {
+        BossJobMatcher strict = new BossJobMatcher(configWithMode("STRICT", null));
+
+        assertEquals(1, strict.isKeywordMatchedWithScore("市场总监", "市场").getMatchedScheme());
+        assertFalse(strict.isKeywordMatchedWithScore("数字市场总监", "市场").isMatched());
+        assertEquals(2, matcher.isKeywordMatchedWithScore("数字市场总监", "市场").getMatchedScheme());
+    }
+
+    @Test
+    @DisplayName("测试批量匹配 - 与逐个匹配结果一致")
+    void testMatchAll_ConsistentWithSingleMatch() {
+        List<String> keywords = Arrays.asList("市场", "Java", "营销");
+        List<Job> jobs = Arrays.asList(job("Java开发工程师"), job("数字营销经理"), job("市场品牌区域总厨"),
+            job("Python开发工程师"), job(null));
+
+        List<BossJobMatcher.MatchingResult> results = matcher.matchAll(jobs, keywords);
+
+        assertEquals(jobs.size(), results.size());
+        for (int i = 0; i < jobs.size(); i++) {
+            BossJobMatcher.MatchingResult expected = BossJobMatcher.MatchingResult.NO_MATCH;
+            for (String keyword : keywords) {
+                BossJobMatcher.MatchingResult single = matcher.isKeywordMatchedWithScore(jobs.get(i).getJobName(), keyword);
+                if (single.isMatched()) {
+                    expected = single;
+                    break;
+                }
+            }
+            assertEquals(expected.isMatched(), results.get(i).isMatched());
+            assertEquals(expected.getScore(), results.get(i).getScore());
+            assertEquals(expected.getMatchedScheme(), results.get(i).getMatchedScheme());
+        }
+        assertEquals("Java", results.get(0).getMatchedKeyword());
+        assertEquals("营销", results.get(1).getMatchedKeyword());
+    }
+
+    @Test
+    @DisplayName("测试按优先级匹配 - 返回第一个命中的关键词")
+    void testMatchFirst_KeywordOrder() {
+        BossJobMatcher.MatchingResult result = matcher.matchFirst("市场营销总监", Arrays.asList("营销", "市场"));
+
+        assertTrue(result.isMatched());
+        assertEquals("营销", result.getMatchedKeyword());
+        assertEquals(2, result.getMatchedScheme());
+        assertSame(BossJobMatcher.MatchingResult.NO_MATCH, matcher.matchFirst("保洁员", Arrays.asList("营销", "市场")));
+    }
+
+    private static BossConfig configWithMode(String mode, BossConfig.MatchingSchemes schemes) {
+        BossConfig.DeliveryStrategy strategy = new BossConfig.DeliveryStrategy();
+        strategy.setKeywordMatchingMode(mode);
+        strategy.setMatchingSchemes(schemes);
+        BossConfig bossConfig = new BossConfig();
+        bossConfig.setDeliveryStrategy(strategy);
+        return bossConfig;
+    }
+
+    private static Job job(String jobName) {
+        Job job = new Job();
+        job.setJobName(jobName);
+        return job;
+    }
 }
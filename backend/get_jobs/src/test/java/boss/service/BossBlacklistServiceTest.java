@@ -135,5 +135,27 @@ class BossBlacklistServiceTest {
         // saveData()需要Playwright的Page对象，在单元测试中跳过
         assertTrue(true);
     }
-}
 
+    @Test
+    @DisplayName("测试黑名单索引 - 双向匹配与职位匹配")
+    void testBlacklistIndex_BidirectionalMatching() throws IOException {
+        String jsonContent = "{\n" +
+            "  \"blackCompanies\": [\"  某某科技  \", \"北京字节跳动网络技术有限公司\", \" \"],\n" +
+            "  \"blackJobs\": [\"外包\", \"实习\"]\n" +
+            "}";
+        Path jsonFile = tempDir.resolve("blacklist.json");
+        Files.write(jsonFile, jsonContent.getBytes(StandardCharsets.UTF_8));
+        service = new BossBlacklistService("test_user", jsonFile.toString());
+        service.loadData();
+
+        // 公司名包含黑名单项（黑名单项会去除首尾空格）
+        assertTrue(service.isCompanyBlacklisted("上海某某科技有限公司"));
+        // 黑名单项包含公司名
+        assertTrue(service.isCompanyBlacklisted(" 字节跳动 "));
+        assertFalse(service.isCompanyBlacklisted("腾讯科技"));
+
+        assertTrue(service.isJobBlacklisted("Java开发（外包）"));
+        assertTrue(service.isJobBlacklisted("市场实习生"));
+        assertFalse(service.isJobBlacklisted("市场总监"));
+    }
+}
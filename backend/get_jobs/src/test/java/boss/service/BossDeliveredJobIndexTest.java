@@ -0,0 +1,113 @@
+package boss.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import utils.Job;
+
+/**
+ * BossDeliveredJobIndex单元测试
+ * 测试已投递岗位的记录、持久化、过期和扩容
+ */
+@DisplayName("BossDeliveredJobIndex已投递索引测试")
+class BossDeliveredJobIndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final AtomicLong now = new AtomicLong(1_700_000_000_000L);
+
+    private BossDeliveredJobIndex open() throws IOException {
+        return new BossDeliveredJobIndex(tempDir.resolve(BossDeliveredJobIndex.FILE_NAME), Duration.ofDays(30),
+            now::get);
+    }
+
+    @Test
+    @DisplayName("岗位ID或公司+岗位名称任一命中即视为已投递，重新打开后仍然有效")
+    void testRecordAndReopen() throws IOException {
+        try (BossDeliveredJobIndex index = open()) {
+            index.record(job("abc123", "测试科技", "Java开发工程师"));
+        }
+        try (BossDeliveredJobIndex index = open()) {
+            assertTrue(index.contains(job("abc123", null, null)));
+            assertTrue(index.contains(job(null, "测试科技", "java 开发工程师")));
+            assertFalse(index.contains(job("other", "测试科技", "Go开发工程师")));
+            assertFalse(index.contains(job(null, null, null)));
+        }
+    }
+
+    @Test
+    @DisplayName("过期条目不再命中，扩容后保留未过期条目")
+    void testExpireAndGrow() throws IOException {
+        try (BossDeliveredJobIndex index = open()) {
+            index.record(job("old", "旧公司", "旧岗位"));
+            now.addAndGet(Duration.ofDays(31).toMillis());
+            assertFalse(index.contains(job("old", "旧公司", "旧岗位")));
+
+            for (int i = 0; i < 10_000; i++) {
+                index.record(job("id" + i, "公司" + i, "岗位" + i));
+            }
+            for (int i = 0; i < 10_000; i += 97) {
+                assertTrue(index.contains(job("id" + i, null, null)));
+                assertTrue(index.contains(job(null, "公司" + i, "岗位" + i)));
+            }
+            assertFalse(index.contains(job("old", "旧公司", "旧岗位")));
+            assertEquals(20_000, index.size());
+        }
+    }
+
+    @Test
+    @DisplayName("重建失败时继续使用旧文件；重建成功后新映射的写入在重新打开后仍然有效")
+    void testRebuildFailureKeepsIndex() throws IOException {
+        Path tmp = tempDir.resolve(BossDeliveredJobIndex.FILE_NAME + ".tmp");
+        Files.createDirectories(tmp.resolve("busy"));
+        try (BossDeliveredJobIndex index = open()) {
+            // 超过初始容量的负载上限后，触发的重建全部失败：已有条目仍可查询，新条目写不进去
+            for (int i = 0; i < 3000; i++) {
+                index.record(job("id" + i, null, null));
+            }
+            assertTrue(index.contains(job("id0", null, null)));
+            assertFalse(index.contains(job("id2999", null, null)));
+            int sizeBeforeRetry = index.size();
+
+            Files.delete(tmp.resolve("busy"));
+            Files.delete(tmp);
+            index.record(job("id3000", null, null));
+            assertEquals(sizeBeforeRetry + 1, index.size());
+        }
+        try (BossDeliveredJobIndex index = open()) {
+            assertTrue(index.contains(job("id0", null, null)));
+            assertTrue(index.contains(job("id3000", null, null)));
+        }
+    }
+
+    @Test
+    @DisplayName("索引文件损坏时重新创建")
+    void testCorruptFile() throws IOException {
+        Files.write(tempDir.resolve(BossDeliveredJobIndex.FILE_NAME), new byte[64]);
+        try (BossDeliveredJobIndex index = open()) {
+            assertEquals(0, index.size());
+            index.record(job("abc", "公司", "岗位"));
+            assertTrue(index.contains(job("abc", null, null)));
+        }
+    }
+
+    private static Job job(String jobId, String companyName, String jobName) {
+        Job job = new Job();
+        job.setJobId(jobId);
+        job.setCompanyName(companyName);
+        job.setJobName(jobName);
+        return job;
+    }
+}
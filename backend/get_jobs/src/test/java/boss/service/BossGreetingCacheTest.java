@@ -0,0 +1,65 @@
+package boss.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * BossGreetingCache单元测试
+ */
+@DisplayName("BossGreetingCache打招呼语缓存测试")
+class BossGreetingCacheTest {
+
+    private static final byte[] RESUME = "{\"current_title\":\"Java工程师\"}".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    @DisplayName("排版不同的相同JD得到相同的键，简历变化得到不同的键")
+    void testKeyNormalization() {
+        String key = BossGreetingCache.key(RESUME, "Java开发", "岗位职责：\n1. 负责后端开发；\n2. 熟悉Spring。");
+        assertEquals(key, BossGreetingCache.key(RESUME, " Java开发 ",
+            "岗位职责:  1.负责后端开发;  2.熟悉Spring  来自BOSS直聘"));
+        assertNotEquals(key, BossGreetingCache.key("{}".getBytes(StandardCharsets.UTF_8), "Java开发",
+            "岗位职责：\n1. 负责后端开发；\n2. 熟悉Spring。"));
+        assertNotEquals(key, BossGreetingCache.key(RESUME, "Go开发", "岗位职责：\n1. 负责后端开发；\n2. 熟悉Spring。"));
+    }
+
+    @Test
+    @DisplayName("内存缓存有容量上限和过期时间")
+    void testMemoryBoundAndTtl() {
+        AtomicLong now = new AtomicLong(1_000);
+        BossGreetingCache cache = new BossGreetingCache(2, 10, Duration.ofMinutes(1), now::get, false);
+        cache.put("a", "A", null);
+        cache.put("b", "B", null);
+        assertEquals("A", cache.get("a", null));
+        cache.put("c", "C", null);
+        // b最久未访问，被淘汰
+        assertNull(cache.get("b", null));
+        assertEquals("C", cache.get("c", null));
+
+        now.addAndGet(Duration.ofMinutes(2).toMillis());
+        assertNull(cache.get("a", null));
+    }
+
+    @Test
+    @DisplayName("磁盘缓存跨实例保留")
+    void testDiskTier(@TempDir Path userDir) {
+        AtomicLong now = new AtomicLong(1_000);
+        new BossGreetingCache(4, 10, Duration.ofDays(1), now::get, true).put("k", "您好，我对该岗位很感兴趣", userDir);
+        assertTrue(Files.exists(userDir.resolve(BossGreetingCache.FILE_NAME)));
+
+        BossGreetingCache reloaded = new BossGreetingCache(4, 10, Duration.ofDays(1), now::get, true);
+        assertEquals("您好，我对该岗位很感兴趣", reloaded.get("k", userDir));
+        assertNull(reloaded.get("other", userDir));
+    }
+}
@@ -3,10 +3,12 @@ package boss.service;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.json.JSONArray;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -16,6 +18,7 @@ import org.junit.jupiter.params.provider.CsvSource;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import boss.BossConfig;
+import utils.Job;
 
 /**
  * BossJobSearchService服务类单元测试
@@ -118,6 +121,82 @@ class BossJobSearchServiceTest {
         assertTrue(url.contains("industry=100001"));
         assertTrue(url.contains("stage=401"));
     }
-}
 
+    @Test
+    @DisplayName("测试岗位卡片快照解析")
+    void testToJobs_CardSnapshot() {
+        Map<String, Object> card = new HashMap<>();
+        card.put("jobName", " 市场总监 ");
+        card.put("href", "/job_detail/abc123.html");
+        card.put("salary", "\uE002\uE000-\uE003\uE000K");
+        card.put("companyName", "某某科技");
+        card.put("recruiter", "张女士");
+        card.put("jobArea", "北京·朝阳区");
+        card.put("tags", Arrays.asList("5-10年", "本科", ""));
+
+        List<Job> jobs = BossJobSearchService.toJobs(Arrays.asList(card, "invalid"));
+
+        assertEquals(2, jobs.size());
+        Job job = jobs.get(0);
+        assertEquals("市场总监", job.getJobName());
+        assertEquals("/job_detail/abc123.html", job.getHref());
+        assertEquals("20-30K", job.getSalary());
+        assertEquals("某某科技", job.getCompanyName());
+        assertEquals("张女士", job.getRecruiter());
+        assertEquals("北京·朝阳区", job.getJobArea());
+        assertEquals("5-10年, 本科", job.getCompanyTag());
+        // 无法解析的元素保留为空Job，保证下标对齐
+        assertNull(jobs.get(1).getJobName());
+        assertTrue(BossJobSearchService.toJobs(null).isEmpty());
+    }
 
+    @Test
+    @DisplayName("测试岗位详情面板快照解析")
+    void testToJobDetail() {
+        Map<String, Object> detail = new HashMap<>();
+        detail.put("jobName", "市场总监");
+        detail.put("salary", "\uE002\uE000-\uE003\uE000K");
+        detail.put("tags", Arrays.asList("北京", "5-10年", ""));
+        detail.put("desc", "负责市场推广");
+        detail.put("bossName", "张女士 刚刚活跃");
+        detail.put("bossTitle", "某某科技·HR");
+
+        BossJobSearchService.JobDetail parsed = BossJobSearchService.toJobDetail(detail);
+
+        assertEquals("市场总监", parsed.getJobName());
+        assertEquals("\uE002\uE000-\uE003\uE000K", parsed.getSalary());
+        assertEquals(List.of("北京", "5-10年"), parsed.getTags());
+        assertEquals("负责市场推广", parsed.getDesc());
+        assertEquals("张女士 刚刚活跃", parsed.getBossName());
+        assertEquals("某某科技·HR", parsed.getBossTitle());
+        // 详情面板不存在时各字段为空，由调用方按无法获取岗位名称跳过
+        assertEquals("", BossJobSearchService.toJobDetail(null).getJobName());
+        assertTrue(BossJobSearchService.toJobDetail(null).getTags().isEmpty());
+    }
+
+    @Test
+    @DisplayName("测试岗位列表接口响应解析")
+    void testJobListFeed_ToJobs() {
+        JSONArray jobList = new JSONArray("[{"
+            + "\"encryptJobId\": \"abc123~\", \"jobName\": \"市场总监\", \"salaryDesc\": \"30-50K·14薪\","
+            + "\"brandName\": \"某某科技\", \"bossName\": \"张女士\", \"cityName\": \"北京\","
+            + "\"areaDistrict\": \"朝阳区\", \"businessDistrict\": \"\", \"jobLabels\": [\"5-10年\", \"本科\"],"
+            + "\"brandStageName\": \"D轮及以上\", \"brandScaleName\": \"1000-9999人\"}, {}]");
+
+        List<Job> jobs = BossJobListFeed.toJobs(jobList);
+
+        assertEquals(2, jobs.size());
+        Job job = jobs.get(0);
+        assertEquals("abc123~", job.getJobId());
+        assertEquals("/job_detail/abc123~.html", job.getHref());
+        assertEquals("市场总监", job.getJobName());
+        assertEquals("30-50K·14薪", job.getSalary());
+        assertEquals("某某科技", job.getCompanyName());
+        assertEquals("张女士", job.getRecruiter());
+        assertEquals("北京·朝阳区", job.getJobArea());
+        assertEquals("5-10年, 本科", job.getCompanyTag());
+        assertEquals("D轮及以上, 1000-9999人", job.getCompanyInfo());
+        assertNull(jobs.get(1).getJobId());
+        assertTrue(BossJobListFeed.toJobs(null).isEmpty());
+    }
+}
@@ -0,0 +1,68 @@
+package boss.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * BossRunCheckpoint单元测试
+ */
+@DisplayName("BossRunCheckpoint运行检查点测试")
+class BossRunCheckpointTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("中断后重新加载：已完成的关键词被跳过，进行中的关键词从检查点继续")
+    void testResumeAfterInterruption() {
+        BossRunCheckpoint first = new BossRunCheckpoint(tempDir);
+        first.clear();
+        first.recordJob("101020100", "Java", 2, 15, "j15", 3, 10, 2);
+        first.markCompleted("101020100", "Java");
+        first.recordJob("101020100", "Go", 1, 7, "g7", 1, 6, 0);
+
+        BossRunCheckpoint second = new BossRunCheckpoint(tempDir);
+        assertTrue(second.load());
+        assertTrue(second.isCompleted("101020100", "Java"));
+        assertFalse(second.isCompleted("101020100", "Go"));
+        assertNull(second.resumePoint("101020100", "Java"));
+        assertNull(second.resumePoint("101010100", "Go"));
+
+        BossRunCheckpoint.Progress progress = second.resumePoint("101020100", "Go");
+        assertNotNull(progress);
+        assertEquals(7, progress.getProcessedCount());
+        assertEquals("g7", progress.getLastJobId());
+        assertEquals(1, progress.getPostCount());
+        assertEquals(6, progress.getSkipCount());
+    }
+
+    @Test
+    @DisplayName("正常结束后清除检查点；损坏或过期的检查点不恢复")
+    void testClearAndInvalidCheckpoint() throws Exception {
+        BossRunCheckpoint checkpoint = new BossRunCheckpoint(tempDir);
+        checkpoint.recordJob("101020100", "Java", 1, 3, "j3", 0, 3, 0);
+        checkpoint.clear();
+        assertFalse(Files.exists(tempDir.resolve(BossRunCheckpoint.FILE_NAME)));
+        assertFalse(new BossRunCheckpoint(tempDir).load());
+
+        Files.write(tempDir.resolve(BossRunCheckpoint.FILE_NAME), "{broken".getBytes(StandardCharsets.UTF_8));
+        assertFalse(new BossRunCheckpoint(tempDir).load());
+
+        Files.write(tempDir.resolve(BossRunCheckpoint.FILE_NAME),
+            "{\"runDate\":\"2000-01-01\",\"completed\":[\"101020100|Java\"]}".getBytes(StandardCharsets.UTF_8));
+        BossRunCheckpoint stale = new BossRunCheckpoint(tempDir);
+        assertFalse(stale.load());
+        assertFalse(stale.isCompleted("101020100", "Java"));
+    }
+}
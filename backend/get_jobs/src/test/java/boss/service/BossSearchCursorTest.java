@@ -0,0 +1,82 @@
+package boss.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import utils.Job;
+
+/**
+ * BossSearchCursor单元测试
+ */
+@DisplayName("BossSearchCursor增量搜索游标测试")
+class BossSearchCursorTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("上次运行的头部岗位在下次运行中按比例识别，游标按城市+关键词隔离")
+    void testObserveAfterCommit() {
+        BossSearchCursor first = new BossSearchCursor(tempDir);
+        first.load();
+        first.begin("101020100", "Java");
+        assertEquals(0.0, first.observe("101020100", "Java", cards("a", "b", "c", "d")));
+        processAll(first, "a", "b", "c", "d");
+        first.commit("101020100", "Java");
+
+        BossSearchCursor second = new BossSearchCursor(tempDir);
+        second.load();
+        second.begin("101020100", "Java");
+        // 两个新岗位 + 两个上次出现过的岗位；没有岗位ID的卡片不计入
+        assertEquals(0.5, second.observe("101020100", "Java", cards("new1", "new2", "a", "b", null)));
+        assertEquals(1.0, second.observe("101020100", "Java", cards("c", "d")));
+        assertEquals(0.0, second.observe("101010100", "Java", cards("a", "b")));
+    }
+
+    @Test
+    @DisplayName("有列出但未处理的岗位（如因限额跳过）时不保留游标，下次不提前停止")
+    void testUnprocessedJobsClearCursor() {
+        BossSearchCursor first = new BossSearchCursor(tempDir);
+        first.load();
+        first.begin("101020100", "Java");
+        first.observe("101020100", "Java", cards("a", "b", "c", "d"));
+        processAll(first, "a", "b", "c", "d");
+        first.commit("101020100", "Java");
+
+        BossSearchCursor second = new BossSearchCursor(tempDir);
+        second.load();
+        second.begin("101020100", "Java");
+        second.observe("101020100", "Java", cards("new1", "a", "b", "c"));
+        // 只处理了new1，其余岗位因限额跳过
+        processAll(second, "new1");
+        second.commit("101020100", "Java");
+
+        BossSearchCursor third = new BossSearchCursor(tempDir);
+        third.load();
+        third.begin("101020100", "Java");
+        assertEquals(0.0, third.observe("101020100", "Java", cards("a", "b", "c", "d")));
+    }
+
+    private static void processAll(BossSearchCursor cursor, String... jobIds) {
+        for (String jobId : jobIds) {
+            cursor.markProcessed("101020100", "Java", jobId);
+        }
+    }
+
+    private static List<Job> cards(String... jobIds) {
+        List<Job> cards = new ArrayList<>();
+        for (String jobId : jobIds) {
+            Job job = new Job();
+            job.setJobId(jobId);
+            cards.add(job);
+        }
+        return cards;
+    }
+}
@@ -0,0 +1,123 @@
+package boss.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * QuotaLeaseClient单元测试（本机回环端口上模拟主进程的租约服务）
+ */
+@DisplayName("QuotaLeaseClient投递配额租约测试")
+class QuotaLeaseClientTest {
+
+    private ServerSocket server;
+    private final List<JSONObject> requests = new CopyOnWriteArrayList<>();
+    private final AtomicLong remaining = new AtomicLong();
+    private final AtomicLong now = new AtomicLong(1_000);
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        Thread thread = new Thread(this::serve);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        server.close();
+    }
+
+    private void serve() {
+        while (!server.isClosed()) {
+            try (Socket socket = server.accept()) {
+                JSONObject request = new JSONObject(new BufferedReader(
+                    new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8)).readLine());
+                requests.add(request);
+                JSONObject response = new JSONObject().put("ok", "token".equals(request.optString("token")));
+                remaining.addAndGet(request.optLong("unused", 0L));
+                if ("renew".equals(request.optString("op"))) {
+                    long granted = Math.min(request.optLong("want"), remaining.get());
+                    remaining.addAndGet(-granted);
+                    response.put("granted", granted).put("unlimited", false).put("expiresAt", now.get() + 60_000);
+                }
+                new PrintStream(socket.getOutputStream(), true, StandardCharsets.UTF_8).println(response);
+            } catch (Exception e) {
+                // 测试结束关闭端口
+            }
+        }
+    }
+
+    private QuotaLeaseClient client() {
+        return new QuotaLeaseClient(server.getLocalPort(), "token", now::get);
+    }
+
+    @Test
+    @DisplayName("一次续租后在内存中扣减，配额用完后拒绝")
+    void testDrawDown() throws Exception {
+        remaining.set(3);
+        QuotaLeaseClient client = client();
+        for (int i = 0; i < 3; i++) {
+            assertTrue(client.tryReserve());
+            assertTrue(client.commit());
+        }
+        assertFalse(client.tryReserve());
+        // 第一次续租拿到3次，用完后再续租一次得到0次，之后不再请求
+        assertFalse(client.tryReserve());
+        assertEquals(2, requests.size());
+        // 续租时上报上一批已确认的单位
+        assertEquals(3, requests.get(1).optLong("committed"));
+    }
+
+    @Test
+    @DisplayName("投递失败退回预留，结束时归还未使用的单位")
+    void testCancelAndRelease() throws Exception {
+        remaining.set(20);
+        QuotaLeaseClient client = client();
+        assertTrue(client.tryReserve());
+        client.cancel();
+        assertTrue(client.tryReserve());
+        assertTrue(client.commit());
+        assertTrue(client.tryReserve());
+        client.release();
+
+        // 续租10次，使用1次，其余9次（包括未确认的预留）归还
+        assertEquals(19, remaining.get());
+        JSONObject release = requests.get(requests.size() - 1);
+        assertEquals("release", release.optString("op"));
+        assertEquals(1, release.optLong("committed"));
+    }
+
+    @Test
+    @DisplayName("租约到期后续租并归还上一批未用完的单位")
+    void testExpiry() throws Exception {
+        remaining.set(20);
+        QuotaLeaseClient client = client();
+        assertTrue(client.tryReserve());
+        assertTrue(client.commit());
+
+        now.addAndGet(120_000);
+        assertTrue(client.tryReserve());
+        JSONObject renew = requests.get(requests.size() - 1);
+        assertEquals(9, renew.optLong("unused"));
+        // 20 - 10 + 9 - 10
+        assertEquals(9, remaining.get());
+    }
+}
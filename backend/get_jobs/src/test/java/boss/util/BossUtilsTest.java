@@ -217,5 +217,24 @@ class BossUtilsTest {
         // 注意：实际实现中，如果jobSalary的最大值(10)小于miniSalary(10)，可能返回false
         // 需要查看实际实现逻辑
     }
-}
 
+    @ParameterizedTest
+    @DisplayName("测试从岗位链接提取岗位ID")
+    @CsvSource({
+        "/job_detail/abc123~.html?lid=xyz, abc123~",
+        "https://www.zhipin.com/job_detail/def456.html, def456",
+        "/job_detail/ghi789?ka=search, ghi789"
+    })
+    void testExtractJobId(String href, String expected) {
+        assertEquals(expected, BossUtils.extractJobId(href));
+    }
+
+    @Test
+    @DisplayName("测试从岗位链接提取岗位ID - 无效链接")
+    void testExtractJobId_Invalid() {
+        assertNull(BossUtils.extractJobId(null));
+        assertNull(BossUtils.extractJobId(""));
+        assertNull(BossUtils.extractJobId("/web/geek/job?query=java"));
+        assertNull(BossUtils.extractJobId("/job_detail/.html"));
+    }
+}
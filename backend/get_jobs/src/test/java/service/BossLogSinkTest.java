@@ -0,0 +1,95 @@
+package service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * BossLogSink单元测试
+ */
+@DisplayName("BossLogSink日志汇聚测试")
+class BossLogSinkTest {
+
+    @Test
+    @DisplayName("错误输出中的Playwright噪音被过滤，标准输出不过滤")
+    void testNoiseFilter() {
+        StringWriter out = new StringWriter();
+        try (BossLogSink sink = new BossLogSink(out, (type, payload) -> { })) {
+            assertFalse(sink.accept(BossLogSink.Stream.ERROR, "Error: Cannot find module 'x'"));
+            assertFalse(sink.accept(BossLogSink.Stream.ERROR, "    ^  at Function.load (node:internal)"));
+            assertTrue(sink.accept(BossLogSink.Stream.ERROR, "    at Function.load (node:internal)"));
+            assertTrue(sink.accept(BossLogSink.Stream.OUT, "读取package.json"));
+        }
+        assertEquals("    at Function.load (node:internal)\n读取package.json\n", out.toString());
+    }
+
+    @Test
+    @DisplayName("读取线程的日志批量写入；验证码标记在日志落盘后作为事件回调")
+    void testCaptureAndEvents() throws Exception {
+        StringWriter out = new StringWriter();
+        List<String> events = new ArrayList<>();
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            lines.append("line").append(i).append('\n');
+        }
+        lines.append("2025-01-01 INFO - 🔐 VERIFICATION_CODE_REQUIRED: /tmp/req.json\n");
+
+        // 容量小于行数，覆盖缓冲区写满时的等待
+        try (BossLogSink sink = new BossLogSink(out, (type, payload) -> events.add(type + "=" + payload), 16)) {
+            CountDownLatch latch = new CountDownLatch(1);
+            sink.newCaptureThread(new ByteArrayInputStream(lines.toString().getBytes(StandardCharsets.UTF_8)),
+                BossLogSink.Stream.OUT, latch).start();
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        }
+        assertEquals(lines.toString(), out.toString());
+        assertEquals(List.of("VERIFICATION_CODE_REQUIRED=/tmp/req.json"), events);
+    }
+
+    @Test
+    @DisplayName("日志文件写入失败时丢弃并计数，读取线程不会因缓冲区写满而阻塞，事件照常回调")
+    void testWriteFailureDropsLines() throws Exception {
+        Writer broken = new Writer() {
+            @Override
+            public void write(char[] cbuf, int off, int len) throws IOException {
+                throw new IOException("disk full");
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        List<String> events = new ArrayList<>();
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < 99; i++) {
+            lines.append("line").append(i).append('\n');
+        }
+        lines.append("🔐 VERIFICATION_CODE_REQUIRED: /tmp/req.json\n");
+
+        BossLogSink sink = new BossLogSink(broken, (type, payload) -> events.add(type + "=" + payload), 16);
+        CountDownLatch latch = new CountDownLatch(1);
+        sink.newCaptureThread(new ByteArrayInputStream(lines.toString().getBytes(StandardCharsets.UTF_8)),
+            BossLogSink.Stream.OUT, latch).start();
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        sink.close();
+
+        assertEquals(100, sink.getDroppedCount());
+        assertEquals(List.of("VERIFICATION_CODE_REQUIRED=/tmp/req.json"), events);
+    }
+}
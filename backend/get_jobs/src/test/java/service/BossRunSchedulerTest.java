@@ -0,0 +1,145 @@
+package service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import enums.PlanType;
+
+/**
+ * BossRunScheduler单元测试
+ * 使用手动执行器：任务只在测试调用runNext()时执行，便于观察排队顺序
+ */
+@DisplayName("BossRunScheduler多租户调度测试")
+class BossRunSchedulerTest {
+
+    private final List<Runnable> started = new ArrayList<>();
+    private final List<String> order = new ArrayList<>();
+
+    @Test
+    @DisplayName("超过全局并发上限的任务排队，按套餐权重公平放行，并返回排队位置")
+    void testWeightedFairOrder() {
+        BossRunScheduler scheduler = newScheduler(1, 10, new AtomicBoolean(true));
+        scheduler.submit("running", PlanType.FREE, task("running"));
+        scheduler.submit("free", PlanType.FREE, task("free"));
+        scheduler.submit("pro", PlanType.PROFESSIONAL, task("pro"));
+
+        assertTrue(scheduler.getQueueStatus("running").isRunning());
+        assertEquals(1, scheduler.getQueueStatus("pro").getPosition());
+        assertEquals(2, scheduler.getQueueStatus("free").getPosition());
+        assertTrue(scheduler.getQueueStatus("free").getEtaSeconds() > 0);
+
+        runNext();
+        runNext();
+        runNext();
+        assertEquals(List.of("running", "pro", "free"), order);
+        assertNull(scheduler.getQueueStatus("free"));
+        scheduler.shutdown();
+    }
+
+    @Test
+    @DisplayName("套餐并发上限生效；同一用户不能重复排队；队列满时拒绝")
+    void testLimitsAndRejection() {
+        BossRunScheduler scheduler = newScheduler(2, 1, new AtomicBoolean(true));
+        scheduler.submit("free1", PlanType.FREE, task("free1"));
+        scheduler.submit("free2", PlanType.FREE, task("free2"));
+        // FREE套餐同时只能运行1个，全局还有空位时free2仍需排队
+        assertFalse(scheduler.getQueueStatus("free2").isRunning());
+
+        CompletableFuture<Void> duplicate = scheduler.submit("free2", PlanType.FREE, task("dup"));
+        ExecutionException e = assertThrows(ExecutionException.class, duplicate::get);
+        assertTrue(e.getCause() instanceof IllegalStateException);
+
+        // 队列已满，但BASIC套餐可以立即启动
+        scheduler.submit("basic", PlanType.BASIC, task("basic"));
+        assertTrue(scheduler.getQueueStatus("basic").isRunning());
+        CompletableFuture<Void> rejected = scheduler.submit("free3", PlanType.FREE, task("free3"));
+        assertTrue(rejected.isCompletedExceptionally());
+        scheduler.shutdown();
+    }
+
+    @Test
+    @DisplayName("主机资源不足时只放行第一个任务，其余等待资源恢复")
+    void testAdmissionControl() {
+        AtomicBoolean headroom = new AtomicBoolean(false);
+        BossRunScheduler scheduler = newScheduler(3, 10, headroom);
+        scheduler.submit("a", PlanType.BASIC, task("a"));
+        scheduler.submit("b", PlanType.BASIC, task("b"));
+        assertTrue(scheduler.getQueueStatus("a").isRunning());
+        assertFalse(scheduler.getQueueStatus("b").isRunning());
+
+        headroom.set(true);
+        runNext();
+        assertTrue(scheduler.getQueueStatus("b").isRunning());
+        scheduler.shutdown();
+    }
+
+    @Test
+    @DisplayName("只登录任务走优先通道：并发已满时立即运行，不占并发名额")
+    void testPriorityLane() {
+        BossRunScheduler scheduler = newScheduler(1, 10, new AtomicBoolean(false));
+        scheduler.submit("running", PlanType.FREE, task("running"));
+        scheduler.submit("queued", PlanType.BASIC, task("queued"));
+
+        scheduler.submitPriority("login", PlanType.FREE, task("login"));
+        assertTrue(scheduler.getQueueStatus("login").isRunning());
+        assertEquals(1, scheduler.getQueueStatus("queued").getPosition());
+        // 同一用户不能同时有优先任务和普通任务
+        assertTrue(scheduler.submit("login", PlanType.FREE, task("dup")).isCompletedExceptionally());
+
+        // 登录任务结束不放行排队任务，投递任务结束才放行
+        started.remove(1).run();
+        assertFalse(scheduler.getQueueStatus("queued").isRunning());
+        runNext();
+        assertTrue(scheduler.getQueueStatus("queued").isRunning());
+        assertEquals(List.of("login", "running"), order);
+        scheduler.shutdown();
+    }
+
+    @Test
+    @DisplayName("只有优先通道任务在运行时，主机资源不足也放行一个普通任务")
+    void testPriorityRunDoesNotBlockFirstRun() {
+        BossRunScheduler scheduler = newScheduler(1, 10, new AtomicBoolean(false));
+        scheduler.submitPriority("login", PlanType.FREE, task("login"));
+        scheduler.submit("first", PlanType.BASIC, task("first"));
+        assertTrue(scheduler.getQueueStatus("first").isRunning());
+
+        scheduler.submit("second", PlanType.BASIC, task("second"));
+        assertFalse(scheduler.getQueueStatus("second").isRunning());
+        scheduler.shutdown();
+    }
+
+    private BossRunScheduler newScheduler(int maxConcurrent, int queueCapacity, AtomicBoolean headroom) {
+        Map<PlanType, Integer> limits = new EnumMap<>(PlanType.class);
+        limits.put(PlanType.FREE, 1);
+        limits.put(PlanType.BASIC, 2);
+        limits.put(PlanType.PROFESSIONAL, 2);
+        Map<PlanType, Integer> weights = new EnumMap<>(PlanType.class);
+        weights.put(PlanType.FREE, 1);
+        weights.put(PlanType.BASIC, 2);
+        weights.put(PlanType.PROFESSIONAL, 4);
+        return new BossRunScheduler(maxConcurrent, queueCapacity, limits, weights,
+            headroom::get, started::add, 60_000);
+    }
+
+    private Runnable task(String name) {
+        return () -> order.add(name);
+    }
+
+    private void runNext() {
+        started.remove(0).run();
+    }
+}
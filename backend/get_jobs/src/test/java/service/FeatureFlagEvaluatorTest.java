@@ -0,0 +1,81 @@
+package service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import entity.FeatureFlag;
+import enums.PlanType;
+
+/**
+ * FeatureFlagEvaluator单元测试
+ *
+ * @author ZhiTouJianLi Team
+ */
+class FeatureFlagEvaluatorTest {
+
+    private final FeatureFlag open = flag("smart_greeting", true, null, null);
+    private final FeatureFlag paid = flag("ai_resume_optimization", true,
+        Arrays.asList("BASIC", "PROFESSIONAL", "FLAGSHIP"), null);
+    private final FeatureFlag beta = flag("beta_dashboard", true, Arrays.asList("PROFESSIONAL"),
+        Arrays.asList("user-1"));
+    private final FeatureFlag disabled = flag("legacy_export", false, null, null);
+    private final FeatureFlag flagship = flag("dedicated_advisor", true, Arrays.asList("FLAGSHIP"), null);
+
+    private final List<FeatureFlag> flags = Arrays.asList(open, paid, beta, disabled, flagship);
+    private final FeatureFlagEvaluator evaluator = FeatureFlagEvaluator.compile(flags);
+
+    @Test
+    @DisplayName("判定结果与FeatureFlag.isUserAllowed一致")
+    void matchesEntityRules() {
+        String[] plans = {"FREE", "BASIC", "PROFESSIONAL", "FLAGSHIP", "UNKNOWN"};
+        String[] users = {"user-1", "user-2", null};
+        for (FeatureFlag flag : flags) {
+            for (String plan : plans) {
+                for (String user : users) {
+                    assertEquals(flag.isUserAllowed(user, plan),
+                        evaluator.isAvailable(flag.getFeatureKey(), user, plan),
+                        flag.getFeatureKey() + "/" + plan + "/" + user);
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("按套餐枚举判定，目标用户之外的用户不可用")
+    void evaluatesByPlanType() {
+        assertTrue(evaluator.isAvailable("smart_greeting", "user-2", PlanType.FREE));
+        assertFalse(evaluator.isAvailable("ai_resume_optimization", "user-2", PlanType.FREE));
+        assertTrue(evaluator.isAvailable("ai_resume_optimization", "user-2", PlanType.BASIC));
+        assertTrue(evaluator.isAvailable("beta_dashboard", "user-1", PlanType.PROFESSIONAL));
+        assertFalse(evaluator.isAvailable("beta_dashboard", "user-2", PlanType.PROFESSIONAL));
+        assertFalse(evaluator.isAvailable("no_such_feature", "user-1", PlanType.PROFESSIONAL));
+        assertFalse(evaluator.isEnabled("legacy_export"));
+        assertTrue(evaluator.contains("legacy_export"));
+    }
+
+    @Test
+    @DisplayName("套餐可用功能列表")
+    void listsFeaturesForPlan() {
+        assertEquals(Arrays.asList(open), evaluator.featuresForPlan("FREE"));
+        assertEquals(Arrays.asList(open, paid, beta), evaluator.featuresForPlan("PROFESSIONAL"));
+        assertEquals(Arrays.asList(open, paid, flagship), evaluator.featuresForPlan("FLAGSHIP"));
+        assertEquals(Arrays.asList(open), evaluator.featuresForPlan("UNKNOWN"));
+    }
+
+    private static FeatureFlag flag(String key, boolean enabled, List<String> plans, List<String> users) {
+        return FeatureFlag.builder()
+            .featureKey(key)
+            .featureName(key)
+            .enabled(enabled)
+            .targetPlans(plans)
+            .targetUsers(users)
+            .build();
+    }
+}
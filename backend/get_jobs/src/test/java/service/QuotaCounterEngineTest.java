@@ -0,0 +1,191 @@
+package service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * QuotaCounterEngine单元测试（内存中的使用量存储）
+ *
+ * @author ZhiTouJianLi Team
+ */
+class QuotaCounterEngineTest {
+
+    private static final String USER = "user-1";
+    private static final long QUOTA = 3L;
+
+    private final AtomicReference<LocalDate> today = new AtomicReference<>(LocalDate.of(2025, 11, 3));
+    private MemoryStore store;
+    private QuotaCounterEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        store = new MemoryStore();
+        store.rows.put(MemoryStore.key(USER, QUOTA, today.get()), 2L);
+        engine = new QuotaCounterEngine(store, today::get);
+        engine.start();
+    }
+
+    @Test
+    @DisplayName("启动时从使用记录重建计数器，消费只计入内存，写回后数据库累加")
+    void rebuildsAndWritesBack() {
+        assertTrue(engine.isReady());
+        assertEquals(2L, engine.used(USER, QUOTA));
+
+        assertTrue(engine.tryConsume(USER, QUOTA, 2L, 5L, false));
+        assertFalse(engine.tryConsume(USER, QUOTA, 2L, 5L, false));
+        assertEquals(4L, engine.used(USER, QUOTA));
+        assertEquals(0, store.writes.get());
+
+        engine.flush();
+        assertEquals(4L, stored(USER, today.get()));
+        assertEquals(4L, engine.used(USER, QUOTA));
+    }
+
+    @Test
+    @DisplayName("并发消费不超过上限")
+    void concurrentConsumptionRespectsLimit() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger accepted = new AtomicInteger();
+        for (int i = 0; i < 200; i++) {
+            pool.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                if (engine.tryConsume(USER, QUOTA, 1L, 50L, false)) {
+                    accepted.incrementAndGet();
+                }
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(48, accepted.get());
+        engine.flush();
+        assertEquals(50L, stored(USER, today.get()));
+    }
+
+    @Test
+    @DisplayName("严格模式直接写库，由数据库判定上限（包括其他实例的消费）")
+    void strictModeChecksAgainstStore() {
+        assertTrue(engine.tryConsume(USER, QUOTA, 1L, 4L, true));
+        assertEquals(3L, stored(USER, today.get()));
+
+        // 其他实例消费了1次：本地视图未更新，但数据库拒绝超额并校正本地基数
+        store.rows.put(MemoryStore.key(USER, QUOTA, today.get()), 4L);
+        assertFalse(engine.tryConsume(USER, QUOTA, 1L, 4L, true));
+        assertEquals(4L, engine.used(USER, QUOTA));
+    }
+
+    @Test
+    @DisplayName("引擎之外写入的使用量在写回周期对账，之后按数据库中的值判定上限")
+    void reconcilesExternalWrites() {
+        assertTrue(engine.tryConsume(USER, QUOTA, 1L, 5L, false));
+        engine.flush();
+        assertEquals(3L, engine.used(USER, QUOTA));
+
+        // 子进程直连数据库消费了2次（没有经过本引擎）
+        store.rows.put(MemoryStore.key(USER, QUOTA, today.get()), 5L);
+        engine.flush();
+        assertEquals(5L, engine.used(USER, QUOTA));
+        assertFalse(engine.tryConsume(USER, QUOTA, 1L, 5L, false));
+        assertEquals(0L, engine.consumeUpTo(USER, QUOTA, 10L, 5L, false));
+
+        // 有待写回增量时以写回返回的总量为准
+        store.rows.put(MemoryStore.key(USER, QUOTA, today.get()), 1L);
+        engine.flush();
+        assertTrue(engine.tryConsume(USER, QUOTA, 2L, 5L, false));
+        engine.flush();
+        assertEquals(3L, stored(USER, today.get()));
+        assertEquals(3L, engine.used(USER, QUOTA));
+    }
+
+    @Test
+    @DisplayName("租约按剩余额度发放，归还不退到0以下")
+    void leaseAndRefund() {
+        assertEquals(3L, engine.consumeUpTo(USER, QUOTA, 10L, 5L, false));
+        assertEquals(0L, engine.consumeUpTo(USER, QUOTA, 10L, 5L, false));
+        assertEquals(5L, engine.refund(USER, QUOTA, 9L, false));
+        assertEquals(0L, engine.used(USER, QUOTA));
+
+        assertEquals(2L, engine.consumeUpTo("user-2", QUOTA, 2L, 5L, true));
+        assertEquals(2L, stored("user-2", today.get()));
+    }
+
+    @Test
+    @DisplayName("跨天后使用新的周期，旧周期写回后清理")
+    void rollsOverToNextPeriod() {
+        assertTrue(engine.tryConsume(USER, QUOTA, 1L, 5L, false));
+        LocalDate yesterday = today.get();
+        today.set(yesterday.plusDays(1));
+
+        assertEquals(0L, engine.used(USER, QUOTA));
+        engine.flush();
+        assertEquals(3L, stored(USER, yesterday));
+    }
+
+    private long stored(String userId, LocalDate period) {
+        return store.load(userId, QUOTA, period);
+    }
+
+    private static final class MemoryStore implements QuotaCounterEngine.UsageStore {
+        private final Map<String, Long> rows = new HashMap<>();
+        private final AtomicInteger writes = new AtomicInteger();
+
+        static String key(String userId, long quotaId, LocalDate period) {
+            return userId + "|" + quotaId + "|" + period;
+        }
+
+        @Override
+        public void prepare() {
+        }
+
+        @Override
+        public synchronized void loadPeriod(LocalDate period, QuotaCounterEngine.UsageConsumer consumer) {
+            rows.forEach((key, used) -> {
+                String[] parts = key.split("\\|");
+                if (parts[2].equals(period.toString())) {
+                    consumer.accept(parts[0], Long.parseLong(parts[1]), used);
+                }
+            });
+        }
+
+        @Override
+        public synchronized long load(String userId, long quotaId, LocalDate period) {
+            return rows.getOrDefault(key(userId, quotaId, period), 0L);
+        }
+
+        @Override
+        public synchronized long add(String userId, long quotaId, LocalDate period, long delta) {
+            writes.incrementAndGet();
+            return rows.merge(key(userId, quotaId, period), Math.max(0L, delta), (a, b) -> Math.max(0L, a + delta));
+        }
+
+        @Override
+        public synchronized Long addWithin(String userId, long quotaId, LocalDate period, long delta, long limit) {
+            long current = load(userId, quotaId, period);
+            if (current + delta > limit) {
+                return null;
+            }
+            return add(userId, quotaId, period, delta);
+        }
+    }
+}
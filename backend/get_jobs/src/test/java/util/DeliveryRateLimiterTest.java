@@ -0,0 +1,194 @@
+package util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * DeliveryRateLimiter单元测试（可调时钟）
+ *
+ * @author ZhiTouJianLi Team
+ */
+class DeliveryRateLimiterTest {
+
+    private static final ZoneId ZONE = ZoneOffset.ofHours(8);
+
+    private final MutableClock clock = new MutableClock(at(10, 0));
+
+    @Test
+    @DisplayName("每小时上限按滑动窗口计算，整点交界处不会连续放行")
+    void hourlyLimitSlides() {
+        DeliveryRateLimiter limiter = limiter(DeliveryPolicy.builder().hourlyLimit(2), 0);
+        clock.set(at(10, 50));
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+        assertEquals(DeliveryRateLimiter.Limit.HOURLY_LIMIT, limiter.blockingLimit());
+
+        // 过了整点仍在同一个滑动小时内
+        clock.set(at(11, 5));
+        assertFalse(limiter.tryAcquire());
+        assertEquals(at(11, 50), limiter.nextAllowedAt());
+
+        clock.set(at(11, 50));
+        assertTrue(limiter.tryAcquire());
+        assertEquals(1, limiter.hourlyCount());
+    }
+
+    @Test
+    @DisplayName("最短间隔：nextAllowedAt给出上次投递加间隔")
+    void minIntervalGivesExactWait() {
+        DeliveryRateLimiter limiter = limiter(DeliveryPolicy.builder().minInterval(Duration.ofMinutes(8)), 0);
+        limiter.record();
+        assertEquals(DeliveryRateLimiter.Limit.MIN_INTERVAL, limiter.blockingLimit());
+        assertEquals(at(10, 8), limiter.nextAllowedAt());
+        assertEquals(Duration.ofMinutes(8).toMillis(), limiter.millisUntilAllowed());
+
+        clock.set(at(10, 8));
+        assertEquals(DeliveryRateLimiter.Limit.NONE, limiter.blockingLimit());
+        assertEquals(0L, limiter.millisUntilAllowed());
+    }
+
+    @Test
+    @DisplayName("每日上限计入已投递数量，次日零点后放行")
+    void dailyLimitRollsOver() {
+        DeliveryRateLimiter limiter = limiter(DeliveryPolicy.builder().dailyLimit(3), 2);
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+        assertEquals(DeliveryRateLimiter.Limit.DAILY_LIMIT, limiter.blockingLimit());
+        assertEquals(at(24, 0), limiter.nextAllowedAt());
+
+        clock.set(at(24, 0));
+        assertEquals(0, limiter.dailyCount());
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    @DisplayName("投递时间段：段外等到开始时刻，跨零点的时间段同样适用")
+    void timeWindow() {
+        DeliveryRateLimiter daytime = limiter(DeliveryPolicy.builder()
+            .window(LocalTime.of(9, 0), LocalTime.of(18, 0)), 0);
+        clock.set(at(8, 30));
+        assertEquals(DeliveryRateLimiter.Limit.TIME_WINDOW, daytime.blockingLimit());
+        assertEquals(at(9, 0), daytime.nextAllowedAt());
+        clock.set(at(18, 0));
+        assertEquals(at(24 + 9, 0), daytime.nextAllowedAt());
+
+        DeliveryRateLimiter overnight = limiter(DeliveryPolicy.builder()
+            .window(LocalTime.of(22, 0), LocalTime.of(6, 0)), 0);
+        clock.set(at(12, 0));
+        assertEquals(at(22, 0), overnight.nextAllowedAt());
+        clock.set(at(23, 0));
+        assertTrue(overnight.tryAcquire());
+    }
+
+    @Test
+    @DisplayName("每日上限与时间段同时生效：顺延到次日时间段开始")
+    void dailyLimitThenWindow() {
+        DeliveryRateLimiter limiter = limiter(DeliveryPolicy.builder()
+            .dailyLimit(1)
+            .window(LocalTime.of(9, 0), LocalTime.of(18, 0)), 1);
+        assertEquals(at(24 + 9, 0), limiter.nextAllowedAt());
+        assertEquals(DeliveryRateLimiter.NEVER,
+            limiter(DeliveryPolicy.builder().dailyLimit(0), 0).nextAllowedAt());
+    }
+
+    @Test
+    @DisplayName("每小时上限为0时不允许投递")
+    void zeroHourlyLimitBlocks() {
+        DeliveryRateLimiter limiter = limiter(DeliveryPolicy.builder().hourlyLimit(0), 0);
+        assertEquals(DeliveryRateLimiter.Limit.HOURLY_LIMIT, limiter.blockingLimit());
+        assertEquals(DeliveryRateLimiter.NEVER, limiter.nextAllowedAt());
+        assertEquals(DeliveryRateLimiter.NEVER, limiter.millisUntilAllowed());
+        assertFalse(limiter.tryAcquire());
+        limiter.record();
+        assertEquals(DeliveryRateLimiter.Limit.HOURLY_LIMIT, limiter.blockingLimit());
+    }
+
+    @Test
+    @DisplayName("并发获取不超过上限")
+    void concurrentAcquireRespectsLimit() throws Exception {
+        DeliveryRateLimiter limiter = limiter(DeliveryPolicy.builder().hourlyLimit(20).dailyLimit(50), 0);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger accepted = new AtomicInteger();
+        for (int i = 0; i < 200; i++) {
+            pool.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                if (limiter.tryAcquire()) {
+                    accepted.incrementAndGet();
+                }
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(20, accepted.get());
+        assertEquals(20, limiter.dailyCount());
+    }
+
+    private DeliveryRateLimiter limiter(DeliveryPolicy.Builder builder, int todayCount) {
+        return new DeliveryRateLimiter(builder.zone(ZONE).build(), clock, todayCount);
+    }
+
+    /**
+     * @return 2025-11-03当天（hour可超过24表示次日）的毫秒时间戳
+     */
+    private static long at(int hour, int minute) {
+        return LocalDateTime.of(2025, 11, 3, 0, 0).plusHours(hour).plusMinutes(minute)
+            .atZone(ZONE).toInstant().toEpochMilli();
+    }
+
+    private static final class MutableClock extends Clock {
+        private volatile long millis;
+
+        MutableClock(long millis) {
+            this.millis = millis;
+        }
+
+        void set(long millis) {
+            this.millis = millis;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZONE;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+    }
+}